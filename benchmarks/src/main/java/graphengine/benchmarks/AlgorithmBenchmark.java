@@ -0,0 +1,75 @@
+package graphengine.benchmarks;
+
+import graphengine.Graph;
+import graphengine.algorithms.BFS;
+import graphengine.algorithms.DFS;
+import graphengine.algorithms.ComponentResult;
+import graphengine.algorithms.IdentifySTC;
+import graphengine.algorithms.StronglyConnectedComponents;
+import graphengine.algorithms.TopologicalSort;
+import graphengine.algorithms.TraversalContext;
+import graphengine.algorithms.TraversalResult;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the five graph algorithms on a graph that is built once per trial
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AlgorithmBenchmark {
+    @Param({"SPARSE_RANDOM", "POWER_LAW", "CHAIN", "DENSE_CLIQUES"})
+    public GraphShape shape;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Graph graph;
+
+    @Setup(Level.Trial)
+    public void build() {
+        graph = shape.generate(size, 42).addTo(new Graph(), true);
+    }
+
+    @Benchmark
+    public TraversalResult bfs() {
+        return BFS.traverse(graph, "0", new TraversalContext());
+    }
+
+    @Benchmark
+    public TraversalResult dfs() {
+        return DFS.traverse(graph, "0", new TraversalContext());
+    }
+
+    @Benchmark
+    public LinkedList<String> topologicalSort() {
+        return TopologicalSort.runTopologicalSort(graph);
+    }
+
+    @Benchmark
+    public LinkedList<String>[] identifySTC() {
+        return IdentifySTC.identifySTC(graph);
+    }
+
+    @Benchmark
+    public ComponentResult stronglyConnectedComponents() {
+        return StronglyConnectedComponents.findComponents(graph);
+    }
+}
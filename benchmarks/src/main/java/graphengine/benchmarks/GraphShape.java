@@ -0,0 +1,141 @@
+package graphengine.benchmarks;
+
+import graphengine.Graph;
+import graphengine.Vertex;
+import graphengine.generators.BarabasiAlbertGenerator;
+import graphengine.generators.ErdosRenyiGenerator;
+import graphengine.generators.GraphGenerator;
+import graphengine.generators.LayeredDagGenerator;
+import graphengine.generators.SocialGraphGenerator;
+
+import java.util.Arrays;
+
+/**
+ * The shapes of graph the benchmarks sweep over, each drawn by one of the generators. Every edge is turned to
+ * go from a lower numbered vertex to a higher numbered one, so every shape is also a valid input for
+ * topological sort.
+ */
+public enum GraphShape {
+    // about four edges per vertex between uniformly random pairs (Erdos-Renyi)
+    SPARSE_RANDOM,
+
+    // preferential attachment, where every new vertex links to four earlier ones chosen by degree, giving hubs
+    // (Barabasi-Albert)
+    POWER_LAW,
+
+    // one long path, the worst case for traversal depth (a layered DAG one vertex wide)
+    CHAIN,
+
+    // communities of CLIQUE_SIZE vertices with most pairs inside a community joined, and a few edges between
+    // communities (social graph)
+    DENSE_CLIQUES;
+
+    private static final int EDGES_PER_VERTEX = 4;
+    private static final int CLIQUE_SIZE = 32;
+
+    // the share of edges between communities of DENSE_CLIQUES
+    private static final double BRIDGE_RATIO = 1.0 / CLIQUE_SIZE;
+
+    // the share of edges that are strong ties
+    private static final double STRONG_RATIO = 1.0 / 3;
+
+    /**
+     * Generates the edges of a graph of this shape
+     *
+     * @param size      the number of vertices
+     * @param seed      the seed, so every run of a benchmark sees the same graph
+     * @return the edges
+     */
+    public Edges generate(int size, long seed) {
+        GraphGenerator generator;
+        if (this == SPARSE_RANDOM) {
+            generator = new ErdosRenyiGenerator(size, (long) size * EDGES_PER_VERTEX, false, STRONG_RATIO, seed);
+        } else if (this == POWER_LAW) {
+            generator = new BarabasiAlbertGenerator(size, EDGES_PER_VERTEX, STRONG_RATIO, seed);
+        } else if (this == CHAIN) {
+            generator = new LayeredDagGenerator(size, 1, 1, 1, STRONG_RATIO, seed);
+        } else {
+            generator = new SocialGraphGenerator(size, CLIQUE_SIZE, CLIQUE_SIZE / 2, BRIDGE_RATIO, STRONG_RATIO,
+                    seed);
+        }
+        // the generator drops self-loops and duplicates on the way into a graph, whose edges are then listed
+        // in order of their lower endpoint
+        Graph graph = generator.addTo(new Graph());
+        Edges edges = new Edges(size);
+        for (int vertex = 0; vertex < size; vertex++) {
+            Vertex vertexObj = graph.getVertex(edges.getLabel(vertex));
+            for (int slot = vertexObj.nextNeighborSlot(-1); slot >= 0; slot = vertexObj.nextNeighborSlot(slot)) {
+                int neighbor = Integer.parseInt(vertexObj.getNeighborAt(slot).getLabel());
+                // an undirected edge is listed once, from its lower endpoint
+                if (neighbor > vertex || generator.isDirected()) {
+                    edges.add(Math.min(vertex, neighbor), Math.max(vertex, neighbor),
+                            vertexObj.getTieStrengthAt(slot));
+                }
+            }
+        }
+        return edges;
+    }
+
+    /**
+     * The generated edges of a graph, with about a third of them strong ties
+     */
+    public static final class Edges {
+        private final String[] labels;
+        private int[] sources;
+        private int[] targets;
+        private Character[] tieStrengths;
+        private int count;
+
+        Edges(int size) {
+            this.labels = new String[size];
+            for (int vertex = 0; vertex < size; vertex++) {
+                labels[vertex] = String.valueOf(vertex);
+            }
+            this.sources = new int[16];
+            this.targets = new int[16];
+            this.tieStrengths = new Character[16];
+            this.count = 0;
+        }
+
+        void add(int source, int target, Character tieStrength) {
+            if (count == sources.length) {
+                sources = Arrays.copyOf(sources, count * 2);
+                targets = Arrays.copyOf(targets, count * 2);
+                tieStrengths = Arrays.copyOf(tieStrengths, count * 2);
+            }
+            sources[count] = source;
+            targets[count] = target;
+            tieStrengths[count] = tieStrength;
+            count++;
+        }
+
+        public int getCount() {
+            return count;
+        }
+
+        public String getLabel(int vertex) {
+            return labels[vertex];
+        }
+
+        /**
+         * Adds every vertex and edge to a graph
+         *
+         * @param graph         the graph to add to
+         * @param directed      true to add directed edges, false to add undirected edges
+         * @return the graph
+         */
+        public Graph addTo(Graph graph, boolean directed) {
+            for (String label : labels) {
+                graph.addVertex(label);
+            }
+            for (int edge = 0; edge < count; edge++) {
+                if (directed) {
+                    graph.addDirectedEdge(labels[sources[edge]], labels[targets[edge]], tieStrengths[edge]);
+                } else {
+                    graph.addUndirectedEdge(labels[sources[edge]], labels[targets[edge]], tieStrengths[edge]);
+                }
+            }
+            return graph;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package graphengine.benchmarks;
+
+import graphengine.Graph;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building a graph edge by edge and tearing it down vertex by vertex
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MutationBenchmark {
+    @Param({"SPARSE_RANDOM", "POWER_LAW", "CHAIN", "DENSE_CLIQUES"})
+    public GraphShape shape;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private GraphShape.Edges edges;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        edges = shape.generate(size, 42);
+    }
+
+    @Benchmark
+    public Graph addDirectedEdges() {
+        return edges.addTo(new Graph(), true);
+    }
+
+    @Benchmark
+    public Graph addUndirectedEdges() {
+        return edges.addTo(new Graph(), false);
+    }
+
+    @Benchmark
+    public Graph deleteVertices(BuiltGraph built) {
+        Graph graph = built.graph;
+        for (int vertex = 0; vertex < size; vertex++) {
+            graph.deleteVertex(edges.getLabel(vertex));
+        }
+        return graph;
+    }
+
+    /**
+     * A freshly built graph for every invocation, so deleteVertices always starts from a full graph
+     */
+    @State(Scope.Thread)
+    public static class BuiltGraph {
+        private Graph graph;
+
+        @Setup(Level.Invocation)
+        public void build(MutationBenchmark benchmark) {
+            graph = benchmark.edges.addTo(new Graph(), true);
+        }
+    }
+}
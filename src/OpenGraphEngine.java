@@ -1,9 +1,20 @@
 import graphengine.RunGraphEngine;
+import graphengine.cli.HeadlessRunner;
 
 import javax.swing.SwingUtilities;
 
 public class OpenGraphEngine {
     public static void main(String[] args) {
+        // with arguments, run one algorithm headless instead of opening the window
+        if (args.length > 0) {
+            HeadlessRunner.main(args);
+        } else {
+            openWindow();
+        }
+    }
+
+    // kept apart from main so the Swing classes only load when the window is opened
+    private static void openWindow() {
         Runnable graphEngine = new RunGraphEngine();
         SwingUtilities.invokeLater(graphEngine);
     }
@@ -0,0 +1,171 @@
+package graphengine;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+/**
+ * Off-heap memory for the tables of adjacency maps. The memory is taken from the operating system in direct
+ * buffer chunks and handed out in blocks of a power of two ints, each size class with its own free list, so
+ * the tables of a graph put no pressure on the garbage collector however many edges it has. Free blocks never
+ * coalesce and chunks are never returned, so the arena only shrinks when it is dropped and its buffers are
+ * collected.
+ *
+ * A block is named by a handle, chunk index << 32 | offset in ints. Blocks are handed out and given back under
+ * the arena's lock, so the tables of different vertices can change at the same time, but a block must only be
+ * read and written by one thread at a time while it changes.
+ */
+final class AdjacencyArena {
+    // the ints in a chunk, 64 MiB
+    private static final int CHUNK_INTS = 1 << 24;
+
+    // the largest block, 1 GiB, which holds the edges of a vertex with two hundred million neighbors
+    private static final int MAX_BLOCK_INTS = 1 << 28;
+
+    // the memory, a block never spanning two chunks. Copied rather than changed when a chunk is added, so
+    // readers need no lock.
+    private volatile IntBuffer[] chunks;
+
+    // the chunk that small blocks are cut from, and its first free int
+    private int bumpChunk;
+    private int bump;
+
+    // the handles of the blocks given back, by size class, with the number of handles in each list
+    private final long[][] freeBlocks;
+    private final int[] freeCounts;
+
+    // the number of bytes taken from the operating system, and the bytes in blocks that are handed out
+    private long reservedBytes;
+    private long usedBytes;
+
+    AdjacencyArena() {
+        this.chunks = new IntBuffer[0];
+        this.bumpChunk = -1;
+        this.bump = CHUNK_INTS;
+        this.freeBlocks = new long[Integer.numberOfTrailingZeros(MAX_BLOCK_INTS) + 1][];
+        this.freeCounts = new int[freeBlocks.length];
+        for (int sizeClass = 0; sizeClass < freeBlocks.length; sizeClass++) {
+            freeBlocks[sizeClass] = new long[0];
+        }
+    }
+
+    /**
+     * Hands out a zeroed block
+     *
+     * @param ints      the size of the block, a power of two
+     * @return the handle of the block
+     * @throws IllegalArgumentException if the block is larger than the largest block
+     */
+    synchronized long allocate(int ints) {
+        if (ints > MAX_BLOCK_INTS) {
+            throw new IllegalArgumentException("Adjacency Table is Too Large for Off-Heap Storage");
+        }
+        int sizeClass = Integer.numberOfTrailingZeros(ints);
+        long handle;
+        if (freeCounts[sizeClass] > 0) {
+            handle = freeBlocks[sizeClass][--freeCounts[sizeClass]];
+            IntBuffer chunk = chunks[(int) (handle >>> 32)];
+            int offset = (int) handle;
+            for (int i = 0; i < ints; i++) {
+                chunk.put(offset + i, 0);
+            }
+        } else if (ints > CHUNK_INTS) {
+            // a block larger than a chunk gets a chunk of its own, which new direct buffers already zero
+            handle = (long) addChunk(ints) << 32;
+        } else {
+            if (CHUNK_INTS - bump < ints) {
+                // the end of the chunk is too small, so hand its pieces to the free lists and start a new one
+                while (bumpChunk >= 0 && bump < CHUNK_INTS) {
+                    int piece = Integer.highestOneBit(CHUNK_INTS - bump);
+                    release((long) bumpChunk << 32 | bump, Integer.numberOfTrailingZeros(piece));
+                    bump += piece;
+                }
+                bumpChunk = addChunk(CHUNK_INTS);
+                bump = 0;
+            }
+            handle = (long) bumpChunk << 32 | bump;
+            bump += ints;
+        }
+        usedBytes += 4L * ints;
+        return handle;
+    }
+
+    /**
+     * Takes a block back so it can be handed out again
+     *
+     * @param handle    the handle of the block
+     * @param ints      the size of the block
+     */
+    synchronized void free(long handle, int ints) {
+        usedBytes -= 4L * ints;
+        release(handle, Integer.numberOfTrailingZeros(ints));
+    }
+
+    /**
+     * Reads an int of a block
+     *
+     * @param handle    the handle of the block
+     * @param index     the index of the int in the block
+     * @return the int
+     */
+    int get(long handle, int index) {
+        return chunks[(int) (handle >>> 32)].get((int) handle + index);
+    }
+
+    /**
+     * Writes an int of a block
+     *
+     * @param handle    the handle of the block
+     * @param index     the index of the int in the block
+     * @param value     the int
+     */
+    void set(long handle, int index, int value) {
+        chunks[(int) (handle >>> 32)].put((int) handle + index, value);
+    }
+
+    /**
+     * Returns the number of bytes of direct memory this arena holds
+     *
+     * @return reserved bytes
+     */
+    synchronized long getReservedBytes() {
+        return reservedBytes;
+    }
+
+    /**
+     * Returns the number of bytes in blocks that are handed out
+     *
+     * @return used bytes
+     */
+    synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    /**
+     * Pushes a block onto the free list of its size class
+     *
+     * @param handle        the handle of the block
+     * @param sizeClass     the log2 of the size of the block
+     */
+    private void release(long handle, int sizeClass) {
+        if (freeCounts[sizeClass] == freeBlocks[sizeClass].length) {
+            freeBlocks[sizeClass] = Arrays.copyOf(freeBlocks[sizeClass], Math.max(16, freeCounts[sizeClass] * 2));
+        }
+        freeBlocks[sizeClass][freeCounts[sizeClass]++] = handle;
+    }
+
+    /**
+     * Takes a new chunk of direct memory from the operating system
+     *
+     * @param ints      the size of the chunk
+     * @return the index of the chunk
+     */
+    private int addChunk(int ints) {
+        IntBuffer[] grown = Arrays.copyOf(chunks, chunks.length + 1);
+        grown[chunks.length] = ByteBuffer.allocateDirect(ints * 4).order(ByteOrder.nativeOrder()).asIntBuffer();
+        chunks = grown;
+        reservedBytes += 4L * ints;
+        return grown.length - 1;
+    }
+}
@@ -0,0 +1,324 @@
+package graphengine;
+
+import java.util.HashMap;
+
+/**
+ * An open-addressing hash map from vertex ids to tie strengths, used for the edges of a vertex. Each entry is
+ * a single int, (id + 1) << 2 | tie code, so an edge costs 4 to 8 bytes instead of a HashMap node and a boxed
+ * Character. Collisions are resolved by linear probing and deletions shift the entries after them back, so
+ * the table never fills up with tombstones.
+ *
+ * The table lives in an int array, or in a block of an adjacency arena for graphs kept off the heap.
+ *
+ * The entries can be walked by slot without allocating: start with nextSlot(-1) and stop at -1. The map must
+ * not be changed during such a walk.
+ */
+final class AdjacencyMap {
+    // tie codes of the two low bits of an entry
+    private static final int NO_TIE = 0;
+    private static final int WEAK = 1;
+    private static final int STRONG = 2;
+    private static final int OTHER = 3;
+
+    // the entry of an empty slot, which no vertex id encodes to
+    private static final int EMPTY = 0;
+
+    // the largest id that fits in an entry next to the tie code
+    private static final int MAX_ID = (1 << 29) - 2;
+
+    // the table of a map without entries, shared so empty maps cost nothing
+    private static final int[] NO_SLOTS = new int[0];
+
+    private static final int MIN_CAPACITY = 4;
+
+    // the arena holding the table, or null if the table is an array
+    private final AdjacencyArena arena;
+
+    // the entries, a power of two long and at most three quarters full, in the array or in the arena block
+    private int[] slots;
+    private long block;
+    private int capacity;
+
+    // the number of entries
+    private int size;
+
+    // the tie strengths that are not 'S', 'W' or null, by neighbor id, or null if there are none
+    private HashMap<Integer, Character> otherTies;
+
+    /**
+     * Creates an empty map
+     *
+     * @param arena     the arena to keep the table in, or null to keep it in an array
+     */
+    AdjacencyMap(AdjacencyArena arena) {
+        this.arena = arena;
+        this.slots = NO_SLOTS;
+        this.block = -1;
+        this.capacity = 0;
+        this.size = 0;
+        this.otherTies = null;
+    }
+
+    /**
+     * Returns the number of entries
+     *
+     * @return size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map has an entry for a vertex
+     *
+     * @param id    vertex id
+     * @return true, if there is an entry, false otherwise
+     */
+    boolean contains(int id) {
+        return find(id) >= 0;
+    }
+
+    /**
+     * Returns the tie strength of the entry for a vertex
+     *
+     * @param id    vertex id
+     * @return the tie strength, or null if there is no entry or the entry has no tie strength
+     */
+    Character get(int id) {
+        int slot = find(id);
+        return slot < 0 ? null : getTieStrengthAt(slot);
+    }
+
+    /**
+     * Adds an entry for a vertex, or replaces its tie strength if it already has one
+     *
+     * @param id            vertex id
+     * @param tieStrength   the tie strength, or null
+     * @throws IllegalArgumentException if the id is too large to encode
+     */
+    void put(int id, Character tieStrength) {
+        if (id < 0 || id > MAX_ID) {
+            throw new IllegalArgumentException("Vertex Id is Too Large for an Adjacency Map");
+        }
+        int code = encode(tieStrength);
+        if (code == OTHER) {
+            if (otherTies == null) {
+                otherTies = new HashMap<>();
+            }
+            otherTies.put(id, tieStrength);
+        } else if (otherTies != null) {
+            otherTies.remove(id);
+        }
+        int slot = find(id);
+        if (slot >= 0) {
+            write(slot, (id + 1) << 2 | code);
+            return;
+        }
+        if ((size + 1) * 4 > capacity * 3) {
+            resize(Math.max(MIN_CAPACITY, capacity * 2));
+        }
+        int mask = capacity - 1;
+        slot = home(id, mask);
+        while (read(slot) != EMPTY) {
+            slot = (slot + 1) & mask;
+        }
+        write(slot, (id + 1) << 2 | code);
+        size++;
+    }
+
+    /**
+     * Removes the entry for a vertex
+     *
+     * @param id    vertex id
+     * @return true, if there was an entry, false otherwise
+     */
+    boolean remove(int id) {
+        int slot = find(id);
+        if (slot < 0) {
+            return false;
+        }
+        if ((read(slot) & 3) == OTHER) {
+            otherTies.remove(id);
+            if (otherTies.isEmpty()) {
+                otherTies = null;
+            }
+        }
+        // shift every following entry of the probe run that may live in the hole back into it
+        int mask = capacity - 1;
+        int hole = slot;
+        int entry;
+        for (int next = (slot + 1) & mask; (entry = read(next)) != EMPTY; next = (next + 1) & mask) {
+            int home = home((entry >>> 2) - 1, mask);
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                write(hole, entry);
+                hole = next;
+            }
+        }
+        write(hole, EMPTY);
+        size--;
+        // give the memory of a map that lost most of its entries back
+        if (size == 0 || capacity > MIN_CAPACITY && size * 8 < capacity) {
+            resize(size == 0 ? 0 : Math.max(MIN_CAPACITY, Integer.highestOneBit(size * 2 - 1) * 2));
+        }
+        return true;
+    }
+
+    /**
+     * Returns the first slot after a slot that holds an entry
+     *
+     * @param slot  the slot to start after, -1 to start at the beginning
+     * @return the next slot with an entry, or -1 if there is none
+     */
+    int nextSlot(int slot) {
+        for (int next = slot + 1; next < capacity; next++) {
+            if (read(next) != EMPTY) {
+                return next;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the vertex id of the entry in a slot
+     *
+     * @param slot  a slot with an entry
+     * @return vertex id
+     */
+    int getIdAt(int slot) {
+        return (read(slot) >>> 2) - 1;
+    }
+
+    /**
+     * Returns the tie strength of the entry in a slot
+     *
+     * @param slot  a slot with an entry
+     * @return the tie strength, or null if the entry has none
+     */
+    Character getTieStrengthAt(int slot) {
+        switch (read(slot) & 3) {
+            case WEAK:
+                return 'W';
+            case STRONG:
+                return 'S';
+            case OTHER:
+                return otherTies.get(getIdAt(slot));
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Returns the slot holding the entry for a vertex
+     *
+     * @param id    vertex id
+     * @return the slot, or -1 if there is no entry
+     */
+    private int find(int id) {
+        if (size == 0) {
+            return -1;
+        }
+        int mask = capacity - 1;
+        int key = id + 1;
+        int entry;
+        for (int slot = home(id, mask); (entry = read(slot)) != EMPTY; slot = (slot + 1) & mask) {
+            if (entry >>> 2 == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Removes every entry and gives the table back
+     */
+    void clear() {
+        otherTies = null;
+        size = 0;
+        resize(0);
+    }
+
+    /**
+     * Moves every entry into a table of a new capacity
+     *
+     * @param newCapacity   the new number of slots, a power of two or 0
+     */
+    private void resize(int newCapacity) {
+        int[] oldSlots = slots;
+        long oldBlock = block;
+        int oldCapacity = capacity;
+        if (arena == null) {
+            slots = newCapacity == 0 ? NO_SLOTS : new int[newCapacity];
+        } else {
+            block = newCapacity == 0 ? -1 : arena.allocate(newCapacity);
+        }
+        capacity = newCapacity;
+        int mask = newCapacity - 1;
+        // a cleared map drops its entries instead of moving them
+        for (int oldSlot = 0; oldSlot < oldCapacity && newCapacity > 0; oldSlot++) {
+            int entry = arena == null ? oldSlots[oldSlot] : arena.get(oldBlock, oldSlot);
+            if (entry != EMPTY) {
+                int slot = home((entry >>> 2) - 1, mask);
+                while (read(slot) != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                write(slot, entry);
+            }
+        }
+        if (arena != null && oldCapacity > 0) {
+            arena.free(oldBlock, oldCapacity);
+        }
+    }
+
+    /**
+     * Reads the entry in a slot
+     *
+     * @param slot  the slot
+     * @return the entry, EMPTY for an empty slot
+     */
+    private int read(int slot) {
+        return arena == null ? slots[slot] : arena.get(block, slot);
+    }
+
+    /**
+     * Writes the entry in a slot
+     *
+     * @param slot      the slot
+     * @param entry     the entry
+     */
+    private void write(int slot, int entry) {
+        if (arena == null) {
+            slots[slot] = entry;
+        } else {
+            arena.set(block, slot, entry);
+        }
+    }
+
+    /**
+     * Returns the slot a vertex is probed from
+     *
+     * @param id    vertex id
+     * @param mask  the number of slots minus one
+     * @return the slot
+     */
+    private static int home(int id, int mask) {
+        int hash = (id + 1) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    /**
+     * Returns the tie code of a tie strength
+     *
+     * @param tieStrength   the tie strength, or null
+     * @return the tie code
+     */
+    private static int encode(Character tieStrength) {
+        if (tieStrength == null) {
+            return NO_TIE;
+        } else if (tieStrength == 'W') {
+            return WEAK;
+        } else if (tieStrength == 'S') {
+            return STRONG;
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,150 @@
+package graphengine;
+
+import graphengine.algorithms.ProgressListener;
+import graphengine.algorithms.TraversalContext;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs algorithms on background threads and hands their progress and results to a callback executor, such
+ * as the Swing event dispatch thread. Each job gets its own traversal context, which it must pass to the
+ * algorithm it runs so the job can report progress and be cancelled.
+ *
+ * An algorithm must not read a graph that another thread is changing, so a job should run on a compact
+ * graph frozen before it is submitted, or freeze a version of a versioned graph pinned before it is submitted.
+ */
+public class AlgorithmExecutor {
+    // runs the jobs, on daemon threads so a running job never keeps the program alive
+    private final ExecutorService workers;
+
+    // runs every callback, in the order the callbacks were made
+    private final Executor callbacks;
+
+    /**
+     * Creates an executor
+     *
+     * @param callbacks     the executor that runs the progress, result and failure callbacks
+     */
+    public AlgorithmExecutor(Executor callbacks) {
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "graph-algorithm-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.callbacks = callbacks;
+    }
+
+    /**
+     * Submits a job. Exactly one of onResult and onFailure is called once the job ends, unless the job was
+     * cancelled, in which case neither is called. An error such as an OutOfMemoryError also ends the job
+     * through onFailure, so a caller waiting for the job always hears back.
+     *
+     * @param algorithm     the algorithm to run, given the job's traversal context
+     * @param onProgress    called with the latest progress while the job runs, skipping reports that arrive
+     *                      faster than the callback executor can run them
+     * @param onResult      called with the result of the algorithm
+     * @param onFailure     called with the exception or error the algorithm threw
+     * @param <T>           the type of the result
+     * @return the job
+     */
+    public <T> Job submit(Function<TraversalContext, T> algorithm, ProgressListener onProgress,
+                          Consumer<? super T> onResult, Consumer<? super Throwable> onFailure) {
+        Job job = new Job(onProgress);
+        workers.execute(() -> {
+            T result;
+            try {
+                result = algorithm.apply(job.context);
+            } catch (CancellationException e) {
+                return;
+            } catch (Throwable e) {
+                job.finish(() -> onFailure.accept(e));
+                return;
+            }
+            job.finish(() -> onResult.accept(result));
+        });
+        return job;
+    }
+
+    /**
+     * Stops accepting jobs, letting the running jobs finish
+     */
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * A submitted algorithm run
+     */
+    public final class Job {
+        private final TraversalContext context;
+
+        // the latest progress, with visited in the high half and total in the low half
+        private final AtomicLong latestProgress;
+
+        // true while a progress callback is queued, so a fast run queues at most one at a time
+        private final AtomicBoolean progressQueued;
+
+        // set once the job has ended or was cancelled, read on the callback executor
+        private volatile boolean done;
+
+        private Job(ProgressListener onProgress) {
+            this.context = new TraversalContext();
+            this.latestProgress = new AtomicLong();
+            this.progressQueued = new AtomicBoolean();
+            this.done = false;
+            context.setProgressListener((visited, total) -> {
+                latestProgress.set(((long) visited << 32) | (total & 0xFFFFFFFFL));
+                if (progressQueued.compareAndSet(false, true)) {
+                    callbacks.execute(() -> {
+                        progressQueued.set(false);
+                        long progress = latestProgress.get();
+                        if (!done) {
+                            onProgress.progress((int) (progress >>> 32), (int) progress);
+                        }
+                    });
+                }
+            });
+        }
+
+        /**
+         * Cancels the job. The algorithm stops at its next progress report, and none of the job's callbacks
+         * run after this returns, if it is called on the callback executor.
+         */
+        public void cancel() {
+            done = true;
+            context.cancel();
+        }
+
+        /**
+         * Checks if the job has ended or was cancelled
+         *
+         * @return true, if the job is done, false otherwise
+         */
+        public boolean isDone() {
+            return done;
+        }
+
+        /**
+         * Queues the last callback of the job, unless the job was cancelled first
+         *
+         * @param callback  the result or failure callback
+         */
+        private void finish(Runnable callback) {
+            callbacks.execute(() -> {
+                if (!done) {
+                    done = true;
+                    callback.run();
+                }
+            });
+        }
+    }
+}
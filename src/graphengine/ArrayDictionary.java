@@ -0,0 +1,35 @@
+package graphengine;
+
+import java.util.HashMap;
+
+/**
+ * A vertex dictionary held on the heap as an array of labels and a hash map of ids
+ */
+class ArrayDictionary implements VertexDictionary {
+    // maps a vertex id to its vertex label
+    private final String[] labels;
+
+    // maps a vertex label to its vertex id
+    private final HashMap<String, Integer> ids;
+
+    ArrayDictionary(String[] labels, HashMap<String, Integer> ids) {
+        this.labels = labels;
+        this.ids = ids;
+    }
+
+    @Override
+    public int getSize() {
+        return labels.length;
+    }
+
+    @Override
+    public int getId(String vertex) {
+        Integer id = ids.get(vertex);
+        return id != null ? id : -1;
+    }
+
+    @Override
+    public String getLabel(int id) {
+        return labels[id];
+    }
+}
@@ -0,0 +1,473 @@
+package graphengine;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An immutable compressed sparse row (CSR) snapshot of a graph.
+ * Vertices are numbered with dense ids from 0 to size - 1, and the out-edges of vertex v
+ * are stored in targets[offsets[v]] to targets[offsets[v + 1] - 1], sorted by target id.
+ * The arrays are held in buffers, so a compact graph can live on the heap or in a memory-mapped file.
+ *
+ * Only a strong bit is kept per edge. The rare edges whose tie strength is neither 'S' nor 'W', including the
+ * edges without one, are listed in a small side table, so thawing a compact graph gives back the exact ties.
+ */
+public class CompactGraph {
+    // the entry of the other ties table for an edge without a tie strength
+    public static final int NO_TIE = -1;
+
+    // a table without other ties
+    private static final IntBuffer NO_OTHER_TIES = IntBuffer.wrap(new int[0]);
+
+    // maps vertex labels to vertex ids and back
+    private final VertexDictionary dictionary;
+
+    // the index of the first out-edge of each vertex, with one extra entry for the end of the last vertex
+    private final IntBuffer offsets;
+
+    // the target vertex id of each edge
+    private final IntBuffer targets;
+
+    // bit i is set if edge i is a strong tie
+    private final LongBuffer strongTies;
+
+    // pairs of an edge index and its tie strength, or NO_TIE, for the edges whose tie strength is neither 'S'
+    // nor 'W', sorted by edge index
+    private final IntBuffer otherTies;
+
+    // the same graph with every edge reversed, built the first time it is needed
+    private volatile CompactGraph transpose;
+
+    CompactGraph(String[] labels, HashMap<String, Integer> ids, int[] offsets, int[] targets, long[] strongTies,
+                 int[] otherTies) {
+        this(new ArrayDictionary(labels, ids), IntBuffer.wrap(offsets), IntBuffer.wrap(targets),
+                LongBuffer.wrap(strongTies), IntBuffer.wrap(otherTies));
+    }
+
+    /**
+     * Creates a compact graph over existing buffers, which are used as they are and must not change
+     *
+     * @param dictionary    the vertex dictionary
+     * @param offsets       the index of the first out-edge of each vertex, followed by the number of edges
+     * @param targets       the target vertex id of each edge, sorted by target id for each vertex
+     * @param strongTies    bit i is set if edge i is a strong tie
+     * @throws IllegalArgumentException if the buffer sizes do not fit the number of vertices and edges
+     */
+    public CompactGraph(VertexDictionary dictionary, IntBuffer offsets, IntBuffer targets, LongBuffer strongTies) {
+        this(dictionary, offsets, targets, strongTies, NO_OTHER_TIES);
+    }
+
+    /**
+     * Creates a compact graph over existing buffers that also lists the edges whose tie strength is neither 'S'
+     * nor 'W'. The buffers are used as they are and must not change.
+     *
+     * @param dictionary    the vertex dictionary
+     * @param offsets       the index of the first out-edge of each vertex, followed by the number of edges
+     * @param targets       the target vertex id of each edge, sorted by target id for each vertex
+     * @param strongTies    bit i is set if edge i is a strong tie
+     * @param otherTies     pairs of an edge index and its tie strength, or NO_TIE, sorted by edge index
+     * @throws IllegalArgumentException if the buffer sizes do not fit the number of vertices and edges
+     */
+    public CompactGraph(VertexDictionary dictionary, IntBuffer offsets, IntBuffer targets, LongBuffer strongTies,
+                        IntBuffer otherTies) {
+        if (offsets.limit() != dictionary.getSize() + 1 || offsets.get(dictionary.getSize()) != targets.limit()
+                || strongTies.limit() != (targets.limit() + 63) >>> 6 || otherTies.limit() % 2 != 0) {
+            throw new IllegalArgumentException("Compact Graph Buffers Do Not Match");
+        }
+        this.dictionary = dictionary;
+        this.offsets = offsets;
+        this.targets = targets;
+        this.strongTies = strongTies;
+        this.otherTies = otherTies;
+    }
+
+    /**
+     * Builds a compact graph from a list of directed edges between vertex ids. Duplicate edges are merged
+     * into one edge, which keeps the tie strength of the first of the duplicates in the list, the same as a
+     * graph keeps the tie strength of the first of several addDirectedEdge calls.
+     *
+     * @param labels        the label of each vertex id, which must all be different
+     * @param sources       the source vertex id of each edge
+     * @param targets       the target vertex id of each edge
+     * @param strongTies    bit i is set if edge i is a strong tie
+     * @param edgeCount     the number of edges
+     * @return the compact graph
+     * @throws IllegalArgumentException if an edge goes from a vertex to itself
+     */
+    public static CompactGraph fromEdges(String[] labels, int[] sources, int[] targets, long[] strongTies,
+                                         int edgeCount) {
+        int size = labels.length;
+        HashMap<String, Integer> ids = new HashMap<>();
+        for (int id = 0; id < size; id++) {
+            ids.put(labels[id], id);
+        }
+        // count the edges of each source, then place every edge in its source's range
+        int[] offsets = new int[size + 1];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            if (sources[edge] == targets[edge]) {
+                throw new IllegalArgumentException("Can Not Add an Edge From a Vertex to Itself");
+            }
+            offsets[sources[edge] + 1]++;
+        }
+        for (int vertex = 0; vertex < size; vertex++) {
+            offsets[vertex + 1] += offsets[vertex];
+        }
+        int[] nextEdge = Arrays.copyOf(offsets, size);
+        long[] packed = new long[edgeCount];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            // pack each edge as (target id << 32 | edge index) so sorting puts the first of the duplicates first
+            packed[nextEdge[sources[edge]]++] = (long) targets[edge] << 32 | edge;
+        }
+
+        // sort each range and drop the later duplicates, moving the kept edges down over the dropped ones
+        int[] compactOffsets = new int[size + 1];
+        int kept = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            Arrays.sort(packed, offsets[vertex], offsets[vertex + 1]);
+            for (int edge = offsets[vertex]; edge < offsets[vertex + 1]; edge++) {
+                if (kept == compactOffsets[vertex] || packed[kept - 1] >>> 32 != packed[edge] >>> 32) {
+                    packed[kept++] = packed[edge];
+                }
+            }
+            compactOffsets[vertex + 1] = kept;
+        }
+        int[] compactTargets = new int[kept];
+        long[] compactStrongTies = new long[(kept + 63) >>> 6];
+        for (int edge = 0; edge < kept; edge++) {
+            int original = (int) packed[edge];
+            if ((strongTies[original >>> 6] & (1L << original)) != 0) {
+                compactStrongTies[edge >>> 6] |= 1L << edge;
+            }
+            compactTargets[edge] = (int) (packed[edge] >>> 32);
+        }
+        return new CompactGraph(labels, ids, compactOffsets, compactTargets, compactStrongTies, new int[0]);
+    }
+
+    /**
+     * Returns the number of vertices in this graph
+     *
+     * @return size
+     */
+    public int getSize() {
+        return dictionary.getSize();
+    }
+
+    /**
+     * Returns the number of directed edges in this graph
+     *
+     * @return number of edges
+     */
+    public int getEdgeCount() {
+        return targets.limit();
+    }
+
+    /**
+     * Returns the labels of all the vertices in order of their ids
+     *
+     * @return read-only list of vertex labels
+     */
+    public List<String> getVertices() {
+        return new AbstractList<String>() {
+            @Override
+            public String get(int id) {
+                return dictionary.getLabel(id);
+            }
+
+            @Override
+            public int size() {
+                return dictionary.getSize();
+            }
+        };
+    }
+
+    /**
+     * Returns the vertex dictionary of this graph
+     *
+     * @return vertex dictionary
+     */
+    public VertexDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the id of a vertex
+     *
+     * @param vertex    vertex label
+     * @return the vertex id, or -1 if the vertex is not in this graph
+     */
+    public int getId(String vertex) {
+        return dictionary.getId(vertex);
+    }
+
+    /**
+     * Returns the label of a vertex
+     *
+     * @param id    vertex id
+     * @return vertex label
+     */
+    public String getLabel(int id) {
+        return dictionary.getLabel(id);
+    }
+
+    /**
+     * Checks if the specified vertex is in the graph
+     *
+     * @param vertex    the vertex to check
+     * @return true, if vertex is in the graph, false otherwise
+     */
+    public boolean hasVertex(String vertex) {
+        return dictionary.getId(vertex) >= 0;
+    }
+
+    /**
+     * Returns the index of the first out-edge of a vertex
+     *
+     * @param id    vertex id
+     * @return index of the first out-edge
+     */
+    public int getEdgeStart(int id) {
+        return offsets.get(id);
+    }
+
+    /**
+     * Returns the index one past the last out-edge of a vertex
+     *
+     * @param id    vertex id
+     * @return index one past the last out-edge
+     */
+    public int getEdgeEnd(int id) {
+        return offsets.get(id + 1);
+    }
+
+    /**
+     * Returns the number of out-edges of a vertex
+     *
+     * @param id    vertex id
+     * @return out-degree
+     */
+    public int getOutDegree(int id) {
+        return offsets.get(id + 1) - offsets.get(id);
+    }
+
+    /**
+     * Returns the target vertex of an edge
+     *
+     * @param edge  edge index
+     * @return id of the target vertex
+     */
+    public int getTarget(int edge) {
+        return targets.get(edge);
+    }
+
+    /**
+     * Checks if an edge is a strong tie
+     *
+     * @param edge  edge index
+     * @return true, if the edge is a strong tie, false otherwise
+     */
+    public boolean isStrongTie(int edge) {
+        return (strongTies.get(edge >>> 6) & (1L << edge)) != 0;
+    }
+
+    /**
+     * Returns the tie strength of an edge. Edges that were added without a tie strength read as weak.
+     *
+     * @param edge  edge index
+     * @return the tie strength ('S' for Strong, 'W' for Weak)
+     */
+    public char getTieStrength(int edge) {
+        return isStrongTie(edge) ? 'S' : 'W';
+    }
+
+    /**
+     * Returns the tie strength an edge was added with
+     *
+     * @param edge  edge index
+     * @return the tie strength, or null if the edge has none
+     */
+    public Character getExactTieStrength(int edge) {
+        if (isStrongTie(edge)) {
+            return 'S';
+        }
+        int low = 0;
+        int high = otherTies.limit() / 2 - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int otherEdge = otherTies.get(2 * middle);
+            if (otherEdge < edge) {
+                low = middle + 1;
+            } else if (otherEdge > edge) {
+                high = middle - 1;
+            } else {
+                int tieStrength = otherTies.get(2 * middle + 1);
+                return tieStrength == NO_TIE ? null : (char) tieStrength;
+            }
+        }
+        return 'W';
+    }
+
+    /**
+     * Returns the number of edges whose tie strength is neither 'S' nor 'W'
+     *
+     * @return number of other ties
+     */
+    public int getOtherTieCount() {
+        return otherTies.limit() / 2;
+    }
+
+    /**
+     * Returns an entry of the table of edges whose tie strength is neither 'S' nor 'W'
+     *
+     * @param index     the index of the entry, from 0 to getOtherTieCount() - 1
+     * @return the edge index of the entry
+     */
+    public int getOtherTieEdge(int index) {
+        return otherTies.get(2 * index);
+    }
+
+    /**
+     * Returns the tie strength of an entry of the table of edges whose tie strength is neither 'S' nor 'W'
+     *
+     * @param index     the index of the entry, from 0 to getOtherTieCount() - 1
+     * @return the tie strength, or NO_TIE if the edge has none
+     */
+    public int getOtherTieStrength(int index) {
+        return otherTies.get(2 * index + 1);
+    }
+
+    /**
+     * Returns the index of the edge from one vertex to another vertex
+     *
+     * @param id1   id of the starting vertex
+     * @param id2   id of the ending vertex
+     * @return the edge index, or a negative number if the edge does not exist
+     */
+    public int findEdge(int id1, int id2) {
+        int low = offsets.get(id1);
+        int high = offsets.get(id1 + 1) - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int target = targets.get(middle);
+            if (target < id2) {
+                low = middle + 1;
+            } else if (target > id2) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Checks if there is a directed edge from one vertex to another vertex
+     *
+     * @param id1   id of the starting vertex
+     * @param id2   id of the ending vertex
+     * @return true, if the directed edge exists, false otherwise
+     */
+    public boolean hasDirectedEdge(int id1, int id2) {
+        return findEdge(id1, id2) >= 0;
+    }
+
+    /**
+     * Returns the graph with every edge reversed, keeping the tie strengths. The out-edges of a vertex
+     * in the transpose are the in-edges of the vertex in this graph, sorted by source id.
+     * The transpose is built once in linear time and shared by later calls.
+     *
+     * @return transpose of this graph
+     */
+    public CompactGraph transpose() {
+        CompactGraph result = transpose;
+        if (result == null) {
+            int size = getSize();
+            int edgeCount = getEdgeCount();
+            int[] inOffsets = new int[size + 1];
+            for (int edge = 0; edge < edgeCount; edge++) {
+                inOffsets[targets.get(edge) + 1]++;
+            }
+            for (int vertex = 0; vertex < size; vertex++) {
+                inOffsets[vertex + 1] += inOffsets[vertex];
+            }
+            // scanning the sources in increasing order leaves every in-edge list sorted
+            int[] nextEdge = Arrays.copyOf(inOffsets, size);
+            int[] inTargets = new int[edgeCount];
+            long[] inStrongTies = new long[strongTies.limit()];
+            // the position of each edge in the transpose, only needed to move the other ties along
+            int[] inEdges = otherTies.limit() == 0 ? null : new int[edgeCount];
+            for (int vertex = 0; vertex < size; vertex++) {
+                for (int edge = getEdgeStart(vertex); edge < getEdgeEnd(vertex); edge++) {
+                    int inEdge = nextEdge[targets.get(edge)]++;
+                    inTargets[inEdge] = vertex;
+                    if (isStrongTie(edge)) {
+                        inStrongTies[inEdge >>> 6] |= 1L << inEdge;
+                    }
+                    if (inEdges != null) {
+                        inEdges[edge] = inEdge;
+                    }
+                }
+            }
+            int[] inOtherTies = new int[otherTies.limit()];
+            if (inEdges != null) {
+                // sort the moved entries by their new edge index, packing each one into a long
+                long[] moved = new long[getOtherTieCount()];
+                for (int index = 0; index < moved.length; index++) {
+                    moved[index] = (long) inEdges[getOtherTieEdge(index)] << 32
+                            | (getOtherTieStrength(index) & 0xffffffffL);
+                }
+                Arrays.sort(moved);
+                for (int index = 0; index < moved.length; index++) {
+                    inOtherTies[2 * index] = (int) (moved[index] >>> 32);
+                    inOtherTies[2 * index + 1] = (int) moved[index];
+                }
+            }
+            result = new CompactGraph(dictionary, IntBuffer.wrap(inOffsets), IntBuffer.wrap(inTargets),
+                    LongBuffer.wrap(inStrongTies), IntBuffer.wrap(inOtherTies));
+            result.transpose = this;
+            transpose = result;
+        }
+        return result;
+    }
+
+    /**
+     * Builds a graph with the same vertices and edges as this compact graph, so it can be changed again.
+     * The vertices are added in order of their ids, and every edge keeps its tie strength.
+     *
+     * @return the graph
+     */
+    public Graph thaw() {
+        Graph graph = new Graph();
+        for (int vertex = 0; vertex < getSize(); vertex++) {
+            graph.addVertex(getLabel(vertex));
+        }
+        for (int vertex = 0; vertex < getSize(); vertex++) {
+            String label = getLabel(vertex);
+            for (int edge = getEdgeStart(vertex); edge < getEdgeEnd(vertex); edge++) {
+                graph.addDirectedEdge(label, getLabel(getTarget(edge)), getExactTieStrength(edge));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Returns the string representation of this graph
+     *
+     * @return String of this graph
+     */
+    @Override
+    public String toString() {
+        StringBuilder graph = new StringBuilder();
+        for (int vertex = 0; vertex < getSize(); vertex++) {
+            graph.append(getLabel(vertex)).append(" -> [");
+            for (int edge = getEdgeStart(vertex); edge < getEdgeEnd(vertex); edge++) {
+                graph.append(getLabel(getTarget(edge))).append(", ");
+            }
+            graph.append("]\n");
+        }
+        return graph.toString();
+    }
+}
@@ -0,0 +1,356 @@
+package graphengine;
+
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+
+/**
+ * A graph that many threads can change at once, for ingesting edges from several writers.
+ *
+ * Vertex labels are looked up in a concurrent hash map, and every vertex is guarded by one of a fixed set of
+ * striped locks picked by its id. An edge change locks the stripes of both of its endpoints, always the lower
+ * stripe first so two writers can never deadlock, which makes an undirected edge appear or disappear at
+ * both endpoints at once. Changes to different vertices run in parallel, while adding a new vertex is brief
+ * and serialized.
+ *
+ * The changes that touch more than two vertices take a graph-wide lock instead: deleting a vertex, resetting,
+ * freezing, and every change while the graph keeps an STC index, tracks a topological order or a versioned
+ * copy, or is journaled. Edge changes share that lock, so they only run in parallel while none of those indexes
+ * is kept.
+ *
+ * The algorithms read the graph without locking, so run them once the writers are done, or on freeze(),
+ * which returns a consistent snapshot even while the writers run.
+ */
+public class ConcurrentGraph extends Graph {
+    // the number of vertex locks, a power of two
+    private static final int STRIPES = 1024;
+
+    // the locks guarding the edge tables of the vertices
+    private final Object[] stripes;
+
+    // shared by the changes to at most two vertices, exclusive for the changes that touch more
+    private final ReentrantReadWriteLock structure;
+
+    // serializes handing out vertex ids and counting the vertices
+    private final Object vertexCreation;
+
+    public ConcurrentGraph() {
+        this(false);
+    }
+
+    private ConcurrentGraph(boolean offHeap) {
+        super(offHeap, true);
+        this.stripes = new Object[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Object();
+        }
+        this.structure = new ReentrantReadWriteLock();
+        this.vertexCreation = new Object();
+    }
+
+    /**
+     * Returns an empty concurrent graph that keeps the edge tables of its vertices in direct memory, with the
+     * same limits as Graph.offHeap()
+     *
+     * @return empty off-heap concurrent graph
+     */
+    public static ConcurrentGraph offHeap() {
+        return new ConcurrentGraph(true);
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (vertexCreation) {
+            return super.getSize();
+        }
+    }
+
+    @Override
+    public int getIdBound() {
+        synchronized (vertexCreation) {
+            return super.getIdBound();
+        }
+    }
+
+    @Override
+    public boolean addVertex(String vertex) {
+        if (hasVertex(vertex)) {
+            return false;
+        }
+        Lock lock = enter();
+        try {
+            synchronized (vertexCreation) {
+                return super.addVertex(vertex);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean deleteVertex(String vertex) {
+        structure.writeLock().lock();
+        try {
+            synchronized (vertexCreation) {
+                return super.deleteVertex(vertex);
+            }
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean hasDirectedEdge(String vertex1, String vertex2) {
+        return changeEdge(vertex1, vertex2, false, () -> super.hasDirectedEdge(vertex1, vertex2));
+    }
+
+    @Override
+    public boolean hasUndirectedEdge(String vertex1, String vertex2) {
+        return changeEdge(vertex1, vertex2, false, () -> super.hasUndirectedEdge(vertex1, vertex2));
+    }
+
+    @Override
+    public boolean addDirectedEdge(String vertex1, String vertex2, Character tieStrength) {
+        return changeEdge(vertex1, vertex2, true, () -> super.addDirectedEdge(vertex1, vertex2, tieStrength));
+    }
+
+    @Override
+    public boolean deleteDirectedEdge(String vertex1, String vertex2) {
+        return changeEdge(vertex1, vertex2, false, () -> super.deleteDirectedEdge(vertex1, vertex2));
+    }
+
+    @Override
+    public boolean addUndirectedEdge(String vertex1, String vertex2, Character tieStrength) {
+        return changeEdge(vertex1, vertex2, true, () -> super.addUndirectedEdge(vertex1, vertex2, tieStrength));
+    }
+
+    @Override
+    public boolean deleteUndirectedEdge(String vertex1, String vertex2) {
+        return changeEdge(vertex1, vertex2, false, () -> super.deleteUndirectedEdge(vertex1, vertex2));
+    }
+
+    @Override
+    public char getTieStrength(String vertex1, String vertex2) {
+        Lock lock = enter();
+        try {
+            Vertex vertex1Obj = getVertex(vertex1);
+            if (vertex1Obj == null) {
+                return super.getTieStrength(vertex1, vertex2);
+            }
+            synchronized (stripe(vertex1Obj)) {
+                return super.getTieStrength(vertex1, vertex2);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the vertices that have a directed edge to the specified vertex. Unlike a graph, which returns a
+     * live view, this returns a copy, since the view could change while it is read.
+     *
+     * @param vertex        the vertex
+     * @return copy of the in-neighbors of vertex
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     */
+    @Override
+    public Set<String> getInNeighbors(String vertex) {
+        Lock lock = enter();
+        try {
+            Vertex vertexObj = getVertex(vertex);
+            if (vertexObj == null) {
+                return super.getInNeighbors(vertex);
+            }
+            synchronized (stripe(vertexObj)) {
+                return new LinkedHashSet<>(super.getInNeighbors(vertex));
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getSatisfyingSTC() {
+        structure.writeLock().lock();
+        try {
+            return super.getSatisfyingSTC();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Set<String> getViolatingSTC() {
+        structure.writeLock().lock();
+        try {
+            return super.getViolatingSTC();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public int getSTCViolations(String vertex) {
+        structure.writeLock().lock();
+        try {
+            return super.getSTCViolations(vertex);
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Graph transpose() {
+        structure.writeLock().lock();
+        try {
+            return super.transpose();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns an immutable compact snapshot of this graph. The writers wait while the snapshot is taken, so it
+     * holds every change made before it and none made after it.
+     *
+     * @return compact snapshot of this graph
+     */
+    @Override
+    public CompactGraph freeze() {
+        structure.writeLock().lock();
+        try {
+            return super.freeze();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void trackTopologicalOrder() {
+        structure.writeLock().lock();
+        try {
+            super.trackTopologicalOrder();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void untrackTopologicalOrder() {
+        structure.writeLock().lock();
+        try {
+            super.untrackTopologicalOrder();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public VersionedGraph trackVersions() {
+        structure.writeLock().lock();
+        try {
+            return super.trackVersions();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public LinkedList<String> getTopologicalOrder() {
+        structure.writeLock().lock();
+        try {
+            return super.getTopologicalOrder();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void reset() {
+        structure.writeLock().lock();
+        try {
+            synchronized (vertexCreation) {
+                super.reset();
+            }
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        structure.writeLock().lock();
+        try {
+            return super.toString();
+        } finally {
+            structure.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Runs a change or a query of the edges between two vertices with the stripes of both vertices locked
+     *
+     * @param vertex1       a vertex
+     * @param vertex2       a vertex
+     * @param create        true to add the vertices first if they are not in the graph
+     * @param change        the change, which may throw for vertices that are not in the graph
+     * @return the result of the change
+     */
+    private boolean changeEdge(String vertex1, String vertex2, boolean create, BooleanSupplier change) {
+        if (create && vertex1.equals(vertex2)) {
+            throw new IllegalArgumentException("Can Not Add an Edge From a Vertex to Itself");
+        }
+        Lock lock = enter();
+        try {
+            if (create) {
+                addVertex(vertex1);
+                addVertex(vertex2);
+            }
+            // the shared lock keeps both vertices from being deleted until the change is done
+            Vertex vertex1Obj = getVertex(vertex1);
+            Vertex vertex2Obj = getVertex(vertex2);
+            if (vertex1Obj == null || vertex2Obj == null) {
+                return change.getAsBoolean();
+            }
+            int stripe1 = vertex1Obj.getId() & (STRIPES - 1);
+            int stripe2 = vertex2Obj.getId() & (STRIPES - 1);
+            synchronized (stripes[Math.min(stripe1, stripe2)]) {
+                synchronized (stripes[Math.max(stripe1, stripe2)]) {
+                    return change.getAsBoolean();
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Takes the graph-wide lock for a change to at most two vertices. The lock is shared, unless the change
+     * also updates an index, the journal or the versioned copy, which only one thread may do at a time.
+     *
+     * @return the lock that was taken
+     */
+    private Lock enter() {
+        Lock lock = structure.readLock();
+        lock.lock();
+        if (isIndexingSTC() || isTrackingTopologicalOrder() || isTrackingVersions() || journal != null) {
+            lock.unlock();
+            lock = structure.writeLock();
+            lock.lock();
+        }
+        return lock;
+    }
+
+    /**
+     * Returns the lock of a vertex
+     *
+     * @param vertex    the vertex object
+     * @return the stripe the vertex belongs to
+     */
+    private Object stripe(Vertex vertex) {
+        return stripes[vertex.getId() & (STRIPES - 1)];
+    }
+}
@@ -7,7 +7,10 @@ import java.awt.GraphicsEnvironment;
  * A class that stores all the constants used in this program
  */
 public class Constants {
-    public static final Rectangle WINDOW_SIZE = GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
+    // a headless environment has no screen to measure, so fall back to a common laptop screen size
+    public static final Rectangle WINDOW_SIZE = GraphicsEnvironment.isHeadless()
+            ? new Rectangle(0, 0, 1280, 800)
+            : GraphicsEnvironment.getLocalGraphicsEnvironment().getMaximumWindowBounds();
     public static final int WINDOW_WIDTH = (int) (WINDOW_SIZE.width * 0.9);
     public static final int WINDOW_HEIGHT = (int) (WINDOW_SIZE.height * 0.9);
 
@@ -15,6 +18,20 @@ public class Constants {
 
     public static final int TEXT_FIELD_LENGTH = 5;
 
+    // milliseconds an algorithm runs before its progress window opens
+    public static final int PROGRESS_DIALOG_DELAY = 250;
+
+    // the viewer's live layout is turned off above this many vertices
+    public static final int AUTOLAYOUT_LIMIT = 300;
+
+    // the number of steps of the background layout
+    public static final int LAYOUT_ITERATIONS = 150;
+
+    // the number of levels and vertices of a forest drawn at first, and the vertices drawn by each click
+    public static final int FOREST_MAX_DEPTH = 8;
+    public static final int FOREST_MAX_NODES = 2000;
+    public static final int FOREST_EXPAND_NODES = 500;
+
     public static final double START_FINISH_X = 50;
     public static final double START_FINISH_Y = 0;
     public static final double START_FINISH_Z = 0;
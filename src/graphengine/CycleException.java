@@ -0,0 +1,28 @@
+package graphengine;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Thrown when an operation needs a directed acyclic graph (DAG) but found a cycle
+ */
+public class CycleException extends IllegalArgumentException {
+    private static final long serialVersionUID = 1L;
+
+    // the vertices of the cycle in edge order, with the first vertex repeated at the end
+    private final List<String> cycle;
+
+    public CycleException(List<String> cycle) {
+        super("The Graph is Not a Directed Acyclic Graph (DAG), Cycle: " + String.join(" -> ", cycle));
+        this.cycle = Collections.unmodifiableList(cycle);
+    }
+
+    /**
+     * Returns the cycle that was found
+     *
+     * @return the vertices of the cycle in edge order, with the first vertex repeated at the end
+     */
+    public List<String> getCycle() {
+        return cycle;
+    }
+}
@@ -0,0 +1,251 @@
+package graphengine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * A topological order of a graph that is repaired on every edge insertion with the Pearce-Kelly algorithm.
+ * An edge that agrees with the current order costs nothing. Otherwise only the vertices whose positions lie
+ * between the two endpoints, and that can reach or be reached from them, are searched and shuffled.
+ */
+class DynamicTopologicalOrder {
+    // the graph whose vertices are ordered
+    private final Graph graph;
+
+    // the position of each vertex id in the order
+    private int[] position;
+
+    // the vertex at each position, or null where a deleted vertex used to be
+    private Vertex[] vertexAt;
+
+    // one past the last used position, and how many used positions are empty
+    private int end;
+    private int holes;
+
+    // a vertex was reached by the current search if its mark equals the current epoch
+    private int[] visitedEpoch;
+    private int epoch;
+
+    // the vertex each vertex was reached from by the current forward search
+    private Vertex[] reachedFrom;
+
+    /**
+     * Creates the order from a topological sorting of the graph
+     *
+     * @param graph         the graph
+     * @param sorting       the vertices of the graph in a topological sorting
+     */
+    DynamicTopologicalOrder(Graph graph, List<String> sorting) {
+        this.graph = graph;
+        this.position = new int[Math.max(16, graph.getIdBound())];
+        this.vertexAt = new Vertex[Math.max(16, sorting.size() * 2)];
+        this.visitedEpoch = new int[position.length];
+        this.reachedFrom = new Vertex[position.length];
+        this.end = 0;
+        this.holes = 0;
+        this.epoch = 0;
+        for (String vertex : sorting) {
+            addVertex(graph.getVertex(vertex));
+        }
+    }
+
+    /**
+     * Places a new vertex, which has no edges yet, at the end of the order
+     *
+     * @param vertex    the new vertex object
+     */
+    void addVertex(Vertex vertex) {
+        if (vertex.getId() >= position.length) {
+            position = Arrays.copyOf(position, Math.max(vertex.getId() + 1, position.length * 2));
+            visitedEpoch = Arrays.copyOf(visitedEpoch, position.length);
+            reachedFrom = Arrays.copyOf(reachedFrom, position.length);
+        }
+        if (end == vertexAt.length) {
+            compact();
+            if (end == vertexAt.length) {
+                vertexAt = Arrays.copyOf(vertexAt, vertexAt.length * 2);
+            }
+        }
+        position[vertex.getId()] = end;
+        vertexAt[end++] = vertex;
+    }
+
+    /**
+     * Removes a vertex from the order, leaving every other vertex where it was
+     *
+     * @param vertex    the deleted vertex object
+     */
+    void deleteVertex(Vertex vertex) {
+        vertexAt[position[vertex.getId()]] = null;
+        holes++;
+        if (holes > end / 2) {
+            compact();
+        }
+    }
+
+    /**
+     * Repairs the order for a directed edge that is about to be added. Nothing changes if the edge would create
+     * a cycle.
+     *
+     * @param from      the starting vertex object
+     * @param to        the ending vertex object
+     * @throws CycleException if the edge would create a cycle
+     */
+    void addEdge(Vertex from, Vertex to) {
+        int lowerBound = position[to.getId()];
+        int upperBound = position[from.getId()];
+        if (upperBound < lowerBound) {
+            return;
+        }
+        nextEpoch();
+        // the vertices after the new edge's target that the target reaches, up to the source's position
+        ArrayList<Vertex> forward = new ArrayList<>();
+        LinkedList<String> path = searchForward(to, from, upperBound, forward);
+        if (path != null) {
+            path.addFirst(from.getLabel());
+            throw new CycleException(path);
+        }
+        // the vertices before the new edge's source that reach the source, down to the target's position
+        ArrayList<Vertex> backward = new ArrayList<>();
+        searchBackward(from, lowerBound, backward);
+
+        // the vertices that reach the source must now come before the vertices the target reaches, so they take
+        // over the same set of positions in that order
+        Comparator<Vertex> byPosition = Comparator.comparingInt(vertex -> position[vertex.getId()]);
+        backward.sort(byPosition);
+        forward.sort(byPosition);
+        int[] freed = new int[backward.size() + forward.size()];
+        int i = 0;
+        for (Vertex vertex : backward) {
+            freed[i++] = position[vertex.getId()];
+        }
+        for (Vertex vertex : forward) {
+            freed[i++] = position[vertex.getId()];
+        }
+        Arrays.sort(freed);
+        i = 0;
+        for (Vertex vertex : backward) {
+            place(vertex, freed[i++]);
+        }
+        for (Vertex vertex : forward) {
+            place(vertex, freed[i++]);
+        }
+    }
+
+    /**
+     * Returns the vertices in the current order
+     *
+     * @return list of vertices in a topological sorting
+     */
+    LinkedList<String> getOrder() {
+        LinkedList<String> sorting = new LinkedList<>();
+        for (int i = 0; i < end; i++) {
+            if (vertexAt[i] != null) {
+                sorting.addLast(vertexAt[i].getLabel());
+            }
+        }
+        return sorting;
+    }
+
+    /**
+     * Collects the vertices reachable from a start vertex without passing the upper bound position
+     *
+     * @param start         the vertex to search from
+     * @param target        the vertex whose discovery means a cycle
+     * @param upperBound    the largest position to search
+     * @param visited       the list to add the reached vertices to
+     * @return the path from start to target if the target was reached, null otherwise
+     */
+    private LinkedList<String> searchForward(Vertex start, Vertex target, int upperBound, List<Vertex> visited) {
+        ArrayList<Vertex> stack = new ArrayList<>();
+        stack.add(start);
+        visitedEpoch[start.getId()] = epoch;
+        reachedFrom[start.getId()] = null;
+        while (!stack.isEmpty()) {
+            Vertex currVertex = stack.remove(stack.size() - 1);
+            visited.add(currVertex);
+            if (currVertex == target) {
+                // walk back along the search tree to rebuild the path
+                LinkedList<String> path = new LinkedList<>();
+                for (Vertex vertex = target; vertex != null; vertex = reachedFrom[vertex.getId()]) {
+                    path.addFirst(vertex.getLabel());
+                }
+                return path;
+            }
+            for (int slot = currVertex.nextNeighborSlot(-1); slot >= 0; slot = currVertex.nextNeighborSlot(slot)) {
+                Vertex neighborObj = currVertex.getNeighborAt(slot);
+                if (visitedEpoch[neighborObj.getId()] != epoch && position[neighborObj.getId()] <= upperBound) {
+                    visitedEpoch[neighborObj.getId()] = epoch;
+                    reachedFrom[neighborObj.getId()] = currVertex;
+                    stack.add(neighborObj);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Collects the vertices that reach a start vertex without passing the lower bound position
+     *
+     * @param start         the vertex to search from
+     * @param lowerBound    the smallest position to search
+     * @param visited       the list to add the reached vertices to
+     */
+    private void searchBackward(Vertex start, int lowerBound, List<Vertex> visited) {
+        ArrayList<Vertex> stack = new ArrayList<>();
+        stack.add(start);
+        visitedEpoch[start.getId()] = epoch;
+        while (!stack.isEmpty()) {
+            Vertex currVertex = stack.remove(stack.size() - 1);
+            visited.add(currVertex);
+            for (int slot = currVertex.nextInNeighborSlot(-1); slot >= 0;
+                 slot = currVertex.nextInNeighborSlot(slot)) {
+                Vertex inNeighborObj = currVertex.getInNeighborAt(slot);
+                if (visitedEpoch[inNeighborObj.getId()] != epoch && position[inNeighborObj.getId()] >= lowerBound) {
+                    visitedEpoch[inNeighborObj.getId()] = epoch;
+                    stack.add(inNeighborObj);
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts a vertex at a position
+     *
+     * @param vertex    the vertex object
+     * @param index     the position
+     */
+    private void place(Vertex vertex, int index) {
+        position[vertex.getId()] = index;
+        vertexAt[index] = vertex;
+    }
+
+    /**
+     * Starts a new search, only clearing the marks when the epoch counter wraps around
+     */
+    private void nextEpoch() {
+        epoch++;
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(visitedEpoch, 0);
+            epoch = 1;
+        }
+    }
+
+    /**
+     * Closes the holes left by deleted vertices, keeping the relative order of the rest
+     */
+    private void compact() {
+        int next = 0;
+        for (int i = 0; i < end; i++) {
+            if (vertexAt[i] != null) {
+                place(vertexAt[i], next++);
+            }
+        }
+        Arrays.fill(vertexAt, next, end, null);
+        end = next;
+        holes = 0;
+    }
+}
@@ -0,0 +1,349 @@
+package graphengine;
+
+import graphengine.algorithms.TraversalResult;
+import graphengine.layout.TreeLayout;
+
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
+import org.graphstream.ui.spriteManager.Sprite;
+import org.graphstream.ui.spriteManager.SpriteManager;
+import org.graphstream.ui.view.Viewer;
+import org.graphstream.ui.view.ViewerListener;
+import org.graphstream.ui.view.ViewerPipe;
+
+import javax.swing.Timer;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Draws BFS and DFS forests into a visual graph a few hundred vertices per frame, so the event dispatch
+ * thread and the viewer pipe are never flooded. Big forests are drawn with less detail: only the top levels
+ * of each tree and a bounded number of vertices are drawn at first, and a vertex with hidden children shows
+ * how many it has and draws them when it is clicked.
+ *
+ * The forest is laid out as a tree rather than with a force-directed layout. The layout only covers the
+ * vertices that are drawn or about to be, so it is cheap enough to redo whenever more of the forest is shown,
+ * and the vertices that move are moved over the next frames like the new ones are drawn.
+ *
+ * All the methods must be called on the event dispatch thread.
+ */
+public class ForestRenderer implements ViewerListener {
+    // the delay of the timer while there is still something to draw, about one frame
+    private static final int FRAME_MILLIS = 16;
+
+    // the delay of the timer while it only listens for clicks
+    private static final int IDLE_MILLIS = 100;
+
+    // how long one timer tick may spend drawing
+    private static final long FRAME_BUDGET_NANOS = 8_000_000;
+
+    // the node that draws more trees when clicked, its id can not clash with a vertex since those are labels
+    private static final String MORE_TREES = "\u0000more";
+
+    private final MultiGraph graphview;
+    private final String styleSheet;
+    private final ViewerPipe viewerPipe;
+    private final Timer timer;
+
+    // the forest being drawn, or null
+    private TraversalResult forest;
+    private SpriteManager spriteManager;
+
+    // the position in the forest's discovery order to look for the next root at
+    private int rootCursor;
+
+    // a root that was found but not drawn yet, or -1
+    private int nextRoot;
+
+    // the vertices that are drawn or will be, in an order where a parent always comes before its children,
+    // with the index of its parent in placed, or -1 for a root
+    private int[] placed;
+    private int[] placedParents;
+    private int placedCount;
+
+    // the index of each vertex in placed, or -1 if it is not placed
+    private int[] placedIndex;
+
+    // the vertices before this index in placed are drawn
+    private int drawn;
+
+    // the tree layout of the placed vertices, the vertices before layoutCursor already moved to it
+    private double[] layout;
+    private boolean layoutOutdated;
+    private int layoutCursor;
+
+    // the number of children that are not drawn of each vertex that has any
+    private final HashMap<Integer, Integer> hidden;
+
+    // the number of vertices that can still be placed before the rest are hidden
+    private int budget;
+
+    /**
+     * Creates a renderer that draws into a visual graph and listens for clicks on its viewer
+     *
+     * @param graphview     visual graph
+     * @param viewer        the viewer showing the visual graph
+     * @param styleSheet    style sheet for the visual graph
+     */
+    public ForestRenderer(MultiGraph graphview, Viewer viewer, String styleSheet) {
+        this.graphview = graphview;
+        this.styleSheet = styleSheet;
+        this.viewerPipe = viewer.newViewerPipe();
+        viewerPipe.addViewerListener(this);
+        this.hidden = new HashMap<>();
+        this.timer = new Timer(FRAME_MILLIS, actionEvent -> drawFrame());
+    }
+
+    /**
+     * Starts drawing a forest, replacing whatever was drawn before. The drawing continues over the next frames,
+     * and the start and finish times are drawn if the forest has them.
+     *
+     * @param forest        the BFS or DFS forest
+     */
+    public void drawForest(TraversalResult forest) {
+        GraphView.reset(graphview, styleSheet);
+        this.forest = forest;
+        this.spriteManager = new SpriteManager(graphview);
+        rootCursor = 0;
+        nextRoot = -1;
+        placed = new int[16];
+        placedParents = new int[16];
+        placedCount = 0;
+        placedIndex = new int[forest.getIdBound()];
+        Arrays.fill(placedIndex, -1);
+        drawn = 0;
+        layout = new double[0];
+        layoutOutdated = false;
+        layoutCursor = 0;
+        hidden.clear();
+        budget = Constants.FOREST_MAX_NODES;
+        timer.setDelay(FRAME_MILLIS);
+        timer.start();
+    }
+
+    /**
+     * Draws as much as fits in one frame, then handles the clicks the viewer reported
+     */
+    private void drawFrame() {
+        long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+        boolean busy = true;
+        while (busy && System.nanoTime() < deadline) {
+            busy = drawNext();
+        }
+        timer.setDelay(busy ? FRAME_MILLIS : IDLE_MILLIS);
+        viewerPipe.pump();
+    }
+
+    /**
+     * Moves the next drawn vertex that the layout moved, draws the next placed vertex, or looks at the next
+     * vertex of the forest for a root
+     *
+     * @return true, if there may be more to draw, false otherwise
+     */
+    private boolean drawNext() {
+        if (forest == null) {
+            return false;
+        }
+        if (layoutOutdated) {
+            updateLayout();
+        }
+        if (layoutCursor < drawn) {
+            setPosition(graphview.getNode(forest.getLabel(placed[layoutCursor])), layoutCursor);
+            layoutCursor++;
+            return true;
+        }
+        if (drawn < placedCount) {
+            drawVertex(drawn++);
+            layoutCursor = drawn;
+            return true;
+        }
+        if (nextRoot < 0) {
+            if (rootCursor == forest.getSize()) {
+                return false;
+            }
+            int vertex = forest.getVertexAt(rootCursor++);
+            if (forest.getParent(vertex) < 0) {
+                nextRoot = vertex;
+            }
+            return true;
+        }
+        if (budget == 0) {
+            // the remaining trees are drawn when the user asks for them
+            if (graphview.getNode(MORE_TREES) == null) {
+                Node more = graphview.addNode(MORE_TREES);
+                more.addAttribute("ui.label", "More Trees");
+                more.addAttribute("ui.class", "collapsed");
+                // to the right of every tree, whose columns all have x below the number of columns
+                double columns = 0;
+                for (int index = 0; index < placedCount; index++) {
+                    columns = Math.max(columns, layout[index * 2] + 1);
+                }
+                more.setAttribute("xyz", columns, 0, 0);
+            }
+            return false;
+        }
+        place(nextRoot, -1);
+        budget--;
+        queueSubtree(nextRoot);
+        nextRoot = -1;
+        return true;
+    }
+
+    /**
+     * Lays out the placed vertices again, and points the layout cursor at the first drawn vertex that moved
+     */
+    private void updateLayout() {
+        double[] previous = layout;
+        layout = TreeLayout.layout(placedParents, placedCount);
+        layoutOutdated = false;
+        layoutCursor = 0;
+        while (layoutCursor < drawn && layout[layoutCursor * 2] == previous[layoutCursor * 2]
+                && layout[layoutCursor * 2 + 1] == previous[layoutCursor * 2 + 1]) {
+            layoutCursor++;
+        }
+    }
+
+    /**
+     * Places the top levels of the subtree below a placed vertex, breadth first, until the budget runs out.
+     * Only the placed vertices are visited, so this takes time in the budget rather than the subtree size.
+     *
+     * @param top   the placed vertex at the top of the subtree
+     */
+    private void queueSubtree(int top) {
+        ArrayDeque<Integer> levelQueue = new ArrayDeque<>();
+        ArrayDeque<Integer> levels = new ArrayDeque<>();
+        levelQueue.add(top);
+        levels.add(0);
+        while (!levelQueue.isEmpty()) {
+            int vertex = levelQueue.poll();
+            int level = levels.poll();
+            int children = forest.getChildCount(vertex);
+            int hiddenChildren = hidden.getOrDefault(vertex, children);
+            if (level < Constants.FOREST_MAX_DEPTH) {
+                for (int i = 0; i < children && budget > 0; i++) {
+                    int child = forest.getChild(vertex, i);
+                    if (placedIndex[child] < 0) {
+                        place(child, placedIndex[vertex]);
+                        levelQueue.add(child);
+                        levels.add(level + 1);
+                        budget--;
+                        hiddenChildren--;
+                    }
+                }
+            }
+            if (hiddenChildren > 0) {
+                hidden.put(vertex, hiddenChildren);
+            } else {
+                hidden.remove(vertex);
+            }
+        }
+    }
+
+    /**
+     * Adds a vertex to the vertices that will be drawn
+     *
+     * @param vertex    the vertex id
+     * @param parent    the index of its parent in placed, or -1 for a root
+     */
+    private void place(int vertex, int parent) {
+        if (placedCount == placed.length) {
+            placed = Arrays.copyOf(placed, placedCount * 2);
+            placedParents = Arrays.copyOf(placedParents, placedCount * 2);
+        }
+        placed[placedCount] = vertex;
+        placedParents[placedCount] = parent;
+        placedIndex[vertex] = placedCount++;
+        layoutOutdated = true;
+    }
+
+    /**
+     * Moves the node of a placed vertex to its position in the layout
+     *
+     * @param node      the visual node of the vertex
+     * @param index     the index of the vertex in placed
+     */
+    private void setPosition(Node node, int index) {
+        node.setAttribute("xyz", layout[index * 2], layout[index * 2 + 1], 0);
+    }
+
+    /**
+     * Draws a placed vertex, the tree edge from its parent and, for DFS, its start and finish times
+     *
+     * @param index     the index of the vertex in placed
+     */
+    private void drawVertex(int index) {
+        int vertex = placed[index];
+        String label = forest.getLabel(vertex);
+        Node node = graphview.addNode(label);
+        setCollapsed(node, vertex);
+        setPosition(node, index);
+        int parent = forest.getParent(vertex);
+        if (parent >= 0) {
+            String parentLabel = forest.getLabel(parent);
+            graphview.addEdge(parentLabel + "." + label, parentLabel, label, false);
+        }
+        // If the forest is a DFS forest, then draw the start and finish times
+        if (forest.hasTimes()) {
+            Sprite time = spriteManager.addSprite(label + "time");
+            time.attachToNode(label);
+            time.setPosition(StyleConstants.Units.PX, Constants.START_FINISH_X, Constants.START_FINISH_Y,
+                    Constants.START_FINISH_Z);
+            time.setAttribute("ui.label", forest.getStartTime(vertex) + "/" + forest.getFinishTime(vertex));
+        }
+    }
+
+    /**
+     * Labels a drawn vertex with its number of hidden children, if it has any
+     *
+     * @param node      the visual node of the vertex
+     * @param vertex    the vertex id
+     */
+    private void setCollapsed(Node node, int vertex) {
+        Integer hiddenChildren = hidden.get(vertex);
+        if (hiddenChildren == null) {
+            node.setAttribute("ui.label", forest.getLabel(vertex));
+            if (node.hasAttribute("ui.class")) {
+                node.removeAttribute("ui.class");
+            }
+        } else {
+            node.setAttribute("ui.label", forest.getLabel(vertex) + " (+" + hiddenChildren + ")");
+            node.setAttribute("ui.class", "collapsed");
+        }
+    }
+
+    /**
+     * Draws more of the forest below a clicked vertex, or more trees if the more trees node was clicked
+     *
+     * @param id    the id of the clicked node
+     */
+    @Override
+    public void buttonPushed(String id) {
+        if (forest == null) {
+            return;
+        }
+        if (id.equals(MORE_TREES)) {
+            graphview.removeNode(MORE_TREES);
+            budget = Constants.FOREST_EXPAND_NODES;
+        } else {
+            int vertex = forest.getId(id);
+            if (vertex < 0 || !hidden.containsKey(vertex)) {
+                return;
+            }
+            budget = Constants.FOREST_EXPAND_NODES;
+            queueSubtree(vertex);
+            setCollapsed(graphview.getNode(id), vertex);
+        }
+        timer.setDelay(FRAME_MILLIS);
+        timer.restart();
+    }
+
+    @Override
+    public void buttonReleased(String id) {
+    }
+
+    @Override
+    public void viewClosed(String viewName) {
+    }
+}
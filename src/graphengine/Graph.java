@@ -1,22 +1,128 @@
 package graphengine;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import graphengine.algorithms.TopologicalSort;
 
 public class Graph {
     // A Hash Map that maps a vertex label to its corresponding vertex object
-    private HashMap<String, Vertex> adjacencyList;
+    private Map<String, Vertex> adjacencyList;
 
     // tracks the number of vertices in this graph
     private int size;
 
-    // tracks the current time in the DFS traversal
-    private int currTime;
+    // one past the largest vertex id handed out, so per-run arrays indexed by vertex id fit every vertex
+    private int idBound;
+
+    // maps a vertex id to its vertex object, null for an id that is not in use. Replaced rather than changed
+    // when it grows, so a concurrent graph can read it while a vertex is added.
+    private volatile Vertex[] vertexById;
+
+    // ids of deleted vertices that can be handed out again
+    private int[] freeIds;
+    private int freeIdCount;
+
+    // the vertices that satisfy and violate STC, built by the first STC query and kept up to date by every
+    // change to the graph after that, or null before the first query
+    private LinkedHashSet<String> satisfyingSTC;
+    private LinkedHashSet<String> violatingSTC;
+
+    // the topological order kept up to date by every change to the graph, or null if it is not tracked
+    private DynamicTopologicalOrder topologicalOrder;
+
+    // the journal every successful change to the graph is appended to, or null if the graph is not journaled
+    GraphJournal journal;
+
+    // the versioned copy every successful change to the graph is also made to, or null if it is not tracked
+    private VersionedGraph versions;
+
+    // true if the edge tables of the vertices are kept in direct memory
+    private final boolean offHeap;
+
+    // the direct memory the edge tables are kept in, or null if they are on the heap
+    private AdjacencyArena arena;
+
+    // true if the vertex labels are looked up in a concurrent hash map, so they can be read while added
+    private final boolean concurrent;
 
     public Graph() {
-        this.adjacencyList = new HashMap<>();
+        this(false, false);
+    }
+
+    /**
+     * Creates an empty graph
+     *
+     * @param offHeap       true to keep the edge tables in direct memory
+     * @param concurrent    true to look up vertex labels in a concurrent hash map
+     */
+    Graph(boolean offHeap, boolean concurrent) {
+        this.offHeap = offHeap;
+        this.concurrent = concurrent;
+        this.arena = offHeap ? new AdjacencyArena() : null;
+        this.adjacencyList = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
         this.size = 0;
-        this.currTime = 0;
+        this.idBound = 0;
+        this.vertexById = new Vertex[0];
+        this.freeIds = new int[0];
+        this.freeIdCount = 0;
+        this.satisfyingSTC = null;
+        this.violatingSTC = null;
+        this.topologicalOrder = null;
+        this.journal = null;
+        this.versions = null;
+    }
+
+    /**
+     * Returns an empty graph that keeps the edge tables of its vertices in direct memory outside the Java heap.
+     * The edges, which are most of the memory of a big graph, then put no pressure on the garbage collector,
+     * while the vertex objects and labels stay on the heap. The graph behaves like any other graph and every
+     * algorithm runs on it unchanged.
+     *
+     * Direct memory is capped by the JVM, by default at the maximum heap size, so a big off-heap graph needs
+     * -XX:MaxDirectMemorySize raised to fit its edges, or adding an edge fails with an OutOfMemoryError. The
+     * memory is taken in chunks of at least 64 MiB that the graph keeps until it is reset or garbage collected:
+     * a chunk is never returned while the graph lives, and free blocks never coalesce, so a freed block is only
+     * reused for a table of the same size. getOffHeapBytes() tells how much the graph holds.
+     *
+     * @return empty off-heap graph
+     */
+    public static Graph offHeap() {
+        return new Graph(true, false);
+    }
+
+    /**
+     * Checks if this graph keeps its edge tables in direct memory
+     *
+     * @return true, if the graph is off-heap, false otherwise
+     */
+    public boolean isOffHeap() {
+        return offHeap;
+    }
+
+    /**
+     * Returns the number of bytes of direct memory this graph holds for its edge tables
+     *
+     * @return direct memory in bytes, 0 if the graph is not off-heap
+     */
+    public long getOffHeapBytes() {
+        return arena == null ? 0 : arena.getReservedBytes();
+    }
+
+    /**
+     * Returns the arena the vertices of this graph keep their edge tables in
+     *
+     * @return the arena, or null if the tables are on the heap
+     */
+    AdjacencyArena getArena() {
+        return arena;
     }
 
     /**
@@ -38,19 +144,12 @@ public class Graph {
     }
 
     /**
-     * Returns the current time
+     * Returns one past the largest vertex id in use, which is the length an array indexed by vertex id needs
      *
-     * @return currTime
+     * @return idBound
      */
-    public int getCurrTime() {
-        return currTime;
-    }
-
-    /**
-     * Increase currTime by 1
-     */
-    public void incrementTime() {
-        currTime++;
+    public int getIdBound() {
+        return idBound;
     }
 
     /**
@@ -63,6 +162,16 @@ public class Graph {
         return adjacencyList.get(vertex);
     }
 
+    /**
+     * Returns the vertex object with a vertex id, which is how a vertex finds its neighbors
+     *
+     * @param id        vertex id
+     * @return vertex object, or null if no vertex has the id
+     */
+    Vertex getVertexById(int id) {
+        return vertexById[id];
+    }
+
     /**
      * Checks if the specified vertex is in the graph
      *
@@ -81,13 +190,65 @@ public class Graph {
      */
     public boolean addVertex(String vertex) {
         if (!adjacencyList.containsKey(vertex)) {
-            adjacencyList.put(vertex, new Vertex());
-            size++;
+            newVertex(vertex);
+            if (journal != null) {
+                journal.logAddVertex(vertex);
+            }
+            if (versions != null) {
+                versions.addVertex(vertex);
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Adds a new vertex to this graph as the child of a vertex already in this graph, with an edge without
+     * tie strength from the parent. The child is known to be new, so none of the checks of addVertex and
+     * addDirectedEdge are repeated. This takes none of the locks of a concurrent graph, so it is only for a
+     * graph that no other thread uses yet.
+     *
+     * @param parent    the parent vertex object, or null to add the child as a root
+     * @param child     the vertex to add, which must not be in this graph
+     * @return the vertex object of the child
+     */
+    Vertex addTreeVertex(Vertex parent, String child) {
+        Vertex childObj = newVertex(child);
+        if (parent != null) {
+            insertEdge(parent, childObj, null);
+        }
+        return childObj;
+    }
+
+    /**
+     * Creates the vertex object of a vertex that is not in this graph and adds it to the adjacency list.
+     * The journal replays through this without the checks of addVertex.
+     *
+     * @param vertex    the vertex to add
+     * @return the new vertex object
+     */
+    Vertex newVertex(String vertex) {
+        // reuse the id of a deleted vertex so the ids stay dense
+        int id = freeIdCount > 0 ? freeIds[--freeIdCount] : idBound++;
+        Vertex vertexObj = new Vertex(this, id, vertex);
+        Vertex[] vertices = vertexById;
+        if (id == vertices.length) {
+            vertices = Arrays.copyOf(vertices, Math.max(16, id * 2));
+        }
+        vertices[id] = vertexObj;
+        vertexById = vertices;
+        adjacencyList.put(vertex, vertexObj);
+        size++;
+        // a vertex without strong ties satisfies STC
+        if (satisfyingSTC != null) {
+            satisfyingSTC.add(vertex);
+        }
+        if (topologicalOrder != null) {
+            topologicalOrder.addVertex(vertexObj);
+        }
+        return vertexObj;
+    }
+
     /**
      * Deletes a vertex to this graph if it is in this graph
      *
@@ -96,10 +257,41 @@ public class Graph {
      */
     public boolean deleteVertex(String vertex) {
         if (adjacencyList.containsKey(vertex)) {
+            Vertex removed = adjacencyList.get(vertex);
+            if (satisfyingSTC != null) {
+                // remove the edges one at a time so the STC index sees every one of them go
+                for (Vertex neighbor : neighborsOf(removed)) {
+                    removeEdge(removed, neighbor);
+                }
+                for (Vertex inNeighbor : inNeighborsOf(removed)) {
+                    removeEdge(inNeighbor, removed);
+                }
+                satisfyingSTC.remove(vertex);
+            } else {
+                // only the endpoints of the vertex's own edges can refer to it
+                for (int slot = removed.nextInNeighborSlot(-1); slot >= 0; slot = removed.nextInNeighborSlot(slot)) {
+                    removed.getInNeighborAt(slot).deleteEdge(removed);
+                }
+                for (int slot = removed.nextNeighborSlot(-1); slot >= 0; slot = removed.nextNeighborSlot(slot)) {
+                    removed.getNeighborAt(slot).deleteInEdge(removed);
+                }
+            }
+            if (topologicalOrder != null) {
+                topologicalOrder.deleteVertex(removed);
+            }
             adjacencyList.remove(vertex);
+            vertexById[removed.getId()] = null;
+            removed.release();
             size--;
-            for (Vertex currVertex : adjacencyList.values()) {
-                currVertex.deleteEdge(vertex);
+            if (freeIdCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, Math.max(16, freeIdCount * 2));
+            }
+            freeIds[freeIdCount++] = removed.getId();
+            if (journal != null) {
+                journal.logDeleteVertex(vertex);
+            }
+            if (versions != null) {
+                versions.deleteVertex(vertex);
             }
             return true;
         }
@@ -129,6 +321,7 @@ public class Graph {
      * @param tieStrength   the tie strength
      * @return true, if the directed edge was successfully added to the graph, false otherwise
      * @throws IllegalArgumentException if the input vertices are the same
+     * @throws CycleException if the topological order is tracked and the edge would create a cycle
      */
     public boolean addDirectedEdge(String vertex1, String vertex2, Character tieStrength) {
         if (vertex1.equals(vertex2)) {
@@ -137,7 +330,13 @@ public class Graph {
         addVertex(vertex1);
         addVertex(vertex2);
         if (!hasDirectedEdge(vertex1, vertex2)) {
-            adjacencyList.get(vertex1).addEdge(vertex2, tieStrength);
+            insertEdge(adjacencyList.get(vertex1), adjacencyList.get(vertex2), tieStrength);
+            if (journal != null) {
+                journal.logAddDirectedEdge(vertex1, vertex2, tieStrength);
+            }
+            if (versions != null) {
+                versions.addDirectedEdge(vertex1, vertex2, tieStrength);
+            }
             return true;
         }
         return false;
@@ -156,7 +355,13 @@ public class Graph {
             throw new IllegalArgumentException("A Specified Vertex Does Not Exist");
         }
         if (hasDirectedEdge(vertex1, vertex2)) {
-            adjacencyList.get(vertex1).deleteEdge(vertex2);
+            removeEdge(adjacencyList.get(vertex1), adjacencyList.get(vertex2));
+            if (journal != null) {
+                journal.logDeleteDirectedEdge(vertex1, vertex2);
+            }
+            if (versions != null) {
+                versions.deleteDirectedEdge(vertex1, vertex2);
+            }
             return true;
         }
         return false;
@@ -182,6 +387,7 @@ public class Graph {
      * @param tieStrength   the tie strength
      * @return true, if the undirected edge was successfully added in the graph, false otherwise
      * @throws IllegalArgumentException if the input vertices are the same
+     * @throws CycleException if the topological order is tracked, since an undirected edge is a cycle
      */
     public boolean addUndirectedEdge(String vertex1, String vertex2, Character tieStrength) {
         if (vertex1.equals(vertex2)) {
@@ -190,8 +396,19 @@ public class Graph {
         addVertex(vertex1);
         addVertex(vertex2);
         if (!(hasDirectedEdge(vertex1, vertex2) || hasDirectedEdge(vertex2, vertex1))) {
-            adjacencyList.get(vertex1).addEdge(vertex2, tieStrength);
-            adjacencyList.get(vertex2).addEdge(vertex1, tieStrength);
+            if (topologicalOrder != null) {
+                throw new CycleException(Arrays.asList(vertex1, vertex2, vertex1));
+            }
+            Vertex vertex1Obj = adjacencyList.get(vertex1);
+            Vertex vertex2Obj = adjacencyList.get(vertex2);
+            insertEdge(vertex1Obj, vertex2Obj, tieStrength);
+            insertEdge(vertex2Obj, vertex1Obj, tieStrength);
+            if (journal != null) {
+                journal.logAddUndirectedEdge(vertex1, vertex2, tieStrength);
+            }
+            if (versions != null) {
+                versions.addUndirectedEdge(vertex1, vertex2, tieStrength);
+            }
             return true;
         }
         return false;
@@ -211,13 +428,268 @@ public class Graph {
             throw new IllegalArgumentException("A Specified Vertex Does Not Exist");
         }
         if (hasUndirectedEdge(vertex1, vertex2)) {
-            adjacencyList.get(vertex1).deleteEdge(vertex2);
-            adjacencyList.get(vertex2).deleteEdge(vertex1);
+            Vertex vertex1Obj = adjacencyList.get(vertex1);
+            Vertex vertex2Obj = adjacencyList.get(vertex2);
+            removeEdge(vertex1Obj, vertex2Obj);
+            removeEdge(vertex2Obj, vertex1Obj);
+            if (journal != null) {
+                journal.logDeleteUndirectedEdge(vertex1, vertex2);
+            }
+            if (versions != null) {
+                versions.deleteUndirectedEdge(vertex1, vertex2);
+            }
             return true;
         }
         return false;
     }
 
+    /**
+     * Adds a directed edge between two vertex objects, keeping the in-neighbor and STC indexes and the
+     * topological order up to date. The journal replays through this without the checks of addDirectedEdge.
+     *
+     * @param from          the starting vertex object
+     * @param to            the ending vertex object
+     * @param tieStrength   the tie strength
+     * @throws CycleException if the topological order is tracked and the edge would create a cycle
+     */
+    void insertEdge(Vertex from, Vertex to, Character tieStrength) {
+        // the order is repaired first, so an edge that would create a cycle leaves the graph untouched
+        if (topologicalOrder != null) {
+            topologicalOrder.addEdge(from, to);
+        }
+        if (satisfyingSTC != null) {
+            updateSTCForEdge(from, to, tieStrength, 1);
+        }
+        from.addEdge(to, tieStrength);
+        to.addInEdge(from);
+    }
+
+    /**
+     * Deletes a directed edge between two vertex objects, keeping the in-neighbor and STC indexes up to date.
+     * The journal replays through this without the checks of deleteDirectedEdge.
+     *
+     * @param from          the starting vertex object
+     * @param to            the ending vertex object
+     */
+    void removeEdge(Vertex from, Vertex to) {
+        Character tieStrength = from.findTieStrength(to);
+        from.deleteEdge(to);
+        to.deleteInEdge(from);
+        if (satisfyingSTC != null) {
+            updateSTCForEdge(from, to, tieStrength, -1);
+        }
+    }
+
+    /**
+     * Updates the STC violation counts for a directed edge that is about to be added, or was just deleted.
+     * Only the source of the edge and the vertices with strong ties to both endpoints can change status.
+     *
+     * @param from          the starting vertex object
+     * @param to            the ending vertex object
+     * @param tieStrength   the tie strength of the edge
+     * @param change        1 if the edge is about to be added, -1 if it was just deleted
+     */
+    private void updateSTCForEdge(Vertex from, Vertex to, Character tieStrength, int change) {
+        // a strong edge pairs the ending vertex with every other strong tie of the starting vertex
+        if (isStrong(tieStrength)) {
+            for (int slot = from.nextNeighborSlot(-1); slot >= 0; slot = from.nextNeighborSlot(slot)) {
+                Vertex neighbor = from.getNeighborAt(slot);
+                if (isStrong(from.getTieStrengthAt(slot)) && neighbor != to && !isConnected(to, neighbor)) {
+                    changeSTCViolations(from, change);
+                }
+            }
+        }
+        // if there is no edge the other way, the two endpoints go from unconnected to connected or back,
+        // which settles the pair for every vertex that has strong ties to both of them
+        if (!to.hasEdge(from)) {
+            Vertex smaller = from.getInDegree() <= to.getInDegree() ? from : to;
+            Vertex larger = smaller == from ? to : from;
+            for (int slot = smaller.nextInNeighborSlot(-1); slot >= 0; slot = smaller.nextInNeighborSlot(slot)) {
+                Vertex common = smaller.getInNeighborAt(slot);
+                if (larger.hasInEdge(common)
+                        && isStrong(common.findTieStrength(from))
+                        && isStrong(common.findTieStrength(to))) {
+                    changeSTCViolations(common, -change);
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if there is an edge in either direction between two vertex objects
+     *
+     * @param vertex1       a vertex object
+     * @param vertex2       a vertex object
+     * @return true, if the vertices are connected, false otherwise
+     */
+    private static boolean isConnected(Vertex vertex1, Vertex vertex2) {
+        return vertex1.hasEdge(vertex2) || vertex2.hasEdge(vertex1);
+    }
+
+    /**
+     * Copies the neighbors of a vertex object, so its edges can be removed while walking the copy
+     *
+     * @param vertex        the vertex object
+     * @return the vertex objects of its neighbors
+     */
+    private static ArrayList<Vertex> neighborsOf(Vertex vertex) {
+        ArrayList<Vertex> neighbors = new ArrayList<>(vertex.getOutDegree());
+        for (int slot = vertex.nextNeighborSlot(-1); slot >= 0; slot = vertex.nextNeighborSlot(slot)) {
+            neighbors.add(vertex.getNeighborAt(slot));
+        }
+        return neighbors;
+    }
+
+    /**
+     * Copies the in-neighbors of a vertex object, so its edges can be removed while walking the copy
+     *
+     * @param vertex        the vertex object
+     * @return the vertex objects of its in-neighbors
+     */
+    private static ArrayList<Vertex> inNeighborsOf(Vertex vertex) {
+        ArrayList<Vertex> inNeighbors = new ArrayList<>(vertex.getInDegree());
+        for (int slot = vertex.nextInNeighborSlot(-1); slot >= 0; slot = vertex.nextInNeighborSlot(slot)) {
+            inNeighbors.add(vertex.getInNeighborAt(slot));
+        }
+        return inNeighbors;
+    }
+
+    /**
+     * Checks if a tie strength is strong
+     *
+     * @param tieStrength   the tie strength, or null
+     * @return true, if the tie strength is 'S', false otherwise
+     */
+    private static boolean isStrong(Character tieStrength) {
+        return tieStrength != null && tieStrength == 'S';
+    }
+
+    /**
+     * Changes the number of STC violations of a vertex and moves it between the satisfying and violating sets
+     *
+     * @param vertex        the vertex object
+     * @param change        the change in the number of violations
+     */
+    private void changeSTCViolations(Vertex vertex, int change) {
+        boolean satisfied = vertex.stcViolations == 0;
+        vertex.stcViolations += change;
+        if (satisfied && vertex.stcViolations != 0) {
+            satisfyingSTC.remove(vertex.getLabel());
+            violatingSTC.add(vertex.getLabel());
+        } else if (!satisfied && vertex.stcViolations == 0) {
+            violatingSTC.remove(vertex.getLabel());
+            satisfyingSTC.add(vertex.getLabel());
+        }
+    }
+
+    /**
+     * Builds the STC index from scratch. The violations of a vertex are the pairs of its strong ties with no
+     * edge between them, counted through the edges of each strong tie.
+     */
+    private void buildSTCIndex() {
+        satisfyingSTC = new LinkedHashSet<>();
+        violatingSTC = new LinkedHashSet<>();
+        for (Vertex vertex : adjacencyList.values()) {
+            int strongTies = 0;
+            int connectedPairs = 0;
+            for (int slot = vertex.nextNeighborSlot(-1); slot >= 0; slot = vertex.nextNeighborSlot(slot)) {
+                if (!isStrong(vertex.getTieStrengthAt(slot))) {
+                    continue;
+                }
+                strongTies++;
+                Vertex neighbor = vertex.getNeighborAt(slot);
+                // every other strong tie with an edge to or from this one, each one only once
+                for (int other = neighbor.nextNeighborSlot(-1); other >= 0; other = neighbor.nextNeighborSlot(other)) {
+                    if (isStrong(vertex.findTieStrength(neighbor.getNeighborAt(other)))) {
+                        connectedPairs++;
+                    }
+                }
+                for (int other = neighbor.nextInNeighborSlot(-1); other >= 0;
+                     other = neighbor.nextInNeighborSlot(other)) {
+                    Vertex otherObj = neighbor.getInNeighborAt(other);
+                    if (isStrong(vertex.findTieStrength(otherObj)) && !neighbor.hasEdge(otherObj)) {
+                        connectedPairs++;
+                    }
+                }
+            }
+            // each connected pair was counted from both of its ends
+            vertex.stcViolations = strongTies * (strongTies - 1) / 2 - connectedPairs / 2;
+            if (vertex.stcViolations == 0) {
+                satisfyingSTC.add(vertex.getLabel());
+            } else {
+                violatingSTC.add(vertex.getLabel());
+            }
+        }
+    }
+
+    /**
+     * Returns the vertices that currently satisfy STC. The first STC query builds an index that every later
+     * change to the graph keeps up to date, so later queries take constant time.
+     *
+     * @return read-only live view of the vertices satisfying STC
+     */
+    public Set<String> getSatisfyingSTC() {
+        if (satisfyingSTC == null) {
+            buildSTCIndex();
+        }
+        return Collections.unmodifiableSet(satisfyingSTC);
+    }
+
+    /**
+     * Checks if the graph keeps an STC index, which it builds on the first STC query
+     *
+     * @return true, if STC queries take constant time, false otherwise
+     */
+    public boolean isIndexingSTC() {
+        return satisfyingSTC != null;
+    }
+
+    /**
+     * Returns the vertices that currently violate STC. The first STC query builds an index that every later
+     * change to the graph keeps up to date, so later queries take constant time.
+     *
+     * @return read-only live view of the vertices violating STC
+     */
+    public Set<String> getViolatingSTC() {
+        if (violatingSTC == null) {
+            buildSTCIndex();
+        }
+        return Collections.unmodifiableSet(violatingSTC);
+    }
+
+    /**
+     * Returns the number of pairs of strong ties of a vertex with no edge between them
+     *
+     * @param vertex        the vertex
+     * @return the number of STC violations of vertex, 0 if it satisfies STC
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     */
+    public int getSTCViolations(String vertex) {
+        Vertex vertexObj = adjacencyList.get(vertex);
+        if (vertexObj == null) {
+            throw new IllegalArgumentException("A Specified Vertex Does Not Exist");
+        }
+        if (satisfyingSTC == null) {
+            buildSTCIndex();
+        }
+        return vertexObj.stcViolations;
+    }
+
+    /**
+     * Returns the vertices that have a directed edge to the specified vertex
+     *
+     * @param vertex        the vertex
+     * @return in-neighbors of vertex
+     * @throws IllegalArgumentException if the vertex is not in the graph
+     */
+    public Set<String> getInNeighbors(String vertex) {
+        Vertex vertexObj = adjacencyList.get(vertex);
+        if (vertexObj == null) {
+            throw new IllegalArgumentException("A Specified Vertex Does Not Exist");
+        }
+        return vertexObj.getInNeighbors();
+    }
+
     /**
      * Returns the tie strength between two specified vertices
      *
@@ -234,20 +706,187 @@ public class Graph {
     }
 
     /**
-     * Resets the Graph
+     * Returns a new graph with every edge of this graph reversed, keeping the tie strengths and, for an
+     * off-heap graph, keeping the edges off the heap
+     *
+     * @return transpose of this graph
+     */
+    public Graph transpose() {
+        Graph transpose = new Graph(offHeap, false);
+        for (String vertex : adjacencyList.keySet()) {
+            transpose.addVertex(vertex);
+        }
+        for (Vertex vertex : adjacencyList.values()) {
+            Vertex original = transpose.adjacencyList.get(vertex.getLabel());
+            for (int slot = vertex.nextNeighborSlot(-1); slot >= 0; slot = vertex.nextNeighborSlot(slot)) {
+                Vertex reversed = transpose.adjacencyList.get(vertex.getNeighborAt(slot).getLabel());
+                reversed.addEdge(original, vertex.getTieStrengthAt(slot));
+                original.addInEdge(reversed);
+            }
+        }
+        return transpose;
+    }
+
+    /**
+     * Returns an immutable compact snapshot of this graph. Later changes to this graph are not
+     * reflected in the snapshot.
+     *
+     * @return compact snapshot of this graph
      */
-    public void reset() {
-        this.adjacencyList = new HashMap<>();
-        this.size = 0;
-        this.currTime = 0;
+    public CompactGraph freeze() {
+        // assign dense ids in the iteration order of the adjacency list
+        String[] labels = new String[size];
+        Vertex[] vertices = new Vertex[size];
+        HashMap<String, Integer> ids = new HashMap<>();
+        // maps the id of a vertex in this graph to its id in the snapshot
+        int[] denseIds = new int[idBound];
+        int[] offsets = new int[size + 1];
+        int id = 0;
+        for (Map.Entry<String, Vertex> entry : adjacencyList.entrySet()) {
+            labels[id] = entry.getKey();
+            vertices[id] = entry.getValue();
+            ids.put(entry.getKey(), id);
+            denseIds[entry.getValue().getId()] = id;
+            offsets[id + 1] = offsets[id] + entry.getValue().getOutDegree();
+            id++;
+        }
+
+        int edgeCount = offsets[size];
+        int[] targets = new int[edgeCount];
+        long[] strongTies = new long[(edgeCount + 63) >>> 6];
+        // pairs of an edge index and its tie strength for the edges whose tie strength is neither 'S' nor 'W'
+        int[] otherTies = new int[0];
+        int otherTieCount = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            // pack each edge as (target id << 1 | strong bit) so sorting keeps the tie strengths aligned
+            int edge = offsets[vertex];
+            Vertex vertexObj = vertices[vertex];
+            boolean hasOtherTies = false;
+            for (int slot = vertexObj.nextNeighborSlot(-1); slot >= 0; slot = vertexObj.nextNeighborSlot(slot)) {
+                Character tieStrength = vertexObj.getTieStrengthAt(slot);
+                hasOtherTies |= tieStrength == null || tieStrength != 'S' && tieStrength != 'W';
+                int target = denseIds[vertexObj.getNeighborAt(slot).getId()];
+                targets[edge++] = target << 1 | (isStrong(tieStrength) ? 1 : 0);
+            }
+            Arrays.sort(targets, offsets[vertex], offsets[vertex + 1]);
+            for (edge = offsets[vertex]; edge < offsets[vertex + 1]; edge++) {
+                if ((targets[edge] & 1) != 0) {
+                    strongTies[edge >>> 6] |= 1L << edge;
+                }
+                targets[edge] >>>= 1;
+                if (hasOtherTies) {
+                    Character tieStrength = vertexObj.findTieStrength(vertices[targets[edge]]);
+                    if (tieStrength == null || tieStrength != 'S' && tieStrength != 'W') {
+                        if (otherTieCount * 2 == otherTies.length) {
+                            otherTies = Arrays.copyOf(otherTies, Math.max(16, otherTies.length * 2));
+                        }
+                        otherTies[2 * otherTieCount] = edge;
+                        otherTies[2 * otherTieCount + 1] = tieStrength == null ? CompactGraph.NO_TIE : tieStrength;
+                        otherTieCount++;
+                    }
+                }
+            }
+        }
+        return new CompactGraph(labels, ids, offsets, targets, strongTies,
+                Arrays.copyOf(otherTies, 2 * otherTieCount));
     }
 
     /**
-     * Resets all the vertices in the graph
+     * Starts keeping a topological order of this graph up to date. After this, every edge that would create a
+     * cycle is rejected with a CycleException, and an edge that agrees with the current order costs nothing
+     * extra to add.
+     *
+     * @throws CycleException if the graph is not a directed acyclic graph (DAG)
      */
-    public void resetVertices() {
-        for (String vertex : adjacencyList.keySet()) {
-            getVertex(vertex).reset();
+    public void trackTopologicalOrder() {
+        if (topologicalOrder == null) {
+            topologicalOrder = new DynamicTopologicalOrder(this, TopologicalSort.runTopologicalSort(this));
+        }
+    }
+
+    /**
+     * Stops keeping the topological order up to date, so edges that create cycles are allowed again
+     */
+    public void untrackTopologicalOrder() {
+        topologicalOrder = null;
+    }
+
+    /**
+     * Checks if this graph keeps a topological order up to date
+     *
+     * @return true, if the topological order is tracked, false otherwise
+     */
+    public boolean isTrackingTopologicalOrder() {
+        return topologicalOrder != null;
+    }
+
+    /**
+     * Starts keeping a versioned copy of this graph up to date, so readers on other threads can pin a version of
+     * this graph in constant time and freeze it without waiting for the thread that changes this graph. After
+     * this, every change to the graph is also made to the copy, but the copy must not be changed directly.
+     *
+     * @return the versioned copy
+     */
+    public VersionedGraph trackVersions() {
+        if (versions == null) {
+            VersionedGraph copy = new VersionedGraph();
+            for (Vertex vertexObj : adjacencyList.values()) {
+                copy.addVertex(vertexObj.getLabel());
+            }
+            for (Vertex vertexObj : adjacencyList.values()) {
+                for (int slot = vertexObj.nextNeighborSlot(-1); slot >= 0; slot = vertexObj.nextNeighborSlot(slot)) {
+                    copy.addDirectedEdge(vertexObj.getLabel(), vertexObj.getNeighborAt(slot).getLabel(),
+                            vertexObj.getTieStrengthAt(slot));
+                }
+            }
+            versions = copy;
+        }
+        return versions;
+    }
+
+    /**
+     * Checks if this graph keeps a versioned copy up to date
+     *
+     * @return true, if the versions are tracked, false otherwise
+     */
+    public boolean isTrackingVersions() {
+        return versions != null;
+    }
+
+    /**
+     * Returns the tracked topological order, without sorting the graph again
+     *
+     * @return list of vertices in a topological sorting
+     * @throws IllegalStateException if the topological order is not tracked
+     */
+    public LinkedList<String> getTopologicalOrder() {
+        if (topologicalOrder == null) {
+            throw new IllegalStateException("The Topological Order is Not Tracked");
+        }
+        return topologicalOrder.getOrder();
+    }
+
+    /**
+     * Resets the Graph. A tracked topological order stays tracked.
+     */
+    public void reset() {
+        this.arena = offHeap ? new AdjacencyArena() : null;
+        this.adjacencyList = concurrent ? new ConcurrentHashMap<>() : new HashMap<>();
+        this.size = 0;
+        this.idBound = 0;
+        this.vertexById = new Vertex[0];
+        this.freeIds = new int[0];
+        this.freeIdCount = 0;
+        this.satisfyingSTC = null;
+        this.violatingSTC = null;
+        if (this.topologicalOrder != null) {
+            this.topologicalOrder = new DynamicTopologicalOrder(this, Collections.emptyList());
+        }
+        if (journal != null) {
+            journal.logReset();
+        }
+        if (versions != null) {
+            versions.reset();
         }
     }
 
@@ -1,5 +1,5 @@
 package graphengine;
 
 public enum GraphAlgorithm {
-    BFS, DFS, TOPOLOGICAL_SORT, IDENTIFY_STC
+    BFS, DFS, TOPOLOGICAL_SORT, IDENTIFY_STC, STRONGLY_CONNECTED_COMPONENTS
 }
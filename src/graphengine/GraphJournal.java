@@ -0,0 +1,548 @@
+package graphengine;
+
+import graphengine.io.GraphSnapshot;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * An append-only write-ahead journal of the changes made to a graph, kept in a directory next to a snapshot
+ * of the graph. Every successful addVertex, deleteVertex, edge addition or deletion and reset is appended
+ * as one record. Records are written and forced to disk in groups, once a batch is full or a flush interval
+ * has passed, so durability does not cost one fsync per edge.
+ *
+ * Opening a journal loads the snapshot and replays the records on top of it, skipping the checks the
+ * original calls already made. Once the journal grows past the compaction threshold, the graph is written
+ * to a new snapshot and the journal starts over, so replay time stays bounded.
+ */
+public class GraphJournal implements Closeable {
+    // "GRAPHJNL" read as a big-endian long
+    private static final long MAGIC = 0x47524150484a4e4cL;
+
+    // the format version this class writes and reads
+    private static final int VERSION = 1;
+
+    // the magic, the version and the sequence number of the snapshot the records apply to
+    private static final int HEADER_SIZE = 20;
+
+    // the length and checksum in front of every record
+    private static final int FRAME_SIZE = 8;
+
+    public static final String SNAPSHOT_FILE = "graph.snapshot";
+    public static final String JOURNAL_FILE = "graph.journal";
+
+    public static final int DEFAULT_BATCH_SIZE = 1024;
+    public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 50;
+    public static final long DEFAULT_COMPACTION_THRESHOLD = 64L << 20;
+
+    // record types
+    private static final byte ADD_VERTEX = 1;
+    private static final byte DELETE_VERTEX = 2;
+    private static final byte ADD_DIRECTED_EDGE = 3;
+    private static final byte DELETE_DIRECTED_EDGE = 4;
+    private static final byte ADD_UNDIRECTED_EDGE = 5;
+    private static final byte DELETE_UNDIRECTED_EDGE = 6;
+    private static final byte RESET = 7;
+
+    private final Path snapshotFile;
+    private final Path journalFile;
+    private final Graph graph;
+    private final int batchSize;
+    private final long compactionThreshold;
+
+    // the journal file, positioned at its end
+    private FileChannel channel;
+
+    // the sequence number of the snapshot the journal's records apply to
+    private long sequence;
+
+    // the length of the journal file, not counting records that are still pending
+    private long journalSize;
+
+    // the records that have not been written yet, and how many there are
+    private ByteBuffer pending;
+    private int pendingRecords;
+
+    // the position of the frame of the record being built
+    private int recordStart;
+
+    // writes and forces pending records once the flush interval has passed, or null without an interval
+    private final ScheduledExecutorService flusher;
+
+    // the failure of a background flush, reported by the next call on the graph's thread
+    private IOException flushFailure;
+
+    private final CRC32 checksum;
+
+    private GraphJournal(Path directory, Graph graph, long sequence, FileChannel channel, int batchSize,
+                         long flushIntervalMillis, long compactionThreshold) throws IOException {
+        this.snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        this.journalFile = directory.resolve(JOURNAL_FILE);
+        this.graph = graph;
+        this.batchSize = batchSize;
+        this.compactionThreshold = compactionThreshold;
+        this.channel = channel;
+        this.sequence = sequence;
+        this.journalSize = channel.size();
+        this.pending = ByteBuffer.allocate(64 * 1024);
+        this.pendingRecords = 0;
+        this.flushFailure = null;
+        this.checksum = new CRC32();
+        if (flushIntervalMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "graph-journal-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flushInBackground, flushIntervalMillis, flushIntervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Opens the journal in a directory with the default batch size, flush interval and compaction threshold
+     *
+     * @param directory     the directory of the snapshot and journal files, created if it does not exist
+     * @return the journal, whose graph holds every change that was made durable before
+     * @throws IOException if the files can not be read or written
+     */
+    public static GraphJournal open(Path directory) throws IOException {
+        return open(directory, DEFAULT_BATCH_SIZE, DEFAULT_FLUSH_INTERVAL_MILLIS, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Opens the journal in a directory. The snapshot is loaded and the journal's records are replayed on
+     * top of it. A record torn by a crash ends the replay and is cut off the file. From then on, every change
+     * to the returned journal's graph is journaled.
+     *
+     * @param directory             the directory of the snapshot and journal files, created if it does not exist
+     * @param batchSize             the number of records that are written and forced together
+     * @param flushIntervalMillis   the longest time a record waits to be forced, or 0 to only force full batches
+     * @param compactionThreshold   the journal length in bytes that triggers a compaction
+     * @return the journal, whose graph holds every change that was made durable before
+     * @throws IOException if the files can not be read or written
+     * @throws IllegalArgumentException if the batch size is not positive or the files do not belong together
+     */
+    public static GraphJournal open(Path directory, int batchSize, long flushIntervalMillis,
+                                    long compactionThreshold) throws IOException {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch Size Must be Positive");
+        }
+        Files.createDirectories(directory);
+        Path snapshotFile = directory.resolve(SNAPSHOT_FILE);
+        Path journalFile = directory.resolve(JOURNAL_FILE);
+
+        long sequence = 0;
+        Graph graph;
+        if (Files.exists(snapshotFile)) {
+            sequence = GraphSnapshot.readSequence(snapshotFile);
+            graph = GraphSnapshot.load(snapshotFile);
+        } else {
+            graph = new Graph();
+        }
+
+        FileChannel channel = null;
+        if (Files.exists(journalFile)) {
+            channel = FileChannel.open(journalFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            long journalSequence = readJournalSequence(channel);
+            if (journalSequence > sequence) {
+                channel.close();
+                throw new IllegalArgumentException("Graph Journal is Newer Than its Snapshot");
+            }
+            if (journalSequence == sequence) {
+                long end = replay(journalFile, graph);
+                // cut off a record torn by a crash so new records follow the last whole one
+                channel.truncate(end);
+                channel.position(end);
+            } else {
+                // a compaction wrote the snapshot but stopped before starting the journal over
+                channel.close();
+                channel = null;
+            }
+        }
+        if (channel == null) {
+            channel = createJournal(journalFile, sequence);
+        }
+        GraphJournal journal = new GraphJournal(directory, graph, sequence, channel, batchSize,
+                flushIntervalMillis, compactionThreshold);
+        graph.journal = journal;
+        return journal;
+    }
+
+    /**
+     * Returns the graph whose changes are journaled
+     *
+     * @return graph
+     */
+    public Graph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Writes and forces every pending record, so every change made so far survives a crash
+     *
+     * @throws IOException if the journal can not be written
+     */
+    public synchronized void sync() throws IOException {
+        checkFlushFailure();
+        flush();
+    }
+
+    /**
+     * Folds the journal into a new snapshot of the graph and starts the journal over. The snapshot gets the
+     * next sequence number before the journal is replaced, so if a crash comes in between, the old journal is
+     * recognized as already folded in. The snapshot keeps the exact tie strength of every edge, so the graph
+     * opened from it equals the one that was journaled.
+     *
+     * @throws IOException if the files can not be written
+     */
+    public synchronized void compact() throws IOException {
+        checkFlushFailure();
+        flush();
+        long nextSequence = sequence + 1;
+        GraphSnapshot.write(graph.freeze(), snapshotFile, nextSequence);
+        channel.close();
+        Path temporary = journalFile.resolveSibling(JOURNAL_FILE + ".tmp");
+        createJournal(temporary, nextSequence).close();
+        Files.move(temporary, journalFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        channel = FileChannel.open(journalFile, StandardOpenOption.WRITE);
+        channel.position(channel.size());
+        journalSize = channel.size();
+        sequence = nextSequence;
+    }
+
+    /**
+     * Forces every pending record and stops journaling the graph
+     *
+     * @throws IOException if the journal can not be written
+     */
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        synchronized (this) {
+            if (graph.journal == this) {
+                graph.journal = null;
+            }
+            try {
+                checkFlushFailure();
+                flush();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+    // every record is built and framed while holding the lock, so a background flush never sees half of one
+
+    synchronized void logAddVertex(String vertex) {
+        startRecord(ADD_VERTEX);
+        putLabel(vertex);
+        endRecord();
+    }
+
+    synchronized void logDeleteVertex(String vertex) {
+        startRecord(DELETE_VERTEX);
+        putLabel(vertex);
+        endRecord();
+    }
+
+    synchronized void logAddDirectedEdge(String vertex1, String vertex2, Character tieStrength) {
+        startRecord(ADD_DIRECTED_EDGE);
+        putLabel(vertex1);
+        putLabel(vertex2);
+        putTieStrength(tieStrength);
+        endRecord();
+    }
+
+    synchronized void logDeleteDirectedEdge(String vertex1, String vertex2) {
+        startRecord(DELETE_DIRECTED_EDGE);
+        putLabel(vertex1);
+        putLabel(vertex2);
+        endRecord();
+    }
+
+    synchronized void logAddUndirectedEdge(String vertex1, String vertex2, Character tieStrength) {
+        startRecord(ADD_UNDIRECTED_EDGE);
+        putLabel(vertex1);
+        putLabel(vertex2);
+        putTieStrength(tieStrength);
+        endRecord();
+    }
+
+    synchronized void logDeleteUndirectedEdge(String vertex1, String vertex2) {
+        startRecord(DELETE_UNDIRECTED_EDGE);
+        putLabel(vertex1);
+        putLabel(vertex2);
+        endRecord();
+    }
+
+    synchronized void logReset() {
+        startRecord(RESET);
+        endRecord();
+    }
+
+    /**
+     * Starts a record in the pending buffer, leaving room for its frame
+     *
+     * @param type      the record type
+     */
+    private void startRecord(byte type) {
+        if (flushFailure != null) {
+            throw new UncheckedIOException(flushFailure);
+        }
+        recordStart = pending.position();
+        ensureRoom(FRAME_SIZE + 1);
+        pending.position(pending.position() + FRAME_SIZE);
+        pending.put(type);
+    }
+
+    private void putLabel(String vertex) {
+        byte[] bytes = vertex.getBytes(StandardCharsets.UTF_8);
+        ensureRoom(4 + bytes.length);
+        pending.putInt(bytes.length);
+        pending.put(bytes);
+    }
+
+    private void putTieStrength(Character tieStrength) {
+        ensureRoom(3);
+        pending.put((byte) (tieStrength != null ? 1 : 0));
+        pending.putChar(tieStrength != null ? tieStrength : (char) 0);
+    }
+
+    /**
+     * Fills in the frame of the record being built, and writes the pending records once the batch is full or
+     * the journal once it has grown past the compaction threshold
+     */
+    private void endRecord() {
+        int payloadStart = recordStart + FRAME_SIZE;
+        int payloadLength = pending.position() - payloadStart;
+        checksum.reset();
+        checksum.update(pending.array(), payloadStart, payloadLength);
+        pending.putInt(recordStart, payloadLength);
+        pending.putInt(recordStart + 4, (int) checksum.getValue());
+        pendingRecords++;
+        try {
+            if (pendingRecords >= batchSize) {
+                flush();
+            }
+            if (journalSize + pending.position() > compactionThreshold) {
+                compact();
+            }
+        } catch (IOException exception) {
+            throw new UncheckedIOException(exception);
+        }
+    }
+
+    /**
+     * Grows the pending buffer so the record being built has room for more bytes
+     *
+     * @param bytes     the number of bytes needed
+     */
+    private void ensureRoom(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    }
+
+    /**
+     * Writes the pending records to the journal and forces them to disk
+     *
+     * @throws IOException if the journal can not be written
+     */
+    private synchronized void flush() throws IOException {
+        if (pendingRecords == 0) {
+            return;
+        }
+        pending.flip();
+        while (pending.hasRemaining()) {
+            channel.write(pending);
+        }
+        pending.clear();
+        pendingRecords = 0;
+        channel.force(false);
+        journalSize = channel.size();
+    }
+
+    /**
+     * Flushes on the background thread, keeping a failure for the graph's thread to report
+     */
+    private synchronized void flushInBackground() {
+        if (flushFailure != null || !channel.isOpen()) {
+            return;
+        }
+        try {
+            flush();
+        } catch (IOException exception) {
+            flushFailure = exception;
+        }
+    }
+
+    private void checkFlushFailure() throws IOException {
+        if (flushFailure != null) {
+            throw flushFailure;
+        }
+    }
+
+    /**
+     * Creates a journal file with no records
+     *
+     * @param file          the journal file, which is replaced if it exists
+     * @param sequence      the sequence number of the snapshot the records will apply to
+     * @return the journal file, positioned after the header
+     * @throws IOException if the file can not be written
+     */
+    private static FileChannel createJournal(Path file, long sequence) throws IOException {
+        FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putLong(MAGIC).putInt(VERSION).putLong(sequence).flip();
+        while (header.hasRemaining()) {
+            channel.write(header);
+        }
+        channel.force(true);
+        return channel;
+    }
+
+    /**
+     * Reads the sequence number from the header of a journal file
+     *
+     * @param channel       the journal file
+     * @return the sequence number of the snapshot the records apply to
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a journal this version can read
+     */
+    private static long readJournalSequence(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (header.hasRemaining()) {
+            if (channel.read(header, header.position()) < 0) {
+                break;
+            }
+        }
+        if (header.hasRemaining() || header.getLong(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a Graph Journal");
+        }
+        if (header.getInt(8) != VERSION) {
+            throw new IllegalArgumentException("Unsupported Graph Journal Version " + header.getInt(8));
+        }
+        return header.getLong(12);
+    }
+
+    /**
+     * Replays the records of a journal file on a graph. The records were only written for calls that
+     * succeeded, so they are applied without repeating the checks: the vertices of an added edge were
+     * journaled before it, and the edge did not exist yet.
+     *
+     * @param file      the journal file
+     * @param graph     the graph to apply the records to
+     * @return the position just after the last whole record
+     * @throws IOException if the file can not be read
+     */
+    private static long replay(Path file, Graph graph) throws IOException {
+        CRC32 checksum = new CRC32();
+        long position = HEADER_SIZE;
+        try (InputStream stream = Files.newInputStream(file)) {
+            DataInputStream input = new DataInputStream(new BufferedInputStream(stream, 1 << 16));
+            input.skipBytes(HEADER_SIZE);
+            byte[] payload = new byte[256];
+            while (true) {
+                int payloadLength;
+                int expected;
+                try {
+                    payloadLength = input.readInt();
+                    expected = input.readInt();
+                    if (payloadLength < 1) {
+                        return position;
+                    }
+                    if (payloadLength > payload.length) {
+                        payload = new byte[Math.max(payloadLength, payload.length * 2)];
+                    }
+                    input.readFully(payload, 0, payloadLength);
+                } catch (EOFException exception) {
+                    return position;
+                }
+                checksum.reset();
+                checksum.update(payload, 0, payloadLength);
+                if ((int) checksum.getValue() != expected) {
+                    return position;
+                }
+                apply(ByteBuffer.wrap(payload, 0, payloadLength), graph);
+                position += FRAME_SIZE + payloadLength;
+            }
+        }
+    }
+
+    /**
+     * Applies one record to a graph
+     *
+     * @param record    the record payload
+     * @param graph     the graph to apply the record to
+     */
+    private static void apply(ByteBuffer record, Graph graph) {
+        byte type = record.get();
+        if (type == RESET) {
+            graph.reset();
+            return;
+        }
+        String vertex1 = getLabel(record);
+        if (type == ADD_VERTEX) {
+            graph.newVertex(vertex1);
+            return;
+        } else if (type == DELETE_VERTEX) {
+            graph.deleteVertex(vertex1);
+            return;
+        }
+        Vertex vertex1Obj = graph.getVertex(vertex1);
+        Vertex vertex2Obj = graph.getVertex(getLabel(record));
+        if (type == ADD_DIRECTED_EDGE) {
+            graph.insertEdge(vertex1Obj, vertex2Obj, getTieStrength(record));
+        } else if (type == DELETE_DIRECTED_EDGE) {
+            graph.removeEdge(vertex1Obj, vertex2Obj);
+        } else if (type == ADD_UNDIRECTED_EDGE) {
+            Character tieStrength = getTieStrength(record);
+            graph.insertEdge(vertex1Obj, vertex2Obj, tieStrength);
+            graph.insertEdge(vertex2Obj, vertex1Obj, tieStrength);
+        } else if (type == DELETE_UNDIRECTED_EDGE) {
+            graph.removeEdge(vertex1Obj, vertex2Obj);
+            graph.removeEdge(vertex2Obj, vertex1Obj);
+        } else {
+            throw new IllegalArgumentException("Unknown Graph Journal Record " + type);
+        }
+    }
+
+    private static String getLabel(ByteBuffer record) {
+        int length = record.getInt();
+        String label = new String(record.array(), record.arrayOffset() + record.position(), length,
+                StandardCharsets.UTF_8);
+        record.position(record.position() + length);
+        return label;
+    }
+
+    private static Character getTieStrength(ByteBuffer record) {
+        boolean present = record.get() != 0;
+        char tieStrength = record.getChar();
+        return present ? tieStrength : null;
+    }
+}
@@ -2,9 +2,6 @@ package graphengine;
 
 import org.graphstream.graph.IdAlreadyInUseException;
 import org.graphstream.graph.implementations.MultiGraph;
-import org.graphstream.ui.graphicGraph.stylesheet.StyleConstants;
-import org.graphstream.ui.spriteManager.Sprite;
-import org.graphstream.ui.spriteManager.SpriteManager;
 
 /**
  * The class used to construct the visual representation of a graph
@@ -84,19 +81,6 @@ public class GraphView {
         graph.removeEdge(vertex2 + "." + vertex1);
     }
 
-    /**
-     * Add a tree edge to the visual representation of the graph
-     *
-     * @param graph     visual graph
-     * @param vertex1   a vertex
-     * @param vertex2   a vertex
-     */
-    public static void addTreeEdge(MultiGraph graph, String vertex1, String vertex2) {
-        addVertex(graph, vertex1);
-        addVertex(graph, vertex2);
-        graph.addEdge(vertex1 + "." + vertex2, vertex1, vertex2, false);
-    }
-
     /**
      * Resets the visual representation of the graph
      *
@@ -107,36 +91,4 @@ public class GraphView {
         graph.clear();
         graph.addAttribute("ui.stylesheet", styleSheet);
     }
-
-    /**
-     * Draws the visual representation of the input forest graph
-     *
-     * @param forest        the input forest graph
-     * @param graphview     visual graph
-     * @param algorithm     algorithm used to get forest
-     * @param styleSheet    style sheet for the visual graph
-     */
-    public static void drawForest(Graph forest, MultiGraph graphview, GraphAlgorithm algorithm,
-                                  String styleSheet) {
-        // reset the visual graph to draw the new graph
-        reset(graphview, styleSheet);
-        SpriteManager spriteManager = new SpriteManager(graphview);
-
-        for (String vertex : forest.getVertices()) {
-            addVertex(graphview, vertex);
-            // If the forest is a DFS forest, then draw the start and finish times
-            if (algorithm == GraphAlgorithm.DFS) {
-                Sprite time = spriteManager.addSprite(vertex + "time");
-                Vertex vertexObj = forest.getVertex(vertex);
-                time.attachToNode(vertex);
-                time.setPosition(StyleConstants.Units.PX, Constants.START_FINISH_X, Constants.START_FINISH_Y, Constants.START_FINISH_Z);
-                time.setAttribute("ui.label", vertexObj.getStartTime() + "/" + vertexObj.getFinishTime());
-            }
-
-            for (String neighbor : forest.getVertex(vertex).getNeighbors()) {
-                addVertex(graphview, neighbor);
-                addTreeEdge(graphview, vertex, neighbor);
-            }
-        }
-    }
 }
@@ -0,0 +1,182 @@
+package graphengine;
+
+import graphengine.layout.BarnesHutLayout;
+
+import org.graphstream.graph.Node;
+import org.graphstream.graph.implementations.MultiGraph;
+import org.graphstream.ui.view.Viewer;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Keeps the layout of the input graph. A small graph uses the viewer's live force-directed layout, but a graph
+ * above Constants.AUTOLAYOUT_LIMIT vertices turns it off, since it never stops running, and is laid out once
+ * in the background with a Barnes-Hut layout instead. The layout starts from the previous positions, so the
+ * graph keeps its shape as it changes, and the positions are handed to the viewer a frame's worth at a time.
+ *
+ * All the methods must be called on the event dispatch thread.
+ */
+public class LayoutService {
+    // how long the graph must stay unchanged before it is laid out again
+    private static final int SETTLE_MILLIS = 500;
+
+    // the delay between two frames of handing positions to the viewer
+    private static final int FRAME_MILLIS = 16;
+
+    // how long one frame may spend handing positions to the viewer
+    private static final long FRAME_BUDGET_NANOS = 8_000_000;
+
+    private final MultiGraph graphview;
+    private final Viewer viewer;
+
+    // runs the layouts off the event dispatch thread
+    private final AlgorithmExecutor executor;
+    private final Timer settleTimer;
+    private final Timer applyTimer;
+
+    // the graph to lay out and the running layout, or null
+    private VersionedGraph graph;
+    private AlgorithmExecutor.Job job;
+
+    // true while the viewer lays the graph out by itself
+    private boolean autoLayout;
+
+    // the last position given to each vertex, which the next layout starts from. The layout reads it in the
+    // background, so it is a concurrent map.
+    private final ConcurrentHashMap<String, double[]> positions;
+
+    // the positions of the finished layout that are not handed to the viewer yet
+    private CompactGraph applyGraph;
+    private double[] applyPositions;
+    private int applyCursor;
+
+    /**
+     * Creates a layout service for a visual graph, starting with the viewer's live layout
+     *
+     * @param graphview     visual graph
+     * @param viewer        the viewer showing the visual graph
+     */
+    public LayoutService(MultiGraph graphview, Viewer viewer) {
+        this.graphview = graphview;
+        this.viewer = viewer;
+        this.executor = new AlgorithmExecutor(SwingUtilities::invokeLater);
+        this.settleTimer = new Timer(SETTLE_MILLIS, actionEvent -> layout());
+        settleTimer.setRepeats(false);
+        this.applyTimer = new Timer(FRAME_MILLIS, actionEvent -> applyFrame());
+        this.positions = new ConcurrentHashMap<>();
+        viewer.enableAutoLayout();
+        this.autoLayout = true;
+    }
+
+    /**
+     * Tells the service that the graph changed, switching between the live layout and the background
+     * layout as the graph crosses the size limit
+     *
+     * @param graph     the graph the visual graph shows
+     */
+    public void graphChanged(VersionedGraph graph) {
+        if (graph.getSize() <= Constants.AUTOLAYOUT_LIMIT) {
+            if (!autoLayout) {
+                stop();
+                positions.clear();
+                viewer.enableAutoLayout();
+                autoLayout = true;
+            }
+            return;
+        }
+        if (autoLayout) {
+            viewer.disableAutoLayout();
+            autoLayout = false;
+        }
+        this.graph = graph;
+        settleTimer.restart();
+    }
+
+    /**
+     * Stops the running layout and the positions still waiting for the viewer
+     */
+    private void stop() {
+        settleTimer.stop();
+        applyTimer.stop();
+        applyGraph = null;
+        applyPositions = null;
+        if (job != null) {
+            job.cancel();
+            job = null;
+        }
+    }
+
+    /**
+     * Starts a background layout of the latest version of the graph. Only pinning the version happens on the
+     * event dispatch thread; it is frozen in the background.
+     */
+    private void layout() {
+        stop();
+        VersionedGraph.Snapshot snapshot = graph.pin();
+        job = executor.submit(
+                context -> {
+                    try (snapshot) {
+                        CompactGraph frozen = snapshot.freeze();
+                        double[] initial = new double[frozen.getSize() * 2];
+                        for (int vertex = 0; vertex < frozen.getSize(); vertex++) {
+                            double[] position = positions.get(frozen.getLabel(vertex));
+                            initial[vertex * 2] = position != null ? position[0] : Double.NaN;
+                            initial[vertex * 2 + 1] = position != null ? position[1] : Double.NaN;
+                        }
+                        return new Layout(frozen, BarnesHutLayout.layout(frozen, initial,
+                                Constants.LAYOUT_ITERATIONS, context, ForkJoinPool.commonPool()));
+                    }
+                },
+                (visited, total) -> { },
+                result -> {
+                    job = null;
+                    // forget the vertices deleted before the layout's version, so the map only holds the graph
+                    positions.keySet().removeIf(vertex -> result.graph.getId(vertex) < 0);
+                    applyGraph = result.graph;
+                    applyPositions = result.positions;
+                    applyCursor = 0;
+                    applyTimer.start();
+                },
+                exception -> job = null);
+    }
+
+    /**
+     * Hands as many positions to the viewer as fit in one frame
+     */
+    private void applyFrame() {
+        long deadline = System.nanoTime() + FRAME_BUDGET_NANOS;
+        while (applyCursor < applyGraph.getSize() && System.nanoTime() < deadline) {
+            String vertex = applyGraph.getLabel(applyCursor);
+            double x = applyPositions[applyCursor * 2];
+            double y = applyPositions[applyCursor * 2 + 1];
+            positions.put(vertex, new double[] {x, y});
+            // the vertex may have been deleted since the layout started
+            Node node = graphview.getNode(vertex);
+            if (node != null) {
+                node.setAttribute("xyz", x, y, 0);
+            }
+            applyCursor++;
+        }
+        if (applyCursor == applyGraph.getSize()) {
+            applyTimer.stop();
+            applyGraph = null;
+            applyPositions = null;
+        }
+    }
+
+    /**
+     * A finished layout and the frozen graph it is of
+     */
+    private static final class Layout {
+        final CompactGraph graph;
+        final double[] positions;
+
+        Layout(CompactGraph graph, double[] positions) {
+            this.graph = graph;
+            this.positions = positions;
+        }
+    }
+}
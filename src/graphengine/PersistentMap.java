@@ -0,0 +1,419 @@
+package graphengine;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+/**
+ * An immutable hash array mapped trie (HAMT). Every put and remove returns a new map that shares all but the
+ * path to the changed entry with the old one, so a change copies O(log n) small nodes and every older map
+ * stays valid and unchanged for whoever still holds it.
+ *
+ * A branch uses 5 bits of the key's hash per level and keeps only the children that exist, found through a
+ * 32 bit bitmap. Keys whose hashes are equal in all 32 bits end up together in a collision node.
+ *
+ * @param <K>   the key type
+ * @param <V>   the value type, which may be null
+ */
+final class PersistentMap<K, V> {
+    private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null, 0);
+
+    // the bits of the hash each level of branches uses
+    private static final int BITS = 5;
+
+    // a Leaf, a Branch, a Collision, or null for the empty map
+    private final Object root;
+
+    // the number of entries
+    private final int size;
+
+    private PersistentMap(Object root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Returns the empty map
+     *
+     * @param <K>   the key type
+     * @param <V>   the value type
+     * @return empty map
+     */
+    @SuppressWarnings("unchecked")
+    static <K, V> PersistentMap<K, V> empty() {
+        return (PersistentMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Returns the number of entries
+     *
+     * @return size
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map has an entry for a key
+     *
+     * @param key   the key
+     * @return true, if there is an entry, false otherwise
+     */
+    boolean containsKey(K key) {
+        return find(key) != null;
+    }
+
+    /**
+     * Returns the value of a key
+     *
+     * @param key   the key
+     * @return the value, or null if there is no entry for the key or its value is null
+     */
+    @SuppressWarnings("unchecked")
+    V get(K key) {
+        Leaf leaf = find(key);
+        return leaf == null ? null : (V) leaf.value;
+    }
+
+    /**
+     * Returns a map with an entry for a key
+     *
+     * @param key       the key
+     * @param value     the value
+     * @return a map with the entry, or this map if it already has the same entry
+     */
+    PersistentMap<K, V> put(K key, V value) {
+        Leaf leaf = new Leaf(key, hash(key), value);
+        boolean replaces = find(key) != null;
+        Object newRoot = put(root, leaf, 0);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, replaces ? size : size + 1);
+    }
+
+    /**
+     * Returns a map without the entry for a key
+     *
+     * @param key   the key
+     * @return a map without the entry, or this map if it has no entry for the key
+     */
+    PersistentMap<K, V> remove(K key) {
+        Object newRoot = remove(root, key, hash(key), 0);
+        return newRoot == root ? this : new PersistentMap<>(newRoot, size - 1);
+    }
+
+    /**
+     * Calls an action for every entry
+     *
+     * @param action    the action, given each key and value
+     */
+    @SuppressWarnings("unchecked")
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        Iterator<Leaf> leaves = new LeafIterator(root);
+        while (leaves.hasNext()) {
+            Leaf leaf = leaves.next();
+            action.accept((K) leaf.key, (V) leaf.value);
+        }
+    }
+
+    /**
+     * Returns an iterator over the keys
+     *
+     * @return key iterator
+     */
+    Iterator<K> keyIterator() {
+        Iterator<Leaf> leaves = new LeafIterator(root);
+        return new Iterator<K>() {
+            @Override
+            public boolean hasNext() {
+                return leaves.hasNext();
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public K next() {
+                return (K) leaves.next().key;
+            }
+        };
+    }
+
+    /**
+     * Finds the leaf of a key
+     *
+     * @param key   the key
+     * @return the leaf, or null if there is none
+     */
+    private Leaf find(Object key) {
+        int hash = hash(key);
+        Object node = root;
+        for (int shift = 0; node != null; shift += BITS) {
+            if (node instanceof Leaf) {
+                Leaf leaf = (Leaf) node;
+                return leaf.hash == hash && leaf.key.equals(key) ? leaf : null;
+            } else if (node instanceof Branch) {
+                Branch branch = (Branch) node;
+                int bit = 1 << ((hash >>> shift) & 31);
+                if ((branch.bitmap & bit) == 0) {
+                    return null;
+                }
+                node = branch.children[Integer.bitCount(branch.bitmap & (bit - 1))];
+            } else {
+                for (Leaf leaf : ((Collision) node).leaves) {
+                    if (leaf.key.equals(key)) {
+                        return leaf;
+                    }
+                }
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns a node with a leaf added or replaced below it
+     *
+     * @param node      the node, or null
+     * @param leaf      the new leaf
+     * @param shift     the hash bits used above the node
+     * @return the new node, or the same node if it already holds an equal leaf
+     */
+    private static Object put(Object node, Leaf leaf, int shift) {
+        if (node == null) {
+            return leaf;
+        }
+        if (node instanceof Leaf) {
+            Leaf existing = (Leaf) node;
+            if (existing.hash == leaf.hash && existing.key.equals(leaf.key)) {
+                return existing.value == leaf.value ? existing : leaf;
+            }
+            return merge(existing, leaf, shift);
+        }
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = 1 << ((leaf.hash >>> shift) & 31);
+            int index = Integer.bitCount(branch.bitmap & (bit - 1));
+            if ((branch.bitmap & bit) == 0) {
+                Object[] children = new Object[branch.children.length + 1];
+                System.arraycopy(branch.children, 0, children, 0, index);
+                children[index] = leaf;
+                System.arraycopy(branch.children, index, children, index + 1, branch.children.length - index);
+                return new Branch(branch.bitmap | bit, children);
+            }
+            Object child = branch.children[index];
+            Object newChild = put(child, leaf, shift + BITS);
+            if (newChild == child) {
+                return branch;
+            }
+            Object[] children = branch.children.clone();
+            children[index] = newChild;
+            return new Branch(branch.bitmap, children);
+        }
+        // a collision is only made once every bit of the hash is used, so the leaf has the same hash
+        Collision collision = (Collision) node;
+        for (int i = 0; i < collision.leaves.length; i++) {
+            if (collision.leaves[i].key.equals(leaf.key)) {
+                if (collision.leaves[i].value == leaf.value) {
+                    return collision;
+                }
+                Leaf[] leaves = collision.leaves.clone();
+                leaves[i] = leaf;
+                return new Collision(leaves);
+            }
+        }
+        Leaf[] leaves = Arrays.copyOf(collision.leaves, collision.leaves.length + 1);
+        leaves[collision.leaves.length] = leaf;
+        return new Collision(leaves);
+    }
+
+    /**
+     * Returns a node holding two leaves with different keys
+     *
+     * @param leaf1     a leaf
+     * @param leaf2     a leaf
+     * @param shift     the hash bits used above the node
+     * @return the node
+     */
+    private static Object merge(Leaf leaf1, Leaf leaf2, int shift) {
+        if (shift >= 32) {
+            return new Collision(new Leaf[]{leaf1, leaf2});
+        }
+        int index1 = (leaf1.hash >>> shift) & 31;
+        int index2 = (leaf2.hash >>> shift) & 31;
+        if (index1 == index2) {
+            return new Branch(1 << index1, new Object[]{merge(leaf1, leaf2, shift + BITS)});
+        }
+        return new Branch(1 << index1 | 1 << index2,
+                index1 < index2 ? new Object[]{leaf1, leaf2} : new Object[]{leaf2, leaf1});
+    }
+
+    /**
+     * Returns a node with the leaf of a key removed from below it. A branch left with a single leaf is
+     * replaced by the leaf, so removals keep the trie shallow.
+     *
+     * @param node      the node, or null
+     * @param key       the key
+     * @param hash      the hash of the key
+     * @param shift     the hash bits used above the node
+     * @return the new node, null if it is empty, or the same node if the key is not below it
+     */
+    private static Object remove(Object node, Object key, int hash, int shift) {
+        if (node == null) {
+            return null;
+        }
+        if (node instanceof Leaf) {
+            Leaf leaf = (Leaf) node;
+            return leaf.hash == hash && leaf.key.equals(key) ? null : leaf;
+        }
+        if (node instanceof Branch) {
+            Branch branch = (Branch) node;
+            int bit = 1 << ((hash >>> shift) & 31);
+            if ((branch.bitmap & bit) == 0) {
+                return branch;
+            }
+            int index = Integer.bitCount(branch.bitmap & (bit - 1));
+            Object child = branch.children[index];
+            Object newChild = remove(child, key, hash, shift + BITS);
+            if (newChild == child) {
+                return branch;
+            }
+            if (newChild == null) {
+                if (branch.children.length == 1) {
+                    return null;
+                }
+                if (branch.children.length == 2 && branch.children[1 - index] instanceof Leaf) {
+                    return branch.children[1 - index];
+                }
+                Object[] children = new Object[branch.children.length - 1];
+                System.arraycopy(branch.children, 0, children, 0, index);
+                System.arraycopy(branch.children, index + 1, children, index, children.length - index);
+                return new Branch(branch.bitmap & ~bit, children);
+            }
+            if (branch.children.length == 1 && newChild instanceof Leaf) {
+                return newChild;
+            }
+            Object[] children = branch.children.clone();
+            children[index] = newChild;
+            return new Branch(branch.bitmap, children);
+        }
+        Collision collision = (Collision) node;
+        for (int i = 0; i < collision.leaves.length; i++) {
+            if (collision.leaves[i].key.equals(key)) {
+                if (collision.leaves.length == 2) {
+                    return collision.leaves[1 - i];
+                }
+                Leaf[] leaves = new Leaf[collision.leaves.length - 1];
+                System.arraycopy(collision.leaves, 0, leaves, 0, i);
+                System.arraycopy(collision.leaves, i + 1, leaves, i, leaves.length - i);
+                return new Collision(leaves);
+            }
+        }
+        return collision;
+    }
+
+    /**
+     * Spreads the hash code of a key
+     *
+     * @param key   the key
+     * @return the hash
+     */
+    private static int hash(Object key) {
+        int hash = key.hashCode() * 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * An entry
+     */
+    private static final class Leaf {
+        final Object key;
+        final int hash;
+        final Object value;
+
+        Leaf(Object key, int hash, Object value) {
+            this.key = key;
+            this.hash = hash;
+            this.value = value;
+        }
+    }
+
+    /**
+     * The children of a node that exist, in order of the hash bits they stand for
+     */
+    private static final class Branch {
+        final int bitmap;
+        final Object[] children;
+
+        Branch(int bitmap, Object[] children) {
+            this.bitmap = bitmap;
+            this.children = children;
+        }
+    }
+
+    /**
+     * The leaves of keys with equal hashes
+     */
+    private static final class Collision {
+        final Leaf[] leaves;
+
+        Collision(Leaf[] leaves) {
+            this.leaves = leaves;
+        }
+    }
+
+    /**
+     * Walks the leaves depth first with an explicit stack of the branches and collisions still to finish
+     */
+    private static final class LeafIterator implements Iterator<Leaf> {
+        // the nodes with children left to visit, and the index of the next child of each
+        private final ArrayDeque<Object> nodes;
+        private final ArrayDeque<Integer> indexes;
+        private Leaf next;
+
+        LeafIterator(Object root) {
+            this.nodes = new ArrayDeque<>();
+            this.indexes = new ArrayDeque<>();
+            descend(root);
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Leaf next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Leaf leaf = next;
+            next = null;
+            while (next == null && !nodes.isEmpty()) {
+                Object node = nodes.peek();
+                int index = indexes.pop();
+                Object[] children = node instanceof Branch ? ((Branch) node).children : ((Collision) node).leaves;
+                if (index == children.length) {
+                    nodes.pop();
+                } else {
+                    indexes.push(index + 1);
+                    descend(children[index]);
+                }
+            }
+            return leaf;
+        }
+
+        /**
+         * Goes down to the first leaf below a node, pushing the nodes on the way
+         *
+         * @param node  the node, or null
+         */
+        private void descend(Object node) {
+            while (node != null && !(node instanceof Leaf)) {
+                Object[] children = node instanceof Branch ? ((Branch) node).children : ((Collision) node).leaves;
+                nodes.push(node);
+                indexes.push(1);
+                node = children[0];
+            }
+            next = (Leaf) node;
+        }
+    }
+}
@@ -3,11 +3,17 @@ package graphengine;
 import javax.swing.*;
 import java.awt.*;
 import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 import graphengine.algorithms.BFS;
+import graphengine.algorithms.ComponentResult;
 import graphengine.algorithms.DFS;
-import graphengine.algorithms.IdentifySTC;
+import graphengine.algorithms.StronglyConnectedComponents;
 import graphengine.algorithms.TopologicalSort;
+import graphengine.algorithms.TraversalContext;
+import graphengine.algorithms.TraversalResult;
 import org.graphstream.graph.implementations.*;
 import org.graphstream.ui.view.Viewer;
 
@@ -30,9 +36,23 @@ public class RunGraphEngine implements Runnable {
     private JComboBox<String> tieStrengthList;
 
     private Graph inputGraph;
+    // the versioned copy the input graph keeps up to date, which the algorithms and the layout pin a version of
+    // so the graph is frozen off the event dispatch thread
+    private VersionedGraph inputVersions;
     private MultiGraph inputGraphView;
+    private LayoutService inputLayout;
 
     private MultiGraph outputGraphView;
+    private ForestRenderer forestRenderer;
+
+    // runs the algorithms off the event dispatch thread
+    private AlgorithmExecutor algorithmExecutor;
+    private AlgorithmExecutor.Job runningJob;
+
+    // shows the progress of a job that runs for longer than PROGRESS_DIALOG_DELAY milliseconds
+    private JDialog progressDialog;
+    private JProgressBar progressBar;
+    private Timer progressDialogTimer;
 
     protected String styleSheet =
             "node {" +
@@ -54,6 +74,9 @@ public class RunGraphEngine implements Runnable {
                     "shape: box;" +
                     "size: 30px;" +
                     "text-size: 20px;" +
+                    "}" +
+            "node.collapsed {" +
+                    "fill-color: #7fa7d6;" +
                     "}";
 
     @Override
@@ -135,11 +158,13 @@ public class RunGraphEngine implements Runnable {
 
         // Graph constructed by the user
         inputGraph = new Graph();
+        inputVersions = inputGraph.trackVersions();
         // The visual representation of the user constructed graph
         inputGraphView = new MultiGraph("Graph");
         inputGraphView.addAttribute("ui.stylesheet", styleSheet);
         Viewer inputGraphViewer = new Viewer(inputGraphView, Viewer.ThreadingModel.GRAPH_IN_ANOTHER_THREAD);
-        inputGraphViewer.enableAutoLayout();
+        // the live layout is only used while the graph is small
+        inputLayout = new LayoutService(inputGraphView, inputGraphViewer);
         JPanel graphPanel = inputGraphViewer.addDefaultView(false);
         mainframe.add(graphPanel, BorderLayout.CENTER);
 
@@ -188,6 +213,15 @@ public class RunGraphEngine implements Runnable {
         stcButton.addActionListener(actionEvent -> runAlgorithm(GraphAlgorithm.IDENTIFY_STC));
         algorithmPanel.add(stcButton);
 
+        // Spacer in between buttons
+        algorithmPanel.add(Box.createRigidArea(new Dimension(Constants.SPACER_WIDTH, 0)));
+
+        // Strongly Connected Components button
+        final JButton sccButton = new JButton("Strongly Connected Components");
+        sccButton.setFocusable(false);
+        sccButton.addActionListener(actionEvent -> runAlgorithm(GraphAlgorithm.STRONGLY_CONNECTED_COMPONENTS));
+        algorithmPanel.add(sccButton);
+
         mainframe.pack();
         mainframe.setVisible(true);
         mainframe.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -198,13 +232,33 @@ public class RunGraphEngine implements Runnable {
 
         outputGraphView = new MultiGraph("Tree");
         outputGraphView.addAttribute("ui.stylesheet", styleSheet);
+        // the forests are laid out as trees by the forest renderer, so the viewer never runs a layout
         Viewer outputGraphViewer = new Viewer(outputGraphView, Viewer.ThreadingModel.GRAPH_IN_ANOTHER_THREAD);
-        outputGraphViewer.enableAutoLayout();
         JPanel outputPanel = outputGraphViewer.addDefaultView(false);
         outputFrame.add(outputPanel);
+        forestRenderer = new ForestRenderer(outputGraphView, outputGraphViewer, styleSheet);
 
         outputFrame.setSize(Constants.WINDOW_WIDTH, Constants.WINDOW_HEIGHT);
         outputFrame.setDefaultCloseOperation(WindowConstants.DISPOSE_ON_CLOSE);
+
+        // the algorithms report back on the event dispatch thread
+        algorithmExecutor = new AlgorithmExecutor(SwingUtilities::invokeLater);
+
+        // window that shows the progress of a long running algorithm
+        progressDialog = new JDialog(mainframe, "Running", false);
+        progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        progressDialog.add(progressBar, BorderLayout.CENTER);
+        final JButton cancelButton = new JButton("Cancel");
+        cancelButton.addActionListener(actionEvent -> cancelAlgorithm());
+        progressDialog.add(cancelButton, BorderLayout.SOUTH);
+        progressDialog.setDefaultCloseOperation(WindowConstants.DO_NOTHING_ON_CLOSE);
+        progressDialog.pack();
+        progressDialog.setLocationRelativeTo(mainframe);
+        // only open the progress window if the algorithm does not finish right away
+        progressDialogTimer = new Timer(Constants.PROGRESS_DIALOG_DELAY,
+                actionEvent -> progressDialog.setVisible(true));
+        progressDialogTimer.setRepeats(false);
     }
 
     /**
@@ -282,6 +336,7 @@ public class RunGraphEngine implements Runnable {
             JOptionPane.showMessageDialog( new JDialog(mainframe, "ERROR", true), exception.getMessage());
             return;
         }
+        inputLayout.graphChanged(inputVersions);
         // Reset the text all of the Text Fields
         vertexTextField.setText("");
         vertex1TextField.setText("");
@@ -294,10 +349,13 @@ public class RunGraphEngine implements Runnable {
     public void resetGraph() {
         inputGraph.reset();
         GraphView.reset(inputGraphView, styleSheet);
+        inputLayout.graphChanged(inputVersions);
     }
 
     /**
-     * Execute algorithms on the input graph and display the results based on user input
+     * Execute algorithms on the input graph and display the results based on user input. The algorithm runs
+     * in the background on a pinned version of the input graph, which is frozen in the background too, so the
+     * window stays responsive and the user can cancel the run.
      *
      * @param algorithm     the algorithm to execute on the input graph
      */
@@ -307,45 +365,163 @@ public class RunGraphEngine implements Runnable {
             JOptionPane.showMessageDialog(errMessage, "The Graph is Empty");
             return;
         }
-        // reset the times and discovery of all the vertices of the input graph
-        inputGraph.resetVertices();
-        Graph outputGraph = new Graph();
-        try {
-            if (algorithm == GraphAlgorithm.BFS) {
-                // get source vertex from text field
-                String source = sourceTextField.getText();
+        if (runningJob != null && !runningJob.isDone()) {
+            JOptionPane.showMessageDialog(errMessage, "An Algorithm is Already Running");
+            return;
+        }
+        // get source vertex from text field
+        String source = sourceTextField.getText();
+        sourceTextField.setText("");
+        if ((algorithm == GraphAlgorithm.BFS || algorithm == GraphAlgorithm.DFS)
+                && (source == null || !inputGraph.hasVertex(source))) {
+            JOptionPane.showMessageDialog(errMessage, "Source Vertex Does Not Exist");
+            return;
+        }
+        if (algorithm == GraphAlgorithm.TOPOLOGICAL_SORT && inputGraph.isTrackingTopologicalOrder()) {
+            // the graph keeps its topological order up to date, so there is nothing to run
+            showTopologicalSorting(inputGraph.getTopologicalOrder());
+            return;
+        }
+        if (algorithm == GraphAlgorithm.IDENTIFY_STC) {
+            // the first STC run builds the graph's STC index, which every later edit keeps up to date, so
+            // later runs only read it
+            showSTC(inputGraph.getSatisfyingSTC().toString(), inputGraph.getViolatingSTC().toString());
+            return;
+        }
 
-                if (source == null || !inputGraph.hasVertex(source)) {
-                    throw new IllegalArgumentException("Source Vertex Does Not Exist");
-                }
-                outputGraph = BFS.runBFS(inputGraph, source);
-            } else if (algorithm == GraphAlgorithm.DFS) {
-                // get source vertex from text field
-                String source = sourceTextField.getText();
+        // pinning a version takes constant time, so the input graph can keep changing while the algorithm runs
+        VersionedGraph.Snapshot snapshot = inputVersions.pin();
+        if (algorithm == GraphAlgorithm.BFS) {
+            runningJob = submit(snapshot, (graph, context) -> BFS.traverse(graph, source, context),
+                    this::showForest);
+        } else if (algorithm == GraphAlgorithm.DFS) {
+            runningJob = submit(snapshot, (graph, context) -> DFS.traverse(graph, source, context),
+                    this::showForest);
+        } else if (algorithm == GraphAlgorithm.TOPOLOGICAL_SORT) {
+            runningJob = submit(snapshot, TopologicalSort::runTopologicalSort, this::showTopologicalSorting);
+        } else if (algorithm == GraphAlgorithm.STRONGLY_CONNECTED_COMPONENTS) {
+            runningJob = submit(snapshot,
+                    (graph, context) -> StronglyConnectedComponents.findComponents(graph, ForkJoinPool.commonPool(),
+                            context),
+                    this::showComponents);
+        }
+        progressDialog.setTitle("Running " + algorithm);
+        progressBar.setMaximum(snapshot.getSize());
+        progressBar.setValue(0);
+        progressDialogTimer.restart();
+    }
 
-                if (source == null || !inputGraph.hasVertex(source)) {
-                    throw new IllegalArgumentException("Source Vertex Does Not Exist");
-                }
-                outputGraph = DFS.runDFS(inputGraph, source);
-            } else if (algorithm == GraphAlgorithm.TOPOLOGICAL_SORT) {
-                LinkedList<String> topologicalSorting = TopologicalSort.runTopologicalSort(inputGraph);
-                JOptionPane.showMessageDialog(new JDialog(mainframe, "Topological Sorting", true),
-                        topologicalSorting.toString());
-                return;
-            } else if (algorithm == GraphAlgorithm.IDENTIFY_STC) {
-                LinkedList<String>[] results = IdentifySTC.identifySTC(inputGraph);
-                String output = "Vertices Satisfying STC: " + results[0].toString() +
-                                "\nVertices Violating STC: " + results[1].toString();
-                JOptionPane.showMessageDialog(new JDialog(mainframe, "STC Identification", true), output);
-                return;
+    /**
+     * Submits an algorithm that freezes a pinned version of the input graph and runs on the compact graph,
+     * closing the snapshot once it is done
+     *
+     * @param snapshot      the pinned version of the input graph
+     * @param algorithm     the algorithm to run, given the compact graph and the job's traversal context
+     * @param onResult      called on the event dispatch thread with the result of the algorithm
+     * @param <T>           the type of the result
+     * @return the job
+     */
+    private <T> AlgorithmExecutor.Job submit(VersionedGraph.Snapshot snapshot,
+                                             BiFunction<CompactGraph, TraversalContext, T> algorithm,
+                                             Consumer<? super T> onResult) {
+        return algorithmExecutor.submit(context -> {
+            try (snapshot) {
+                return algorithm.apply(snapshot.freeze(), context);
             }
-        } catch (IllegalArgumentException exception) {
-            JOptionPane.showMessageDialog( new JDialog(mainframe, "ERROR", true), exception.getMessage());
-            sourceTextField.setText("");
-            return;
+        }, this::showProgress, result -> {
+            finishJob();
+            onResult.accept(result);
+        }, exception -> {
+            finishJob();
+            showFailure(exception);
+        });
+    }
+
+    /**
+     * Cancels the running algorithm and closes the progress window
+     */
+    private void cancelAlgorithm() {
+        if (runningJob != null) {
+            runningJob.cancel();
         }
-        sourceTextField.setText("");
-        GraphView.drawForest(outputGraph, outputGraphView, algorithm, styleSheet);
+        finishJob();
+    }
+
+    /**
+     * Shows the progress of the running algorithm
+     *
+     * @param visited   the number of vertices the algorithm has finished with
+     * @param total     the number of vertices in the graph
+     */
+    private void showProgress(int visited, int total) {
+        progressBar.setMaximum(total);
+        progressBar.setValue(visited);
+    }
+
+    /**
+     * Forgets the running job and closes the progress window, or keeps it from opening. Runs before the result
+     * or failure of the job is shown, so neither a failed algorithm nor a failing display keeps the window open.
+     */
+    private void finishJob() {
+        runningJob = null;
+        progressDialogTimer.stop();
+        progressDialog.setVisible(false);
+    }
+
+    /**
+     * Displays the forest computed by BFS or DFS
+     *
+     * @param forest        the forest of the traversal
+     */
+    private void showForest(TraversalResult forest) {
+        forestRenderer.drawForest(forest);
         outputFrame.setVisible(true);
     }
+
+    /**
+     * Displays a topological sorting
+     *
+     * @param topologicalSorting    the vertices in topological order
+     */
+    private void showTopologicalSorting(LinkedList<String> topologicalSorting) {
+        JOptionPane.showMessageDialog(new JDialog(mainframe, "Topological Sorting", true),
+                topologicalSorting.toString());
+    }
+
+    /**
+     * Displays the vertices satisfying and violating STC
+     *
+     * @param satisfyingSTC     the vertices satisfying STC
+     * @param violatingSTC      the vertices violating STC
+     */
+    private void showSTC(String satisfyingSTC, String violatingSTC) {
+        String output = "Vertices Satisfying STC: " + satisfyingSTC +
+                        "\nVertices Violating STC: " + violatingSTC;
+        JOptionPane.showMessageDialog(new JDialog(mainframe, "STC Identification", true), output);
+    }
+
+    /**
+     * Displays the strongly connected components in topological order
+     *
+     * @param components    the components of the graph
+     */
+    private void showComponents(ComponentResult components) {
+        LinkedList<LinkedList<String>> members = new LinkedList<>();
+        for (int component = 0; component < components.getComponentCount(); component++) {
+            members.add(components.getMembers(component));
+        }
+        String output = "Strongly Connected Components: " + components.getComponentCount() +
+                        "\nIn Topological Order: " + members;
+        JOptionPane.showMessageDialog(new JDialog(mainframe, "Strongly Connected Components", true), output);
+    }
+
+    /**
+     * Displays the error an algorithm failed with
+     *
+     * @param exception     the exception or error the algorithm threw
+     */
+    private void showFailure(Throwable exception) {
+        String message = exception.getMessage() != null ? exception.getMessage() : exception.toString();
+        JOptionPane.showMessageDialog(new JDialog(mainframe, "ERROR", true), message);
+    }
 }
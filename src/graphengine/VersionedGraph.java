@@ -0,0 +1,613 @@
+package graphengine;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A graph kept as a sequence of immutable versions, so readers can run algorithms on a consistent graph
+ * while writers keep changing it.
+ *
+ * Every change commits a new version. The vertices and their edge sets are persistent hash tries, so a
+ * change copies only the few trie nodes on the paths to the entries it touches and shares everything else
+ * with the version before it. A reader pins the current version with pin() and reads it through the returned
+ * snapshot for as long as it likes: nothing a writer does afterwards is visible through it.
+ *
+ * Readers never block writers, and writers never block readers. Pinning only reads the current version, and
+ * writers wait only for each other. An old version is reclaimed by the garbage collector once every snapshot
+ * of it is closed, since nothing else refers to it.
+ */
+public class VersionedGraph {
+    // the latest committed version, which pin() hands to readers
+    private volatile Version current;
+
+    // serializes the writers
+    private final Object writeLock;
+
+    // the number of open snapshots of each pinned version number
+    private final ConcurrentHashMap<Long, Integer> pins;
+
+    public VersionedGraph() {
+        this.current = new Version(0, PersistentMap.empty(), 0);
+        this.writeLock = new Object();
+        this.pins = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Returns the number of the latest committed version, which starts at 0 and grows by one with every change
+     *
+     * @return version number
+     */
+    public long getVersion() {
+        return current.number;
+    }
+
+    /**
+     * Returns the number of vertices in the latest committed version
+     *
+     * @return size
+     */
+    public int getSize() {
+        return current.vertices.size();
+    }
+
+    /**
+     * Checks if the latest committed version has a vertex
+     *
+     * @param vertex    the vertex
+     * @return true, if the vertex is in the graph, false otherwise
+     */
+    public boolean hasVertex(String vertex) {
+        return current.vertices.containsKey(vertex);
+    }
+
+    /**
+     * Returns the number of versions that have at least one open snapshot
+     *
+     * @return pinned versions
+     */
+    public int getPinnedVersionCount() {
+        return pins.size();
+    }
+
+    /**
+     * Pins the latest committed version for reading. The snapshot must be closed when the reader is done, so
+     * the version can be reclaimed once it is no longer the latest one.
+     *
+     * @return snapshot of the latest committed version
+     */
+    public Snapshot pin() {
+        Version version = current;
+        pins.merge(version.number, 1, Integer::sum);
+        return new Snapshot(this, version);
+    }
+
+    /**
+     * Adds a vertex if it is not already in the graph
+     *
+     * @param vertex    the vertex to add
+     * @return true, if the vertex was successfully added, false otherwise
+     */
+    public boolean addVertex(String vertex) {
+        synchronized (writeLock) {
+            Version version = current;
+            if (version.vertices.containsKey(vertex)) {
+                return false;
+            }
+            commit(version.vertices.put(vertex, new VertexRecord()), version.edgeCount);
+            return true;
+        }
+    }
+
+    /**
+     * Deletes a vertex and all of its edges
+     *
+     * @param vertex    the vertex to delete
+     * @return true, if the vertex was successfully deleted, false if the vertex is not in the graph
+     */
+    public boolean deleteVertex(String vertex) {
+        synchronized (writeLock) {
+            Version version = current;
+            VertexRecord removed = version.vertices.get(vertex);
+            if (removed == null) {
+                return false;
+            }
+            PersistentMap<String, VertexRecord> vertices = version.vertices.remove(vertex);
+            Iterator<String> neighbors = removed.out.keyIterator();
+            while (neighbors.hasNext()) {
+                String neighbor = neighbors.next();
+                VertexRecord record = vertices.get(neighbor);
+                vertices = vertices.put(neighbor, new VertexRecord(record.out, record.in.remove(vertex)));
+            }
+            Iterator<String> inNeighbors = removed.in.keyIterator();
+            while (inNeighbors.hasNext()) {
+                String inNeighbor = inNeighbors.next();
+                VertexRecord record = vertices.get(inNeighbor);
+                vertices = vertices.put(inNeighbor, new VertexRecord(record.out.remove(vertex), record.in));
+            }
+            commit(vertices, version.edgeCount - removed.out.size() - removed.in.size());
+            return true;
+        }
+    }
+
+    /**
+     * Adds a directed edge, adding its vertices first if they are not in the graph
+     *
+     * @param vertex1       the starting vertex
+     * @param vertex2       the ending vertex
+     * @param tieStrength   the tie strength
+     * @return true, if the directed edge was successfully added to the graph, false otherwise
+     * @throws IllegalArgumentException if the input vertices are the same
+     */
+    public boolean addDirectedEdge(String vertex1, String vertex2, Character tieStrength) {
+        if (vertex1.equals(vertex2)) {
+            throw new IllegalArgumentException("Can Not Add an Edge From a Vertex to Itself");
+        }
+        synchronized (writeLock) {
+            Version version = current;
+            VertexRecord record1 = version.vertices.get(vertex1);
+            if (record1 != null && record1.out.containsKey(vertex2)) {
+                return false;
+            }
+            PersistentMap<String, VertexRecord> vertices = insertEdge(version.vertices, vertex1, vertex2, tieStrength);
+            commit(vertices, version.edgeCount + 1);
+            return true;
+        }
+    }
+
+    /**
+     * Adds an undirected edge, adding its vertices first if they are not in the graph. Both directions are
+     * committed in one version, so no reader sees only one of them.
+     *
+     * @param vertex1       a vertex
+     * @param vertex2       a vertex
+     * @param tieStrength   the tie strength
+     * @return true, if the undirected edge was successfully added to the graph, false otherwise
+     * @throws IllegalArgumentException if the input vertices are the same
+     */
+    public boolean addUndirectedEdge(String vertex1, String vertex2, Character tieStrength) {
+        if (vertex1.equals(vertex2)) {
+            throw new IllegalArgumentException("Can Not Add an Edge From a Vertex to Itself");
+        }
+        synchronized (writeLock) {
+            Version version = current;
+            VertexRecord record1 = version.vertices.get(vertex1);
+            if (record1 != null && (record1.out.containsKey(vertex2) || record1.in.containsKey(vertex2))) {
+                return false;
+            }
+            PersistentMap<String, VertexRecord> vertices = insertEdge(version.vertices, vertex1, vertex2, tieStrength);
+            vertices = insertEdge(vertices, vertex2, vertex1, tieStrength);
+            commit(vertices, version.edgeCount + 2);
+            return true;
+        }
+    }
+
+    /**
+     * Deletes a directed edge
+     *
+     * @param vertex1       the starting vertex
+     * @param vertex2       the ending vertex
+     * @return true, if the directed edge was successfully deleted from the graph, false otherwise
+     * @throws IllegalArgumentException if the vertices are not in the graph
+     */
+    public boolean deleteDirectedEdge(String vertex1, String vertex2) {
+        synchronized (writeLock) {
+            Version version = current;
+            if (!getRecord(version, vertex1).out.containsKey(vertex2)) {
+                getRecord(version, vertex2);
+                return false;
+            }
+            commit(removeEdge(version.vertices, vertex1, vertex2), version.edgeCount - 1);
+            return true;
+        }
+    }
+
+    /**
+     * Deletes an undirected edge. Both directions are removed in one version.
+     *
+     * @param vertex1       a vertex
+     * @param vertex2       a vertex
+     * @return true, if the undirected edge was successfully deleted from the graph, false otherwise
+     * @throws IllegalArgumentException if the vertices are not in the graph
+     */
+    public boolean deleteUndirectedEdge(String vertex1, String vertex2) {
+        synchronized (writeLock) {
+            Version version = current;
+            VertexRecord record1 = getRecord(version, vertex1);
+            getRecord(version, vertex2);
+            if (!(record1.out.containsKey(vertex2) && record1.in.containsKey(vertex2))) {
+                return false;
+            }
+            PersistentMap<String, VertexRecord> vertices = removeEdge(version.vertices, vertex1, vertex2);
+            commit(removeEdge(vertices, vertex2, vertex1), version.edgeCount - 2);
+            return true;
+        }
+    }
+
+    /**
+     * Removes every vertex and edge, committing an empty version
+     */
+    public void reset() {
+        synchronized (writeLock) {
+            commit(PersistentMap.empty(), 0);
+        }
+    }
+
+    /**
+     * Makes a new version the latest one. Must be called by the writer holding the write lock.
+     *
+     * @param vertices      the vertices of the new version
+     * @param edgeCount     the number of directed edges of the new version
+     */
+    private void commit(PersistentMap<String, VertexRecord> vertices, int edgeCount) {
+        current = new Version(current.number + 1, vertices, edgeCount);
+    }
+
+    /**
+     * Unpins a version when one of its snapshots is closed
+     *
+     * @param version   the version
+     */
+    private void unpin(Version version) {
+        pins.computeIfPresent(version.number, (number, count) -> count == 1 ? null : count - 1);
+    }
+
+    /**
+     * Returns the record of a vertex
+     *
+     * @param version   the version to look in
+     * @param vertex    the vertex
+     * @return the record
+     * @throws IllegalArgumentException if the vertex is not in the version
+     */
+    private static VertexRecord getRecord(Version version, String vertex) {
+        VertexRecord record = version.vertices.get(vertex);
+        if (record == null) {
+            throw new IllegalArgumentException("A Specified Vertex Does Not Exist");
+        }
+        return record;
+    }
+
+    /**
+     * Returns the vertices with a directed edge added, adding its vertices if they are missing
+     *
+     * @param vertices      the vertices
+     * @param vertex1       the starting vertex
+     * @param vertex2       the ending vertex
+     * @param tieStrength   the tie strength
+     * @return the changed vertices
+     */
+    private static PersistentMap<String, VertexRecord> insertEdge(PersistentMap<String, VertexRecord> vertices,
+                                                                  String vertex1, String vertex2,
+                                                                  Character tieStrength) {
+        VertexRecord record1 = vertices.get(vertex1);
+        if (record1 == null) {
+            record1 = new VertexRecord();
+        }
+        vertices = vertices.put(vertex1, new VertexRecord(record1.out.put(vertex2, tieStrength), record1.in));
+        VertexRecord record2 = vertices.get(vertex2);
+        if (record2 == null) {
+            record2 = new VertexRecord();
+        }
+        return vertices.put(vertex2, new VertexRecord(record2.out, record2.in.put(vertex1, Boolean.TRUE)));
+    }
+
+    /**
+     * Returns the vertices with a directed edge removed
+     *
+     * @param vertices      the vertices
+     * @param vertex1       the starting vertex
+     * @param vertex2       the ending vertex
+     * @return the changed vertices
+     */
+    private static PersistentMap<String, VertexRecord> removeEdge(PersistentMap<String, VertexRecord> vertices,
+                                                                  String vertex1, String vertex2) {
+        VertexRecord record1 = vertices.get(vertex1);
+        vertices = vertices.put(vertex1, new VertexRecord(record1.out.remove(vertex2), record1.in));
+        VertexRecord record2 = vertices.get(vertex2);
+        return vertices.put(vertex2, new VertexRecord(record2.out, record2.in.remove(vertex1)));
+    }
+
+    /**
+     * A read-only view of one version of a versioned graph. It reads the same graph however the versioned graph
+     * changes, until it is closed.
+     */
+    public static final class Snapshot implements AutoCloseable {
+        private final VersionedGraph graph;
+
+        // the pinned version, or null once the snapshot is closed
+        private Version version;
+
+        private Snapshot(VersionedGraph graph, Version version) {
+            this.graph = graph;
+            this.version = version;
+        }
+
+        /**
+         * Returns the number of the pinned version
+         *
+         * @return version number
+         */
+        public long getVersion() {
+            return pinned().number;
+        }
+
+        /**
+         * Returns the number of vertices
+         *
+         * @return size
+         */
+        public int getSize() {
+            return pinned().vertices.size();
+        }
+
+        /**
+         * Returns the number of directed edges, counting an undirected edge twice
+         *
+         * @return edge count
+         */
+        public int getEdgeCount() {
+            return pinned().edgeCount;
+        }
+
+        /**
+         * Returns the vertices
+         *
+         * @return read-only view of the vertices
+         */
+        public Set<String> getVertices() {
+            return new KeyView<>(pinned().vertices);
+        }
+
+        /**
+         * Checks if a vertex is in the snapshot
+         *
+         * @param vertex    the vertex
+         * @return true, if the vertex is in the snapshot, false otherwise
+         */
+        public boolean hasVertex(String vertex) {
+            return pinned().vertices.containsKey(vertex);
+        }
+
+        /**
+         * Checks if there is a directed edge from one vertex to another vertex
+         *
+         * @param vertex1       the starting vertex
+         * @param vertex2       the ending vertex
+         * @return true, if the directed edge exists, false otherwise
+         * @throws IllegalArgumentException if a specified vertex is not in the snapshot
+         */
+        public boolean hasDirectedEdge(String vertex1, String vertex2) {
+            Version version = pinned();
+            getRecord(version, vertex2);
+            return getRecord(version, vertex1).out.containsKey(vertex2);
+        }
+
+        /**
+         * Returns the tie strength of a directed edge. An edge that was added without a tie strength reads as
+         * weak.
+         *
+         * @param vertex1       the starting vertex
+         * @param vertex2       the ending vertex
+         * @return the tie strength
+         * @throws IllegalArgumentException if a specified vertex is not in the snapshot, or the edge does not exist
+         */
+        public char getTieStrength(String vertex1, String vertex2) {
+            Character tieStrength = getExactTieStrength(vertex1, vertex2);
+            return tieStrength != null ? tieStrength : 'W';
+        }
+
+        /**
+         * Returns the tie strength a directed edge was added with
+         *
+         * @param vertex1       the starting vertex
+         * @param vertex2       the ending vertex
+         * @return the tie strength, or null if the edge has none
+         * @throws IllegalArgumentException if a specified vertex is not in the snapshot, or the edge does not exist
+         */
+        public Character getExactTieStrength(String vertex1, String vertex2) {
+            Version version = pinned();
+            getRecord(version, vertex2);
+            VertexRecord record1 = getRecord(version, vertex1);
+            if (!record1.out.containsKey(vertex2)) {
+                throw new IllegalArgumentException("This Tie Does Not Exist");
+            }
+            return record1.out.get(vertex2);
+        }
+
+        /**
+         * Returns the vertices a vertex has a directed edge to
+         *
+         * @param vertex    the vertex
+         * @return read-only view of the neighbors of vertex
+         * @throws IllegalArgumentException if the vertex is not in the snapshot
+         */
+        public Set<String> getNeighbors(String vertex) {
+            return new KeyView<>(getRecord(pinned(), vertex).out);
+        }
+
+        /**
+         * Returns the vertices that have a directed edge to a vertex
+         *
+         * @param vertex    the vertex
+         * @return read-only view of the in-neighbors of vertex
+         * @throws IllegalArgumentException if the vertex is not in the snapshot
+         */
+        public Set<String> getInNeighbors(String vertex) {
+            return new KeyView<>(getRecord(pinned(), vertex).in);
+        }
+
+        /**
+         * Returns the snapshot as a compact graph, which the algorithms run on. The compact graph is built the
+         * first time it is needed and shared by every snapshot of the same version.
+         *
+         * @return compact graph of the pinned version
+         */
+        public CompactGraph freeze() {
+            Version version = pinned();
+            CompactGraph frozen = version.frozen;
+            if (frozen == null) {
+                frozen = version.compact();
+                version.frozen = frozen;
+            }
+            return frozen;
+        }
+
+        /**
+         * Unpins the version. Closing a snapshot again does nothing.
+         */
+        @Override
+        public synchronized void close() {
+            if (version != null) {
+                graph.unpin(version);
+                version = null;
+            }
+        }
+
+        /**
+         * Returns the pinned version
+         *
+         * @return version
+         * @throws IllegalStateException if the snapshot is closed
+         */
+        private synchronized Version pinned() {
+            if (version == null) {
+                throw new IllegalStateException("The Snapshot is Closed");
+            }
+            return version;
+        }
+    }
+
+    /**
+     * One committed state of the graph
+     */
+    private static final class Version {
+        final long number;
+
+        // the record of each vertex, by label
+        final PersistentMap<String, VertexRecord> vertices;
+
+        // the number of directed edges
+        final int edgeCount;
+
+        // the version as a compact graph, built the first time a snapshot is frozen
+        volatile CompactGraph frozen;
+
+        Version(long number, PersistentMap<String, VertexRecord> vertices, int edgeCount) {
+            this.number = number;
+            this.vertices = vertices;
+            this.edgeCount = edgeCount;
+        }
+
+        /**
+         * Builds the compact graph of this version, keeping the exact tie strength of every edge the same way
+         * Graph.freeze does: a strong bit per edge, and a side table for the ties that are neither 'S' nor 'W',
+         * including the edges without one
+         *
+         * @return compact graph
+         */
+        CompactGraph compact() {
+            int size = vertices.size();
+            String[] labels = new String[size];
+            VertexRecord[] records = new VertexRecord[size];
+            HashMap<String, Integer> ids = new HashMap<>();
+            int[] offsets = new int[size + 1];
+            Iterator<String> keys = vertices.keyIterator();
+            for (int id = 0; keys.hasNext(); id++) {
+                labels[id] = keys.next();
+                records[id] = vertices.get(labels[id]);
+                ids.put(labels[id], id);
+                offsets[id + 1] = offsets[id] + records[id].out.size();
+            }
+            int[] targets = new int[edgeCount];
+            long[] strongTies = new long[(edgeCount + 63) >>> 6];
+            // pairs of an edge index and its tie strength for the edges whose tie strength is neither 'S' nor 'W'
+            int[] otherTies = new int[0];
+            int otherTieCount = 0;
+            for (int id = 0; id < size; id++) {
+                // pack each edge as (target id << 1 | strong bit) so sorting keeps the tie strengths aligned
+                int edge = offsets[id];
+                boolean hasOtherTies = false;
+                Iterator<String> neighbors = records[id].out.keyIterator();
+                while (neighbors.hasNext()) {
+                    String neighbor = neighbors.next();
+                    Character tieStrength = records[id].out.get(neighbor);
+                    hasOtherTies |= tieStrength == null || tieStrength != 'S' && tieStrength != 'W';
+                    boolean strong = tieStrength != null && tieStrength == 'S';
+                    targets[edge++] = ids.get(neighbor) << 1 | (strong ? 1 : 0);
+                }
+                Arrays.sort(targets, offsets[id], offsets[id + 1]);
+                for (edge = offsets[id]; edge < offsets[id + 1]; edge++) {
+                    if ((targets[edge] & 1) != 0) {
+                        strongTies[edge >>> 6] |= 1L << edge;
+                    }
+                    targets[edge] >>>= 1;
+                    if (hasOtherTies) {
+                        Character tieStrength = records[id].out.get(labels[targets[edge]]);
+                        if (tieStrength == null || tieStrength != 'S' && tieStrength != 'W') {
+                            if (otherTieCount * 2 == otherTies.length) {
+                                otherTies = Arrays.copyOf(otherTies, Math.max(16, otherTies.length * 2));
+                            }
+                            otherTies[2 * otherTieCount] = edge;
+                            otherTies[2 * otherTieCount + 1] = tieStrength == null ? CompactGraph.NO_TIE
+                                    : tieStrength;
+                            otherTieCount++;
+                        }
+                    }
+                }
+            }
+            return new CompactGraph(labels, ids, offsets, targets, strongTies,
+                    Arrays.copyOf(otherTies, 2 * otherTieCount));
+        }
+    }
+
+    /**
+     * The edges of a vertex in one version, shared by every later version until one of them changes
+     */
+    private static final class VertexRecord {
+        // the tie strength of each out-edge, by target label
+        final PersistentMap<String, Character> out;
+
+        // the sources of the in-edges
+        final PersistentMap<String, Boolean> in;
+
+        VertexRecord() {
+            this(PersistentMap.empty(), PersistentMap.empty());
+        }
+
+        VertexRecord(PersistentMap<String, Character> out, PersistentMap<String, Boolean> in) {
+            this.out = out;
+            this.in = in;
+        }
+    }
+
+    /**
+     * A read-only set view of the keys of a persistent map
+     */
+    private static final class KeyView<K> extends AbstractSet<K> {
+        private final PersistentMap<K, ?> map;
+
+        KeyView(PersistentMap<K, ?> map) {
+            this.map = map;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public boolean contains(Object o) {
+            return o != null && map.containsKey((K) o);
+        }
+
+        @Override
+        public Iterator<K> iterator() {
+            return map.keyIterator();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+    }
+}
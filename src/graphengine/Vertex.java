@@ -1,22 +1,43 @@
 package graphengine;
 
-import java.util.HashMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
 public class Vertex {
-    // A Hash Map that maps a neighbor of this vertex to the strength of the tie this vertex has with the neighbor
-    HashMap<String, Character> neighbors;
+    // maps the id of each neighbor of this vertex to the strength of the tie this vertex has with the neighbor
+    private final AdjacencyMap neighbors;
 
-    // tracks if this vertex has been discovered in the graph traversal
-    private boolean discovered;
+    // the ids of the vertices that have an edge to this vertex
+    private final AdjacencyMap inNeighbors;
 
-    // tracks start and end times for DFS
+    // the graph this vertex belongs to, which maps the ids of its neighbors back to vertex objects
+    private final Graph graph;
+
+    // the id of this vertex, unique among the vertices currently in its graph
+    private final int id;
+
+    // the label of this vertex
+    private final String label;
+
+    // the number of pairs of strong ties of this vertex with no edge between them, kept by the STC index of its graph
+    int stcViolations;
+
+    // start and end times of this vertex when it belongs to a DFS forest
     private int startTime;
     private int finishTime;
 
-    public Vertex() {
-        this.neighbors = new HashMap<>();
-        this.discovered = false;
+    // read-only label views of the neighbors and in-neighbors, created on first use
+    private Set<String> neighborLabels;
+    private Set<String> inNeighborLabels;
+
+    public Vertex(Graph graph, int id, String label) {
+        this.neighbors = new AdjacencyMap(graph.getArena());
+        this.inNeighbors = new AdjacencyMap(graph.getArena());
+        this.graph = graph;
+        this.id = id;
+        this.label = label;
         this.startTime = -1;
         this.finishTime = -1;
     }
@@ -28,7 +49,17 @@ public class Vertex {
      * @param tieStrength       the strength of the new edge
      */
     public void addEdge(String newNeighbor, Character tieStrength) {
-        neighbors.put(newNeighbor, tieStrength);
+        addEdge(graph.getVertex(newNeighbor), tieStrength);
+    }
+
+    /**
+     * Add a directed edge from this vertex to a specified vertex object with the strength of the new edge
+     *
+     * @param newNeighbor       the vertex object to create a new edge to
+     * @param tieStrength       the strength of the new edge
+     */
+    public void addEdge(Vertex newNeighbor, Character tieStrength) {
+        neighbors.put(newNeighbor.getId(), tieStrength);
     }
 
     /**
@@ -37,7 +68,58 @@ public class Vertex {
      * @param neighbor       the vertex to delete the edge to
      */
     public void deleteEdge(String neighbor) {
-        neighbors.remove(neighbor);
+        Vertex neighborObj = graph.getVertex(neighbor);
+        if (neighborObj != null) {
+            deleteEdge(neighborObj);
+        }
+    }
+
+    /**
+     * Delete a directed edge from this vertex to a specified vertex object
+     *
+     * @param neighbor       the vertex object to delete the edge to
+     */
+    public void deleteEdge(Vertex neighbor) {
+        neighbors.remove(neighbor.getId());
+    }
+
+    /**
+     * Record that a specified vertex has a directed edge to this vertex
+     *
+     * @param inNeighbor       the vertex the edge starts from
+     */
+    public void addInEdge(String inNeighbor) {
+        addInEdge(graph.getVertex(inNeighbor));
+    }
+
+    /**
+     * Record that a specified vertex object has a directed edge to this vertex
+     *
+     * @param inNeighbor       the vertex object the edge starts from
+     */
+    public void addInEdge(Vertex inNeighbor) {
+        inNeighbors.put(inNeighbor.getId(), null);
+    }
+
+    /**
+     * Forget that a specified vertex has a directed edge to this vertex
+     *
+     * @param inNeighbor       the vertex the edge starts from
+     */
+    public void deleteInEdge(String inNeighbor) {
+        Vertex inNeighborObj = graph.getVertex(inNeighbor);
+        if (inNeighborObj != null) {
+            deleteInEdge(inNeighborObj);
+        }
+    }
+
+    /**
+     * Forget that a specified vertex object has a directed edge to this vertex
+     *
+     * @param inNeighbor       the vertex object the edge starts from
+     */
+    public void deleteInEdge(Vertex inNeighbor) {
+        inNeighbors.remove(inNeighbor.getId());
     }
 
     /**
@@ -46,13 +128,56 @@ public class Vertex {
      * @return true, if this vertex has an edge to neighbor, false otherwise
      */
     public boolean hasEdge(String neighbor) {
-        return neighbors.containsKey(neighbor);
+        Vertex neighborObj = graph.getVertex(neighbor);
+        return neighborObj != null && hasEdge(neighborObj);
+    }
+
+    /**
+     * Checks if this vertex has an edge to a specified vertex object
+     * @param neighbor      the vertex object to check
+     * @return true, if this vertex has an edge to neighbor, false otherwise
+     */
+    public boolean hasEdge(Vertex neighbor) {
+        return neighbors.contains(neighbor.getId());
+    }
+
+    /**
+     * Checks if a specified vertex object has an edge to this vertex
+     * @param inNeighbor    the vertex object to check
+     * @return true, if inNeighbor has an edge to this vertex, false otherwise
+     */
+    public boolean hasInEdge(Vertex inNeighbor) {
+        return inNeighbors.contains(inNeighbor.getId());
+    }
+
+    /**
+     * Removes every edge of this vertex from its own tables, which gives their memory back. Only the graph
+     * calls this, once the vertex is deleted and its neighbors no longer refer to it.
+     */
+    void release() {
+        neighbors.clear();
+        inNeighbors.clear();
+    }
+
+    /**
+     * Returns the strength of the tie from this vertex to a specified vertex object, without checking that
+     * the edge exists
+     *
+     * @param neighbor      the vertex object
+     * @return the tie strength, or null if there is no edge or the edge has no tie strength
+     */
+    Character findTieStrength(Vertex neighbor) {
+        return neighbors.get(neighbor.getId());
     }
 
     // GETTER METHODS
 
-    public boolean isDiscovered() {
-        return discovered;
+    public int getId() {
+        return id;
+    }
+
+    public String getLabel() {
+        return label;
     }
 
     public int getStartTime() {
@@ -72,27 +197,110 @@ public class Vertex {
      */
     public char getTieStrength(String neighbor) {
         if (hasEdge(neighbor)) {
-            return neighbors.get(neighbor);
+            return neighbors.get(graph.getVertex(neighbor).getId());
         } else {
             throw new IllegalArgumentException("This Tie Does Not Exist");
         }
     }
 
     /**
-     * Returns all the neighbors of this vertex
+     * Returns all the neighbors of this vertex. The same view is returned on every call.
      *
-     * @return neighbors of this vertex
+     * @return read-only live view of the neighbors of this vertex
      */
     public Set<String> getNeighbors() {
-        return neighbors.keySet();
+        if (neighborLabels == null) {
+            neighborLabels = new LabelView(neighbors);
+        }
+        return neighborLabels;
     }
 
-    // SETTER METHODS
+    /**
+     * Returns all the vertices that have an edge to this vertex. The same view is returned on every call.
+     *
+     * @return read-only live view of the in-neighbors of this vertex
+     */
+    public Set<String> getInNeighbors() {
+        if (inNeighborLabels == null) {
+            inNeighborLabels = new LabelView(inNeighbors);
+        }
+        return inNeighborLabels;
+    }
+
+    /**
+     * Returns the number of edges from this vertex
+     *
+     * @return out-degree
+     */
+    public int getOutDegree() {
+        return neighbors.size();
+    }
+
+    /**
+     * Returns the number of edges to this vertex
+     *
+     * @return in-degree
+     */
+    public int getInDegree() {
+        return inNeighbors.size();
+    }
+
+    // SLOT ITERATION
+    // The neighbors can be walked without allocating by slot, starting from nextNeighborSlot(-1) and stopping
+    // at -1. The edges of this vertex must not change during the walk.
+
+    /**
+     * Returns the first slot after a slot that holds a neighbor
+     *
+     * @param slot      the slot to start after, -1 to start at the beginning
+     * @return the next neighbor slot, or -1 if there is none
+     */
+    public int nextNeighborSlot(int slot) {
+        return neighbors.nextSlot(slot);
+    }
+
+    /**
+     * Returns the neighbor in a slot
+     *
+     * @param slot      a neighbor slot
+     * @return the vertex object of the neighbor
+     */
+    public Vertex getNeighborAt(int slot) {
+        return graph.getVertexById(neighbors.getIdAt(slot));
+    }
+
+    /**
+     * Returns the strength of the tie to the neighbor in a slot
+     *
+     * @param slot      a neighbor slot
+     * @return the tie strength, or null if the edge has none
+     */
+    public Character getTieStrengthAt(int slot) {
+        return neighbors.getTieStrengthAt(slot);
+    }
+
+    /**
+     * Returns the first slot after a slot that holds an in-neighbor
+     *
+     * @param slot      the slot to start after, -1 to start at the beginning
+     * @return the next in-neighbor slot, or -1 if there is none
+     */
+    public int nextInNeighborSlot(int slot) {
+        return inNeighbors.nextSlot(slot);
+    }
 
-    public void setDiscovered(boolean discovered) {
-        this.discovered = discovered;
+    /**
+     * Returns the in-neighbor in a slot
+     *
+     * @param slot      an in-neighbor slot
+     * @return the vertex object of the in-neighbor
+     */
+    public Vertex getInNeighborAt(int slot) {
+        return graph.getVertexById(inNeighbors.getIdAt(slot));
     }
 
+    // SETTER METHODS
+
     public void setStartTime(int startTime) {
         this.startTime = startTime;
     }
@@ -102,11 +310,49 @@ public class Vertex {
     }
 
     /**
-     * Resets the vertex
+     * A read-only set of the labels of the vertices in an adjacency map
      */
-    public void reset() {
-        this.discovered = false;
-        this.startTime = -1;
-        this.finishTime = -1;
+    private final class LabelView extends AbstractSet<String> {
+        private final AdjacencyMap map;
+
+        LabelView(AdjacencyMap map) {
+            this.map = map;
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public boolean contains(Object vertex) {
+            if (!(vertex instanceof String)) {
+                return false;
+            }
+            Vertex vertexObj = graph.getVertex((String) vertex);
+            return vertexObj != null && map.contains(vertexObj.getId());
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int slot = map.nextSlot(-1);
+
+                @Override
+                public boolean hasNext() {
+                    return slot >= 0;
+                }
+
+                @Override
+                public String next() {
+                    if (slot < 0) {
+                        throw new NoSuchElementException();
+                    }
+                    String label = graph.getVertexById(map.getIdAt(slot)).getLabel();
+                    slot = map.nextSlot(slot);
+                    return label;
+                }
+            };
+        }
     }
 }
@@ -0,0 +1,30 @@
+package graphengine;
+
+/**
+ * Maps the vertex labels of a compact graph to dense vertex ids from 0 to size - 1 and back
+ */
+public interface VertexDictionary {
+
+    /**
+     * Returns the number of vertices in the dictionary
+     *
+     * @return size
+     */
+    int getSize();
+
+    /**
+     * Returns the id of a vertex
+     *
+     * @param vertex    vertex label
+     * @return the vertex id, or -1 if the vertex is not in the dictionary
+     */
+    int getId(String vertex);
+
+    /**
+     * Returns the label of a vertex
+     *
+     * @param id    vertex id
+     * @return vertex label
+     */
+    String getLabel(int id);
+}
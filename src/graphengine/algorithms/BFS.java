@@ -1,57 +1,154 @@
 package graphengine.algorithms;
 
+import graphengine.CompactGraph;
 import graphengine.Graph;
 import graphengine.Vertex;
 
-import java.util.LinkedList;
+import java.util.Arrays;
 
 public class BFS {
     /**
-     * Returns the graph of the BFS forest
+     * Runs BFS on every component of a graph, starting from the source vertex, walking the edges of the vertex
+     * objects in place. The vertex ids of the result are those of the graph.
      *
      * @param graph         input graph to perform BFS on
      * @param source        the source vertex
-     * @return Graph of BFS forest
+     * @param context       the traversal state of this run
+     * @return the BFS forest, with the distance of each vertex from its root as its depth
+     * @throws IllegalArgumentException if the source vertex is not in the graph
      */
-    public static Graph runBFS(Graph graph, String source) {
-        Graph forest = new Graph();
+    public static TraversalResult traverse(Graph graph, String source, TraversalContext context) {
+        Vertex sourceVertex = graph.getVertex(source);
+        if (sourceVertex == null) {
+            throw new IllegalArgumentException("Source Vertex Does Not Exist");
+        }
+        context.begin(graph.getIdBound());
+        // every vertex enters the queue exactly once, so the queue ends up holding the discovery order
+        int[] queue = new int[graph.getSize()];
+        Vertex[] vertices = new Vertex[graph.getIdBound()];
+        String[] labels = new String[graph.getIdBound()];
+        int[] parents = new int[graph.getIdBound()];
+        int[] depths = new int[graph.getIdBound()];
+        // ids without a vertex are never discovered, so they stay out of the forest as roots
+        Arrays.fill(parents, -1);
         // run BFS on the source vertex
-        subBFS(graph, forest, source);
+        int tail = subBFS(sourceVertex, context, vertices, labels, queue, parents, depths, 0);
 
         // iterate through all vertices and run BFS on undiscovered vertices
         for (String vertex : graph.getVertices()) {
-            if (!graph.getVertex(vertex).isDiscovered()) {
-                subBFS(graph, forest, vertex);
+            Vertex vertexObj = graph.getVertex(vertex);
+            if (!context.isDiscovered(vertexObj.getId())) {
+                tail = subBFS(vertexObj, context, vertices, labels, queue, parents, depths, tail);
             }
         }
-        return forest;
+        return new TraversalResult(new GraphLabels(labels), parents, depths, queue, null, null);
     }
 
     /**
-     * BFS Algorithm on a connected component rooted at the source node
+     * Runs BFS on every component of a compact graph, starting from the source vertex
      *
-     * @param input     the input graph to run BFS on
-     * @param output    the graph to store the BFS forest
-     * @param source    the source vertex
+     * @param graph         compact input graph to perform BFS on
+     * @param source        the source vertex
+     * @param context       the traversal state of this run
+     * @return the BFS forest, with the distance of each vertex from its root as its depth
+     * @throws IllegalArgumentException if the source vertex is not in the graph
      */
-    private static void subBFS(Graph input, Graph output, String source) {
-        Vertex sourceVertex = input.getVertex(source);
-
-        output.addVertex(source);
-        LinkedList<String> queue = new LinkedList<>();
-        queue.addLast(source);
-        sourceVertex.setDiscovered(true);
-
-        while (!queue.isEmpty()) {
-            String currVertex = queue.removeFirst();
-            for (String neighbor : input.getVertex(currVertex).getNeighbors()) {
-                Vertex neighborVertex = input.getVertex(neighbor);
-                if (!neighborVertex.isDiscovered()) {
-                    queue.addLast(neighbor);
-                    neighborVertex.setDiscovered(true);
-                    output.addDirectedEdge(currVertex, neighbor, null);
+    public static TraversalResult traverse(CompactGraph graph, String source, TraversalContext context) {
+        int sourceId = graph.getId(source);
+        if (sourceId < 0) {
+            throw new IllegalArgumentException("Source Vertex Does Not Exist");
+        }
+        context.begin(graph.getSize());
+        // every vertex enters the queue exactly once, so the queue ends up holding the discovery order
+        int[] queue = new int[graph.getSize()];
+        int[] parents = new int[graph.getSize()];
+        int[] depths = new int[graph.getSize()];
+        // run BFS on the source vertex
+        int tail = subBFS(graph, sourceId, context, queue, parents, depths, 0);
+
+        // iterate through all vertices and run BFS on undiscovered vertices
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+            if (!context.isDiscovered(vertex)) {
+                tail = subBFS(graph, vertex, context, queue, parents, depths, tail);
+            }
+        }
+        return new TraversalResult(graph.getDictionary(), parents, depths, queue, null, null);
+    }
+
+    /**
+     * BFS Algorithm on a connected component of a graph rooted at the source node
+     *
+     * @param source        the source vertex object
+     * @param context       the traversal state of this run
+     * @param vertices      receives the vertex object of each discovered vertex id
+     * @param labels        receives the label of each discovered vertex id
+     * @param queue         the queue array shared by all the components
+     * @param parents       receives the parent of each vertex of the component
+     * @param depths        receives the depth of each vertex of the component
+     * @param tail          the first free position in the queue
+     * @return the first free position in the queue after this component
+     */
+    private static int subBFS(Vertex source, TraversalContext context, Vertex[] vertices, String[] labels,
+                              int[] queue, int[] parents, int[] depths, int tail) {
+        int head = tail;
+        int sourceId = source.getId();
+        queue[tail++] = sourceId;
+        context.setDiscovered(sourceId);
+        vertices[sourceId] = source;
+        labels[sourceId] = source.getLabel();
+        depths[sourceId] = 0;
+
+        while (head < tail) {
+            int currId = queue[head++];
+            Vertex currVertex = vertices[currId];
+            for (int slot = currVertex.nextNeighborSlot(-1); slot >= 0; slot = currVertex.nextNeighborSlot(slot)) {
+                Vertex neighbor = currVertex.getNeighborAt(slot);
+                int id = neighbor.getId();
+                if (!context.isDiscovered(id)) {
+                    queue[tail++] = id;
+                    context.setDiscovered(id);
+                    vertices[id] = neighbor;
+                    labels[id] = neighbor.getLabel();
+                    parents[id] = currId;
+                    depths[id] = depths[currId] + 1;
+                }
+            }
+        }
+        return tail;
+    }
+
+    /**
+     * BFS Algorithm on a connected component of a compact graph rooted at the source node
+     *
+     * @param input         the compact input graph to run BFS on
+     * @param source        the source vertex id
+     * @param context       the traversal state of this run
+     * @param queue         the queue array shared by all the components
+     * @param parents       receives the parent of each vertex of the component
+     * @param depths        receives the depth of each vertex of the component
+     * @param tail          the first free position in the queue
+     * @return the first free position in the queue after this component
+     */
+    private static int subBFS(CompactGraph input, int source, TraversalContext context, int[] queue,
+                              int[] parents, int[] depths, int tail) {
+        int head = tail;
+        queue[tail++] = source;
+        context.setDiscovered(source);
+        parents[source] = -1;
+        depths[source] = 0;
+
+        while (head < tail) {
+            int currVertex = queue[head++];
+            for (int edge = input.getEdgeStart(currVertex); edge < input.getEdgeEnd(currVertex); edge++) {
+                int neighbor = input.getTarget(edge);
+                if (!context.isDiscovered(neighbor)) {
+                    queue[tail++] = neighbor;
+                    context.setDiscovered(neighbor);
+                    parents[neighbor] = currVertex;
+                    depths[neighbor] = depths[currVertex] + 1;
                 }
             }
         }
+        return tail;
     }
 }
@@ -0,0 +1,259 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+
+import java.util.LinkedList;
+
+/**
+ * The strongly connected components of a compact graph: the component id of every vertex and the
+ * condensation, the DAG with one vertex per component and an edge wherever an edge of the graph joins two
+ * components.
+ *
+ * The components are numbered in a topological order of the condensation, so every edge between two
+ * components goes from a lower component id to a higher one, and listing the components by id orders a
+ * cyclic graph as far as it can be ordered.
+ *
+ * The members of each component are only grouped when they are first asked for, so a result should be read
+ * from one thread at a time.
+ */
+public class ComponentResult {
+    // the graph the components are of
+    private final CompactGraph graph;
+
+    // the component id of each vertex
+    private final int[] components;
+
+    // the number of components
+    private final int componentCount;
+
+    // one vertex per component, labelled with the label of its lowest vertex id
+    private final CompactGraph condensation;
+
+    // the members of component c are members[memberStart[c]] to members[memberStart[c + 1] - 1], in order of
+    // vertex id, or null until they are first asked for
+    private int[] memberStart;
+    private int[] members;
+
+    /**
+     * Numbers the components in topological order and builds the condensation
+     *
+     * @param graph             the compact graph
+     * @param components        the component id of each vertex, in any order, renumbered in place
+     * @param componentCount    the number of components
+     */
+    ComponentResult(CompactGraph graph, int[] components, int componentCount) {
+        this.graph = graph;
+        this.components = components;
+        this.componentCount = componentCount;
+        int size = graph.getSize();
+
+        // group the edges between components by the component they leave
+        int[] crossStart = new int[componentCount + 1];
+        int crossCount = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                if (components[graph.getTarget(edge)] != components[vertex]) {
+                    crossStart[components[vertex] + 1]++;
+                    crossCount++;
+                }
+            }
+        }
+        for (int component = 0; component < componentCount; component++) {
+            crossStart[component + 1] += crossStart[component];
+        }
+        int[] nextCross = new int[componentCount];
+        System.arraycopy(crossStart, 0, nextCross, 0, componentCount);
+        int[] crossSources = new int[crossCount];
+        int[] crossTargets = new int[crossCount];
+        long[] crossStrongTies = new long[(crossCount + 63) >>> 6];
+        int[] inDegree = new int[componentCount];
+        for (int vertex = 0; vertex < size; vertex++) {
+            for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                int target = components[graph.getTarget(edge)];
+                if (target != components[vertex]) {
+                    int cross = nextCross[components[vertex]]++;
+                    crossSources[cross] = components[vertex];
+                    crossTargets[cross] = target;
+                    if (graph.isStrongTie(edge)) {
+                        crossStrongTies[cross >>> 6] |= 1L << cross;
+                    }
+                    inDegree[target]++;
+                }
+            }
+        }
+
+        // the condensation is a DAG, so a topological sort of it reaches every component
+        int[] rank = new int[componentCount];
+        int[] queue = new int[componentCount];
+        int head = 0;
+        int tail = 0;
+        for (int component = 0; component < componentCount; component++) {
+            if (inDegree[component] == 0) {
+                queue[tail++] = component;
+            }
+        }
+        while (head < tail) {
+            int component = queue[head];
+            rank[component] = head++;
+            for (int cross = crossStart[component]; cross < crossStart[component + 1]; cross++) {
+                if (--inDegree[crossTargets[cross]] == 0) {
+                    queue[tail++] = crossTargets[cross];
+                }
+            }
+        }
+
+        String[] labels = new String[componentCount];
+        for (int vertex = 0; vertex < size; vertex++) {
+            components[vertex] = rank[components[vertex]];
+            if (labels[components[vertex]] == null) {
+                labels[components[vertex]] = graph.getLabel(vertex);
+            }
+        }
+        for (int cross = 0; cross < crossCount; cross++) {
+            crossSources[cross] = rank[crossSources[cross]];
+            crossTargets[cross] = rank[crossTargets[cross]];
+        }
+        this.condensation = CompactGraph.fromEdges(labels, crossSources, crossTargets, crossStrongTies,
+                crossCount);
+    }
+
+    /**
+     * Returns the number of vertices of the graph
+     *
+     * @return number of vertices
+     */
+    public int getSize() {
+        return components.length;
+    }
+
+    /**
+     * Returns the label of a vertex
+     *
+     * @param id    vertex id
+     * @return vertex label
+     */
+    public String getLabel(int id) {
+        return graph.getLabel(id);
+    }
+
+    /**
+     * Returns the id of a vertex
+     *
+     * @param vertex    vertex label
+     * @return vertex id, or -1 if the vertex is not in the graph
+     */
+    public int getId(String vertex) {
+        return graph.getId(vertex);
+    }
+
+    /**
+     * Returns the number of strongly connected components, which equals the number of vertices if and only if
+     * the graph is a DAG
+     *
+     * @return number of components
+     */
+    public int getComponentCount() {
+        return componentCount;
+    }
+
+    /**
+     * Returns the component of a vertex
+     *
+     * @param id    vertex id
+     * @return component id
+     */
+    public int getComponent(int id) {
+        return components[id];
+    }
+
+    /**
+     * Returns the number of vertices in a component
+     *
+     * @param component     component id
+     * @return number of vertices
+     */
+    public int getComponentSize(int component) {
+        indexMembers();
+        return memberStart[component + 1] - memberStart[component];
+    }
+
+    /**
+     * Returns a vertex of a component, the vertices being in order of vertex id
+     *
+     * @param component     component id
+     * @param index         the index of the vertex, from 0 to getComponentSize(component) - 1
+     * @return vertex id
+     */
+    public int getMember(int component, int index) {
+        indexMembers();
+        return members[memberStart[component] + index];
+    }
+
+    /**
+     * Returns the labels of the vertices of a component
+     *
+     * @param component     component id
+     * @return list of the vertices in the component
+     */
+    public LinkedList<String> getMembers(int component) {
+        indexMembers();
+        LinkedList<String> labels = new LinkedList<>();
+        for (int member = memberStart[component]; member < memberStart[component + 1]; member++) {
+            labels.add(graph.getLabel(members[member]));
+        }
+        return labels;
+    }
+
+    /**
+     * Returns the component with the most vertices, the one with the lowest id if several are as large
+     *
+     * @return component id, or -1 if the graph is empty
+     */
+    public int getLargestComponent() {
+        indexMembers();
+        int largest = -1;
+        int largestSize = 0;
+        for (int component = 0; component < componentCount; component++) {
+            if (memberStart[component + 1] - memberStart[component] > largestSize) {
+                largest = component;
+                largestSize = memberStart[component + 1] - memberStart[component];
+            }
+        }
+        return largest;
+    }
+
+    /**
+     * Returns the condensation of the graph. Vertex id c of the condensation is component c, labelled with the
+     * label of its lowest vertex id, and an edge between two components has the tie strength of the first
+     * edge it stands for, in order of source vertex id.
+     *
+     * @return compact graph of the condensation
+     */
+    public CompactGraph getCondensation() {
+        return condensation;
+    }
+
+    /**
+     * Groups the vertices by component with a counting sort over the vertex ids
+     */
+    private void indexMembers() {
+        if (members != null) {
+            return;
+        }
+        int[] start = new int[componentCount + 1];
+        for (int component : components) {
+            start[component + 1]++;
+        }
+        for (int component = 0; component < componentCount; component++) {
+            start[component + 1] += start[component];
+        }
+        int[] next = new int[componentCount];
+        System.arraycopy(start, 0, next, 0, componentCount);
+        int[] grouped = new int[components.length];
+        for (int vertex = 0; vertex < components.length; vertex++) {
+            grouped[next[components[vertex]]++] = vertex;
+        }
+        memberStart = start;
+        members = grouped;
+    }
+}
@@ -1,53 +1,191 @@
 package graphengine.algorithms;
 
+import graphengine.CompactGraph;
 import graphengine.Graph;
 import graphengine.Vertex;
 
+import java.util.Arrays;
+
 public class DFS {
     /**
-     * Returns the graph of the DFS forest
+     * Runs DFS on every component of a graph, starting from the source vertex, walking the edges of the vertex
+     * objects in place. The vertex ids of the result are those of the graph.
      *
      * @param graph         input graph to run DFS on
      * @param source        the source vertex
-     * @return Graph of DFS forest
+     * @param context       the traversal state of this run
+     * @return the DFS forest with the start and finish time of each vertex
+     * @throws IllegalArgumentException if the source vertex is not in the graph
      */
-    public static Graph runDFS(Graph graph, String source) {
-        Graph forest = new Graph();
+    public static TraversalResult traverse(Graph graph, String source, TraversalContext context) {
+        Vertex sourceVertex = graph.getVertex(source);
+        if (sourceVertex == null) {
+            throw new IllegalArgumentException("Source Vertex Does Not Exist");
+        }
+        context.begin(graph.getIdBound());
+        Forest forest = new Forest(graph.getIdBound(), graph.getSize());
+        String[] labels = new String[graph.getIdBound()];
+        // the DFS path is at most as long as the number of vertices, so the stacks never grow
+        Vertex[] stack = new Vertex[graph.getSize()];
+        int[] nextSlot = new int[graph.getSize()];
         // run DFS on the source vertex
-        dfsVisit(graph, forest, source);
+        dfsVisit(sourceVertex, context, stack, nextSlot, labels, forest);
 
         // iterate through all vertices and run DFS on undiscovered vertices
         for (String vertex : graph.getVertices()) {
-            if (!graph.getVertex(vertex).isDiscovered()) {
-                dfsVisit(graph, forest, vertex);
+            Vertex vertexObj = graph.getVertex(vertex);
+            if (!context.isDiscovered(vertexObj.getId())) {
+                dfsVisit(vertexObj, context, stack, nextSlot, labels, forest);
             }
         }
-        return forest;
+        return new TraversalResult(new GraphLabels(labels), forest.parents, forest.depths, forest.order,
+                forest.startTimes, forest.finishTimes);
     }
 
     /**
-     * Recursive method to go deep into a vertex's neighbor and assign start and
+     * Runs DFS on every component of a compact graph, starting from the source vertex
+     *
+     * @param graph         compact input graph to run DFS on
+     * @param source        the source vertex
+     * @param context       the traversal state of this run
+     * @return the DFS forest with the start and finish time of each vertex
+     * @throws IllegalArgumentException if the source vertex is not in the graph
+     */
+    public static TraversalResult traverse(CompactGraph graph, String source, TraversalContext context) {
+        int sourceId = graph.getId(source);
+        if (sourceId < 0) {
+            throw new IllegalArgumentException("Source Vertex Does Not Exist");
+        }
+        context.begin(graph.getSize());
+        Forest forest = new Forest(graph.getSize(), graph.getSize());
+        // the DFS path is at most as long as the number of vertices, so the stacks never grow
+        int[] stack = new int[graph.getSize()];
+        int[] nextEdge = new int[graph.getSize()];
+        // run DFS on the source vertex
+        dfsVisit(graph, sourceId, context, stack, nextEdge, forest);
+
+        // iterate through all vertices and run DFS on undiscovered vertices
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+            if (!context.isDiscovered(vertex)) {
+                dfsVisit(graph, vertex, context, stack, nextEdge, forest);
+            }
+        }
+        return new TraversalResult(graph.getDictionary(), forest.parents, forest.depths, forest.order,
+                forest.startTimes, forest.finishTimes);
+    }
+
+    /**
+     * Goes deep into a vertex's neighbors with an explicit stack and assigns start and finish times to the
+     * vertices accordingly
+     *
+     * @param source        the source vertex object
+     * @param context       the traversal state of this run
+     * @param stack         the vertex objects on the current DFS path
+     * @param nextSlot      the last neighbor slot explored for each vertex on the current DFS path
+     * @param labels        receives the label of each discovered vertex id
+     * @param forest        receives the DFS forest
+     */
+    private static void dfsVisit(Vertex source, TraversalContext context, Vertex[] stack, int[] nextSlot,
+                                 String[] labels, Forest forest) {
+        int top = 0;
+        stack[0] = source;
+        nextSlot[0] = -1;
+        context.setDiscovered(source.getId());
+        labels[source.getId()] = source.getLabel();
+        forest.discover(source.getId(), -1, 0, context.incrementTime());
+
+        while (top >= 0) {
+            Vertex currVertex = stack[top];
+            int slot = currVertex.nextNeighborSlot(nextSlot[top]);
+            // advance the cursor of the current vertex to its next undiscovered neighbor
+            while (slot >= 0 && context.isDiscovered(currVertex.getNeighborAt(slot).getId())) {
+                slot = currVertex.nextNeighborSlot(slot);
+            }
+            if (slot >= 0) {
+                Vertex child = currVertex.getNeighborAt(slot);
+                nextSlot[top] = slot;
+                context.setDiscovered(child.getId());
+                labels[child.getId()] = child.getLabel();
+                forest.discover(child.getId(), currVertex.getId(), top + 1, context.incrementTime());
+                top++;
+                stack[top] = child;
+                nextSlot[top] = -1;
+            } else {
+                forest.finishTimes[currVertex.getId()] = context.incrementTime();
+                top--;
+            }
+        }
+    }
+
+    /**
+     * Goes deep into a vertex's neighbors in a compact graph with an explicit stack and assigns start and
      * finish times to the vertices accordingly
      *
-     * @param input     input graph
-     * @param output    the graph to store the DFS forest
-     * @param source    the source vertex
+     * @param input         compact input graph
+     * @param source        the source vertex id
+     * @param context       the traversal state of this run
+     * @param stack         the vertex ids on the current DFS path
+     * @param nextEdge      the next edge to explore for each vertex on the current DFS path
+     * @param forest        receives the DFS forest
      */
-    private static void dfsVisit(Graph input, Graph output, String source) {
-        output.incrementTime();
-        output.addVertex(source);
-        output.getVertex(source).setStartTime(output.getCurrTime());
-
-        Vertex currVertex = input.getVertex(source);
-        currVertex.setDiscovered(true);
-
-        for (String neighbor : currVertex.getNeighbors()) {
-            if (!input.getVertex(neighbor).isDiscovered()) {
-                output.addDirectedEdge(source, neighbor, null);
-                dfsVisit(input, output, neighbor);
+    private static void dfsVisit(CompactGraph input, int source, TraversalContext context, int[] stack,
+                                 int[] nextEdge, Forest forest) {
+        int top = 0;
+        stack[0] = source;
+        nextEdge[0] = input.getEdgeStart(source);
+        context.setDiscovered(source);
+        forest.discover(source, -1, 0, context.incrementTime());
+
+        while (top >= 0) {
+            int currVertex = stack[top];
+            int end = input.getEdgeEnd(currVertex);
+            int edge = nextEdge[top];
+            // advance the cursor of the current vertex to its next undiscovered neighbor
+            while (edge < end && context.isDiscovered(input.getTarget(edge))) {
+                edge++;
+            }
+            if (edge < end) {
+                int child = input.getTarget(edge);
+                nextEdge[top] = edge + 1;
+                context.setDiscovered(child);
+                forest.discover(child, currVertex, top + 1, context.incrementTime());
+                top++;
+                stack[top] = child;
+                nextEdge[top] = input.getEdgeStart(child);
+            } else {
+                forest.finishTimes[currVertex] = context.incrementTime();
+                top--;
             }
         }
-        output.incrementTime();
-        output.getVertex(source).setFinishTime(output.getCurrTime());
+    }
+
+    /**
+     * The arrays a DFS run fills in
+     */
+    private static final class Forest {
+        private final int[] parents;
+        private final int[] depths;
+        private final int[] order;
+        private final int[] startTimes;
+        private final int[] finishTimes;
+        private int discovered;
+
+        Forest(int idBound, int size) {
+            this.parents = new int[idBound];
+            this.depths = new int[idBound];
+            this.order = new int[size];
+            this.startTimes = new int[idBound];
+            this.finishTimes = new int[idBound];
+            this.discovered = 0;
+            // ids without a vertex are never discovered, so they stay out of the forest as roots
+            Arrays.fill(parents, -1);
+        }
+
+        void discover(int vertex, int parent, int depth, int startTime) {
+            parents[vertex] = parent;
+            depths[vertex] = depth;
+            order[discovered++] = vertex;
+            startTimes[vertex] = startTime;
+        }
     }
 }
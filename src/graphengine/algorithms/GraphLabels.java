@@ -0,0 +1,46 @@
+package graphengine.algorithms;
+
+import graphengine.VertexDictionary;
+
+import java.util.HashMap;
+
+/**
+ * The labels of the vertices of a graph by vertex id, for results that keep the ids of the graph they ran on.
+ * The ids can have gaps where vertices were deleted, which have no label. The lookup from label to id is only
+ * built when it is first needed.
+ */
+final class GraphLabels implements VertexDictionary {
+    // the label of each vertex id, or null for an id without a vertex
+    private final String[] labels;
+
+    // maps a vertex label to its id, or null until it is first asked for
+    private HashMap<String, Integer> ids;
+
+    GraphLabels(String[] labels) {
+        this.labels = labels;
+    }
+
+    @Override
+    public int getSize() {
+        return labels.length;
+    }
+
+    @Override
+    public int getId(String vertex) {
+        if (ids == null) {
+            ids = new HashMap<>();
+            for (int id = 0; id < labels.length; id++) {
+                if (labels[id] != null) {
+                    ids.put(labels[id], id);
+                }
+            }
+        }
+        Integer id = ids.get(vertex);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public String getLabel(int id) {
+        return labels[id];
+    }
+}
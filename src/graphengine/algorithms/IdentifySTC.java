@@ -1,28 +1,93 @@
 package graphengine.algorithms;
 
+import graphengine.CompactGraph;
 import graphengine.Graph;
 
+import java.util.Arrays;
 import java.util.LinkedList;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class IdentifySTC {
+    // the number of vertices one task checks before it stops splitting, small so hubs are spread out
+    private static final int GRAIN = 256;
+
     /**
-     * Identifies the vertices that satisfies and violates STC in the graph
+     * Identifies the vertices that satisfies and violates STC in the graph. A graph that keeps an STC index
+     * is answered from the index, and any other graph is frozen and checked in parallel.
      *
      * @param graph         the graph to identify STC on
      * @return  string list array containing a list of vertices satisfying STC and list of vertices violating STC
      */
     public static LinkedList<String>[] identifySTC(Graph graph) {
+        if (graph.isIndexingSTC()) {
+            @SuppressWarnings({"rawtypes", "unchecked"})
+            LinkedList<String>[] results = new LinkedList[2];
+            results[0] = new LinkedList<>(graph.getSatisfyingSTC());
+            results[1] = new LinkedList<>(graph.getViolatingSTC());
+            return results;
+        }
+        return identifySTC(graph.freeze());
+    }
+
+    /**
+     * Identifies the vertices that satisfies and violates STC in a compact graph, using the common fork/join pool
+     *
+     * @param graph         the compact graph to identify STC on
+     * @return  string list array containing a list of vertices satisfying STC and list of vertices violating STC
+     */
+    public static LinkedList<String>[] identifySTC(CompactGraph graph) {
+        return identifySTC(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Identifies the vertices that satisfies and violates STC in a compact graph. The vertices are checked in
+     * parallel, and both lists are in order of vertex id.
+     *
+     * @param graph         the compact graph to identify STC on
+     * @param pool          the pool that checks the vertices
+     * @return  string list array containing a list of vertices satisfying STC and list of vertices violating STC
+     */
+    public static LinkedList<String>[] identifySTC(CompactGraph graph, ForkJoinPool pool) {
+        return identifySTC(graph, pool, null);
+    }
+
+    /**
+     * Identifies the vertices that satisfies and violates STC in a compact graph, letting a traversal context
+     * watch and cancel the run. The tasks only count the vertices they check, and the calling thread reports
+     * the count to the context while it waits, so the context is never used from more than one thread.
+     *
+     * @param graph         the compact graph to identify STC on
+     * @param pool          the pool that checks the vertices
+     * @param context       the traversal state of this run, or null
+     * @return  string list array containing a list of vertices satisfying STC and list of vertices violating STC
+     * @throws CancellationException if the context was cancelled
+     */
+    public static LinkedList<String>[] identifySTC(CompactGraph graph, ForkJoinPool pool, TraversalContext context) {
+        boolean[] satisfies = new boolean[graph.getSize()];
+        AtomicInteger checked = new AtomicInteger();
+        STCTask task = new STCTask(graph, graph.transpose(), satisfies, context, checked, 0,
+                graph.getSize());
+        if (context == null) {
+            pool.invoke(task);
+        } else {
+            context.begin(graph.getSize());
+            context.watch(pool.submit(task), checked);
+        }
+
+        @SuppressWarnings({"rawtypes", "unchecked"})
         LinkedList<String>[] results = new LinkedList[2];
         LinkedList<String> satisfiesSTC = new LinkedList<>();
         LinkedList<String> violatesSTC = new LinkedList<>();
-
-        for (String vertex : graph.getVertices()) {
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
             // if the vertex satisfies STC, add it to the satisfying list
-            if (identifySTCForVertex(graph, vertex)) {
-                satisfiesSTC.add(vertex);
+            if (satisfies[vertex]) {
+                satisfiesSTC.add(graph.getLabel(vertex));
                 // otherwise, add it to the violating list
             } else {
-                violatesSTC.add(vertex);
+                violatesSTC.add(graph.getLabel(vertex));
             }
         }
         results[0] = satisfiesSTC;
@@ -31,32 +96,133 @@ public class IdentifySTC {
     }
 
     /**
-     * Checks if a single vertex satisfies or violates STC
+     * Checks if a single vertex of a compact graph satisfies or violates STC. The vertex's strong ties are
+     * collected and sorted first, then each strong tie must reach every other strong tie through its own
+     * in-edges or out-edges, so the work is the sum of the strong ties' degrees instead of every pair of
+     * neighbors.
      *
-     * @param graph         the graph
-     * @param vertex        the vertex to check STC
+     * @param graph         the compact graph
+     * @param transpose     the transpose of the compact graph
+     * @param vertex        the id of the vertex to check STC
+     * @param scratch       the arrays of the calling task, with room for the vertex's out-edges
      * @return true, if the vertex satisfies STC, false otherwise
      */
-    private static boolean identifySTCForVertex(Graph graph, String vertex) {
-        for (String neighbor1 : graph.getVertex(vertex).getNeighbors()) {
-            char tieStrength1 = graph.getTieStrength(vertex, neighbor1);
-            for (String neighbor2 : graph.getVertex(vertex).getNeighbors()) {
-                // only compare different neighbors
-                if (!neighbor1.equals(neighbor2)) {
-                    char tieStrength2 = graph.getTieStrength(vertex, neighbor2);
-                    // if the two tie strengths of the two neighbors are both strong
-                    if (tieStrength1 == 'S' && tieStrength2 == 'S') {
-                        // then check if there are any edges between the two neighbors
-                        boolean existEdge = graph.hasDirectedEdge(neighbor1, neighbor2) ||
-                                graph.hasDirectedEdge(neighbor2, neighbor1);
-                        // if the edge does not exist, then STC is violated so return false
-                        if (!existEdge) {
-                            return false;
-                        }
-                    }
+    private static boolean identifySTCForVertex(CompactGraph graph, CompactGraph transpose, int vertex,
+                                                Scratch scratch) {
+        int start = graph.getEdgeStart(vertex);
+        int end = graph.getEdgeEnd(vertex);
+        int[] strong = scratch.strong;
+        int strongTies = 0;
+        for (int edge = start; edge < end; edge++) {
+            if (graph.isStrongTie(edge)) {
+                strong[strongTies++] = graph.getTarget(edge);
+            }
+        }
+        if (strongTies < 2) {
+            return true;
+        }
+        Arrays.sort(strong, 0, strongTies);
+
+        for (int tie = 0; tie < strongTies; tie++) {
+            int neighbor = strong[tie];
+            // a neighbor with too few edges can not reach all the other strong ties
+            if (graph.getOutDegree(neighbor) + transpose.getOutDegree(neighbor) < strongTies - 1) {
+                return false;
+            }
+            // count the other strong ties the neighbor has an edge to or from, each one only once
+            int neighborStamp = ++scratch.stamp;
+            int connected = 0;
+            for (int e = graph.getEdgeStart(neighbor); e < graph.getEdgeEnd(neighbor); e++) {
+                int other = Arrays.binarySearch(strong, 0, strongTies, graph.getTarget(e));
+                if (other >= 0) {
+                    scratch.seen[other] = neighborStamp;
+                    connected++;
+                }
+            }
+            for (int e = transpose.getEdgeStart(neighbor); e < transpose.getEdgeEnd(neighbor); e++) {
+                int other = Arrays.binarySearch(strong, 0, strongTies, transpose.getTarget(e));
+                if (other >= 0 && scratch.seen[other] != neighborStamp) {
+                    connected++;
                 }
             }
+            // if some pair of strong ties has no edge between them, then STC is violated so return false
+            if (connected < strongTies - 1) {
+                return false;
+            }
         }
         return true;
     }
+
+    /**
+     * The arrays of one task, indexed by the position of a strong tie among the strong ties of the vertex being
+     * checked. A mark only counts if it equals the stamp it is compared against, so the arrays are never
+     * cleared.
+     */
+    private static final class Scratch {
+        // the strong ties of the vertex being checked, in increasing order
+        private final int[] strong;
+
+        // the strong tie that has already counted each strong tie
+        private final int[] seen;
+
+        private int stamp;
+
+        Scratch(int size) {
+            this.strong = new int[size];
+            this.seen = new int[size];
+            this.stamp = 0;
+        }
+    }
+
+    /**
+     * Checks a range of vertex ids, splitting it across the pool
+     */
+    private static final class STCTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CompactGraph graph;
+        private final CompactGraph transpose;
+        private final boolean[] satisfies;
+        private final TraversalContext context;
+        private final AtomicInteger checked;
+        private final int start;
+        private final int end;
+
+        STCTask(CompactGraph graph, CompactGraph transpose, boolean[] satisfies, TraversalContext context,
+                AtomicInteger checked, int start, int end) {
+            this.graph = graph;
+            this.transpose = transpose;
+            this.satisfies = satisfies;
+            this.context = context;
+            this.checked = checked;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > GRAIN) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new STCTask(graph, transpose, satisfies, context, checked, start, middle),
+                        new STCTask(graph, transpose, satisfies, context, checked, middle, end));
+                return;
+            }
+            // only the cancelled flag of a context may be read from the pool's threads
+            if (context != null && context.isCancelled()) {
+                throw new CancellationException("The Algorithm Was Cancelled");
+            }
+            // the arrays only hold the strong ties of one vertex, so the range's largest out-degree bounds them
+            int maxDegree = 0;
+            for (int vertex = start; vertex < end; vertex++) {
+                maxDegree = Math.max(maxDegree, graph.getOutDegree(vertex));
+            }
+            Scratch marks = new Scratch(maxDegree);
+            for (int vertex = start; vertex < end; vertex++) {
+                satisfies[vertex] = identifySTCForVertex(graph, transpose, vertex, marks);
+            }
+            if (context != null) {
+                checked.addAndGet(end - start);
+            }
+        }
+    }
 }
@@ -0,0 +1,223 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * BFS from many sources at once on a compact graph. The sources are taken 64 at a time, and each batch shares
+ * one traversal in which every vertex keeps a 64 bit mask of the sources that have seen it and of the sources
+ * whose frontier it is on, so an edge is followed once per batch rather than once per source, following
+ * Then et al.'s MS-BFS. The batches are independent and run in parallel on a fork/join pool.
+ *
+ * Edges are followed from source to target, so on a directed graph a vertex is reachable from a source if
+ * there is a directed path to it.
+ */
+public class MultiSourceBFS {
+    // distance of a vertex that a source can not reach
+    public static final int UNREACHABLE = -1;
+
+    // the number of sources that share one traversal, one per bit of a long
+    private static final int BATCH = 64;
+
+    /**
+     * Returns the distance of every vertex from every source, using the common fork/join pool.
+     * The result holds one int per source and vertex, so for many sources on a big graph runReachableCounts
+     * is the better fit.
+     *
+     * @param graph         compact input graph to perform BFS on
+     * @param sources       the source vertices, which may repeat
+     * @return for each source, in order, the distance of each vertex id from it, or UNREACHABLE
+     * @throws IllegalArgumentException if a source vertex is not in the graph
+     */
+    public static int[][] runDistances(CompactGraph graph, List<String> sources) {
+        return runDistances(graph, sources, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the distance of every vertex from every source
+     *
+     * @param graph         compact input graph to perform BFS on
+     * @param sources       the source vertices, which may repeat
+     * @param pool          the pool that runs the batches of sources
+     * @return for each source, in order, the distance of each vertex id from it, or UNREACHABLE
+     * @throws IllegalArgumentException if a source vertex is not in the graph
+     */
+    public static int[][] runDistances(CompactGraph graph, List<String> sources, ForkJoinPool pool) {
+        int[][] distances = new int[sources.size()][];
+        pool.invoke(new BatchTask(graph, toIds(graph, sources), 0, batchCount(sources.size()), distances, null));
+        return distances;
+    }
+
+    /**
+     * Returns the number of vertices every source can reach, using the common fork/join pool
+     *
+     * @param graph         compact input graph to perform BFS on
+     * @param sources       the source vertices, which may repeat
+     * @return for each source, in order, the number of vertices it reaches, counting itself
+     * @throws IllegalArgumentException if a source vertex is not in the graph
+     */
+    public static int[] runReachableCounts(CompactGraph graph, List<String> sources) {
+        return runReachableCounts(graph, sources, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Returns the number of vertices every source can reach. Only the counts are kept, so the memory needed
+     * does not grow with the number of sources beyond the result itself.
+     *
+     * @param graph         compact input graph to perform BFS on
+     * @param sources       the source vertices, which may repeat
+     * @param pool          the pool that runs the batches of sources
+     * @return for each source, in order, the number of vertices it reaches, counting itself
+     * @throws IllegalArgumentException if a source vertex is not in the graph
+     */
+    public static int[] runReachableCounts(CompactGraph graph, List<String> sources, ForkJoinPool pool) {
+        int[] counts = new int[sources.size()];
+        pool.invoke(new BatchTask(graph, toIds(graph, sources), 0, batchCount(sources.size()), null, counts));
+        return counts;
+    }
+
+    /**
+     * Looks up the ids of the source vertices
+     *
+     * @param graph     the compact graph
+     * @param sources   the source vertices
+     * @return the source vertex ids
+     * @throws IllegalArgumentException if a source vertex is not in the graph
+     */
+    private static int[] toIds(CompactGraph graph, List<String> sources) {
+        int[] ids = new int[sources.size()];
+        int i = 0;
+        for (String source : sources) {
+            ids[i] = graph.getId(source);
+            if (ids[i] < 0) {
+                throw new IllegalArgumentException("Source Vertex Does Not Exist");
+            }
+            i++;
+        }
+        return ids;
+    }
+
+    private static int batchCount(int sources) {
+        return (sources + BATCH - 1) / BATCH;
+    }
+
+    /**
+     * Runs a range of batches, splitting until each task runs one batch
+     */
+    private static final class BatchTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CompactGraph graph;
+        private final int[] sources;
+        private final int start;
+        private final int end;
+
+        // the results, one of which is null
+        private final int[][] distances;
+        private final int[] counts;
+
+        BatchTask(CompactGraph graph, int[] sources, int start, int end, int[][] distances, int[] counts) {
+            this.graph = graph;
+            this.sources = sources;
+            this.start = start;
+            this.end = end;
+            this.distances = distances;
+            this.counts = counts;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new BatchTask(graph, sources, start, middle, distances, counts),
+                        new BatchTask(graph, sources, middle, end, distances, counts));
+            } else if (end > start) {
+                runBatch(start * BATCH, Math.min(sources.length, (start + 1) * BATCH));
+            }
+        }
+
+        /**
+         * Runs one traversal for up to 64 sources, where bit i of a mask stands for source first + i
+         *
+         * @param first     the index of the first source of the batch
+         * @param last      one past the index of the last source of the batch
+         */
+        private void runBatch(int first, int last) {
+            int size = graph.getSize();
+            // the sources that have reached each vertex, that have it on their current frontier, and that
+            // reach it for the first time on this level
+            long[] seen = new long[size];
+            long[] visit = new long[size];
+            long[] visitNext = new long[size];
+            // the vertices with a nonzero visit mask, and those with a nonzero visitNext mask
+            int[] frontier = new int[size];
+            int[] nextFrontier = new int[size];
+            int frontierSize = 0;
+
+            for (int i = first; i < last; i++) {
+                if (distances != null) {
+                    distances[i] = new int[size];
+                    Arrays.fill(distances[i], UNREACHABLE);
+                    distances[i][sources[i]] = 0;
+                }
+                int source = sources[i];
+                if (visit[source] == 0) {
+                    frontier[frontierSize++] = source;
+                }
+                seen[source] |= 1L << (i - first);
+                visit[source] |= 1L << (i - first);
+            }
+            if (counts != null) {
+                for (int i = first; i < last; i++) {
+                    counts[i] = 1;
+                }
+            }
+
+            for (int level = 1; frontierSize > 0; level++) {
+                int nextSize = 0;
+                for (int f = 0; f < frontierSize; f++) {
+                    int vertex = frontier[f];
+                    long mask = visit[vertex];
+                    for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                        int neighbor = graph.getTarget(edge);
+                        // the sources on this frontier that have not reached the neighbor yet
+                        long discovered = mask & ~seen[neighbor];
+                        if (discovered != 0) {
+                            if (visitNext[neighbor] == 0) {
+                                nextFrontier[nextSize++] = neighbor;
+                            }
+                            visitNext[neighbor] |= discovered;
+                        }
+                    }
+                    visit[vertex] = 0;
+                }
+                // the masks only move to seen after the whole level, so every source on the frontier gets to
+                // follow every edge of the level
+                for (int f = 0; f < nextSize; f++) {
+                    int vertex = nextFrontier[f];
+                    long discovered = visitNext[vertex];
+                    seen[vertex] |= discovered;
+                    visit[vertex] = discovered;
+                    visitNext[vertex] = 0;
+                    while (discovered != 0) {
+                        int source = first + Long.numberOfTrailingZeros(discovered);
+                        if (distances != null) {
+                            distances[source][vertex] = level;
+                        } else {
+                            counts[source]++;
+                        }
+                        discovered &= discovered - 1;
+                    }
+                }
+                int[] swap = frontier;
+                frontier = nextFrontier;
+                nextFrontier = swap;
+                frontierSize = nextSize;
+            }
+        }
+    }
+}
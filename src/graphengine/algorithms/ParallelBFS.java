@@ -0,0 +1,275 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Level-synchronous BFS on a compact graph that expands each frontier on a fork/join pool.
+ * A level is expanded top-down (the frontier claims its undiscovered neighbors) while the frontier is small,
+ * and bottom-up (every undiscovered vertex looks for a parent in the frontier) once the frontier's edges
+ * outnumber the edges left to explore, following Beamer's direction-optimizing BFS.
+ */
+public class ParallelBFS {
+    // switch to bottom-up once the frontier has more than 1 / ALPHA of the unexplored edges
+    private static final int ALPHA = 14;
+
+    // switch back to top-down once the frontier has fewer than 1 / BETA of the vertices
+    private static final int BETA = 24;
+
+    // frontiers smaller than this are expanded top-down on the calling thread
+    private static final int SEQUENTIAL_THRESHOLD = 1024;
+
+    // the number of frontier entries or vertices one task handles
+    private static final int GRAIN = 2048;
+
+    // parent of a vertex that has not been discovered yet
+    private static final int UNDISCOVERED = -2;
+
+    // parent of the root of a BFS tree
+    private static final int ROOT = -1;
+
+    /**
+     * Runs BFS on every component of a compact graph. Like BFS.traverse, the tree of the source comes first,
+     * followed by the trees of the remaining vertices in order of their ids, and the vertices are discovered in
+     * the same levels, but the order within a level and the parent a vertex gets may differ.
+     *
+     * @param graph         compact input graph to perform BFS on
+     * @param source        the source vertex
+     * @param pool          the pool that expands large frontiers
+     * @return the BFS forest, with the distance of each vertex from its root as its depth
+     * @throws IllegalArgumentException if the source vertex is not in the graph
+     */
+    public static TraversalResult traverse(CompactGraph graph, String source, ForkJoinPool pool) {
+        int sourceId = graph.getId(source);
+        if (sourceId < 0) {
+            throw new IllegalArgumentException("Source Vertex Does Not Exist");
+        }
+        Traversal traversal = new Traversal(graph, pool);
+        // run BFS on the source vertex
+        traversal.subBFS(sourceId);
+
+        // iterate through all vertices and run BFS on undiscovered vertices
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+            if (traversal.parents.get(vertex) == UNDISCOVERED) {
+                traversal.subBFS(vertex);
+            }
+        }
+        return traversal.toResult();
+    }
+
+    /**
+     * The state of one parallel BFS run
+     */
+    private static final class Traversal {
+        private final CompactGraph graph;
+        private final CompactGraph transpose;
+        private final ForkJoinPool pool;
+
+        // the parent of each vertex, UNDISCOVERED, or ROOT
+        private final AtomicIntegerArray parents;
+
+        // every discovered vertex in the order of its level, which doubles as the BFS queue
+        private final int[] order;
+
+        // the first free position in order, shared by the tasks of a level
+        private final AtomicInteger tail;
+
+        // the members of the current frontier, only kept up to date during bottom-up levels
+        private final long[] frontierBits;
+
+        // the number of edges whose source has not been expanded yet
+        private long unexploredEdges;
+
+        Traversal(CompactGraph graph, ForkJoinPool pool) {
+            int size = graph.getSize();
+            this.graph = graph;
+            this.transpose = graph.transpose();
+            this.pool = pool;
+            this.parents = new AtomicIntegerArray(size);
+            for (int vertex = 0; vertex < size; vertex++) {
+                parents.set(vertex, UNDISCOVERED);
+            }
+            this.order = new int[size];
+            this.tail = new AtomicInteger(0);
+            this.frontierBits = new long[(size + 63) >>> 6];
+            this.unexploredEdges = graph.getEdgeCount();
+        }
+
+        /**
+         * BFS Algorithm on a connected component rooted at the source node, one level at a time
+         *
+         * @param source    the source vertex id
+         */
+        void subBFS(int source) {
+            parents.set(source, ROOT);
+            int head = tail.get();
+            order[tail.getAndIncrement()] = source;
+            boolean bottomUp = false;
+
+            while (head < tail.get()) {
+                int end = tail.get();
+                long frontierEdges = 0;
+                for (int i = head; i < end; i++) {
+                    frontierEdges += graph.getOutDegree(order[i]);
+                }
+                // pick the direction of this level with Beamer's heuristic. A bottom-up level scans every
+                // vertex, so it is only worth it when the frontier is a sizable part of the graph.
+                int frontierSize = end - head;
+                if (!bottomUp && frontierEdges > unexploredEdges / ALPHA && frontierSize >= graph.getSize() / BETA) {
+                    bottomUp = true;
+                } else if (bottomUp && frontierSize < graph.getSize() / BETA) {
+                    bottomUp = false;
+                }
+
+                if (bottomUp) {
+                    setFrontierBits(head, end, true);
+                    pool.invoke(new BottomUpTask(0, graph.getSize()));
+                    setFrontierBits(head, end, false);
+                } else if (frontierSize < SEQUENTIAL_THRESHOLD) {
+                    new TopDownTask(head, end).compute();
+                } else {
+                    pool.invoke(new TopDownTask(head, end));
+                }
+                unexploredEdges -= frontierEdges;
+                head = end;
+            }
+        }
+
+        /**
+         * Sets or clears the frontier bits of a range of the BFS order
+         *
+         * @param start     the first position of the frontier in the order
+         * @param end       one past the last position of the frontier in the order
+         * @param value     true to set the bits, false to clear them
+         */
+        private void setFrontierBits(int start, int end, boolean value) {
+            for (int i = start; i < end; i++) {
+                int vertex = order[i];
+                if (value) {
+                    frontierBits[vertex >>> 6] |= 1L << vertex;
+                } else {
+                    frontierBits[vertex >>> 6] &= ~(1L << vertex);
+                }
+            }
+        }
+
+        /**
+         * Appends the vertices discovered by one task to the BFS order
+         *
+         * @param discovered    the discovered vertex ids
+         * @param count         the number of discovered vertices
+         */
+        private void append(int[] discovered, int count) {
+            if (count > 0) {
+                System.arraycopy(discovered, 0, order, tail.getAndAdd(count), count);
+            }
+        }
+
+        /**
+         * Copies the parents out of the run and finds the depths, each level coming after the one before it
+         *
+         * @return the BFS forest
+         */
+        TraversalResult toResult() {
+            int[] parentIds = new int[graph.getSize()];
+            int[] depths = new int[graph.getSize()];
+            for (int vertex : order) {
+                int parent = parents.get(vertex);
+                parentIds[vertex] = parent;
+                depths[vertex] = parent == ROOT ? 0 : depths[parent] + 1;
+            }
+            return new TraversalResult(graph.getDictionary(), parentIds, depths, order, null, null);
+        }
+
+        /**
+         * Expands a range of the frontier by letting every frontier vertex claim its undiscovered neighbors
+         */
+        private final class TopDownTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int start;
+            private final int end;
+
+            TopDownTask(int start, int end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            protected void compute() {
+                if (end - start > GRAIN) {
+                    int middle = (start + end) >>> 1;
+                    invokeAll(new TopDownTask(start, middle), new TopDownTask(middle, end));
+                    return;
+                }
+                int[] discovered = new int[16];
+                int count = 0;
+                for (int i = start; i < end; i++) {
+                    int vertex = order[i];
+                    for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                        int neighbor = graph.getTarget(edge);
+                        // only one frontier vertex wins the race to become the parent
+                        if (parents.get(neighbor) == UNDISCOVERED
+                                && parents.compareAndSet(neighbor, UNDISCOVERED, vertex)) {
+                            if (count == discovered.length) {
+                                discovered = Arrays.copyOf(discovered, count * 2);
+                            }
+                            discovered[count++] = neighbor;
+                        }
+                    }
+                }
+                append(discovered, count);
+            }
+        }
+
+        /**
+         * Expands the frontier over a range of vertex ids by letting every undiscovered vertex in the range
+         * look for a parent among its in-neighbors in the frontier
+         */
+        private final class BottomUpTask extends RecursiveAction {
+            private static final long serialVersionUID = 1L;
+
+            private final int start;
+            private final int end;
+
+            BottomUpTask(int start, int end) {
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            protected void compute() {
+                if (end - start > GRAIN) {
+                    int middle = (start + end) >>> 1;
+                    invokeAll(new BottomUpTask(start, middle), new BottomUpTask(middle, end));
+                    return;
+                }
+                int[] discovered = new int[16];
+                int count = 0;
+                for (int vertex = start; vertex < end; vertex++) {
+                    if (parents.get(vertex) != UNDISCOVERED) {
+                        continue;
+                    }
+                    for (int edge = transpose.getEdgeStart(vertex); edge < transpose.getEdgeEnd(vertex); edge++) {
+                        int inNeighbor = transpose.getTarget(edge);
+                        if ((frontierBits[inNeighbor >>> 6] & (1L << inNeighbor)) != 0) {
+                            // this task owns the vertex, so no other thread writes its parent
+                            parents.set(vertex, inNeighbor);
+                            if (count == discovered.length) {
+                                discovered = Arrays.copyOf(discovered, count * 2);
+                            }
+                            discovered[count++] = vertex;
+                            break;
+                        }
+                    }
+                }
+                append(discovered, count);
+            }
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package graphengine.algorithms;
+
+/**
+ * Listens to the progress of an algorithm run through a traversal context. The listener is called on the
+ * thread running the algorithm, so it should hand the numbers off instead of doing any real work.
+ */
+public interface ProgressListener {
+    /**
+     * Called every few thousand vertices while an algorithm runs
+     *
+     * @param visited   the number of vertices the run has finished with
+     * @param total     the number of vertices in the graph
+     */
+    void progress(int visited, int total);
+}
@@ -0,0 +1,442 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StronglyConnectedComponents {
+    // the largest part of the graph a task hands to Tarjan's algorithm instead of splitting it further
+    private static final int GRAIN = 1024;
+
+    // the color of a vertex that already has its component
+    private static final int DONE = -1;
+
+    /**
+     * Finds the strongly connected components of the graph
+     *
+     * @param graph     the graph to find the components of
+     * @return the components and the condensation
+     */
+    public static ComponentResult findComponents(Graph graph) {
+        return findComponents(graph.freeze());
+    }
+
+    /**
+     * Finds the strongly connected components of a compact graph with Tarjan's algorithm on the calling thread
+     *
+     * @param graph     the compact graph to find the components of
+     * @return the components and the condensation
+     */
+    public static ComponentResult findComponents(CompactGraph graph) {
+        return findComponents(graph, (TraversalContext) null);
+    }
+
+    /**
+     * Finds the strongly connected components of a compact graph with Tarjan's algorithm on the calling thread,
+     * reporting each vertex it reaches to a traversal context so the run can be watched and cancelled. The
+     * depth-first search keeps its own stack of vertices and edge positions, so a long path can not overflow
+     * the call stack.
+     *
+     * @param graph     the compact graph to find the components of
+     * @param context   the traversal state of this run, or null
+     * @return the components and the condensation
+     * @throws CancellationException if the context was cancelled
+     */
+    public static ComponentResult findComponents(CompactGraph graph, TraversalContext context) {
+        int size = graph.getSize();
+        if (context != null) {
+            context.begin(size);
+        }
+        int[] components = new int[size];
+        AtomicInteger componentCount = new AtomicInteger();
+        tarjan(graph, null, size, null, 0, components, componentCount, new Scratch(size), context);
+        return new ComponentResult(graph, components, componentCount.get());
+    }
+
+    /**
+     * Finds the strongly connected components of a compact graph in parallel, using the common fork/join pool
+     *
+     * @param graph     the compact graph to find the components of
+     * @param pool      the pool that searches the graph
+     * @return the components and the condensation
+     */
+    public static ComponentResult findComponents(CompactGraph graph, ForkJoinPool pool) {
+        return findComponents(graph, pool, null);
+    }
+
+    /**
+     * Finds the strongly connected components of a compact graph in parallel with the forward-backward
+     * algorithm. Vertices without in-edges or without out-edges are trimmed off first as components of their
+     * own. Then a random pivot's forward and backward reachable sets are searched: their intersection is the
+     * pivot's component, and the three parts left over share no component, so they are split up the same way
+     * by separate tasks. Parts of at most GRAIN vertices are finished with Tarjan's algorithm.
+     *
+     * A pool with a parallelism of 1, or a graph too small to split, runs Tarjan's algorithm on the calling
+     * thread instead.
+     *
+     * @param graph     the compact graph to find the components of
+     * @param pool      the pool that searches the graph
+     * @param context   the traversal state of this run, or null
+     * @return the components and the condensation
+     * @throws CancellationException if the context was cancelled
+     */
+    public static ComponentResult findComponents(CompactGraph graph, ForkJoinPool pool, TraversalContext context) {
+        int size = graph.getSize();
+        if (pool.getParallelism() == 1 || size <= GRAIN) {
+            return findComponents(graph, context);
+        }
+        if (context != null) {
+            context.begin(size);
+        }
+        CompactGraph transpose = graph.transpose();
+        int[] components = new int[size];
+        AtomicInteger componentCount = new AtomicInteger();
+        AtomicInteger done = new AtomicInteger();
+        // every vertex left starts in part 0, and each part a pivot splits off gets a new color
+        int[] colors = new int[size];
+        int[] remaining = trim(graph, transpose, colors, components, componentCount);
+        done.set(size - remaining.length);
+        if (remaining.length > 0) {
+            ComponentTask task = new ComponentTask(graph, transpose, colors, components, componentCount,
+                    new AtomicInteger(1), context, done, remaining, 0);
+            if (context == null) {
+                pool.invoke(task);
+            } else {
+                context.watch(pool.submit(task), done);
+            }
+        }
+        return new ComponentResult(graph, components, componentCount.get());
+    }
+
+    /**
+     * Peels off the vertices that have no in-edges or no out-edges from the vertices still left, each of
+     * which is a component of its own, until every vertex left has both
+     *
+     * @param graph             the compact graph
+     * @param transpose         the transpose of the compact graph
+     * @param colors            the part of each vertex, set to DONE for the trimmed vertices
+     * @param components        the component of each vertex
+     * @param componentCount    the number of components found so far
+     * @return the ids of the vertices left
+     */
+    private static int[] trim(CompactGraph graph, CompactGraph transpose, int[] colors, int[] components,
+                              AtomicInteger componentCount) {
+        int size = graph.getSize();
+        int[] inDegree = new int[size];
+        int[] outDegree = new int[size];
+        // every trimmed vertex enters the queue once
+        int[] queue = new int[size];
+        int tail = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            inDegree[vertex] = transpose.getOutDegree(vertex);
+            outDegree[vertex] = graph.getOutDegree(vertex);
+            if (inDegree[vertex] == 0 || outDegree[vertex] == 0) {
+                colors[vertex] = DONE;
+                queue[tail++] = vertex;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int vertex = queue[head];
+            components[vertex] = componentCount.getAndIncrement();
+            for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                int neighbor = graph.getTarget(edge);
+                if (colors[neighbor] != DONE && --inDegree[neighbor] == 0) {
+                    colors[neighbor] = DONE;
+                    queue[tail++] = neighbor;
+                }
+            }
+            for (int edge = transpose.getEdgeStart(vertex); edge < transpose.getEdgeEnd(vertex); edge++) {
+                int inNeighbor = transpose.getTarget(edge);
+                if (colors[inNeighbor] != DONE && --outDegree[inNeighbor] == 0) {
+                    colors[inNeighbor] = DONE;
+                    queue[tail++] = inNeighbor;
+                }
+            }
+        }
+        int[] remaining = new int[size - tail];
+        int count = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            if (colors[vertex] != DONE) {
+                remaining[count++] = vertex;
+            }
+        }
+        return remaining;
+    }
+
+    /**
+     * Runs Tarjan's algorithm over the vertices of one part of a compact graph, following only the edges that
+     * stay inside the part. Each component is numbered as it is completed and its vertices are marked DONE.
+     * The scratch arrays are indexed by the position of a vertex in the part, which a binary search finds since
+     * every part lists its vertices in increasing order.
+     *
+     * @param graph             the compact graph
+     * @param vertices          the vertex ids of the part in increasing order, or null for every vertex
+     * @param count             the number of vertices in the part
+     * @param colors            the part of each vertex, or null if the part is the whole graph
+     * @param color             the color of the part
+     * @param components        the component of each vertex
+     * @param componentCount    the number of components found so far
+     * @param scratch           the arrays of this part, with room for count vertices
+     * @param context           the traversal state of this run, or null
+     */
+    private static void tarjan(CompactGraph graph, int[] vertices, int count, int[] colors, int color,
+                               int[] components, AtomicInteger componentCount, Scratch scratch,
+                               TraversalContext context) {
+        int[] index = scratch.index;
+        int[] low = scratch.low;
+        int[] stack = scratch.stack;
+        int[] path = scratch.path;
+        int[] nextEdge = scratch.nextEdge;
+        int top = 0;
+        int nextIndex = 1;
+        for (int root = 0; root < count; root++) {
+            if (index[root] != 0) {
+                continue;
+            }
+            // the search path, each vertex with the next of its edges to follow
+            int depth = 0;
+            int rootId = vertices == null ? root : vertices[root];
+            path[depth] = root;
+            nextEdge[depth++] = graph.getEdgeStart(rootId);
+            index[root] = low[root] = nextIndex++;
+            stack[top++] = root;
+            if (context != null) {
+                context.setDiscovered(rootId);
+            }
+            while (depth > 0) {
+                int vertex = path[depth - 1];
+                int vertexId = vertices == null ? vertex : vertices[vertex];
+                int edge = nextEdge[depth - 1];
+                if (edge < graph.getEdgeEnd(vertexId)) {
+                    nextEdge[depth - 1]++;
+                    int neighborId = graph.getTarget(edge);
+                    if (colors != null && colors[neighborId] != color) {
+                        continue;
+                    }
+                    int neighbor = vertices == null ? neighborId : Arrays.binarySearch(vertices, 0, count, neighborId);
+                    if (index[neighbor] == 0) {
+                        path[depth] = neighbor;
+                        nextEdge[depth++] = graph.getEdgeStart(neighborId);
+                        index[neighbor] = low[neighbor] = nextIndex++;
+                        stack[top++] = neighbor;
+                        if (context != null) {
+                            context.setDiscovered(neighborId);
+                        }
+                    } else if (low[neighbor] > 0) {
+                        // a neighbor still on the stack is in the component of some vertex on the path
+                        low[vertex] = Math.min(low[vertex], index[neighbor]);
+                    }
+                    continue;
+                }
+                depth--;
+                if (low[vertex] == index[vertex]) {
+                    // the vertex is the root of a component, which is everything above it on the stack
+                    int component = componentCount.getAndIncrement();
+                    int member;
+                    do {
+                        member = stack[--top];
+                        int memberId = vertices == null ? member : vertices[member];
+                        components[memberId] = component;
+                        // a negative low marks a vertex that has left the stack
+                        low[member] = -1;
+                        if (colors != null) {
+                            colors[memberId] = DONE;
+                        }
+                    } while (member != vertex);
+                }
+                if (depth > 0) {
+                    int parent = path[depth - 1];
+                    if (low[vertex] > 0) {
+                        low[parent] = Math.min(low[parent], low[vertex]);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Tarjan's arrays for one part, indexed by the position of a vertex in the part or by depth
+     */
+    private static final class Scratch {
+        // the position each vertex was reached at, starting at 1, or 0 if it was not reached yet
+        private final int[] index;
+
+        // the lowest position reachable from each vertex, or -1 once the vertex has its component
+        private final int[] low;
+
+        // the vertices reached whose component is not complete
+        private final int[] stack;
+
+        // the search path and the next edge to follow from each vertex on it
+        private final int[] path;
+        private final int[] nextEdge;
+
+        Scratch(int size) {
+            this.index = new int[size];
+            this.low = new int[size];
+            this.stack = new int[size];
+            this.path = new int[size];
+            this.nextEdge = new int[size];
+        }
+    }
+
+    /**
+     * Splits one part of the graph by its pivot's component, keeping the largest part left over for itself
+     * and forking the others, so the tasks waiting on each other never nest deeper than log2 of the size
+     */
+    private static final class ComponentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CompactGraph graph;
+        private final CompactGraph transpose;
+        private final int[] colors;
+        private final int[] components;
+        private final AtomicInteger componentCount;
+        private final AtomicInteger colorCount;
+        private final TraversalContext context;
+        private final AtomicInteger done;
+        private final int[] vertices;
+        private final int color;
+
+        ComponentTask(CompactGraph graph, CompactGraph transpose, int[] colors, int[] components,
+                      AtomicInteger componentCount, AtomicInteger colorCount, TraversalContext context,
+                      AtomicInteger done, int[] vertices, int color) {
+            this.graph = graph;
+            this.transpose = transpose;
+            this.colors = colors;
+            this.components = components;
+            this.componentCount = componentCount;
+            this.colorCount = colorCount;
+            this.context = context;
+            this.done = done;
+            this.vertices = vertices;
+            this.color = color;
+        }
+
+        @Override
+        protected void compute() {
+            // the parts this task still has to split, each with its color
+            ArrayDeque<int[]> parts = new ArrayDeque<>();
+            ArrayDeque<Integer> partColors = new ArrayDeque<>();
+            ArrayList<ComponentTask> forked = new ArrayList<>();
+            parts.push(vertices);
+            partColors.push(color);
+            while (!parts.isEmpty()) {
+                // only the cancelled flag of a context may be read from the pool's threads
+                if (context != null && context.isCancelled()) {
+                    throw new CancellationException("The Algorithm Was Cancelled");
+                }
+                int[] part = parts.pop();
+                int partColor = partColors.pop();
+                if (part.length <= GRAIN) {
+                    // a leaf's arrays are sized to its part, so they cost no more than the part itself
+                    tarjan(graph, part, part.length, colors, partColor, components, componentCount,
+                            new Scratch(part.length), null);
+                    done.addAndGet(part.length);
+                    continue;
+                }
+                int[][] split = split(part, partColor);
+                int largest = 0;
+                for (int i = 1; i < 3; i++) {
+                    if (split[i].length > split[largest].length) {
+                        largest = i;
+                    }
+                }
+                for (int i = 0; i < 3; i++) {
+                    if (i != largest && split[i].length > 0) {
+                        ComponentTask task = new ComponentTask(graph, transpose, colors, components,
+                                componentCount, colorCount, context, done, split[i], colors[split[i][0]]);
+                        task.fork();
+                        forked.add(task);
+                    }
+                }
+                if (split[largest].length > 0) {
+                    parts.push(split[largest]);
+                    partColors.push(colors[split[largest][0]]);
+                }
+            }
+            for (ComponentTask task : forked) {
+                task.join();
+            }
+        }
+
+        /**
+         * Completes the component of a random pivot of a part and splits the rest of the part into the
+         * vertices only the pivot reaches, the vertices that only reach the pivot, and the others
+         *
+         * @param part          the vertex ids of the part
+         * @param partColor     the color of the part
+         * @return the three parts left over, each with a color of its own
+         */
+        private int[][] split(int[] part, int partColor) {
+            int forwardColor = colorCount.getAndIncrement();
+            int backwardColor = colorCount.getAndIncrement();
+            int pivot = part[ThreadLocalRandom.current().nextInt(part.length)];
+            int component = componentCount.getAndIncrement();
+            // a search never leaves the part, so it reaches each of the part's vertices at most once
+            int[] queue = new int[part.length];
+
+            // color the vertices the pivot reaches
+            int tail = 0;
+            colors[pivot] = forwardColor;
+            queue[tail++] = pivot;
+            for (int head = 0; head < tail; head++) {
+                int vertex = queue[head];
+                for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                    int neighbor = graph.getTarget(edge);
+                    if (colors[neighbor] == partColor) {
+                        colors[neighbor] = forwardColor;
+                        queue[tail++] = neighbor;
+                    }
+                }
+            }
+            // the vertices that reach the pivot are its component if the pivot reaches them too
+            tail = 0;
+            colors[pivot] = DONE;
+            components[pivot] = component;
+            queue[tail++] = pivot;
+            for (int head = 0; head < tail; head++) {
+                int vertex = queue[head];
+                for (int edge = transpose.getEdgeStart(vertex); edge < transpose.getEdgeEnd(vertex); edge++) {
+                    int inNeighbor = transpose.getTarget(edge);
+                    if (colors[inNeighbor] == forwardColor) {
+                        colors[inNeighbor] = DONE;
+                        components[inNeighbor] = component;
+                        queue[tail++] = inNeighbor;
+                    } else if (colors[inNeighbor] == partColor) {
+                        colors[inNeighbor] = backwardColor;
+                        queue[tail++] = inNeighbor;
+                    }
+                }
+            }
+
+            int[] counts = new int[3];
+            for (int vertex : part) {
+                int vertexColor = colors[vertex];
+                if (vertexColor != DONE) {
+                    counts[vertexColor == forwardColor ? 0 : vertexColor == backwardColor ? 1 : 2]++;
+                }
+            }
+            done.addAndGet(part.length - counts[0] - counts[1] - counts[2]);
+            int[][] split = {new int[counts[0]], new int[counts[1]], new int[counts[2]]};
+            // filling the parts in the order of this part keeps their vertices in increasing order
+            counts = new int[3];
+            for (int vertex : part) {
+                int vertexColor = colors[vertex];
+                if (vertexColor != DONE) {
+                    int i = vertexColor == forwardColor ? 0 : vertexColor == backwardColor ? 1 : 2;
+                    split[i][counts[i]++] = vertex;
+                }
+            }
+            return split;
+        }
+    }
+}
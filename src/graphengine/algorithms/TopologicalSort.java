@@ -1,129 +1,243 @@
 package graphengine.algorithms;
 
+import graphengine.CompactGraph;
+import graphengine.CycleException;
 import graphengine.Graph;
+import graphengine.Vertex;
 
 import java.util.LinkedList;
-import java.util.HashMap;
-import java.util.Arrays;
-import java.util.Random;
-import java.util.Collections;
 
 public class TopologicalSort {
 
     /**
-     * Identifies the topological sorting of the graph
+     * Identifies the topological sorting of the graph. A graph that tracks its topological order returns it
+     * without sorting again.
      *
      * @param graph     the graph to topological sort
      * @return a list of vertices in a topological sorting
-     * @throws IllegalArgumentException if the graph is not a directed acyclic graph (DAG)
+     * @throws CycleException if the graph is not a directed acyclic graph (DAG)
      */
     public static LinkedList<String> runTopologicalSort(Graph graph) {
-        if (!isDAG(graph)) {
-            throw new IllegalArgumentException("The Graph is Not a Directed Acyclic Graph (DAG)");
+        if (graph.isTrackingTopologicalOrder()) {
+            return graph.getTopologicalOrder();
         }
         LinkedList<String> sorting = new LinkedList<>();
-        Graph dfs = DFS.runDFS(graph, getRandomVertex(graph));
-        HashMap<Integer, String> finishTimeToVertex = getFinishTimeToVertexMap(dfs);
+        Vertex[] vertices = new Vertex[graph.getIdBound()];
+        // the number of in-edges of each vertex from vertices that are not in the sorting yet
+        int[] inDegree = new int[graph.getIdBound()];
+        // every vertex enters the queue at most once
+        int[] queue = new int[graph.getSize()];
+        int head = 0;
+        int tail = 0;
 
-        // add the finish times from the map into an array
-        Integer[] finishTimes = new Integer[finishTimeToVertex.size()];
-        int i = 0;
-        for (int finishTime : finishTimeToVertex.keySet()) {
-            finishTimes[i] = finishTime;
-            i++;
-        }
-        // sort the finish times array in descending order
-        Arrays.sort(finishTimes, Collections.reverseOrder());
-        // add the vertices to the topological sorting in order of decreasing finishing time
-        for (int finishTime : finishTimes) {
-            sorting.addLast(finishTimeToVertex.get(finishTime));
+        // start with the vertices that have no in-edges
+        for (String vertex : graph.getVertices()) {
+            Vertex vertexObj = graph.getVertex(vertex);
+            int id = vertexObj.getId();
+            vertices[id] = vertexObj;
+            inDegree[id] = vertexObj.getInDegree();
+            if (inDegree[id] == 0) {
+                queue[tail++] = id;
+            }
+        }
+        // a vertex joins the sorting once all of the vertices with edges to it are in the sorting
+        while (head < tail) {
+            Vertex currVertex = vertices[queue[head++]];
+            sorting.addLast(currVertex.getLabel());
+            for (int slot = currVertex.nextNeighborSlot(-1); slot >= 0; slot = currVertex.nextNeighborSlot(slot)) {
+                int id = currVertex.getNeighborAt(slot).getId();
+                if (--inDegree[id] == 0) {
+                    queue[tail++] = id;
+                }
+            }
+        }
+        if (tail < graph.getSize()) {
+            throw new CycleException(findCycle(vertices, inDegree));
         }
         return sorting;
     }
 
     /**
-     * Checks if the graph is a directed acyclic graph (DAG)
+     * Returns a cycle among the vertices that never joined the sorting. Each of them still has an in-edge
+     * from another one of them, so walking backwards along those in-edges must eventually repeat a vertex.
      *
-     * @param graph     the graph
-     * @return true, if the graph is a DAG, false otherwise
+     * @param vertices      the vertex object of each vertex id
+     * @param inDegree      the remaining in-degree of each vertex, positive for the vertices left out
+     * @return the vertices of the cycle in edge order, with the first vertex repeated at the end
      */
-    private static boolean isDAG (Graph graph) {
-        // -1 = Fully Discovered | 0 = Undiscovered | 1 = Being Processed
-        HashMap<String, Integer> discovery = initDiscoveryMap(graph);
-        LinkedList<String> stack = new LinkedList<>();
-        // iterate through every vertex in the graph
-        for (String vertex : graph.getVertices()) {
-            // if the vertex is undiscovered
-            if (discovery.get(vertex) == 0) {
-                stack.addLast(vertex);
-                while (!stack.isEmpty()) {
-                    String currVertex = stack.removeLast();
-                    // if the current vertex is undiscovered, mark it as discovered and put it back into the stack
-                    if (discovery.get(currVertex) == 0) {
-                        discovery.replace(currVertex, 1);
-                        stack.addLast(currVertex);
-                        // iterate through the neighbors of the current vertex
-                        for (String neighbor : graph.getVertex(currVertex).getNeighbors()) {
-                            // if a neighbor is undiscovered, add it to the stack to be processed later
-                            if (discovery.get(neighbor) == 0) {
-                                stack.addLast(neighbor);
-                                // if the neighbor was being processed then there is a cycle, so return false
-                            } else if (discovery.get(neighbor) == 1) {
-                                return false;
-                            }
-                        }
-                        // if we came back to a vertex that was being processed, then mark it as fully discovered
-                    } else if (discovery.get(currVertex) == 1) {
-                        discovery.replace(currVertex, -1);
-                    }
+    private static LinkedList<String> findCycle(Vertex[] vertices, int[] inDegree) {
+        int start = 0;
+        while (vertices[start] == null || inDegree[start] == 0) {
+            start++;
+        }
+        boolean[] reached = new boolean[inDegree.length];
+        int currVertex = start;
+        while (!reached[currVertex]) {
+            reached[currVertex] = true;
+            currVertex = nextLeftOut(vertices[currVertex], inDegree);
+        }
+        // the walk went backwards, so following it again from the repeated vertex lists the cycle in reverse
+        LinkedList<String> cycle = new LinkedList<>();
+        int cycleStart = currVertex;
+        do {
+            cycle.addFirst(vertices[currVertex].getLabel());
+            currVertex = nextLeftOut(vertices[currVertex], inDegree);
+        } while (currVertex != cycleStart);
+        cycle.addLast(cycle.getFirst());
+        return cycle;
+    }
+
+    /**
+     * Returns an in-neighbor of a vertex that never joined the sorting
+     *
+     * @param vertex        the vertex object of a vertex that never joined the sorting
+     * @param inDegree      the remaining in-degree of each vertex
+     * @return id of the in-neighbor
+     */
+    private static int nextLeftOut(Vertex vertex, int[] inDegree) {
+        for (int slot = vertex.nextInNeighborSlot(-1); slot >= 0; slot = vertex.nextInNeighborSlot(slot)) {
+            int id = vertex.getInNeighborAt(slot).getId();
+            if (inDegree[id] > 0) {
+                return id;
+            }
+        }
+        throw new IllegalStateException("A Vertex Left Out of the Sorting Has No Remaining In-Edge");
+    }
+
+    /**
+     * Identifies the topological sorting of a compact graph
+     *
+     * @param graph     the compact graph to topological sort
+     * @return a list of vertices in a topological sorting
+     * @throws CycleException if the graph is not a directed acyclic graph (DAG)
+     */
+    public static LinkedList<String> runTopologicalSort(CompactGraph graph) {
+        return runTopologicalSort(graph, null);
+    }
+
+    /**
+     * Identifies the topological sorting of a compact graph, reporting each vertex that joins the sorting to a
+     * traversal context so the run can be watched and cancelled
+     *
+     * @param graph     the compact graph to topological sort
+     * @param context   the traversal state of this run, or null
+     * @return a list of vertices in a topological sorting
+     * @throws CycleException if the graph is not a directed acyclic graph (DAG)
+     * @throws java.util.concurrent.CancellationException if the context was cancelled
+     */
+    public static LinkedList<String> runTopologicalSort(CompactGraph graph, TraversalContext context) {
+        int size = graph.getSize();
+        if (context != null) {
+            context.begin(size);
+        }
+        LinkedList<String> sorting = new LinkedList<>();
+        // the number of in-edges of each vertex from vertices that are not in the sorting yet
+        int[] inDegree = new int[size];
+        for (int edge = 0; edge < graph.getEdgeCount(); edge++) {
+            inDegree[graph.getTarget(edge)]++;
+        }
+        // every vertex enters the queue at most once
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+
+        // start with the vertices that have no in-edges
+        for (int vertex = 0; vertex < size; vertex++) {
+            if (inDegree[vertex] == 0) {
+                queue[tail++] = vertex;
+            }
+        }
+        // a vertex joins the sorting once all of the vertices with edges to it are in the sorting
+        while (head < tail) {
+            int currVertex = queue[head++];
+            sorting.addLast(graph.getLabel(currVertex));
+            if (context != null) {
+                context.setDiscovered(currVertex);
+            }
+            for (int edge = graph.getEdgeStart(currVertex); edge < graph.getEdgeEnd(currVertex); edge++) {
+                int neighbor = graph.getTarget(edge);
+                if (--inDegree[neighbor] == 0) {
+                    queue[tail++] = neighbor;
                 }
             }
         }
-        return true;
+        if (tail < size) {
+            throw new CycleException(findCycle(graph, inDegree));
+        }
+        return sorting;
     }
 
     /**
-     * Returns a hash map with all the vertices in the graph as keys with each value being 0
+     * Orders the strongly connected components of the graph topologically. Unlike runTopologicalSort, this
+     * also orders a graph with cycles: the vertices of each cycle share a component, and every edge between
+     * two components goes from an earlier component to a later one.
      *
-     * @param graph     the graph
-     * @return hash map
+     * @param graph     the graph to topological sort
+     * @return a list of the components in a topological sorting, each a list of its vertices
      */
-    private static HashMap<String, Integer> initDiscoveryMap(Graph graph) {
-        HashMap<String, Integer> discovery = new HashMap<>();
-        for (String vertex : graph.getVertices()) {
-            discovery.put(vertex, 0);
+    public static LinkedList<LinkedList<String>> runCondensedTopologicalSort(Graph graph) {
+        return runCondensedTopologicalSort(graph.freeze());
+    }
+
+    /**
+     * Orders the strongly connected components of a compact graph topologically
+     *
+     * @param graph     the compact graph to topological sort
+     * @return a list of the components in a topological sorting, each a list of its vertices
+     */
+    public static LinkedList<LinkedList<String>> runCondensedTopologicalSort(CompactGraph graph) {
+        // the components are numbered in topological order
+        ComponentResult components = StronglyConnectedComponents.findComponents(graph);
+        LinkedList<LinkedList<String>> sorting = new LinkedList<>();
+        for (int component = 0; component < components.getComponentCount(); component++) {
+            sorting.addLast(components.getMembers(component));
         }
-        return discovery;
+        return sorting;
     }
 
     /**
-     * Returns a random vertex from the graph
+     * Returns a cycle among the vertices of a compact graph that never joined the sorting
      *
-     * @return string of a vertex
+     * @param graph         the compact graph
+     * @param inDegree      the remaining in-degree of each vertex, positive for the vertices left out
+     * @return the vertices of the cycle in edge order, with the first vertex repeated at the end
      */
-    private static String getRandomVertex(Graph graph) {
-        int size = graph.getSize();
-        int randomInt = new Random().nextInt(size);
-        String[] verticesArr = new String[size];
-        int i = 0;
-        for (String vertex : graph.getVertices()) {
-            verticesArr[i] = vertex;
-            i++;
+    private static LinkedList<String> findCycle(CompactGraph graph, int[] inDegree) {
+        CompactGraph transpose = graph.transpose();
+        int start = 0;
+        while (inDegree[start] == 0) {
+            start++;
+        }
+        boolean[] reached = new boolean[inDegree.length];
+        int currVertex = start;
+        while (!reached[currVertex]) {
+            reached[currVertex] = true;
+            currVertex = nextLeftOut(transpose, currVertex, inDegree);
         }
-        return verticesArr[randomInt];
+        // the walk went backwards, so following it again from the repeated vertex lists the cycle in reverse
+        LinkedList<String> cycle = new LinkedList<>();
+        int cycleStart = currVertex;
+        do {
+            cycle.addFirst(graph.getLabel(currVertex));
+            currVertex = nextLeftOut(transpose, currVertex, inDegree);
+        } while (currVertex != cycleStart);
+        cycle.addLast(cycle.getFirst());
+        return cycle;
     }
 
     /**
-     * Returns a hash map that maps the finish time of a vertex to the vertex
+     * Returns an in-neighbor of a vertex that never joined the sorting
      *
-     * @param graph     the graph
-     * @return hash map
+     * @param transpose     the transpose of the compact graph
+     * @param vertex        a vertex that never joined the sorting
+     * @param inDegree      the remaining in-degree of each vertex
+     * @return id of the in-neighbor
      */
-    private static HashMap<Integer, String> getFinishTimeToVertexMap(Graph graph) {
-        HashMap<Integer, String> map = new HashMap<>();
-        for (String vertex : graph.getVertices()) {
-            map.put(graph.getVertex(vertex).getFinishTime(), vertex);
+    private static int nextLeftOut(CompactGraph transpose, int vertex, int[] inDegree) {
+        int edge = transpose.getEdgeStart(vertex);
+        while (inDegree[transpose.getTarget(edge)] == 0) {
+            edge++;
         }
-        return map;
+        return transpose.getTarget(edge);
     }
 }
@@ -0,0 +1,184 @@
+package graphengine.algorithms;
+
+import java.util.Arrays;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The per-run state of a graph traversal, indexed by vertex id.
+ * A vertex counts as discovered only if it was marked in the current run, so starting a new run
+ * never has to clear the arrays. Each thread needs its own context, but any number of contexts
+ * can traverse the same graph at the same time as long as the graph is not being modified.
+ *
+ * A context also lets another thread watch and stop a run: every few thousand discovered vertices the
+ * run reports its progress to the listener and checks whether it was cancelled. Cancelling is the only
+ * method that is safe to call from a thread other than the one running the traversal.
+ */
+public class TraversalContext {
+    // the number of discovered vertices between two progress reports, a power of two
+    private static final int PROGRESS_INTERVAL = 4096;
+
+    // how often a thread waiting for a parallel run reports its progress
+    private static final long PROGRESS_MILLIS = 50;
+
+    // a vertex is discovered in the current run if its mark equals the current epoch
+    private int[] discoveredEpoch;
+    private int epoch;
+
+    // tracks the current time in the DFS traversal
+    private int currTime;
+
+    // set by another thread to stop the run at its next progress report
+    private volatile boolean cancelled;
+
+    // told about the progress of each run, or null
+    private ProgressListener progressListener;
+
+    // the vertices discovered so far and the number of vertices in the current run
+    private int visited;
+    private int total;
+
+    public TraversalContext() {
+        this.discoveredEpoch = new int[0];
+        this.epoch = 0;
+        this.currTime = 0;
+    }
+
+    /**
+     * Starts a new run over vertex ids from 0 to capacity - 1, forgetting everything from the previous run
+     *
+     * @param capacity      one past the largest vertex id of the graph
+     */
+    public void begin(int capacity) {
+        if (discoveredEpoch.length < capacity) {
+            int newCapacity = Math.max(capacity, discoveredEpoch.length * 2);
+            discoveredEpoch = Arrays.copyOf(discoveredEpoch, newCapacity);
+        }
+        epoch++;
+        // only clear the marks when the epoch counter wraps around
+        if (epoch == Integer.MAX_VALUE) {
+            Arrays.fill(discoveredEpoch, 0);
+            epoch = 1;
+        }
+        currTime = 0;
+        visited = 0;
+        total = capacity;
+        reportProgress(0);
+    }
+
+    /**
+     * Checks if a vertex has been discovered in the current run
+     *
+     * @param id    vertex id
+     * @return true, if the vertex has been discovered, false otherwise
+     */
+    public boolean isDiscovered(int id) {
+        return discoveredEpoch[id] == epoch;
+    }
+
+    /**
+     * Marks a vertex as discovered in the current run
+     *
+     * @param id    vertex id
+     */
+    public void setDiscovered(int id) {
+        discoveredEpoch[id] = epoch;
+        if ((++visited & (PROGRESS_INTERVAL - 1)) == 0) {
+            reportProgress(visited);
+        }
+    }
+
+    /**
+     * Reports the progress of the current run to the listener, after checking whether the run was cancelled.
+     * Traversals report through setDiscovered, so only algorithms that count their progress some other way
+     * need to call this.
+     *
+     * @param visited   the number of vertices the run has finished with
+     * @throws CancellationException if the run was cancelled
+     */
+    public void reportProgress(int visited) {
+        if (cancelled) {
+            throw new CancellationException("The Algorithm Was Cancelled");
+        }
+        if (progressListener != null) {
+            progressListener.progress(visited, total);
+        }
+    }
+
+    /**
+     * Asks the run using this context to stop. The run throws a CancellationException at its next progress
+     * report, and so does every later run with this context.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * Checks if the context was cancelled
+     *
+     * @return true, if the context was cancelled, false otherwise
+     */
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Waits for a run submitted to a fork/join pool to finish, reporting how many vertices it has finished
+     * with so far. The tasks of the run only count their progress and read the cancelled flag, so the context
+     * is never used from more than one thread.
+     *
+     * @param task          the submitted run
+     * @param done          the number of vertices the run has finished with so far
+     * @throws CancellationException if the context was cancelled or the waiting thread was interrupted
+     */
+    void watch(ForkJoinTask<?> task, AtomicInteger done) {
+        while (true) {
+            try {
+                task.get(PROGRESS_MILLIS, TimeUnit.MILLISECONDS);
+                return;
+            } catch (TimeoutException e) {
+                try {
+                    reportProgress(done.get());
+                } catch (CancellationException cancelled) {
+                    // the tasks see the cancelled context and stop before their next range
+                    task.cancel(false);
+                    throw cancelled;
+                }
+            } catch (InterruptedException e) {
+                cancel();
+                Thread.currentThread().interrupt();
+                throw new CancellationException("The Algorithm Was Interrupted");
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw (Error) e.getCause();
+            }
+        }
+    }
+
+    /**
+     * Increase the current time by 1 and return it
+     *
+     * @return the new current time
+     */
+    public int incrementTime() {
+        return ++currTime;
+    }
+
+    // GETTER METHODS
+
+    public int getCurrTime() {
+        return currTime;
+    }
+
+    // SETTER METHODS
+
+    public void setProgressListener(ProgressListener progressListener) {
+        this.progressListener = progressListener;
+    }
+}
@@ -0,0 +1,240 @@
+package graphengine.algorithms;
+
+import graphengine.Graph;
+import graphengine.Vertex;
+import graphengine.VertexDictionary;
+
+/**
+ * The forest of a BFS or DFS run over a graph or a compact graph, kept as primitive arrays indexed by vertex
+ * id: the parent and depth of every vertex, the order the vertices were discovered in and, for DFS, the start
+ * and finish times. This takes a few ints per vertex, where a forest graph takes a vertex object and its maps.
+ *
+ * The vertex ids are those of the traversed graph. The ids of a graph can have gaps where vertices were
+ * deleted, so arrays indexed by vertex id need getIdBound() entries, which can be more than getSize().
+ *
+ * The children of each vertex and the forest graph are only built when they are first asked for, so a
+ * result should be read from one thread at a time.
+ */
+public class TraversalResult {
+    // the labels of the vertices of the traversed graph
+    private final VertexDictionary dictionary;
+
+    // the parent of each vertex, or -1 for a root or an id without a vertex
+    private final int[] parents;
+
+    // the number of tree edges between each vertex and the root of its tree
+    private final int[] depths;
+
+    // the vertex ids in the order they were discovered
+    private final int[] order;
+
+    // the start and finish times of each vertex, or null for a BFS run
+    private final int[] startTimes;
+    private final int[] finishTimes;
+
+    // the children of vertex v are children[childStart[v]] to children[childStart[v + 1] - 1], in order of
+    // discovery, or null until they are first asked for
+    private int[] childStart;
+    private int[] children;
+
+    // the forest as a graph, or null until it is first asked for
+    private Graph forest;
+
+    TraversalResult(VertexDictionary dictionary, int[] parents, int[] depths, int[] order, int[] startTimes,
+                    int[] finishTimes) {
+        this.dictionary = dictionary;
+        this.parents = parents;
+        this.depths = depths;
+        this.order = order;
+        this.startTimes = startTimes;
+        this.finishTimes = finishTimes;
+    }
+
+    /**
+     * Returns the number of vertices in the forest, which is every vertex of the traversed graph
+     *
+     * @return number of vertices
+     */
+    public int getSize() {
+        return order.length;
+    }
+
+    /**
+     * Returns one past the largest vertex id, which is the length an array indexed by vertex id needs
+     *
+     * @return idBound
+     */
+    public int getIdBound() {
+        return parents.length;
+    }
+
+    /**
+     * Returns the label of a vertex
+     *
+     * @param id    vertex id
+     * @return vertex label
+     */
+    public String getLabel(int id) {
+        return dictionary.getLabel(id);
+    }
+
+    /**
+     * Returns the id of a vertex
+     *
+     * @param vertex    vertex label
+     * @return vertex id, or -1 if the vertex is not in the forest
+     */
+    public int getId(String vertex) {
+        return dictionary.getId(vertex);
+    }
+
+    /**
+     * Returns the parent of a vertex in the forest
+     *
+     * @param id    vertex id
+     * @return id of the parent, or -1 if the vertex is a root
+     */
+    public int getParent(int id) {
+        return parents[id];
+    }
+
+    /**
+     * Returns the depth of a vertex in its tree, which for BFS is its distance from the root
+     *
+     * @param id    vertex id
+     * @return the number of tree edges between the vertex and its root
+     */
+    public int getDepth(int id) {
+        return depths[id];
+    }
+
+    /**
+     * Returns the vertex discovered at a position of the run. The vertices of a tree always come after
+     * its root and every parent comes before its children.
+     *
+     * @param position  the position, from 0 to getSize() - 1
+     * @return id of the vertex
+     */
+    public int getVertexAt(int position) {
+        return order[position];
+    }
+
+    /**
+     * Checks if the result has start and finish times, which only DFS runs do
+     *
+     * @return true, if the result has start and finish times, false otherwise
+     */
+    public boolean hasTimes() {
+        return startTimes != null;
+    }
+
+    /**
+     * Returns the DFS start time of a vertex
+     *
+     * @param id    vertex id
+     * @return the start time
+     * @throws IllegalStateException if the result is not of a DFS run
+     */
+    public int getStartTime(int id) {
+        if (startTimes == null) {
+            throw new IllegalStateException("The Traversal Has No Start and Finish Times");
+        }
+        return startTimes[id];
+    }
+
+    /**
+     * Returns the DFS finish time of a vertex
+     *
+     * @param id    vertex id
+     * @return the finish time
+     * @throws IllegalStateException if the result is not of a DFS run
+     */
+    public int getFinishTime(int id) {
+        if (finishTimes == null) {
+            throw new IllegalStateException("The Traversal Has No Start and Finish Times");
+        }
+        return finishTimes[id];
+    }
+
+    /**
+     * Returns the number of children of a vertex in the forest
+     *
+     * @param id    vertex id
+     * @return number of children
+     */
+    public int getChildCount(int id) {
+        indexChildren();
+        return childStart[id + 1] - childStart[id];
+    }
+
+    /**
+     * Returns a child of a vertex in the forest, the children being in the order they were discovered
+     *
+     * @param id        vertex id
+     * @param index     the index of the child, from 0 to getChildCount(id) - 1
+     * @return id of the child
+     */
+    public int getChild(int id, int index) {
+        indexChildren();
+        return children[childStart[id] + index];
+    }
+
+    /**
+     * Returns the forest as a graph with a directed edge from every parent to its child and, for DFS, the
+     * start and finish times on its vertices. None of the traversals call this, so the graph is only built
+     * for a caller that asks for it, on the first call, and shared after that.
+     *
+     * @return Graph of the forest
+     */
+    public Graph asForest() {
+        if (forest == null) {
+            Graph graph = new Graph();
+            // every parent is added before its children, so each tree edge goes to a new vertex
+            for (int vertex : order) {
+                int parent = parents[vertex];
+                String label = dictionary.getLabel(vertex);
+                if (parent < 0) {
+                    graph.addVertex(label);
+                } else {
+                    graph.addDirectedEdge(dictionary.getLabel(parent), label, null);
+                }
+                if (startTimes != null) {
+                    Vertex forestVertex = graph.getVertex(label);
+                    forestVertex.setStartTime(startTimes[vertex]);
+                    forestVertex.setFinishTime(finishTimes[vertex]);
+                }
+            }
+            forest = graph;
+        }
+        return forest;
+    }
+
+    /**
+     * Groups the vertices by parent with a counting sort over the discovery order
+     */
+    private void indexChildren() {
+        if (children != null) {
+            return;
+        }
+        int[] start = new int[parents.length + 1];
+        for (int parent : parents) {
+            if (parent >= 0) {
+                start[parent + 1]++;
+            }
+        }
+        for (int vertex = 0; vertex < parents.length; vertex++) {
+            start[vertex + 1] += start[vertex];
+        }
+        int[] next = new int[parents.length];
+        System.arraycopy(start, 0, next, 0, parents.length);
+        int[] grouped = new int[start[parents.length]];
+        for (int vertex : order) {
+            int parent = parents[vertex];
+            if (parent >= 0) {
+                grouped[next[parent]++] = vertex;
+            }
+        }
+        childStart = start;
+        children = grouped;
+    }
+}
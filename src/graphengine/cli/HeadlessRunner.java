@@ -0,0 +1,382 @@
+package graphengine.cli;
+
+import graphengine.CompactGraph;
+import graphengine.GraphAlgorithm;
+import graphengine.algorithms.BFS;
+import graphengine.algorithms.ComponentResult;
+import graphengine.algorithms.DFS;
+import graphengine.algorithms.IdentifySTC;
+import graphengine.algorithms.StronglyConnectedComponents;
+import graphengine.algorithms.TopologicalSort;
+import graphengine.algorithms.TraversalContext;
+import graphengine.algorithms.TraversalResult;
+import graphengine.io.EdgeListLoader;
+import graphengine.io.GraphSnapshot;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.LinkedList;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs one graph algorithm from the command line without a display. The graph is loaded from an edge list or
+ * a snapshot straight into a compact graph, the algorithm runs on the compact graph, and the result is
+ * streamed out as TSV or JSON rows. Nothing here touches Swing, AWT or GraphStream, so the runner works on
+ * servers and in scripts.
+ */
+public class HeadlessRunner {
+    private static final String USAGE = String.join(System.lineSeparator(),
+            "usage: OpenGraphEngine (--edges <file> [--undirected] | --snapshot <file>)",
+            "                       --algorithm <BFS|DFS|TOPOLOGICAL_SORT|IDENTIFY_STC|STRONGLY_CONNECTED_COMPONENTS>",
+            "                       [--source <vertex>]",
+            "                       [--format <tsv|json>] [--output <file>]");
+
+    /**
+     * Runs the command line and exits with its status
+     *
+     * @param args      the command line arguments
+     */
+    public static void main(String[] args) {
+        int status = run(args, System.out, System.err);
+        if (status != 0) {
+            System.exit(status);
+        }
+    }
+
+    /**
+     * Runs the command line
+     *
+     * @param args      the command line arguments
+     * @param out       where the result goes when no output file is given
+     * @param err       where usage and error messages go
+     * @return 0 on success, 1 if the graph can not be loaded or the algorithm fails, 2 for bad arguments
+     */
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        Options options;
+        try {
+            options = Options.parse(args);
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+        try {
+            CompactGraph graph = options.snapshot != null
+                    ? GraphSnapshot.open(options.snapshot)
+                    : EdgeListLoader.loadCompactGraph(options.edges, !options.undirected);
+            if (options.output != null) {
+                try (Writer writer = Files.newBufferedWriter(options.output, StandardCharsets.UTF_8)) {
+                    runAlgorithm(graph, options, writer);
+                }
+            } else {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+                runAlgorithm(graph, options, writer);
+                writer.flush();
+            }
+            return 0;
+        } catch (IOException e) {
+            // the message of a file system exception is often just the path, so keep the exception name
+            err.println(e);
+            return 1;
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Runs the chosen algorithm on a graph and writes its result
+     *
+     * @param graph     the compact graph to run the algorithm on
+     * @param options   the parsed command line
+     * @param writer    where the rows are written
+     * @throws IOException if the rows can not be written
+     */
+    private static void runAlgorithm(CompactGraph graph, Options options, Writer writer) throws IOException {
+        RowWriter rows = options.json ? new JsonRowWriter(writer) : new TsvRowWriter(writer);
+        switch (options.algorithm) {
+            case BFS: {
+                TraversalResult forest = BFS.traverse(graph, options.source, new TraversalContext());
+                rows.begin(options.algorithm, "vertex", "parent", "depth");
+                for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+                    rows.row(graph.getLabel(vertex), parentLabel(graph, forest.getParent(vertex)),
+                            forest.getDepth(vertex));
+                }
+                break;
+            }
+            case DFS: {
+                TraversalResult forest = DFS.traverse(graph, options.source, new TraversalContext());
+                rows.begin(options.algorithm, "vertex", "parent", "start", "finish");
+                for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+                    rows.row(graph.getLabel(vertex), parentLabel(graph, forest.getParent(vertex)),
+                            forest.getStartTime(vertex), forest.getFinishTime(vertex));
+                }
+                break;
+            }
+            case TOPOLOGICAL_SORT: {
+                LinkedList<String> sorting = TopologicalSort.runTopologicalSort(graph);
+                rows.begin(options.algorithm, "position", "vertex");
+                int position = 0;
+                for (String vertex : sorting) {
+                    rows.row(position++, vertex);
+                }
+                break;
+            }
+            case IDENTIFY_STC: {
+                LinkedList<String>[] results = IdentifySTC.identifySTC(graph);
+                rows.begin(options.algorithm, "vertex", "stc");
+                for (String vertex : results[0]) {
+                    rows.row(vertex, "satisfies");
+                }
+                for (String vertex : results[1]) {
+                    rows.row(vertex, "violates");
+                }
+                break;
+            }
+            case STRONGLY_CONNECTED_COMPONENTS: {
+                ComponentResult components = StronglyConnectedComponents.findComponents(graph,
+                        ForkJoinPool.commonPool());
+                rows.begin(options.algorithm, "vertex", "component");
+                for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+                    rows.row(graph.getLabel(vertex), components.getComponent(vertex));
+                }
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported Algorithm " + options.algorithm);
+        }
+        rows.end();
+    }
+
+    /**
+     * Returns the label of a parent in a forest
+     *
+     * @param graph     the compact graph
+     * @param parent    the parent id, or -1 for a root
+     * @return the parent label, or null for a root
+     */
+    private static String parentLabel(CompactGraph graph, int parent) {
+        return parent < 0 ? null : graph.getLabel(parent);
+    }
+
+    /**
+     * The parsed command line
+     */
+    private static final class Options {
+        private Path edges;
+        private Path snapshot;
+        private boolean undirected;
+        private GraphAlgorithm algorithm;
+        private String source;
+        private boolean json;
+        private Path output;
+
+        /**
+         * Parses the command line
+         *
+         * @param args      the command line arguments
+         * @return the options
+         * @throws IllegalArgumentException if the arguments are missing, unknown or conflict
+         */
+        static Options parse(String[] args) {
+            Options options = new Options();
+            for (int i = 0; i < args.length; i++) {
+                String arg = args[i];
+                switch (arg) {
+                    case "--edges":
+                        options.edges = Paths.get(value(args, ++i, arg));
+                        break;
+                    case "--snapshot":
+                        options.snapshot = Paths.get(value(args, ++i, arg));
+                        break;
+                    case "--undirected":
+                        options.undirected = true;
+                        break;
+                    case "--algorithm":
+                        String name = value(args, ++i, arg);
+                        try {
+                            options.algorithm = GraphAlgorithm.valueOf(name.toUpperCase().replace('-', '_'));
+                        } catch (IllegalArgumentException e) {
+                            throw new IllegalArgumentException("Unknown Algorithm " + name);
+                        }
+                        break;
+                    case "--source":
+                        options.source = value(args, ++i, arg);
+                        break;
+                    case "--format":
+                        String format = value(args, ++i, arg);
+                        if (!format.equals("tsv") && !format.equals("json")) {
+                            throw new IllegalArgumentException("Unknown Format " + format);
+                        }
+                        options.json = format.equals("json");
+                        break;
+                    case "--output":
+                        options.output = Paths.get(value(args, ++i, arg));
+                        break;
+                    default:
+                        throw new IllegalArgumentException("Unknown Argument " + arg);
+                }
+            }
+            if ((options.edges == null) == (options.snapshot == null)) {
+                throw new IllegalArgumentException("Exactly One of --edges and --snapshot is Required");
+            }
+            if (options.undirected && options.snapshot != null) {
+                throw new IllegalArgumentException("--undirected Only Applies to --edges");
+            }
+            if (options.algorithm == null) {
+                throw new IllegalArgumentException("--algorithm is Required");
+            }
+            if ((options.algorithm == GraphAlgorithm.BFS || options.algorithm == GraphAlgorithm.DFS)
+                    && options.source == null) {
+                throw new IllegalArgumentException("--source is Required for " + options.algorithm);
+            }
+            return options;
+        }
+
+        private static String value(String[] args, int index, String flag) {
+            if (index >= args.length) {
+                throw new IllegalArgumentException(flag + " Needs a Value");
+            }
+            return args[index];
+        }
+    }
+
+    /**
+     * Streams the rows of a result, one row at a time, so no result is held as text in memory
+     */
+    private abstract static class RowWriter {
+        protected final Writer writer;
+        protected String[] columns;
+
+        RowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        /**
+         * Starts a result
+         *
+         * @param algorithm     the algorithm that produced the result
+         * @param columns       the names of the columns of each row
+         * @throws IOException if the result can not be written
+         */
+        void begin(GraphAlgorithm algorithm, String... columns) throws IOException {
+            this.columns = columns;
+        }
+
+        /**
+         * Writes one row, where a value is a string, an integer or null
+         *
+         * @param values    the value of each column
+         * @throws IOException if the row can not be written
+         */
+        abstract void row(Object... values) throws IOException;
+
+        /**
+         * Finishes the result
+         *
+         * @throws IOException if the result can not be written
+         */
+        abstract void end() throws IOException;
+    }
+
+    /**
+     * Writes a header line and then one tab separated line per row, with an empty field for null
+     */
+    private static final class TsvRowWriter extends RowWriter {
+        TsvRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void begin(GraphAlgorithm algorithm, String... columns) throws IOException {
+            super.begin(algorithm, columns);
+            row((Object[]) columns);
+        }
+
+        @Override
+        void row(Object... values) throws IOException {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                if (values[i] != null) {
+                    writer.write(values[i].toString());
+                }
+            }
+            writer.write('\n');
+        }
+
+        @Override
+        void end() {
+        }
+    }
+
+    /**
+     * Writes a JSON object with the algorithm name and an array holding one object per row
+     */
+    private static final class JsonRowWriter extends RowWriter {
+        private boolean first;
+
+        JsonRowWriter(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        void begin(GraphAlgorithm algorithm, String... columns) throws IOException {
+            super.begin(algorithm, columns);
+            writer.write("{\"algorithm\":");
+            writeString(algorithm.name());
+            writer.write(",\"results\":[");
+            first = true;
+        }
+
+        @Override
+        void row(Object... values) throws IOException {
+            writer.write(first ? "\n{" : ",\n{");
+            first = false;
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writeString(columns[i]);
+                writer.write(':');
+                if (values[i] == null) {
+                    writer.write("null");
+                } else if (values[i] instanceof String) {
+                    writeString((String) values[i]);
+                } else {
+                    writer.write(values[i].toString());
+                }
+            }
+            writer.write('}');
+        }
+
+        @Override
+        void end() throws IOException {
+            writer.write("\n]}\n");
+        }
+
+        private void writeString(String value) throws IOException {
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"' || c == '\\') {
+                    writer.write('\\');
+                    writer.write(c);
+                } else if (c < 0x20) {
+                    writer.write(String.format("\\u%04x", (int) c));
+                } else {
+                    writer.write(c);
+                }
+            }
+            writer.write('"');
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package graphengine.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates Barabasi-Albert preferential attachment graphs, where every vertex links to edgesPerVertex
+ * earlier vertices chosen in proportion to their degree.
+ *
+ * Sequential preferential attachment needs the whole edge list so far. Instead, the endpoints of all edges
+ * are laid out in one virtual array, where edge i owns positions 2i (its new vertex) and 2i + 1 (its target),
+ * and the target copies the endpoint at a random earlier position, which picks a vertex by degree. That
+ * random position is a hash of the seed and the position, so any endpoint can be worked out on its own by
+ * following the copies back to an even position, and the edges can be generated in parallel (Sanders and
+ * Schulz, "Scalable Generation of Scale-free Graphs").
+ */
+public class BarabasiAlbertGenerator extends GraphGenerator {
+    private final int edgesPerVertex;
+
+    /**
+     * @param vertexCount       the number of vertices
+     * @param edgesPerVertex    the number of edges every vertex adds when it joins
+     * @param strongRatio       the share of edges that are strong ties
+     * @param seed              the seed of the random streams
+     * @throws IllegalArgumentException if edgesPerVertex is not positive
+     */
+    public BarabasiAlbertGenerator(int vertexCount, int edgesPerVertex, double strongRatio, long seed) {
+        super(vertexCount, (long) vertexCount * checkEdgesPerVertex(edgesPerVertex), false, strongRatio, seed);
+        this.edgesPerVertex = edgesPerVertex;
+    }
+
+    private static int checkEdgesPerVertex(int edgesPerVertex) {
+        if (edgesPerVertex < 1) {
+            throw new IllegalArgumentException("Edges Per Vertex Must be Positive");
+        }
+        return edgesPerVertex;
+    }
+
+    @Override
+    void generate(long firstEdge, int count, SplittableRandom random, EdgeBlock block) {
+        for (long edge = firstEdge; edge < firstEdge + count; edge++) {
+            int vertex = (int) (edge / edgesPerVertex);
+            // follow the copies back until the position is the new-vertex end of some edge
+            long position = 2 * edge + 1;
+            while ((position & 1) == 1) {
+                position = Long.remainderUnsigned(mix(seed ^ mix(position)), position);
+            }
+            int target = (int) (position / 2 / edgesPerVertex);
+            block.add(vertex, target, chance(random, strongRatio));
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package graphengine.generators;
+
+import java.util.Arrays;
+
+/**
+ * The edges one block of a generator produced, in the order they were generated
+ */
+class EdgeBlock {
+    int[] sources;
+    int[] targets;
+    boolean[] strong;
+    int count;
+
+    EdgeBlock(int capacity) {
+        this.sources = new int[capacity];
+        this.targets = new int[capacity];
+        this.strong = new boolean[capacity];
+        this.count = 0;
+    }
+
+    /**
+     * Adds an edge to the block
+     *
+     * @param source    the source vertex id
+     * @param target    the target vertex id
+     * @param isStrong  true if the edge is a strong tie
+     */
+    void add(int source, int target, boolean isStrong) {
+        if (count == sources.length) {
+            sources = Arrays.copyOf(sources, count * 2);
+            targets = Arrays.copyOf(targets, count * 2);
+            strong = Arrays.copyOf(strong, count * 2);
+        }
+        sources[count] = source;
+        targets[count] = target;
+        strong[count] = isStrong;
+        count++;
+    }
+}
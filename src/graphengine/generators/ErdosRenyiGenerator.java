@@ -0,0 +1,27 @@
+package graphengine.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates Erdos-Renyi G(n, m) graphs, where every edge joins a uniformly random pair of vertices
+ */
+public class ErdosRenyiGenerator extends GraphGenerator {
+
+    /**
+     * @param vertexCount   the number of vertices
+     * @param edgeCount     the number of edges
+     * @param directed      true for directed edges, false for undirected edges
+     * @param strongRatio   the share of edges that are strong ties
+     * @param seed          the seed of the random streams
+     */
+    public ErdosRenyiGenerator(int vertexCount, long edgeCount, boolean directed, double strongRatio, long seed) {
+        super(vertexCount, edgeCount, directed, strongRatio, seed);
+    }
+
+    @Override
+    void generate(long firstEdge, int count, SplittableRandom random, EdgeBlock block) {
+        for (int edge = 0; edge < count; edge++) {
+            block.add(random.nextInt(vertexCount), random.nextInt(vertexCount), chance(random, strongRatio));
+        }
+    }
+}
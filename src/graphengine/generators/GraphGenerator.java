@@ -0,0 +1,312 @@
+package graphengine.generators;
+
+import graphengine.Graph;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A seeded synthetic graph generator. The edges are numbered and cut into blocks of BLOCK_SIZE edges, and
+ * every block draws from its own random stream seeded by the generator's seed and the block number, so the
+ * blocks can be generated in parallel and in any order while the output stays the same for the same seed.
+ * Blocks are generated a window at a time and written in order, so the edges never all have to be in memory.
+ * Vertices are labelled with their ids, from "0" to "size - 1".
+ */
+public abstract class GraphGenerator {
+    // the number of edges in one block
+    static final int BLOCK_SIZE = 1 << 16;
+
+    protected final int vertexCount;
+    protected final long edgeCount;
+    protected final boolean directed;
+    protected final double strongRatio;
+    protected final long seed;
+
+    /**
+     * @param vertexCount   the number of vertices
+     * @param edgeCount     the number of edges to generate, before self-loops and duplicates are dropped
+     * @param directed      true for directed edges, false for undirected edges
+     * @param strongRatio   the share of edges that are strong ties, between 0 and 1
+     * @param seed          the seed of the random streams
+     * @throws IllegalArgumentException if a count is negative or the strong ratio is not between 0 and 1
+     */
+    protected GraphGenerator(int vertexCount, long edgeCount, boolean directed, double strongRatio, long seed) {
+        if (vertexCount < 1 || edgeCount < 0) {
+            throw new IllegalArgumentException("Vertex and Edge Counts Must be Positive");
+        }
+        if (!(strongRatio >= 0 && strongRatio <= 1)) {
+            throw new IllegalArgumentException("Strong Tie Ratio Must be Between 0 and 1");
+        }
+        this.vertexCount = vertexCount;
+        this.edgeCount = edgeCount;
+        this.directed = directed;
+        this.strongRatio = strongRatio;
+        this.seed = seed;
+    }
+
+    /**
+     * Returns the number of vertices
+     *
+     * @return vertex count
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * Returns the number of edges generated, counting self-loops and duplicates that graphs drop
+     *
+     * @return edge count
+     */
+    public long getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Checks if the generated edges are directed
+     *
+     * @return true, if the edges are directed, false if they are undirected
+     */
+    public boolean isDirected() {
+        return directed;
+    }
+
+    /**
+     * Generates the edges of one block
+     *
+     * @param firstEdge     the number of the block's first edge
+     * @param count         the number of edges in the block
+     * @param random        the random stream of the block
+     * @param block         the block to add the edges to
+     */
+    abstract void generate(long firstEdge, int count, SplittableRandom random, EdgeBlock block);
+
+    /**
+     * Adds the generated graph to a graph, using the common fork/join pool
+     *
+     * @param graph     the graph to add to
+     * @return the graph
+     */
+    public Graph addTo(Graph graph) {
+        return addTo(graph, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Adds the generated graph to a graph. The blocks are generated in parallel and added in order, since a
+     * graph only takes changes from one thread. Self-loops are dropped, and duplicate edges keep their first
+     * tie strength.
+     *
+     * @param graph     the graph to add to
+     * @param pool      the pool that generates the blocks
+     * @return the graph
+     */
+    public Graph addTo(Graph graph, ForkJoinPool pool) {
+        String[] labels = new String[vertexCount];
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            labels[vertex] = String.valueOf(vertex);
+            graph.addVertex(labels[vertex]);
+        }
+        long blockCount = getBlockCount();
+        int window = Math.max(1, pool.getParallelism() * 4);
+        for (long first = 0; first < blockCount; first += window) {
+            EdgeBlock[] blocks = new EdgeBlock[(int) Math.min(window, blockCount - first)];
+            pool.invoke(new BlockTask(first, blocks, 0, blocks.length, null));
+            for (EdgeBlock block : blocks) {
+                for (int edge = 0; edge < block.count; edge++) {
+                    if (block.sources[edge] == block.targets[edge]) {
+                        continue;
+                    }
+                    String source = labels[block.sources[edge]];
+                    String target = labels[block.targets[edge]];
+                    Character tieStrength = block.strong[edge] ? 'S' : 'W';
+                    if (directed) {
+                        graph.addDirectedEdge(source, target, tieStrength);
+                    } else {
+                        graph.addUndirectedEdge(source, target, tieStrength);
+                    }
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Writes the generated edges to an edge list file, using the common fork/join pool
+     *
+     * @param file      the edge list file, which is replaced if it exists
+     * @throws IOException if the file can not be written
+     */
+    public void writeEdgeList(Path file) throws IOException {
+        writeEdgeList(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Writes the generated edges to an edge list file, one "source target S|W" line per edge, which
+     * EdgeListLoader reads back. The lines of a window of blocks are formatted in parallel and then written
+     * in block order, so memory use does not grow with the number of edges. Self-loops are dropped.
+     *
+     * @param file      the edge list file, which is replaced if it exists
+     * @param pool      the pool that generates and formats the blocks
+     * @throws IOException if the file can not be written
+     */
+    public void writeEdgeList(Path file, ForkJoinPool pool) throws IOException {
+        long blockCount = getBlockCount();
+        int window = Math.max(1, pool.getParallelism() * 4);
+        try (OutputStream output = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            for (long first = 0; first < blockCount; first += window) {
+                int blocks = (int) Math.min(window, blockCount - first);
+                byte[][] lines = new byte[blocks][];
+                int[] lengths = new int[blocks];
+                pool.invoke(new BlockTask(first, new EdgeBlock[blocks], 0, blocks,
+                        new FormattedBlocks(lines, lengths)));
+                for (int block = 0; block < blocks; block++) {
+                    output.write(lines[block], 0, lengths[block]);
+                }
+            }
+        }
+    }
+
+    private long getBlockCount() {
+        return (edgeCount + BLOCK_SIZE - 1) / BLOCK_SIZE;
+    }
+
+    /**
+     * Returns the random stream of a block, which only depends on the seed and the block number
+     *
+     * @param block     the block number
+     * @return the random stream
+     */
+    private SplittableRandom blockRandom(long block) {
+        return new SplittableRandom(mix(seed + mix(block)));
+    }
+
+    /**
+     * Scrambles the bits of a number (the finalizer of SplitMix64)
+     *
+     * @param value     the number to scramble
+     * @return the scrambled number
+     */
+    static long mix(long value) {
+        long z = value + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Returns true with the given probability
+     *
+     * @param random        the random stream
+     * @param probability   the probability
+     * @return a random boolean
+     */
+    static boolean chance(SplittableRandom random, double probability) {
+        return probability > 0 && random.nextDouble() < probability;
+    }
+
+    /**
+     * Where the formatted lines of each block of a window go
+     */
+    private static final class FormattedBlocks {
+        private final byte[][] lines;
+        private final int[] lengths;
+
+        FormattedBlocks(byte[][] lines, int[] lengths) {
+            this.lines = lines;
+            this.lengths = lengths;
+        }
+    }
+
+    /**
+     * Generates a range of the blocks of a window, splitting it across the pool, and formats them as lines
+     * if they are going to a file
+     */
+    private final class BlockTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long firstBlock;
+        private final EdgeBlock[] blocks;
+        private final int start;
+        private final int end;
+        private final FormattedBlocks formatted;
+
+        BlockTask(long firstBlock, EdgeBlock[] blocks, int start, int end, FormattedBlocks formatted) {
+            this.firstBlock = firstBlock;
+            this.blocks = blocks;
+            this.start = start;
+            this.end = end;
+            this.formatted = formatted;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new BlockTask(firstBlock, blocks, start, middle, formatted),
+                        new BlockTask(firstBlock, blocks, middle, end, formatted));
+                return;
+            }
+            long block = firstBlock + start;
+            long firstEdge = block * BLOCK_SIZE;
+            int count = (int) Math.min(BLOCK_SIZE, edgeCount - firstEdge);
+            EdgeBlock edges = new EdgeBlock(count);
+            generate(firstEdge, count, blockRandom(block), edges);
+            if (formatted == null) {
+                blocks[start] = edges;
+            } else {
+                format(edges, start);
+            }
+        }
+
+        /**
+         * Formats the edges of a block as edge list lines
+         *
+         * @param edges     the edges of the block
+         * @param index     the index of the block in the window
+         */
+        private void format(EdgeBlock edges, int index) {
+            // two ids of at most 10 digits, a tie strength, two spaces and a newline
+            byte[] line = new byte[edges.count * 25];
+            int length = 0;
+            for (int edge = 0; edge < edges.count; edge++) {
+                if (edges.sources[edge] == edges.targets[edge]) {
+                    continue;
+                }
+                length = putInt(line, length, edges.sources[edge]);
+                line[length++] = ' ';
+                length = putInt(line, length, edges.targets[edge]);
+                line[length++] = ' ';
+                line[length++] = (byte) (edges.strong[edge] ? 'S' : 'W');
+                line[length++] = '\n';
+            }
+            formatted.lines[index] = line;
+            formatted.lengths[index] = length;
+        }
+
+        /**
+         * Writes the decimal digits of a non-negative number
+         *
+         * @param bytes     the buffer to write to
+         * @param position  the position to write at
+         * @param value     the number
+         * @return the position after the digits
+         */
+        private int putInt(byte[] bytes, int position, int value) {
+            int digits = 1;
+            for (int rest = value / 10; rest > 0; rest /= 10) {
+                digits++;
+            }
+            for (int i = position + digits - 1; i >= position; i--) {
+                bytes[i] = (byte) ('0' + value % 10);
+                value /= 10;
+            }
+            return position + digits;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package graphengine.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates layered directed acyclic graphs, the shape of build and scheduling dependency graphs. The
+ * vertices are split into layers of equal width, and every vertex below the first layer gets edges from
+ * random vertices in the few layers above it, so every edge points down and there are no cycles.
+ */
+public class LayeredDagGenerator extends GraphGenerator {
+    private final int width;
+    private final int edgesPerVertex;
+    private final int maxSkip;
+
+    /**
+     * @param layers            the number of layers
+     * @param width             the number of vertices in a layer
+     * @param edgesPerVertex    the number of in-edges of every vertex below the first layer
+     * @param maxSkip           how many layers up an edge can start, at least 1
+     * @param strongRatio       the share of edges that are strong ties
+     * @param seed              the seed of the random streams
+     * @throws IllegalArgumentException if a count is not positive or the graph has too many vertices
+     */
+    public LayeredDagGenerator(int layers, int width, int edgesPerVertex, int maxSkip, double strongRatio,
+                               long seed) {
+        super(checkSize(layers, width, edgesPerVertex, maxSkip),
+                (long) (layers - 1) * width * edgesPerVertex, true, strongRatio, seed);
+        this.width = width;
+        this.edgesPerVertex = edgesPerVertex;
+        this.maxSkip = maxSkip;
+    }
+
+    private static int checkSize(int layers, int width, int edgesPerVertex, int maxSkip) {
+        if (layers < 1 || width < 1 || edgesPerVertex < 1 || maxSkip < 1) {
+            throw new IllegalArgumentException("Layers, Width, Edges Per Vertex and Skip Must be Positive");
+        }
+        if ((long) layers * width > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too Many Vertices");
+        }
+        return layers * width;
+    }
+
+    @Override
+    void generate(long firstEdge, int count, SplittableRandom random, EdgeBlock block) {
+        for (long edge = firstEdge; edge < firstEdge + count; edge++) {
+            // the first layer has no in-edges, so the edges start at the second layer
+            int target = (int) (width + edge / edgesPerVertex);
+            int layer = target / width;
+            int sourceLayer = layer - 1 - random.nextInt(Math.min(maxSkip, layer));
+            int source = sourceLayer * width + random.nextInt(width);
+            block.add(source, target, chance(random, strongRatio));
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package graphengine.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates R-MAT (recursive matrix) graphs, the Kronecker graphs of the Graph500 benchmark. Each edge
+ * picks one quadrant of the adjacency matrix per level with probabilities a, b, c and d = 1 - a - b - c,
+ * which gives a skewed, power-law degree distribution with community structure.
+ */
+public class RMatGenerator extends GraphGenerator {
+    private final int scale;
+    private final double a;
+    private final double b;
+    private final double c;
+
+    /**
+     * Creates an R-MAT generator with the Graph500 probabilities (0.57, 0.19, 0.19, 0.05)
+     *
+     * @param scale         log2 of the number of vertices
+     * @param edgeFactor    the number of edges per vertex
+     * @param strongRatio   the share of edges that are strong ties
+     * @param seed          the seed of the random streams
+     */
+    public RMatGenerator(int scale, int edgeFactor, double strongRatio, long seed) {
+        this(scale, edgeFactor, 0.57, 0.19, 0.19, strongRatio, seed);
+    }
+
+    /**
+     * Creates an R-MAT generator of a directed graph
+     *
+     * @param scale         log2 of the number of vertices, at most 30
+     * @param edgeFactor    the number of edges per vertex
+     * @param a             the probability of the top-left quadrant
+     * @param b             the probability of the top-right quadrant
+     * @param c             the probability of the bottom-left quadrant
+     * @param strongRatio   the share of edges that are strong ties
+     * @param seed          the seed of the random streams
+     * @throws IllegalArgumentException if the scale is out of range or the probabilities do not add up
+     */
+    public RMatGenerator(int scale, int edgeFactor, double a, double b, double c, double strongRatio, long seed) {
+        super(checkScale(scale), (1L << scale) * edgeFactor, true, strongRatio, seed);
+        if (a < 0 || b < 0 || c < 0 || a + b + c > 1) {
+            throw new IllegalArgumentException("Quadrant Probabilities Must Add Up to at Most 1");
+        }
+        this.scale = scale;
+        this.a = a;
+        this.b = b;
+        this.c = c;
+    }
+
+    private static int checkScale(int scale) {
+        if (scale < 0 || scale > 30) {
+            throw new IllegalArgumentException("Scale Must be Between 0 and 30");
+        }
+        return 1 << scale;
+    }
+
+    @Override
+    void generate(long firstEdge, int count, SplittableRandom random, EdgeBlock block) {
+        for (int edge = 0; edge < count; edge++) {
+            int source = 0;
+            int target = 0;
+            for (int level = 0; level < scale; level++) {
+                double quadrant = random.nextDouble();
+                source <<= 1;
+                target <<= 1;
+                if (quadrant < a) {
+                    continue;
+                } else if (quadrant < a + b) {
+                    target |= 1;
+                } else if (quadrant < a + b + c) {
+                    source |= 1;
+                } else {
+                    source |= 1;
+                    target |= 1;
+                }
+            }
+            block.add(source, target, chance(random, strongRatio));
+        }
+    }
+}
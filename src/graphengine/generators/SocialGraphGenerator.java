@@ -0,0 +1,56 @@
+package graphengine.generators;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generates undirected social graphs made of communities. Most of a vertex's edges stay inside its own
+ * community and the rest bridge to random vertices anywhere. Strong ties only form inside communities, as
+ * bridges between communities are weak ties, and the strong ratio is the share of all edges that are strong.
+ */
+public class SocialGraphGenerator extends GraphGenerator {
+    private final int communitySize;
+    private final int degree;
+    private final double bridgeRatio;
+
+    // the chance that an edge inside a community is strong, so the overall share comes out as strongRatio
+    private final double intraStrongChance;
+
+    /**
+     * @param vertexCount       the number of vertices
+     * @param communitySize     the number of vertices in a community
+     * @param degree            the number of edges every vertex starts
+     * @param bridgeRatio       the share of edges that leave the community
+     * @param strongRatio       the share of edges that are strong ties, at most 1 - bridgeRatio
+     * @param seed              the seed of the random streams
+     * @throws IllegalArgumentException if a count is not positive or the ratios do not fit together
+     */
+    public SocialGraphGenerator(int vertexCount, int communitySize, int degree, double bridgeRatio,
+                                double strongRatio, long seed) {
+        super(vertexCount, (long) vertexCount * degree, false, strongRatio, seed);
+        if (communitySize < 2 || degree < 1) {
+            throw new IllegalArgumentException("Community Size and Degree Must be Positive");
+        }
+        if (!(bridgeRatio >= 0 && bridgeRatio <= 1) || strongRatio > 1 - bridgeRatio) {
+            throw new IllegalArgumentException("Strong Tie Ratio Must be at Most the Share of Community Edges");
+        }
+        this.communitySize = communitySize;
+        this.degree = degree;
+        this.bridgeRatio = bridgeRatio;
+        this.intraStrongChance = bridgeRatio < 1 ? strongRatio / (1 - bridgeRatio) : 0;
+    }
+
+    @Override
+    void generate(long firstEdge, int count, SplittableRandom random, EdgeBlock block) {
+        for (long edge = firstEdge; edge < firstEdge + count; edge++) {
+            int vertex = (int) (edge / degree);
+            if (chance(random, bridgeRatio)) {
+                block.add(vertex, random.nextInt(vertexCount), false);
+            } else {
+                int communityStart = vertex - vertex % communitySize;
+                int communityEnd = Math.min(communityStart + communitySize, vertexCount);
+                int neighbor = communityStart + random.nextInt(communityEnd - communityStart);
+                block.add(vertex, neighbor, chance(random, intraStrongChance));
+            }
+        }
+    }
+}
@@ -0,0 +1,159 @@
+package graphengine.io;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The edges of an edge list file, with every vertex label interned once and replaced by a dense id.
+ * Vertex ids are handed out in the order the labels first appear in the file.
+ */
+public class EdgeList {
+    // maps a vertex id to its vertex label
+    private final String[] labels;
+
+    // the source and target vertex id of each edge, in file order
+    private final int[] sources;
+    private final int[] targets;
+
+    // bit i is set if edge i is a strong tie
+    private final long[] strongTies;
+
+    // the number of edges
+    private final int edgeCount;
+
+    EdgeList(String[] labels, int[] sources, int[] targets, long[] strongTies, int edgeCount) {
+        this.labels = labels;
+        this.sources = sources;
+        this.targets = targets;
+        this.strongTies = strongTies;
+        this.edgeCount = edgeCount;
+    }
+
+    /**
+     * Returns the number of distinct vertices in the edge list
+     *
+     * @return number of vertices
+     */
+    public int getVertexCount() {
+        return labels.length;
+    }
+
+    /**
+     * Returns the number of edges in the edge list, counting duplicates
+     *
+     * @return number of edges
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    /**
+     * Returns the labels of all the vertices in order of their ids
+     *
+     * @return read-only list of vertex labels
+     */
+    public List<String> getVertices() {
+        return Collections.unmodifiableList(Arrays.asList(labels));
+    }
+
+    /**
+     * Returns the label of a vertex
+     *
+     * @param id    vertex id
+     * @return vertex label
+     */
+    public String getLabel(int id) {
+        return labels[id];
+    }
+
+    /**
+     * Returns the source vertex of an edge
+     *
+     * @param edge  edge index
+     * @return id of the source vertex
+     */
+    public int getSource(int edge) {
+        return sources[edge];
+    }
+
+    /**
+     * Returns the target vertex of an edge
+     *
+     * @param edge  edge index
+     * @return id of the target vertex
+     */
+    public int getTarget(int edge) {
+        return targets[edge];
+    }
+
+    /**
+     * Checks if an edge is a strong tie
+     *
+     * @param edge  edge index
+     * @return true, if the edge is a strong tie, false otherwise
+     */
+    public boolean isStrongTie(int edge) {
+        return (strongTies[edge >>> 6] & (1L << edge)) != 0;
+    }
+
+    /**
+     * Adds every vertex and edge of the edge list to a graph. The vertices are added first, in order of their
+     * ids, so the edges only ever connect vertices that are already in the graph. An edge listed more than once
+     * keeps the tie strength of its first line, for an undirected edge whichever way round that line has it.
+     *
+     * @param graph         the graph to add to
+     * @param directed      true to add each line as a directed edge, false to add it as an undirected edge
+     * @throws IllegalArgumentException if an edge goes from a vertex to itself
+     */
+    public void addTo(Graph graph, boolean directed) {
+        for (String label : labels) {
+            graph.addVertex(label);
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            Character tieStrength = isStrongTie(edge) ? 'S' : 'W';
+            if (directed) {
+                graph.addDirectedEdge(labels[sources[edge]], labels[targets[edge]], tieStrength);
+            } else {
+                graph.addUndirectedEdge(labels[sources[edge]], labels[targets[edge]], tieStrength);
+            }
+        }
+    }
+
+    /**
+     * Builds a compact graph of the edge list without going through a graph. Like addTo, an edge listed more
+     * than once keeps the tie strength of its first line.
+     *
+     * @param directed      true to read each line as a directed edge, false to read it as an undirected edge
+     * @return the compact graph
+     * @throws IllegalArgumentException if an edge goes from a vertex to itself, or an undirected edge list has
+     *                                  too many edges to hold both directions of each
+     */
+    public CompactGraph toCompactGraph(boolean directed) {
+        if (directed) {
+            return CompactGraph.fromEdges(labels, sources, targets, strongTies, edgeCount);
+        }
+        // both directions of every edge, and the words of their strong bits, must fit in int indexes
+        if (edgeCount > (Integer.MAX_VALUE - 63) / 2) {
+            throw new IllegalArgumentException("Edge List Has Too Many Edges for an Undirected Graph");
+        }
+        // an undirected edge is a directed edge each way, each reverse copy right after its original, so the
+        // first line joining two vertices is also the first duplicate in both directions
+        int[] bothSources = new int[edgeCount * 2];
+        int[] bothTargets = new int[edgeCount * 2];
+        long[] bothStrongTies = new long[(edgeCount * 2 + 63) >>> 6];
+        for (int edge = 0; edge < edgeCount; edge++) {
+            bothSources[2 * edge] = sources[edge];
+            bothTargets[2 * edge] = targets[edge];
+            bothSources[2 * edge + 1] = targets[edge];
+            bothTargets[2 * edge + 1] = sources[edge];
+            if (isStrongTie(edge)) {
+                bothStrongTies[(2 * edge) >>> 6] |= 3L << (2 * edge);
+            }
+        }
+        return CompactGraph.fromEdges(labels, bothSources, bothTargets, bothStrongTies, edgeCount * 2);
+    }
+}
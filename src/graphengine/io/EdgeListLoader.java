@@ -0,0 +1,455 @@
+package graphengine.io;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Loads edge list files with one edge per line, written as "source target" or "source target S|W".
+ * Edges without a tie strength are weak. Blank lines and lines starting with '#' or '%' are skipped.
+ * An edge listed more than once keeps the tie strength of its first line, the same as repeated
+ * addDirectedEdge or addUndirectedEdge calls on a graph, so loadGraph and loadCompactGraph build the same
+ * graph. For an undirected edge list, "a b" and "b a" are the same edge.
+ * The file is memory mapped and cut into chunks at line boundaries, and the chunks are parsed in parallel
+ * straight from the mapped bytes, so only one String is created per distinct label per chunk.
+ */
+public class EdgeListLoader {
+    // the number of bytes one chunk starts out with, before it is extended to the end of its last line
+    private static final int CHUNK_SIZE = 64 << 20;
+
+    /**
+     * Loads an edge list file into a new graph, using the common fork/join pool
+     *
+     * @param file          the edge list file
+     * @param directed      true to read each line as a directed edge, false to read it as an undirected edge
+     * @return the graph
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if a line is not a valid edge
+     */
+    public static Graph loadGraph(Path file, boolean directed) throws IOException {
+        Graph graph = new Graph();
+        parse(file).addTo(graph, directed);
+        return graph;
+    }
+
+    /**
+     * Loads an edge list file straight into a compact graph, using the common fork/join pool
+     *
+     * @param file          the edge list file
+     * @param directed      true to read each line as a directed edge, false to read it as an undirected edge
+     * @return the compact graph
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if a line is not a valid edge
+     */
+    public static CompactGraph loadCompactGraph(Path file, boolean directed) throws IOException {
+        return parse(file).toCompactGraph(directed);
+    }
+
+    /**
+     * Parses an edge list file, using the common fork/join pool
+     *
+     * @param file          the edge list file
+     * @return the parsed edges
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if a line is not a valid edge
+     */
+    public static EdgeList parse(Path file) throws IOException {
+        return parse(file, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Parses an edge list file. The chunks are parsed in parallel, then their labels are interned into
+     * one dictionary in file order.
+     *
+     * @param file          the edge list file
+     * @param pool          the pool that parses the chunks
+     * @return the parsed edges
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if a line is not a valid edge
+     */
+    public static EdgeList parse(Path file, ForkJoinPool pool) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            Chunk[] chunks = split(channel);
+            pool.invoke(new ParseTask(channel, chunks, 0, chunks.length));
+            // report the first failure in file order, whichever thread saw it first
+            for (Chunk chunk : chunks) {
+                if (chunk.readError != null) {
+                    throw chunk.readError;
+                }
+                if (chunk.parseError != null) {
+                    throw chunk.parseError;
+                }
+            }
+            return merge(chunks);
+        }
+    }
+
+    /**
+     * Cuts a file into chunks of about CHUNK_SIZE bytes, each ending just after a newline or at the end of
+     * the file
+     *
+     * @param channel       the file
+     * @return the chunks in file order
+     * @throws IOException if the file can not be read
+     */
+    private static Chunk[] split(FileChannel channel) throws IOException {
+        long fileSize = channel.size();
+        ArrayList<Chunk> chunks = new ArrayList<>();
+        ByteBuffer window = ByteBuffer.allocate(4096);
+        long start = 0;
+        while (start < fileSize) {
+            long end = Math.min(start + CHUNK_SIZE, fileSize);
+            // move the end forward past the next newline so no line is cut in two
+            while (end < fileSize) {
+                window.clear();
+                int read = channel.read(window, end);
+                int newline = -1;
+                for (int i = 0; i < read; i++) {
+                    if (window.get(i) == '\n') {
+                        newline = i;
+                        break;
+                    }
+                }
+                if (newline >= 0) {
+                    end += newline + 1;
+                    break;
+                }
+                end = Math.min(end + read, fileSize);
+            }
+            if (end - start > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Edge List Line is Too Long");
+            }
+            chunks.add(new Chunk(start, (int) (end - start)));
+            start = end;
+        }
+        return chunks.toArray(new Chunk[0]);
+    }
+
+    /**
+     * Interns the labels of every chunk into one dictionary and rewrites the chunks' edges with global ids
+     *
+     * @param chunks        the parsed chunks in file order
+     * @return the parsed edges
+     */
+    private static EdgeList merge(Chunk[] chunks) {
+        HashMap<String, Integer> ids = new HashMap<>();
+        ArrayList<String> labels = new ArrayList<>();
+        long totalEdges = 0;
+        for (Chunk chunk : chunks) {
+            totalEdges += chunk.edgeCount;
+        }
+        if (totalEdges > Integer.MAX_VALUE - 63) {
+            throw new IllegalArgumentException("Edge List Has Too Many Edges");
+        }
+        int edgeCount = (int) totalEdges;
+        int[] sources = new int[edgeCount];
+        int[] targets = new int[edgeCount];
+        long[] strongTies = new long[(edgeCount + 63) >>> 6];
+
+        int offset = 0;
+        for (Chunk chunk : chunks) {
+            // the local id of a label in this chunk becomes the id it was first given in the file
+            int[] globalIds = new int[chunk.labels.size()];
+            for (int local = 0; local < globalIds.length; local++) {
+                String label = chunk.labels.get(local);
+                Integer id = ids.get(label);
+                if (id == null) {
+                    id = labels.size();
+                    ids.put(label, id);
+                    labels.add(label);
+                }
+                globalIds[local] = id;
+            }
+            for (int edge = 0; edge < chunk.edgeCount; edge++) {
+                sources[offset + edge] = globalIds[chunk.sources[edge]];
+                targets[offset + edge] = globalIds[chunk.targets[edge]];
+                if ((chunk.strongTies[edge >>> 6] & (1L << edge)) != 0) {
+                    int global = offset + edge;
+                    strongTies[global >>> 6] |= 1L << global;
+                }
+            }
+            offset += chunk.edgeCount;
+            // let the chunk's arrays go as soon as they are copied
+            chunk.sources = null;
+            chunk.targets = null;
+            chunk.strongTies = null;
+        }
+        return new EdgeList(labels.toArray(new String[0]), sources, targets, strongTies, edgeCount);
+    }
+
+    /**
+     * A byte range of the file and the edges parsed from it, with labels numbered locally in the order they
+     * first appear in the range
+     */
+    private static final class Chunk {
+        private final long start;
+        private final int length;
+
+        private final ArrayList<String> labels;
+        private int[] sources;
+        private int[] targets;
+        private long[] strongTies;
+        private int edgeCount;
+
+        // the failure that stopped the parsing of this chunk, if any
+        private IOException readError;
+        private IllegalArgumentException parseError;
+
+        Chunk(long start, int length) {
+            this.start = start;
+            this.length = length;
+            this.labels = new ArrayList<>();
+            this.sources = new int[16];
+            this.targets = new int[16];
+            this.strongTies = new long[1];
+            this.edgeCount = 0;
+        }
+
+        /**
+         * Adds a parsed edge
+         *
+         * @param source    local id of the source vertex
+         * @param target    local id of the target vertex
+         * @param strong    true if the edge is a strong tie
+         */
+        void addEdge(int source, int target, boolean strong) {
+            if (edgeCount == sources.length) {
+                sources = Arrays.copyOf(sources, edgeCount * 2);
+                targets = Arrays.copyOf(targets, edgeCount * 2);
+                strongTies = Arrays.copyOf(strongTies, (edgeCount * 2 + 63) >>> 6);
+            }
+            sources[edgeCount] = source;
+            targets[edgeCount] = target;
+            if (strong) {
+                strongTies[edgeCount >>> 6] |= 1L << edgeCount;
+            }
+            edgeCount++;
+        }
+    }
+
+    /**
+     * An open-addressing table from labels, given as byte ranges of the mapped chunk, to local ids.
+     * A label is only decoded into a String the first time it is seen.
+     */
+    private static final class LabelTable {
+        private final ByteBuffer bytes;
+        private final ArrayList<String> labels;
+
+        // the hash, first byte and length of the label in each slot, and its local id plus one (0 is empty)
+        private int[] hashes;
+        private int[] starts;
+        private int[] lengths;
+        private int[] slotIds;
+        private int mask;
+
+        LabelTable(ByteBuffer bytes, ArrayList<String> labels) {
+            this.bytes = bytes;
+            this.labels = labels;
+            this.hashes = new int[1024];
+            this.starts = new int[1024];
+            this.lengths = new int[1024];
+            this.slotIds = new int[1024];
+            this.mask = 1023;
+        }
+
+        /**
+         * Returns the local id of a label, giving it the next id if it is new
+         *
+         * @param start     the index of the label's first byte
+         * @param end       the index one past the label's last byte
+         * @return the local id
+         */
+        int intern(int start, int end) {
+            int hash = 0x811c9dc5;
+            for (int i = start; i < end; i++) {
+                hash = (hash ^ bytes.get(i)) * 0x01000193;
+            }
+            int length = end - start;
+            int slot = hash & mask;
+            while (slotIds[slot] != 0) {
+                if (hashes[slot] == hash && lengths[slot] == length && sameBytes(starts[slot], start, length)) {
+                    return slotIds[slot] - 1;
+                }
+                slot = (slot + 1) & mask;
+            }
+            byte[] label = new byte[length];
+            for (int i = 0; i < length; i++) {
+                label[i] = bytes.get(start + i);
+            }
+            int id = labels.size();
+            labels.add(new String(label, StandardCharsets.UTF_8));
+            hashes[slot] = hash;
+            starts[slot] = start;
+            lengths[slot] = length;
+            slotIds[slot] = id + 1;
+            // keep the table at most half full
+            if (labels.size() * 2 > mask) {
+                grow();
+            }
+            return id;
+        }
+
+        /**
+         * Checks if two byte ranges of the chunk hold the same bytes
+         *
+         * @param start1    the start of the first range
+         * @param start2    the start of the second range
+         * @param length    the length of both ranges
+         * @return true, if the bytes are the same, false otherwise
+         */
+        private boolean sameBytes(int start1, int start2, int length) {
+            for (int i = 0; i < length; i++) {
+                if (bytes.get(start1 + i) != bytes.get(start2 + i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Doubles the number of slots and moves every label to its new slot
+         */
+        private void grow() {
+            int[] oldHashes = hashes;
+            int[] oldStarts = starts;
+            int[] oldLengths = lengths;
+            int[] oldSlotIds = slotIds;
+            int capacity = oldSlotIds.length * 2;
+            hashes = new int[capacity];
+            starts = new int[capacity];
+            lengths = new int[capacity];
+            slotIds = new int[capacity];
+            mask = capacity - 1;
+            for (int oldSlot = 0; oldSlot < oldSlotIds.length; oldSlot++) {
+                if (oldSlotIds[oldSlot] == 0) {
+                    continue;
+                }
+                int slot = oldHashes[oldSlot] & mask;
+                while (slotIds[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                hashes[slot] = oldHashes[oldSlot];
+                starts[slot] = oldStarts[oldSlot];
+                lengths[slot] = oldLengths[oldSlot];
+                slotIds[slot] = oldSlotIds[oldSlot];
+            }
+        }
+    }
+
+    /**
+     * Parses a range of chunks, splitting it across the pool
+     */
+    private static final class ParseTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final FileChannel channel;
+        private final Chunk[] chunks;
+        private final int start;
+        private final int end;
+
+        ParseTask(FileChannel channel, Chunk[] chunks, int start, int end) {
+            this.channel = channel;
+            this.chunks = chunks;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > 1) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ParseTask(channel, chunks, start, middle), new ParseTask(channel, chunks, middle, end));
+                return;
+            }
+            Chunk chunk = chunks[start];
+            try {
+                MappedByteBuffer bytes = channel.map(FileChannel.MapMode.READ_ONLY, chunk.start, chunk.length);
+                parseChunk(chunk, bytes);
+            } catch (IOException exception) {
+                chunk.readError = exception;
+            } catch (IllegalArgumentException exception) {
+                chunk.parseError = exception;
+            }
+        }
+
+        /**
+         * Parses every line of a chunk
+         *
+         * @param chunk     the chunk to add the edges to
+         * @param bytes     the mapped bytes of the chunk
+         * @throws IllegalArgumentException if a line is not a valid edge
+         */
+        private static void parseChunk(Chunk chunk, ByteBuffer bytes) {
+            LabelTable table = new LabelTable(bytes, chunk.labels);
+            int limit = bytes.limit();
+            // the start and end of up to three tokens of the current line
+            int[] tokens = new int[6];
+            int lineStart = 0;
+            while (lineStart < limit) {
+                int lineEnd = lineStart;
+                while (lineEnd < limit && bytes.get(lineEnd) != '\n') {
+                    lineEnd++;
+                }
+                // find up to three tokens, and make sure there is no fourth one
+                int tokenCount = 0;
+                int i = lineStart;
+                while (true) {
+                    while (i < lineEnd && isBlank(bytes.get(i))) {
+                        i++;
+                    }
+                    if (i == lineEnd) {
+                        break;
+                    }
+                    if (tokenCount == 0 && (bytes.get(i) == '#' || bytes.get(i) == '%')) {
+                        break;
+                    }
+                    if (tokenCount == 3) {
+                        throw invalidLine(chunk, lineStart);
+                    }
+                    tokens[tokenCount * 2] = i;
+                    while (i < lineEnd && !isBlank(bytes.get(i))) {
+                        i++;
+                    }
+                    tokens[tokenCount * 2 + 1] = i;
+                    tokenCount++;
+                }
+
+                if (tokenCount == 1) {
+                    throw invalidLine(chunk, lineStart);
+                } else if (tokenCount > 1) {
+                    boolean strong = false;
+                    if (tokenCount == 3) {
+                        byte tieStrength = bytes.get(tokens[4]);
+                        if (tokens[5] - tokens[4] != 1 || (tieStrength != 'S' && tieStrength != 'W')) {
+                            throw new IllegalArgumentException("Invalid Tie Strength at Byte "
+                                    + (chunk.start + tokens[4]));
+                        }
+                        strong = tieStrength == 'S';
+                    }
+                    chunk.addEdge(table.intern(tokens[0], tokens[1]), table.intern(tokens[2], tokens[3]), strong);
+                }
+                lineStart = lineEnd + 1;
+            }
+        }
+
+        private static boolean isBlank(byte b) {
+            return b == ' ' || b == '\t' || b == '\r';
+        }
+
+        private static IllegalArgumentException invalidLine(Chunk chunk, int lineStart) {
+            return new IllegalArgumentException("Invalid Edge List Line at Byte " + (chunk.start + lineStart));
+        }
+    }
+}
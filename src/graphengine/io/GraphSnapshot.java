@@ -0,0 +1,334 @@
+package graphengine.io;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes graphs to a versioned binary snapshot file and opens them again by memory mapping the file.
+ * Opening a snapshot only maps its sections, so the compact graph is ready to query right away and the
+ * operating system pages the data in as it is used.
+ *
+ * The file is little-endian: a 64 byte header, followed by the label offsets, the label bytes, the label
+ * hash table, the edge offsets, the edge targets, the strong tie bits and the table of the edges whose tie
+ * strength is neither 'S' nor 'W', each section starting on an 8 byte boundary. The header also holds a
+ * sequence number that a journal uses to tell which of its records the snapshot already contains.
+ *
+ * Version 1 files, which have no table of other ties, can still be opened; their non-strong edges read as
+ * weak.
+ */
+public class GraphSnapshot {
+    // "GRAPHSNP" read as a little-endian long
+    private static final long MAGIC = 0x504e534850415247L;
+
+    // the format version this class writes, and the oldest version it reads
+    private static final int VERSION = 2;
+    private static final int OLDEST_VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+
+    // the size of the buffer the writer fills before each write
+    private static final int WRITE_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Writes a snapshot of a graph
+     *
+     * @param graph     the graph to write
+     * @param file      the snapshot file, which is replaced if it exists
+     * @throws IOException if the file can not be written
+     */
+    public static void write(Graph graph, Path file) throws IOException {
+        write(graph.freeze(), file);
+    }
+
+    /**
+     * Writes a snapshot of a compact graph with sequence number 0
+     *
+     * @param graph     the compact graph to write
+     * @param file      the snapshot file, which is replaced if it exists
+     * @throws IOException if the file can not be written
+     */
+    public static void write(CompactGraph graph, Path file) throws IOException {
+        write(graph, file, 0);
+    }
+
+    /**
+     * Writes a snapshot of a compact graph. The snapshot is written to a temporary file next to the target,
+     * forced to disk and then moved over the target, so a crash never leaves a partial snapshot behind.
+     *
+     * @param graph     the compact graph to write
+     * @param file      the snapshot file, which is replaced if it exists
+     * @param sequence  the sequence number to store in the header
+     * @throws IOException if the file can not be written
+     */
+    public static void write(CompactGraph graph, Path file, long sequence) throws IOException {
+        int size = graph.getSize();
+        int edgeCount = graph.getEdgeCount();
+        // the offsets of the labels are needed before their bytes, so measure every label first
+        int[] labelOffsets = new int[size + 1];
+        for (int vertex = 0; vertex < size; vertex++) {
+            long end = (long) labelOffsets[vertex] + graph.getLabel(vertex).getBytes(StandardCharsets.UTF_8).length;
+            if (end > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Graph Labels Are Too Large for a Snapshot");
+            }
+            labelOffsets[vertex + 1] = (int) end;
+        }
+        int slotCount = MappedDictionary.slotCount(size);
+        int[] slots = new int[slotCount];
+        for (int vertex = 0; vertex < size; vertex++) {
+            int slot = MappedDictionary.firstSlot(graph.getLabel(vertex), slotCount - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slotCount - 1);
+            }
+            slots[slot] = vertex + 1;
+        }
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            Writer writer = new Writer(channel);
+            writer.putLong(MAGIC);
+            writer.putInt(VERSION);
+            writer.putInt(size);
+            writer.putInt(edgeCount);
+            writer.putInt(slotCount);
+            writer.putLong(labelOffsets[size]);
+            writer.putLong(sequence);
+            writer.putInt(graph.getOtherTieCount());
+            writer.pad(HEADER_SIZE);
+
+            for (int offset : labelOffsets) {
+                writer.putInt(offset);
+            }
+            writer.pad(8);
+            for (int vertex = 0; vertex < size; vertex++) {
+                writer.putBytes(graph.getLabel(vertex).getBytes(StandardCharsets.UTF_8));
+            }
+            writer.pad(8);
+            for (int slot : slots) {
+                writer.putInt(slot);
+            }
+            writer.pad(8);
+            for (int vertex = 0; vertex <= size; vertex++) {
+                writer.putInt(vertex < size ? graph.getEdgeStart(vertex) : edgeCount);
+            }
+            writer.pad(8);
+            for (int edge = 0; edge < edgeCount; edge++) {
+                writer.putInt(graph.getTarget(edge));
+            }
+            writer.pad(8);
+            // pack the strong tie bits 64 edges at a time
+            for (int word = 0; word < (edgeCount + 63) >>> 6; word++) {
+                long bits = 0;
+                for (int edge = word << 6; edge < Math.min(edgeCount, (word + 1) << 6); edge++) {
+                    if (graph.isStrongTie(edge)) {
+                        bits |= 1L << edge;
+                    }
+                }
+                writer.putLong(bits);
+            }
+            for (int index = 0; index < graph.getOtherTieCount(); index++) {
+                writer.putInt(graph.getOtherTieEdge(index));
+                writer.putInt(graph.getOtherTieStrength(index));
+            }
+            writer.pad(8);
+            writer.flush();
+            channel.force(true);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot as a compact graph backed by the memory-mapped file
+     *
+     * @param file      the snapshot file
+     * @return the compact graph
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a snapshot this version can read
+     */
+    public static CompactGraph open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = readHeader(channel);
+            int size = header.getInt(12);
+            int edgeCount = header.getInt(16);
+            int slotCount = header.getInt(20);
+            long labelBytesLength = header.getLong(24);
+            int otherTieCount = header.getInt(8) >= 2 ? header.getInt(40) : 0;
+
+            // the sections follow each other in the order they were written
+            long labelOffsetsStart = HEADER_SIZE;
+            long labelBytesStart = align(labelOffsetsStart + 4L * (size + 1));
+            long slotsStart = align(labelBytesStart + labelBytesLength);
+            long offsetsStart = align(slotsStart + 4L * slotCount);
+            long targetsStart = align(offsetsStart + 4L * (size + 1));
+            long strongTiesStart = align(targetsStart + 4L * edgeCount);
+            long otherTiesStart = strongTiesStart + 8L * ((edgeCount + 63) >>> 6);
+            long end = otherTiesStart + 8L * otherTieCount;
+            if (channel.size() != end) {
+                throw new IllegalArgumentException("Graph Snapshot is Truncated");
+            }
+
+            MappedDictionary dictionary = new MappedDictionary(
+                    map(channel, labelBytesStart, labelBytesLength),
+                    map(channel, labelOffsetsStart, 4L * (size + 1)).asIntBuffer(),
+                    map(channel, slotsStart, 4L * slotCount).asIntBuffer());
+            IntBuffer offsets = map(channel, offsetsStart, 4L * (size + 1)).asIntBuffer();
+            IntBuffer targets = map(channel, targetsStart, 4L * edgeCount).asIntBuffer();
+            LongBuffer strongTies = map(channel, strongTiesStart, otherTiesStart - strongTiesStart).asLongBuffer();
+            IntBuffer otherTies = map(channel, otherTiesStart, end - otherTiesStart).asIntBuffer();
+            // the mappings stay valid after the channel is closed
+            return new CompactGraph(dictionary, offsets, targets, strongTies, otherTies);
+        }
+    }
+
+    /**
+     * Reads the sequence number of a snapshot without opening the rest of it
+     *
+     * @param file      the snapshot file
+     * @return the sequence number
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a snapshot this version can read
+     */
+    public static long readSequence(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return readHeader(channel).getLong(32);
+        }
+    }
+
+    /**
+     * Maps and checks the header of a snapshot
+     *
+     * @param channel   the snapshot file
+     * @return the little-endian mapped header
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a snapshot this version can read
+     */
+    private static ByteBuffer readHeader(FileChannel channel) throws IOException {
+        if (channel.size() < HEADER_SIZE) {
+            throw new IllegalArgumentException("Not a Graph Snapshot");
+        }
+        ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE)
+                .order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getLong(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a Graph Snapshot");
+        }
+        if (header.getInt(8) < OLDEST_VERSION || header.getInt(8) > VERSION) {
+            throw new IllegalArgumentException("Unsupported Graph Snapshot Version " + header.getInt(8));
+        }
+        return header;
+    }
+
+    /**
+     * Opens a snapshot and copies it into a graph that can be changed
+     *
+     * @param file      the snapshot file
+     * @return the graph
+     * @throws IOException if the file can not be read
+     * @throws IllegalArgumentException if the file is not a snapshot this version can read
+     */
+    public static Graph load(Path file) throws IOException {
+        return open(file).thaw();
+    }
+
+    /**
+     * Maps a section of the file
+     *
+     * @param channel   the file
+     * @param start     the position of the section
+     * @param length    the length of the section in bytes
+     * @return the little-endian mapped section
+     * @throws IOException if the file can not be mapped
+     */
+    private static ByteBuffer map(FileChannel channel, long start, long length) throws IOException {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Graph Snapshot Section is Too Large");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, start, length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Rounds a file position up to the next multiple of 8
+     *
+     * @param position  the file position
+     * @return the aligned position
+     */
+    private static long align(long position) {
+        return (position + 7) & ~7L;
+    }
+
+    /**
+     * Writes values to a file through one reused buffer, keeping track of the file position for padding
+     */
+    private static final class Writer {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long position;
+
+        Writer(FileChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(WRITE_BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            this.position = 0;
+        }
+
+        void putInt(int value) throws IOException {
+            ensureRoom(4);
+            buffer.putInt(value);
+            position += 4;
+        }
+
+        void putLong(long value) throws IOException {
+            ensureRoom(8);
+            buffer.putLong(value);
+            position += 8;
+        }
+
+        void putBytes(byte[] bytes) throws IOException {
+            int written = 0;
+            while (written < bytes.length) {
+                ensureRoom(1);
+                int length = Math.min(buffer.remaining(), bytes.length - written);
+                buffer.put(bytes, written, length);
+                written += length;
+            }
+            position += bytes.length;
+        }
+
+        /**
+         * Writes zero bytes up to the next multiple of an alignment
+         *
+         * @param alignment     the alignment in bytes
+         */
+        void pad(int alignment) throws IOException {
+            while (position % alignment != 0) {
+                ensureRoom(1);
+                buffer.put((byte) 0);
+                position++;
+            }
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private void ensureRoom(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                flush();
+            }
+        }
+    }
+}
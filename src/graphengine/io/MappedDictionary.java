@@ -0,0 +1,102 @@
+package graphengine.io;
+
+import graphengine.VertexDictionary;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A vertex dictionary read straight out of a memory-mapped snapshot. The labels are stored as UTF-8 bytes
+ * with the offset of each label's first byte, and ids are looked up through a persisted open-addressing
+ * table, so opening the dictionary creates no objects per vertex.
+ */
+class MappedDictionary implements VertexDictionary {
+    // the UTF-8 bytes of every label, one after another in order of vertex id
+    private final ByteBuffer labelBytes;
+
+    // the index of the first byte of each label, with one extra entry for the end of the last label
+    private final IntBuffer labelOffsets;
+
+    // the id plus one of the label in each slot of the hash table, or 0 for an empty slot
+    private final IntBuffer slots;
+
+    MappedDictionary(ByteBuffer labelBytes, IntBuffer labelOffsets, IntBuffer slots) {
+        this.labelBytes = labelBytes;
+        this.labelOffsets = labelOffsets;
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the number of hash table slots for a number of vertices, a power of two that keeps the table
+     * at most half full
+     *
+     * @param size      the number of vertices
+     * @return the number of slots
+     */
+    static int slotCount(int size) {
+        return Integer.highestOneBit(Math.max(1, size) * 2 - 1) * 2;
+    }
+
+    /**
+     * Returns the first slot to probe for a label
+     *
+     * @param vertex    vertex label
+     * @param mask      the number of slots minus one
+     * @return the slot
+     */
+    static int firstSlot(String vertex, int mask) {
+        int hash = vertex.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    @Override
+    public int getSize() {
+        return labelOffsets.limit() - 1;
+    }
+
+    @Override
+    public int getId(String vertex) {
+        byte[] bytes = vertex.getBytes(StandardCharsets.UTF_8);
+        int mask = slots.limit() - 1;
+        int slot = firstSlot(vertex, mask);
+        int entry;
+        while ((entry = slots.get(slot)) != 0) {
+            if (hasBytes(entry - 1, bytes)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    @Override
+    public String getLabel(int id) {
+        int start = labelOffsets.get(id);
+        byte[] bytes = new byte[labelOffsets.get(id + 1) - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = labelBytes.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Checks if the label of a vertex is made of the given bytes
+     *
+     * @param id        vertex id
+     * @param bytes     the UTF-8 bytes to compare with
+     * @return true, if the label has exactly these bytes, false otherwise
+     */
+    private boolean hasBytes(int id, byte[] bytes) {
+        int start = labelOffsets.get(id);
+        if (labelOffsets.get(id + 1) - start != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < bytes.length; i++) {
+            if (labelBytes.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
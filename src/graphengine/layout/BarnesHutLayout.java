@@ -0,0 +1,340 @@
+package graphengine.layout;
+
+import graphengine.CompactGraph;
+import graphengine.algorithms.TraversalContext;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * A force-directed layout where every edge pulls its endpoints together and every pair of vertices pushes
+ * apart. The pushes are approximated with a Barnes-Hut quadtree: a far away cell pushes with the combined
+ * weight of its vertices from their center of mass, so each step takes O(n log n) time instead of O(n^2).
+ * The forces on the vertices are computed in parallel, each task reading the tree and writing only the
+ * displacements of its own vertices.
+ */
+public class BarnesHutLayout {
+    // a cell this many times smaller than its distance counts as a single body
+    private static final double THETA = 0.8;
+
+    // the number of vertices one task moves before it stops splitting
+    private static final int GRAIN = 1024;
+
+    // the seed of the random positions given to vertices without a starting position
+    private static final long SEED = 0x5eedL;
+
+    /**
+     * Lays out a compact graph, treating every edge as undirected
+     *
+     * @param graph         the compact graph
+     * @param initial       the starting x and y of each vertex at 2i and 2i + 1, NaN for a random start, or null
+     * @param iterations    the number of steps to run
+     * @param context       receives one progress report per step and can cancel the layout, or null
+     * @param pool          the pool that computes the forces
+     * @return the x coordinate of vertex i at index 2i and its y coordinate at index 2i + 1
+     * @throws java.util.concurrent.CancellationException if the context was cancelled
+     */
+    public static double[] layout(CompactGraph graph, double[] initial, int iterations, TraversalContext context,
+                                  ForkJoinPool pool) {
+        int size = graph.getSize();
+        if (context != null) {
+            context.begin(size);
+        }
+        double[] positions = new double[size * 2];
+        // start the vertices without a position spread over a disk where each one has about one unit of room
+        double radius = Math.sqrt(size);
+        Random random = new Random(SEED);
+        int placed = 0;
+        for (int vertex = 0; vertex < size; vertex++) {
+            if (initial != null && !Double.isNaN(initial[vertex * 2]) && !Double.isNaN(initial[vertex * 2 + 1])) {
+                positions[vertex * 2] = initial[vertex * 2];
+                positions[vertex * 2 + 1] = initial[vertex * 2 + 1];
+                placed++;
+            } else {
+                double angle = random.nextDouble() * 2 * Math.PI;
+                double distance = radius * Math.sqrt(random.nextDouble());
+                positions[vertex * 2] = distance * Math.cos(angle);
+                positions[vertex * 2 + 1] = distance * Math.sin(angle);
+            }
+        }
+        if (size < 2) {
+            return positions;
+        }
+        // a layout that mostly starts from earlier positions runs cooler, so the graph keeps its shape
+        double heat = Math.max(0.1, (double) (size - placed) / size);
+        CompactGraph transpose = graph.transpose();
+        double[] displacements = new double[size * 2];
+        for (int iteration = 0; iteration < iterations; iteration++) {
+            QuadTree tree = new QuadTree(positions, size);
+            pool.invoke(new ForceTask(graph, transpose, tree, positions, displacements, 0, size));
+            // the largest step a vertex may take shrinks linearly, so the layout settles instead of oscillating
+            double temperature = radius * 0.1 * heat * (iterations - iteration) / iterations;
+            for (int vertex = 0; vertex < size; vertex++) {
+                double dx = displacements[vertex * 2];
+                double dy = displacements[vertex * 2 + 1];
+                double length = Math.sqrt(dx * dx + dy * dy);
+                if (length > temperature) {
+                    dx *= temperature / length;
+                    dy *= temperature / length;
+                }
+                positions[vertex * 2] += dx;
+                positions[vertex * 2 + 1] += dy;
+            }
+            if (context != null) {
+                context.reportProgress((int) ((long) size * (iteration + 1) / iterations));
+            }
+        }
+        return positions;
+    }
+
+    /**
+     * Computes the displacement of a range of vertices, splitting it across the pool
+     */
+    private static final class ForceTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final CompactGraph graph;
+        private final CompactGraph transpose;
+        private final QuadTree tree;
+        private final double[] positions;
+        private final double[] displacements;
+        private final int start;
+        private final int end;
+
+        ForceTask(CompactGraph graph, CompactGraph transpose, QuadTree tree, double[] positions,
+                  double[] displacements, int start, int end) {
+            this.graph = graph;
+            this.transpose = transpose;
+            this.tree = tree;
+            this.positions = positions;
+            this.displacements = displacements;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start > GRAIN) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ForceTask(graph, transpose, tree, positions, displacements, start, middle),
+                        new ForceTask(graph, transpose, tree, positions, displacements, middle, end));
+                return;
+            }
+            int[] stack = new int[QuadTree.MAX_DEPTH * 4 + 4];
+            double[] force = new double[2];
+            for (int vertex = start; vertex < end; vertex++) {
+                double x = positions[vertex * 2];
+                double y = positions[vertex * 2 + 1];
+                tree.repulsion(vertex, x, y, stack, force);
+                // edges pull with the square of their length, both the out-edges and the in-edges
+                force[0] += attraction(graph, vertex, x, y, 0);
+                force[1] += attraction(graph, vertex, x, y, 1);
+                force[0] += attraction(transpose, vertex, x, y, 0);
+                force[1] += attraction(transpose, vertex, x, y, 1);
+                displacements[vertex * 2] = force[0];
+                displacements[vertex * 2 + 1] = force[1];
+            }
+        }
+
+        /**
+         * Sums one coordinate of the pull of the out-edges of a vertex
+         *
+         * @param edges     the graph or its transpose
+         * @param vertex    the vertex being pulled
+         * @param x         the x coordinate of the vertex
+         * @param y         the y coordinate of the vertex
+         * @param axis      0 for x, 1 for y
+         * @return the pull along the axis
+         */
+        private double attraction(CompactGraph edges, int vertex, double x, double y, int axis) {
+            double pull = 0;
+            for (int edge = edges.getEdgeStart(vertex); edge < edges.getEdgeEnd(vertex); edge++) {
+                int neighbor = edges.getTarget(edge);
+                double dx = positions[neighbor * 2] - x;
+                double dy = positions[neighbor * 2 + 1] - y;
+                double distance = Math.sqrt(dx * dx + dy * dy);
+                pull += (axis == 0 ? dx : dy) * distance;
+            }
+            return pull;
+        }
+    }
+
+    /**
+     * A quadtree over the vertex positions, stored in parallel arrays. Every cell knows the number of vertices
+     * in it and their center of mass; a leaf holds one vertex, or several that could not be told apart before
+     * the tree got too deep.
+     */
+    private static final class QuadTree {
+        // cells below this depth are not split, so vertices at the same position can not recurse forever
+        static final int MAX_DEPTH = 48;
+
+        // the body of a cell that was split, an empty cell, and a leaf holding several vertices
+        private static final int SPLIT = -1;
+        private static final int EMPTY = -2;
+        private static final int CROWDED = -3;
+
+        private int[] children;
+        private int[] body;
+        private double[] mass;
+        private double[] massX;
+        private double[] massY;
+        private double[] left;
+        private double[] bottom;
+        private double[] width;
+        private int cellCount;
+
+        QuadTree(double[] positions, int size) {
+            int capacity = Math.max(16, size * 2);
+            children = new int[capacity * 4];
+            body = new int[capacity];
+            mass = new double[capacity];
+            massX = new double[capacity];
+            massY = new double[capacity];
+            left = new double[capacity];
+            bottom = new double[capacity];
+            width = new double[capacity];
+            double minX = Double.POSITIVE_INFINITY;
+            double minY = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY;
+            double maxY = Double.NEGATIVE_INFINITY;
+            for (int vertex = 0; vertex < size; vertex++) {
+                minX = Math.min(minX, positions[vertex * 2]);
+                maxX = Math.max(maxX, positions[vertex * 2]);
+                minY = Math.min(minY, positions[vertex * 2 + 1]);
+                maxY = Math.max(maxY, positions[vertex * 2 + 1]);
+            }
+            newCell(minX, minY, Math.max(Math.max(maxX - minX, maxY - minY), 1e-9) * (1 + 1e-9));
+            for (int vertex = 0; vertex < size; vertex++) {
+                insert(vertex, positions[vertex * 2], positions[vertex * 2 + 1]);
+            }
+            // turn the sums of the positions into centers of mass
+            for (int cell = 0; cell < cellCount; cell++) {
+                if (mass[cell] > 0) {
+                    massX[cell] /= mass[cell];
+                    massY[cell] /= mass[cell];
+                }
+            }
+        }
+
+        /**
+         * Adds a vertex to the tree, adding its position to the sums of every cell on the way down
+         */
+        private void insert(int vertex, double x, double y) {
+            int cell = 0;
+            for (int depth = 0; ; depth++) {
+                if (body[cell] == EMPTY) {
+                    body[cell] = vertex;
+                    addMass(cell, x, y);
+                    return;
+                }
+                if (body[cell] >= 0) {
+                    if (depth == MAX_DEPTH) {
+                        body[cell] = CROWDED;
+                    } else {
+                        // move the vertex of the leaf one level down, its mass is already counted here
+                        int other = body[cell];
+                        double otherX = massX[cell];
+                        double otherY = massY[cell];
+                        body[cell] = SPLIT;
+                        int child = childFor(cell, otherX, otherY);
+                        body[child] = other;
+                        addMass(child, otherX, otherY);
+                    }
+                }
+                addMass(cell, x, y);
+                if (body[cell] == CROWDED) {
+                    return;
+                }
+                cell = childFor(cell, x, y);
+            }
+        }
+
+        private void addMass(int cell, double x, double y) {
+            mass[cell]++;
+            massX[cell] += x;
+            massY[cell] += y;
+        }
+
+        /**
+         * Returns the child of a cell that covers a position, creating it if needed
+         */
+        private int childFor(int cell, double x, double y) {
+            double half = width[cell] / 2;
+            int quadrant = (x >= left[cell] + half ? 1 : 0) | (y >= bottom[cell] + half ? 2 : 0);
+            int child = children[cell * 4 + quadrant];
+            if (child == 0) {
+                child = newCell(left[cell] + ((quadrant & 1) != 0 ? half : 0),
+                        bottom[cell] + ((quadrant & 2) != 0 ? half : 0), half);
+                children[cell * 4 + quadrant] = child;
+            }
+            return child;
+        }
+
+        private int newCell(double cellLeft, double cellBottom, double cellWidth) {
+            if (cellCount == body.length) {
+                int capacity = body.length * 2;
+                children = Arrays.copyOf(children, capacity * 4);
+                body = Arrays.copyOf(body, capacity);
+                mass = Arrays.copyOf(mass, capacity);
+                massX = Arrays.copyOf(massX, capacity);
+                massY = Arrays.copyOf(massY, capacity);
+                left = Arrays.copyOf(left, capacity);
+                bottom = Arrays.copyOf(bottom, capacity);
+                width = Arrays.copyOf(width, capacity);
+            }
+            int cell = cellCount++;
+            body[cell] = EMPTY;
+            left[cell] = cellLeft;
+            bottom[cell] = cellBottom;
+            width[cell] = cellWidth;
+            return cell;
+        }
+
+        /**
+         * Sums the push of every other vertex on a vertex, each push the inverse of the distance
+         *
+         * @param vertex    the vertex being pushed
+         * @param x         the x coordinate of the vertex
+         * @param y         the y coordinate of the vertex
+         * @param stack     scratch space for the cells left to visit
+         * @param force     receives the x and y of the push
+         */
+        void repulsion(int vertex, double x, double y, int[] stack, double[] force) {
+            double forceX = 0;
+            double forceY = 0;
+            int top = 0;
+            stack[top++] = 0;
+            while (top > 0) {
+                int cell = stack[--top];
+                if (mass[cell] == 0 || body[cell] == vertex) {
+                    continue;
+                }
+                double dx = x - massX[cell];
+                double dy = y - massY[cell];
+                double distanceSquared = dx * dx + dy * dy;
+                if (body[cell] != SPLIT || width[cell] * width[cell] < THETA * THETA * distanceSquared) {
+                    double cellMass = body[cell] == CROWDED && distanceSquared < 1e-18 ? mass[cell] - 1 : mass[cell];
+                    if (distanceSquared < 1e-18) {
+                        // vertices at the same position are pushed apart in a direction picked by their ids
+                        dx = Math.cos(vertex);
+                        dy = Math.sin(vertex);
+                        distanceSquared = 1;
+                    }
+                    forceX += cellMass * dx / distanceSquared;
+                    forceY += cellMass * dy / distanceSquared;
+                } else {
+                    for (int quadrant = 0; quadrant < 4; quadrant++) {
+                        int child = children[cell * 4 + quadrant];
+                        if (child != 0) {
+                            stack[top++] = child;
+                        }
+                    }
+                }
+            }
+            force[0] = forceX;
+            force[1] = forceY;
+        }
+    }
+}
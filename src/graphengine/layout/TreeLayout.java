@@ -0,0 +1,53 @@
+package graphengine.layout;
+
+/**
+ * Lays out a forest level by level. Every leaf gets a column of its own, a parent is centered over the columns
+ * of its children, and every level sits one unit below the level above it, so the layout takes two passes
+ * over the vertices and never overlaps two subtrees.
+ */
+public class TreeLayout {
+
+    /**
+     * Lays out a forest whose parents always come before their children
+     *
+     * @param parents   the index of the parent of each vertex, or -1 for a root
+     * @param count     the number of vertices
+     * @return the x coordinate of vertex i at index 2i and its y coordinate at index 2i + 1
+     * @throws IllegalArgumentException if a parent does not come before its child
+     */
+    public static double[] layout(int[] parents, int count) {
+        // the number of columns of each subtree, found bottom up since children come after their parents
+        int[] width = new int[count];
+        for (int vertex = count - 1; vertex >= 0; vertex--) {
+            if (parents[vertex] >= vertex) {
+                throw new IllegalArgumentException("A Parent Must Come Before Its Child");
+            }
+            if (width[vertex] == 0) {
+                width[vertex] = 1;
+            }
+            if (parents[vertex] >= 0) {
+                width[parents[vertex]] += width[vertex];
+            }
+        }
+        // hand each subtree the next free columns of its parent, top down
+        double[] positions = new double[count * 2];
+        int[] nextColumn = new int[count];
+        int nextRootColumn = 0;
+        for (int vertex = 0; vertex < count; vertex++) {
+            int parent = parents[vertex];
+            int left;
+            if (parent < 0) {
+                left = nextRootColumn;
+                nextRootColumn += width[vertex];
+                positions[vertex * 2 + 1] = 0;
+            } else {
+                left = nextColumn[parent];
+                nextColumn[parent] += width[vertex];
+                positions[vertex * 2 + 1] = positions[parent * 2 + 1] - 1;
+            }
+            nextColumn[vertex] = left;
+            positions[vertex * 2] = left + width[vertex] / 2.0;
+        }
+        return positions;
+    }
+}
@@ -0,0 +1,115 @@
+package graphengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the arena hands freed blocks out again, zeroed, and that an off-heap graph equals an on-heap
+ * graph that gets the same changes
+ */
+class AdjacencyArenaTest {
+    private static final int VERTICES = 200;
+
+    @Test
+    void freedBlocksComeBackZeroed() {
+        AdjacencyArena arena = new AdjacencyArena();
+        long first = arena.allocate(16);
+        long second = arena.allocate(16);
+        for (int i = 0; i < 16; i++) {
+            arena.set(first, i, i + 1);
+            arena.set(second, i, -1);
+        }
+        arena.free(first, 16);
+        assertEquals(16 * 4, arena.getUsedBytes());
+        long reused = arena.allocate(16);
+        assertEquals(first, reused);
+        for (int i = 0; i < 16; i++) {
+            assertEquals(0, arena.get(reused, i));
+            // the neighboring block is left alone
+            assertEquals(-1, arena.get(second, i));
+        }
+        assertEquals(32 * 4, arena.getUsedBytes());
+    }
+
+    @Test
+    void blocksDoNotOverlap() {
+        Random random = new Random(22);
+        AdjacencyArena arena = new AdjacencyArena();
+        Set<Long> live = new HashSet<>();
+        long[] handles = new long[2000];
+        int[] sizes = new int[handles.length];
+        for (int round = 0; round < 10_000; round++) {
+            int block = random.nextInt(handles.length);
+            if (sizes[block] > 0) {
+                // the block still holds what was written into it
+                for (int i = 0; i < sizes[block]; i++) {
+                    assertEquals(block, arena.get(handles[block], i));
+                }
+                arena.free(handles[block], sizes[block]);
+                live.remove(handles[block]);
+                sizes[block] = 0;
+            } else {
+                // mostly small blocks with the odd large one, so chunks fill up and their tails get split
+                sizes[block] = 1 << (random.nextInt(50) == 0 ? 12 + random.nextInt(8) : random.nextInt(8));
+                handles[block] = arena.allocate(sizes[block]);
+                assertTrue(live.add(handles[block]));
+                for (int i = 0; i < sizes[block]; i++) {
+                    assertEquals(0, arena.get(handles[block], i));
+                    arena.set(handles[block], i, block);
+                }
+            }
+        }
+        long used = 0;
+        for (int size : sizes) {
+            used += 4L * size;
+        }
+        assertEquals(used, arena.getUsedBytes());
+        assertTrue(arena.getReservedBytes() >= used);
+    }
+
+    @Test
+    void offHeapGraphMatchesOnHeapGraph() {
+        Random random = new Random(23);
+        Graph onHeap = new Graph();
+        Graph offHeap = Graph.offHeap();
+        assertTrue(offHeap.isOffHeap());
+        assertFalse(onHeap.isOffHeap());
+        for (int change = 0; change < 20_000; change++) {
+            String vertex1 = "v" + random.nextInt(VERTICES);
+            String vertex2 = "v" + random.nextInt(VERTICES);
+            Character tieStrength = random.nextBoolean() ? 'S' : 'W';
+            int operation = random.nextInt(100);
+            for (Graph graph : new Graph[] {onHeap, offHeap}) {
+                if (vertex1.equals(vertex2)) {
+                    graph.addVertex(vertex1);
+                } else if (operation < 50) {
+                    graph.addDirectedEdge(vertex1, vertex2, tieStrength);
+                } else if (operation < 75) {
+                    graph.addUndirectedEdge(vertex1, vertex2, tieStrength);
+                } else if (!graph.hasVertex(vertex1) || !graph.hasVertex(vertex2)) {
+                    graph.addVertex(vertex2);
+                } else if (operation < 90) {
+                    graph.deleteDirectedEdge(vertex1, vertex2);
+                } else if (operation < 99) {
+                    graph.deleteVertex(vertex1);
+                } else {
+                    graph.reset();
+                }
+            }
+            if (change % 1000 == 0) {
+                GraphAssert.assertSameGraph(onHeap, offHeap);
+            }
+        }
+        GraphAssert.assertSameGraph(onHeap, offHeap);
+        GraphAssert.assertSameGraph(onHeap.transpose(), offHeap.transpose());
+        assertTrue(offHeap.getOffHeapBytes() > 0);
+        assertEquals(0, onHeap.getOffHeapBytes());
+    }
+}
@@ -0,0 +1,133 @@
+package graphengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the open-addressing adjacency map against a HashMap that gets the same changes
+ */
+class AdjacencyMapTest {
+    // the tie strengths the entries use, including ones that are neither strong nor weak
+    private static final Character[] TIE_STRENGTHS = {'S', 'W', null, 'X'};
+
+    @Test
+    void matchesHashMap() {
+        matchesHashMap(null);
+    }
+
+    @Test
+    void matchesHashMapOffHeap() {
+        matchesHashMap(new AdjacencyArena());
+    }
+
+    @Test
+    void shrinksAfterRemovals() {
+        shrinksAfterRemovals(null);
+    }
+
+    @Test
+    void shrinksAfterRemovalsOffHeap() {
+        AdjacencyArena arena = new AdjacencyArena();
+        shrinksAfterRemovals(arena);
+        // the map is empty again, so it holds no block
+        assertEquals(0, arena.getUsedBytes());
+    }
+
+    @Test
+    void rejectsIdsThatDoNotFit() {
+        AdjacencyMap map = new AdjacencyMap(null);
+        assertThrows(IllegalArgumentException.class, () -> map.put(-1, 'S'));
+        assertThrows(IllegalArgumentException.class, () -> map.put(1 << 29, 'S'));
+        map.put((1 << 29) - 2, 'S');
+        assertEquals(Character.valueOf('S'), map.get((1 << 29) - 2));
+    }
+
+    /**
+     * Makes random changes to an adjacency map and a HashMap and compares them
+     *
+     * @param arena     the arena to keep the table in, or null to keep it in an array
+     */
+    private static void matchesHashMap(AdjacencyArena arena) {
+        Random random = new Random(21);
+        for (int round = 0; round < 200; round++) {
+            AdjacencyMap map = new AdjacencyMap(arena);
+            Map<Integer, Character> expected = new HashMap<>();
+            // a small id range keeps the probe runs long, so removals have entries to shift back
+            int ids = 1 + random.nextInt(round % 2 == 0 ? 64 : 100_000);
+            for (int change = 0; change < 500; change++) {
+                int id = random.nextInt(ids);
+                if (random.nextInt(3) == 0) {
+                    assertEquals(expected.containsKey(id), map.remove(id));
+                    expected.remove(id);
+                } else {
+                    Character tieStrength = TIE_STRENGTHS[random.nextInt(TIE_STRENGTHS.length)];
+                    map.put(id, tieStrength);
+                    expected.put(id, tieStrength);
+                }
+                if (change % 50 == 0) {
+                    assertSameEntries(expected, map);
+                }
+            }
+            assertSameEntries(expected, map);
+        }
+    }
+
+    /**
+     * Fills an adjacency map and removes almost everything again, so its table shrinks step by step
+     *
+     * @param arena     the arena to keep the table in, or null to keep it in an array
+     */
+    private static void shrinksAfterRemovals(AdjacencyArena arena) {
+        AdjacencyMap map = new AdjacencyMap(arena);
+        Map<Integer, Character> expected = new HashMap<>();
+        for (int id = 0; id < 10_000; id++) {
+            map.put(id, id % 2 == 0 ? 'S' : 'X');
+            expected.put(id, id % 2 == 0 ? 'S' : 'X');
+        }
+        // every removal may shrink the table and rehash what is left
+        for (int id = 0; id < 10_000; id++) {
+            if (id % 1000 != 7) {
+                map.remove(id);
+                expected.remove(id);
+            }
+            if (id % 997 == 0) {
+                assertSameEntries(expected, map);
+            }
+        }
+        assertSameEntries(expected, map);
+        for (int id = 7; id < 10_000; id += 1000) {
+            map.remove(id);
+        }
+        assertEquals(0, map.size());
+        assertEquals(-1, map.nextSlot(-1));
+        map.put(3, 'W');
+        assertEquals(Character.valueOf('W'), map.get(3));
+        assertTrue(map.remove(3));
+    }
+
+    /**
+     * Asserts that the map holds the same entries as the expected map, both by lookup and by walking the slots
+     *
+     * @param expected  the expected entries
+     * @param map       the adjacency map
+     */
+    private static void assertSameEntries(Map<Integer, Character> expected, AdjacencyMap map) {
+        assertEquals(expected.size(), map.size());
+        Map<Integer, Character> walked = new HashMap<>();
+        for (int slot = map.nextSlot(-1); slot >= 0; slot = map.nextSlot(slot)) {
+            walked.put(map.getIdAt(slot), map.getTieStrengthAt(slot));
+        }
+        assertEquals(expected, walked);
+        for (Map.Entry<Integer, Character> entry : expected.entrySet()) {
+            assertTrue(map.contains(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+    }
+}
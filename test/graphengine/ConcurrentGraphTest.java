@@ -0,0 +1,144 @@
+package graphengine;
+
+import graphengine.algorithms.IdentifySTC;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks a concurrent graph changed by several writers at once against a plain graph that gets the same
+ * changes one writer after the other. Each writer owns its own pairs of vertices, so the outcome does not
+ * depend on how the writers interleave.
+ */
+class ConcurrentGraphTest {
+    private static final int WRITERS = 8;
+    private static final int VERTICES = 300;
+    private static final int CHANGES = 20_000;
+
+    @Test
+    void writersMatchSequentialChanges() throws Exception {
+        assertWritersMatch(new ConcurrentGraph(), false);
+    }
+
+    @Test
+    void offHeapWritersMatchSequentialChanges() throws Exception {
+        assertWritersMatch(ConcurrentGraph.offHeap(), false);
+    }
+
+    @Test
+    void writersKeepTheSTCIndex() throws Exception {
+        ConcurrentGraph graph = new ConcurrentGraph();
+        graph.getSatisfyingSTC();
+        assertWritersMatch(graph, true);
+        LinkedList<String>[] expected = IdentifySTC.identifySTC(graph.freeze());
+        assertEquals(new HashSet<>(expected[0]), graph.getSatisfyingSTC());
+        assertEquals(new HashSet<>(expected[1]), graph.getViolatingSTC());
+    }
+
+    /**
+     * Runs the writers on a concurrent graph, freezing it while they run, and compares the result with the
+     * same changes made to a plain graph
+     *
+     * @param graph         the concurrent graph
+     * @param stcIndexed    true if the graph keeps an STC index, which the plain graph then keeps too
+     * @throws Exception if a writer fails
+     */
+    private static void assertWritersMatch(ConcurrentGraph graph, boolean stcIndexed) throws Exception {
+        Graph expected = new Graph();
+        if (stcIndexed) {
+            expected.getSatisfyingSTC();
+        }
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            graph.addVertex("v" + vertex);
+            expected.addVertex("v" + vertex);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS + 1);
+        try {
+            List<Future<?>> writers = new ArrayList<>();
+            for (int writer = 0; writer < WRITERS; writer++) {
+                int owner = writer;
+                writers.add(executor.submit(() -> applyChanges(graph, owner)));
+            }
+            // snapshots taken mid-ingest must still be consistent graphs
+            Future<?> reader = executor.submit(() -> {
+                for (int snapshot = 0; snapshot < 20; snapshot++) {
+                    assertConsistent(graph.freeze());
+                }
+            });
+            for (Future<?> writer : writers) {
+                writer.get();
+            }
+            reader.get();
+        } catch (ExecutionException e) {
+            throw (Exception) e.getCause();
+        } finally {
+            executor.shutdown();
+        }
+        for (int writer = 0; writer < WRITERS; writer++) {
+            applyChanges(expected, writer);
+        }
+        GraphAssert.assertSameGraph(expected, graph);
+        for (int vertex = 0; vertex < VERTICES; vertex++) {
+            assertEquals(expected.getInNeighbors("v" + vertex), graph.getInNeighbors("v" + vertex));
+        }
+    }
+
+    /**
+     * Makes the random changes of one writer, which only touch the pairs of vertices the writer owns
+     *
+     * @param graph     the graph to change
+     * @param owner     the writer
+     */
+    private static void applyChanges(Graph graph, int owner) {
+        Random random = new Random(owner);
+        for (int change = 0; change < CHANGES; change++) {
+            int vertex1 = random.nextInt(VERTICES);
+            int vertex2 = random.nextInt(VERTICES);
+            int pair = Math.min(vertex1, vertex2) * 31 + Math.max(vertex1, vertex2);
+            if (vertex1 == vertex2 || pair % WRITERS != owner) {
+                continue;
+            }
+            Character tieStrength = random.nextBoolean() ? 'S' : 'W';
+            int operation = random.nextInt(10);
+            if (operation < 4) {
+                graph.addDirectedEdge("v" + vertex1, "v" + vertex2, tieStrength);
+            } else if (operation < 7) {
+                graph.addUndirectedEdge("v" + vertex1, "v" + vertex2, tieStrength);
+            } else if (operation < 9) {
+                graph.deleteDirectedEdge("v" + vertex1, "v" + vertex2);
+            } else {
+                graph.deleteUndirectedEdge("v" + vertex1, "v" + vertex2);
+            }
+        }
+    }
+
+    /**
+     * Asserts that a snapshot has every vertex and that each of its edges ends at a vertex of the snapshot
+     *
+     * @param snapshot  the frozen graph
+     */
+    private static void assertConsistent(CompactGraph snapshot) {
+        assertEquals(VERTICES, snapshot.getSize());
+        Set<Integer> targets = new HashSet<>();
+        for (int vertex = 0; vertex < snapshot.getSize(); vertex++) {
+            targets.clear();
+            for (int edge = snapshot.getEdgeStart(vertex); edge < snapshot.getEdgeEnd(vertex); edge++) {
+                int target = snapshot.getTarget(edge);
+                assertTrue(target >= 0 && target < VERTICES && target != vertex);
+                assertTrue(targets.add(target));
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package graphengine;
+
+import graphengine.algorithms.TopologicalSort;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the topological order a graph keeps up to date against Kahn's algorithm run on an untracked copy
+ * that gets the same changes
+ */
+class DynamicTopologicalOrderTest {
+    private static final int VERTICES = 30;
+
+    @Test
+    void trackedOrderAgreesWithKahn() {
+        Random random = new Random(2);
+        for (int round = 0; round < 20; round++) {
+            Graph tracked = new Graph();
+            Graph plain = new Graph();
+            for (int vertex = 0; vertex < VERTICES; vertex++) {
+                tracked.addVertex("v" + vertex);
+                plain.addVertex("v" + vertex);
+            }
+            tracked.trackTopologicalOrder();
+            for (int change = 0; change < 300; change++) {
+                String vertex1 = "v" + random.nextInt(VERTICES);
+                String vertex2 = "v" + random.nextInt(VERTICES);
+                if (vertex1.equals(vertex2)) {
+                    continue;
+                }
+                if (random.nextInt(5) == 0) {
+                    assertEquals(plain.deleteDirectedEdge(vertex1, vertex2),
+                            tracked.deleteDirectedEdge(vertex1, vertex2));
+                    continue;
+                }
+                boolean added = plain.addDirectedEdge(vertex1, vertex2, 'W');
+                try {
+                    assertEquals(added, tracked.addDirectedEdge(vertex1, vertex2, 'W'));
+                } catch (CycleException exception) {
+                    // the tracked graph rejected the edge, so Kahn's algorithm must find a cycle with it too
+                    assertTrue(added);
+                    assertThrows(CycleException.class, () -> TopologicalSort.runTopologicalSort(plain.freeze()));
+                    plain.deleteDirectedEdge(vertex1, vertex2);
+                }
+                if (change % 25 == 0) {
+                    assertValidOrder(tracked);
+                    TopologicalSort.runTopologicalSort(plain.freeze());
+                }
+            }
+            GraphAssert.assertSameGraph(plain, tracked);
+            assertValidOrder(tracked);
+        }
+    }
+
+    @Test
+    void deletedVertexLeavesTheOrder() {
+        Graph graph = new Graph();
+        graph.trackTopologicalOrder();
+        graph.addDirectedEdge("a", "b", 'W');
+        graph.addDirectedEdge("b", "c", 'W');
+        graph.deleteVertex("b");
+        assertThrows(CycleException.class, () -> graph.addUndirectedEdge("a", "c", 'W'));
+        graph.addDirectedEdge("c", "a", 'W');
+        assertEquals(2, graph.getTopologicalOrder().size());
+        assertValidOrder(graph);
+    }
+
+    /**
+     * Asserts that the tracked order of a graph holds every vertex once and puts every edge forward
+     *
+     * @param graph     the graph
+     */
+    private static void assertValidOrder(Graph graph) {
+        LinkedList<String> order = graph.getTopologicalOrder();
+        Map<String, Integer> positions = new HashMap<>();
+        for (String vertex : order) {
+            positions.put(vertex, positions.size());
+        }
+        assertEquals(graph.getSize(), order.size());
+        assertEquals(graph.getVertices(), positions.keySet());
+        CompactGraph frozen = graph.freeze();
+        for (int vertex = 0; vertex < frozen.getSize(); vertex++) {
+            for (int edge = frozen.getEdgeStart(vertex); edge < frozen.getEdgeEnd(vertex); edge++) {
+                String target = frozen.getLabel(frozen.getTarget(edge));
+                assertTrue(positions.get(frozen.getLabel(vertex)) < positions.get(target),
+                        frozen.getLabel(vertex) + " -> " + target);
+            }
+        }
+    }
+}
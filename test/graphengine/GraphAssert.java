@@ -0,0 +1,67 @@
+package graphengine;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares graphs by their labels, so graphs that number their vertices differently still compare equal
+ */
+public final class GraphAssert {
+    private GraphAssert() {
+    }
+
+    /**
+     * Asserts that two compact graphs have the same vertices and the same edges with the same tie strengths
+     *
+     * @param expected  the expected graph
+     * @param actual    the actual graph
+     */
+    public static void assertSameGraph(CompactGraph expected, CompactGraph actual) {
+        assertEquals(vertices(expected), vertices(actual));
+        assertEquals(edges(expected), edges(actual));
+    }
+
+    /**
+     * Asserts that two graphs have the same vertices and the same edges with the same tie strengths
+     *
+     * @param expected  the expected graph
+     * @param actual    the actual graph
+     */
+    public static void assertSameGraph(Graph expected, Graph actual) {
+        assertSameGraph(expected.freeze(), actual.freeze());
+    }
+
+    /**
+     * Returns the labels of the vertices of a compact graph
+     *
+     * @param graph     the compact graph
+     * @return sorted labels
+     */
+    public static TreeSet<String> vertices(CompactGraph graph) {
+        TreeSet<String> vertices = new TreeSet<>();
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+            vertices.add(graph.getLabel(vertex));
+        }
+        return vertices;
+    }
+
+    /**
+     * Returns the edges of a compact graph as "source -> target" and their exact tie strengths
+     *
+     * @param graph     the compact graph
+     * @return the tie strength of each edge, which may be null
+     */
+    public static Map<String, Character> edges(CompactGraph graph) {
+        Map<String, Character> edges = new HashMap<>();
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+            for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                edges.put(graph.getLabel(vertex) + " -> " + graph.getLabel(graph.getTarget(edge)),
+                        graph.getExactTieStrength(edge));
+            }
+        }
+        return edges;
+    }
+}
@@ -0,0 +1,119 @@
+package graphengine;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Checks that a graph reopened from its journal, with or without compactions in between, equals a graph that
+ * got the same changes without a journal
+ */
+class GraphJournalTest {
+    private static final int VERTICES = 40;
+
+    // the tie strengths the changes use, including ones that are neither strong nor weak
+    private static final Character[] TIE_STRENGTHS = {'S', 'W', null, 'X'};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replayRestoresTheGraph() throws IOException {
+        Random random = new Random(3);
+        Graph expected = new Graph();
+        for (int session = 0; session < 5; session++) {
+            try (GraphJournal journal = open()) {
+                GraphAssert.assertSameGraph(expected, journal.getGraph());
+                for (int change = 0; change < 500; change++) {
+                    applyRandomChange(random, expected, journal.getGraph());
+                }
+            }
+        }
+        try (GraphJournal journal = open()) {
+            GraphAssert.assertSameGraph(expected, journal.getGraph());
+        }
+    }
+
+    @Test
+    void compactionRestoresTheGraph() throws IOException {
+        Random random = new Random(4);
+        Graph expected = new Graph();
+        for (int session = 0; session < 5; session++) {
+            try (GraphJournal journal = open()) {
+                GraphAssert.assertSameGraph(expected, journal.getGraph());
+                for (int change = 0; change < 500; change++) {
+                    applyRandomChange(random, expected, journal.getGraph());
+                    if (change % 200 == 199) {
+                        journal.compact();
+                    }
+                }
+            }
+        }
+        try (GraphJournal journal = open()) {
+            GraphAssert.assertSameGraph(expected, journal.getGraph());
+            journal.compact();
+        }
+        try (GraphJournal journal = open()) {
+            GraphAssert.assertSameGraph(expected, journal.getGraph());
+        }
+    }
+
+    @Test
+    void compactionThresholdRestoresTheGraph() throws IOException {
+        Random random = new Random(5);
+        Graph expected = new Graph();
+        try (GraphJournal journal = GraphJournal.open(directory, 8, 0, 2048)) {
+            for (int change = 0; change < 2000; change++) {
+                applyRandomChange(random, expected, journal.getGraph());
+            }
+        }
+        try (GraphJournal journal = open()) {
+            GraphAssert.assertSameGraph(expected, journal.getGraph());
+        }
+    }
+
+    /**
+     * Opens the journal without a background flusher, so only full batches, syncs and closes write records
+     *
+     * @return the journal
+     * @throws IOException if the files can not be read or written
+     */
+    private GraphJournal open() throws IOException {
+        return GraphJournal.open(directory, 64, 0, GraphJournal.DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    /**
+     * Makes the same random change to two graphs
+     *
+     * @param random    the random source
+     * @param graphs    the graphs to change
+     */
+    private static void applyRandomChange(Random random, Graph... graphs) {
+        String vertex1 = "v" + random.nextInt(VERTICES);
+        String vertex2 = "v" + random.nextInt(VERTICES);
+        Character tieStrength = TIE_STRENGTHS[random.nextInt(TIE_STRENGTHS.length)];
+        int operation = random.nextInt(100);
+        for (Graph graph : graphs) {
+            if (operation == 0) {
+                graph.reset();
+            } else if (vertex1.equals(vertex2) || operation < 10) {
+                graph.addVertex(vertex1);
+            } else if (operation < 45) {
+                graph.addDirectedEdge(vertex1, vertex2, tieStrength);
+            } else if (operation < 70) {
+                graph.addUndirectedEdge(vertex1, vertex2, tieStrength);
+            } else if (!graph.hasVertex(vertex1) || !graph.hasVertex(vertex2)) {
+                graph.addVertex(vertex2);
+            } else if (operation < 80) {
+                graph.deleteDirectedEdge(vertex1, vertex2);
+            } else if (operation < 90) {
+                graph.deleteUndirectedEdge(vertex1, vertex2);
+            } else {
+                graph.deleteVertex(vertex1);
+            }
+        }
+    }
+}
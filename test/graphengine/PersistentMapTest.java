@@ -0,0 +1,140 @@
+package graphengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the persistent hash trie against a HashMap, and that older maps are left unchanged by later changes
+ */
+class PersistentMapTest {
+    @Test
+    void matchesHashMap() {
+        Random random = new Random(24);
+        for (int round = 0; round < 50; round++) {
+            // a small key range makes many removals hit, a large one makes the trie deep
+            int keys = round % 2 == 0 ? 50 : 100_000;
+            PersistentMap<Integer, String> map = PersistentMap.empty();
+            Map<Integer, String> expected = new HashMap<>();
+            for (int change = 0; change < 2000; change++) {
+                int key = random.nextInt(keys);
+                if (random.nextInt(3) == 0) {
+                    map = map.remove(key);
+                    expected.remove(key);
+                } else {
+                    String value = random.nextInt(10) == 0 ? null : "value" + random.nextInt(5);
+                    map = map.put(key, value);
+                    expected.put(key, value);
+                }
+            }
+            assertSameEntries(expected, map);
+        }
+    }
+
+    @Test
+    void olderMapsDoNotChange() {
+        Random random = new Random(25);
+        PersistentMap<Integer, Integer> map = PersistentMap.empty();
+        Map<Integer, Integer> expected = new HashMap<>();
+        List<PersistentMap<Integer, Integer>> versions = new ArrayList<>();
+        List<Map<Integer, Integer>> expectedVersions = new ArrayList<>();
+        for (int change = 0; change < 5000; change++) {
+            int key = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, change);
+                expected.put(key, change);
+            }
+            if (change % 250 == 0) {
+                versions.add(map);
+                expectedVersions.add(new HashMap<>(expected));
+            }
+        }
+        for (int version = 0; version < versions.size(); version++) {
+            assertSameEntries(expectedVersions.get(version), versions.get(version));
+        }
+    }
+
+    @Test
+    void collidingKeysShareANode() {
+        Random random = new Random(26);
+        PersistentMap<Colliding, Integer> map = PersistentMap.empty();
+        Map<Colliding, Integer> expected = new HashMap<>();
+        PersistentMap<Colliding, Integer> before = map;
+        for (int change = 0; change < 3000; change++) {
+            Colliding key = new Colliding(random.nextInt(40));
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.containsKey(key), map.containsKey(key));
+                map = map.remove(key);
+                expected.remove(key);
+            } else {
+                map = map.put(key, change);
+                expected.put(key, change);
+            }
+            if (change == 1500) {
+                before = map;
+                assertSameEntries(expected, before);
+            }
+        }
+        assertSameEntries(expected, map);
+        assertFalse(map.containsKey(new Colliding(40)));
+        assertTrue(before.size() > 0);
+    }
+
+    /**
+     * Asserts that a persistent map holds the same entries as the expected map, by lookup, by forEach and by
+     * walking its keys
+     *
+     * @param expected  the expected entries
+     * @param map       the persistent map
+     */
+    private static <K, V> void assertSameEntries(Map<K, V> expected, PersistentMap<K, V> map) {
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<K, V> entry : expected.entrySet()) {
+            assertTrue(map.containsKey(entry.getKey()));
+            assertEquals(entry.getValue(), map.get(entry.getKey()));
+        }
+        Map<K, V> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+        Set<K> walked = new HashSet<>();
+        for (Iterator<K> keys = map.keyIterator(); keys.hasNext(); ) {
+            assertTrue(walked.add(keys.next()));
+        }
+        assertEquals(expected.keySet(), walked);
+    }
+
+    /**
+     * A key whose hash only takes four values, so most keys collide in all 32 bits
+     */
+    private static final class Colliding {
+        private final int value;
+
+        Colliding(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Colliding && ((Colliding) o).value == value;
+        }
+
+        @Override
+        public int hashCode() {
+            return value % 4;
+        }
+    }
+}
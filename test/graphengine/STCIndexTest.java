@@ -0,0 +1,92 @@
+package graphengine;
+
+import graphengine.algorithms.IdentifySTC;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the STC index a graph keeps up to date against IdentifySTC run from scratch on a frozen copy
+ */
+class STCIndexTest {
+    private static final int VERTICES = 12;
+
+    @Test
+    void indexMatchesIdentifySTCAfterRandomChanges() {
+        Random random = new Random(1);
+        for (int round = 0; round < 100; round++) {
+            Graph graph = new Graph();
+            graph.getSatisfyingSTC();
+            for (int change = 0; change < 80; change++) {
+                applyRandomChange(graph, random);
+                if (change % 10 == 9) {
+                    assertIndexMatches(graph);
+                }
+            }
+            assertTrue(graph.isIndexingSTC());
+            assertIndexMatches(graph);
+        }
+    }
+
+    @Test
+    void identifySTCAnswersFromTheIndex() {
+        Graph graph = new Graph();
+        graph.addUndirectedEdge("a", "b", 'S');
+        graph.addUndirectedEdge("a", "c", 'S');
+        graph.getSatisfyingSTC();
+        LinkedList<String>[] results = IdentifySTC.identifySTC(graph);
+        assertEquals(graph.getSatisfyingSTC(), new HashSet<>(results[0]));
+        assertEquals(graph.getViolatingSTC(), new HashSet<>(results[1]));
+        assertTrue(results[1].contains("a"));
+
+        // closing the triangle fixes the violation, which the index sees without running again
+        graph.addUndirectedEdge("b", "c", 'W');
+        results = IdentifySTC.identifySTC(graph);
+        assertTrue(results[0].contains("a"));
+        assertTrue(results[1].isEmpty());
+    }
+
+    /**
+     * Adds or deletes a random vertex or edge, skipping changes the graph rejects
+     *
+     * @param graph     the graph to change
+     * @param random    the random source
+     */
+    private static void applyRandomChange(Graph graph, Random random) {
+        String vertex1 = "v" + random.nextInt(VERTICES);
+        String vertex2 = "v" + random.nextInt(VERTICES);
+        Character tieStrength = random.nextBoolean() ? 'S' : 'W';
+        int operation = random.nextInt(10);
+        if (vertex1.equals(vertex2)) {
+            graph.addVertex(vertex1);
+        } else if (operation < 4) {
+            graph.addUndirectedEdge(vertex1, vertex2, tieStrength);
+        } else if (operation < 7) {
+            graph.addDirectedEdge(vertex1, vertex2, tieStrength);
+        } else if (!graph.hasVertex(vertex1) || !graph.hasVertex(vertex2)) {
+            graph.addVertex(vertex1);
+        } else if (operation == 7) {
+            graph.deleteUndirectedEdge(vertex1, vertex2);
+        } else if (operation == 8) {
+            graph.deleteDirectedEdge(vertex1, vertex2);
+        } else {
+            graph.deleteVertex(vertex1);
+        }
+    }
+
+    /**
+     * Asserts that the index of a graph holds the same vertices IdentifySTC finds in a frozen copy
+     *
+     * @param graph     the graph
+     */
+    private static void assertIndexMatches(Graph graph) {
+        LinkedList<String>[] expected = IdentifySTC.identifySTC(graph.freeze());
+        assertEquals(new HashSet<>(expected[0]), graph.getSatisfyingSTC());
+        assertEquals(new HashSet<>(expected[1]), graph.getViolatingSTC());
+    }
+}
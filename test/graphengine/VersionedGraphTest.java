@@ -0,0 +1,168 @@
+package graphengine;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks a versioned graph against a graph that gets the same changes, and that a pinned snapshot keeps
+ * reading the graph as it was when it was pinned
+ */
+class VersionedGraphTest {
+    private static final int VERTICES = 40;
+
+    @Test
+    void snapshotsKeepTheirVersion() {
+        Random random = new Random(27);
+        VersionedGraph versioned = new VersionedGraph();
+        Graph expected = new Graph();
+        List<VersionedGraph.Snapshot> snapshots = new ArrayList<>();
+        List<CompactGraph> expectedSnapshots = new ArrayList<>();
+        for (int change = 0; change < 5000; change++) {
+            applyRandomChange(random, versioned, expected);
+            assertEquals(expected.getSize(), versioned.getSize());
+            if (change % 500 == 0) {
+                snapshots.add(versioned.pin());
+                expectedSnapshots.add(expected.freeze());
+            }
+        }
+        try (VersionedGraph.Snapshot latest = versioned.pin()) {
+            GraphAssert.assertSameGraph(expected.freeze(), latest.freeze());
+            assertEquals(expected.freeze().getEdgeCount(), latest.getEdgeCount());
+            CompactGraph frozen = expected.freeze();
+            for (String vertex : expected.getVertices()) {
+                assertEquals(frozen.getOutDegree(frozen.getId(vertex)), latest.getNeighbors(vertex).size());
+                for (String neighbor : latest.getNeighbors(vertex)) {
+                    assertTrue(expected.hasDirectedEdge(vertex, neighbor));
+                    assertEquals(expected.getTieStrength(vertex, neighbor), latest.getTieStrength(vertex, neighbor));
+                }
+                assertEquals(expected.getInNeighbors(vertex), latest.getInNeighbors(vertex));
+            }
+        }
+        for (int snapshot = 0; snapshot < snapshots.size(); snapshot++) {
+            GraphAssert.assertSameGraph(expectedSnapshots.get(snapshot), snapshots.get(snapshot).freeze());
+            assertEquals(expectedSnapshots.get(snapshot).getSize(), snapshots.get(snapshot).getSize());
+        }
+        assertEquals(snapshots.size(), versioned.getPinnedVersionCount());
+        for (VersionedGraph.Snapshot snapshot : snapshots) {
+            snapshot.close();
+            snapshot.close();
+        }
+        assertEquals(0, versioned.getPinnedVersionCount());
+        assertThrows(IllegalStateException.class, () -> snapshots.get(0).freeze());
+    }
+
+    @Test
+    void readersSeeOnlyCommittedVersions() throws InterruptedException {
+        VersionedGraph versioned = new VersionedGraph();
+        Thread writer = new Thread(() -> {
+            for (int vertex = 1; vertex < 20_000; vertex++) {
+                versioned.addUndirectedEdge("v" + (vertex - 1), "v" + vertex, 'S');
+            }
+        });
+        writer.start();
+        // every version is a path with both directions of every edge
+        while (writer.isAlive()) {
+            try (VersionedGraph.Snapshot snapshot = versioned.pin()) {
+                assertEquals(Math.max(0, 2 * (snapshot.getSize() - 1)), snapshot.getEdgeCount());
+                assertEquals(snapshot.getEdgeCount(), snapshot.freeze().getEdgeCount());
+            }
+        }
+        writer.join();
+        assertEquals(20_000, versioned.getSize());
+    }
+
+    @Test
+    void freezeKeepsExactTies() {
+        Character[] ties = {'S', 'W', null, 'X'};
+        Random random = new Random(29);
+        VersionedGraph versioned = new VersionedGraph();
+        Graph expected = new Graph();
+        for (int edge = 0; edge < 500; edge++) {
+            String vertex1 = "v" + random.nextInt(VERTICES);
+            String vertex2 = "v" + random.nextInt(VERTICES);
+            Character tieStrength = ties[random.nextInt(ties.length)];
+            if (!vertex1.equals(vertex2)) {
+                assertEquals(expected.addDirectedEdge(vertex1, vertex2, tieStrength),
+                        versioned.addDirectedEdge(vertex1, vertex2, tieStrength));
+            }
+        }
+        try (VersionedGraph.Snapshot snapshot = versioned.pin()) {
+            GraphAssert.assertSameGraph(expected.freeze(), snapshot.freeze());
+            CompactGraph frozen = snapshot.freeze();
+            for (int vertex = 0; vertex < frozen.getSize(); vertex++) {
+                for (int edge = frozen.getEdgeStart(vertex); edge < frozen.getEdgeEnd(vertex); edge++) {
+                    String vertex1 = frozen.getLabel(vertex);
+                    String vertex2 = frozen.getLabel(frozen.getTarget(edge));
+                    assertEquals(frozen.getExactTieStrength(edge), snapshot.getExactTieStrength(vertex1, vertex2));
+                    Character tieStrength = frozen.getExactTieStrength(edge);
+                    assertEquals(tieStrength != null ? tieStrength : 'W', snapshot.getTieStrength(vertex1, vertex2));
+                }
+            }
+        }
+    }
+
+    @Test
+    void trackedVersionsFollowTheGraph() {
+        Random random = new Random(28);
+        Graph graph = new Graph();
+        VersionedGraph untracked = new VersionedGraph();
+        for (int change = 0; change < 200; change++) {
+            applyRandomChange(random, untracked, graph);
+        }
+        // the copy starts from the edges the graph already has
+        VersionedGraph tracked = graph.trackVersions();
+        for (int change = 0; change < 2000; change++) {
+            applyRandomChange(random, untracked, graph);
+            if (change % 200 == 0) {
+                try (VersionedGraph.Snapshot snapshot = tracked.pin()) {
+                    GraphAssert.assertSameGraph(graph.freeze(), snapshot.freeze());
+                }
+            }
+        }
+        try (VersionedGraph.Snapshot snapshot = tracked.pin()) {
+            GraphAssert.assertSameGraph(graph.freeze(), snapshot.freeze());
+        }
+    }
+
+    /**
+     * Makes the same random change to a versioned graph and a graph, skipping changes the graph rejects
+     *
+     * @param random        the random source
+     * @param versioned     the versioned graph
+     * @param graph         the graph
+     */
+    private static void applyRandomChange(Random random, VersionedGraph versioned, Graph graph) {
+        String vertex1 = "v" + random.nextInt(VERTICES);
+        String vertex2 = "v" + random.nextInt(VERTICES);
+        Character tieStrength = random.nextBoolean() ? 'S' : 'W';
+        int operation = random.nextInt(100);
+        if (operation == 0) {
+            versioned.reset();
+            graph.reset();
+        } else if (vertex1.equals(vertex2) || operation < 10) {
+            assertEquals(graph.addVertex(vertex1), versioned.addVertex(vertex1));
+        } else if (operation < 45) {
+            assertEquals(graph.addDirectedEdge(vertex1, vertex2, tieStrength),
+                    versioned.addDirectedEdge(vertex1, vertex2, tieStrength));
+        } else if (operation < 70) {
+            assertEquals(graph.addUndirectedEdge(vertex1, vertex2, tieStrength),
+                    versioned.addUndirectedEdge(vertex1, vertex2, tieStrength));
+        } else if (!graph.hasVertex(vertex1) || !graph.hasVertex(vertex2)) {
+            assertEquals(graph.addVertex(vertex2), versioned.addVertex(vertex2));
+        } else if (operation < 80) {
+            assertEquals(graph.deleteDirectedEdge(vertex1, vertex2), versioned.deleteDirectedEdge(vertex1, vertex2));
+        } else if (operation < 90) {
+            assertEquals(graph.deleteUndirectedEdge(vertex1, vertex2),
+                    versioned.deleteUndirectedEdge(vertex1, vertex2));
+        } else {
+            assertEquals(graph.deleteVertex(vertex1), versioned.deleteVertex(vertex1));
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the BFS that walks a graph in place against the BFS of its compact snapshot
+ */
+class BFSTest {
+    @Test
+    void graphMatchesCompactGraph() {
+        Random random = new Random(11);
+        for (int round = 0; round < 200; round++) {
+            Graph graph = new Graph();
+            int size = 2 + random.nextInt(40);
+            for (int vertex = 0; vertex < size; vertex++) {
+                graph.addVertex("v" + vertex);
+            }
+            for (int edge = random.nextInt(3 * size); edge > 0; edge--) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                if (from != to) {
+                    graph.addDirectedEdge("v" + from, "v" + to, 'W');
+                }
+            }
+            // leave gaps in the vertex ids
+            graph.deleteVertex("v" + (1 + random.nextInt(size - 1)));
+            TraversalResult result = BFS.traverse(graph, "v0", new TraversalContext());
+            CompactGraph compact = graph.freeze();
+            TraversalResult expected = BFS.traverse(compact, "v0", new TraversalContext());
+
+            assertEquals(graph.getSize(), result.getSize());
+            assertEquals(graph.getIdBound(), result.getIdBound());
+            for (String vertex : graph.getVertices()) {
+                int id = result.getId(vertex);
+                assertEquals(graph.getVertex(vertex).getId(), id);
+                assertEquals(vertex, result.getLabel(id));
+                int parent = result.getParent(id);
+                if (parent < 0) {
+                    assertEquals(0, result.getDepth(id));
+                } else {
+                    assertTrue(graph.hasDirectedEdge(result.getLabel(parent), vertex));
+                    assertEquals(result.getDepth(parent) + 1, result.getDepth(id));
+                }
+            }
+            // the tree of the source has the same depths either way
+            for (String vertex : graph.getVertices()) {
+                int expectedId = expected.getId(vertex);
+                if (isInSourceTree(expected, expectedId)) {
+                    assertEquals(expected.getDepth(expectedId), result.getDepth(result.getId(vertex)));
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a vertex of a BFS forest hangs below the source, which is always the first root
+     *
+     * @param forest        the BFS forest
+     * @param id            vertex id
+     * @return true, if the root of the vertex's tree is the source, false otherwise
+     */
+    private static boolean isInSourceTree(TraversalResult forest, int id) {
+        while (forest.getParent(id) >= 0) {
+            id = forest.getParent(id);
+        }
+        return id == forest.getId("v0");
+    }
+}
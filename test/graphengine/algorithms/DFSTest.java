@@ -0,0 +1,203 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+import graphengine.Vertex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the explicit-stack DFS against a recursive DFS and on paths far deeper than the call stack allows
+ */
+class DFSTest {
+    // deep enough that a recursive DFS overflows the default thread stack
+    private static final int CHAIN_LENGTH = 200_000;
+
+    @Test
+    void deepChainDoesNotOverflow() {
+        TraversalResult result = DFS.traverse(chain(), "v0", new TraversalContext());
+        for (int vertex = 0; vertex < CHAIN_LENGTH; vertex += 997) {
+            assertEquals(vertex + 1, result.getStartTime(result.getId("v" + vertex)));
+            assertEquals(2 * CHAIN_LENGTH - vertex, result.getFinishTime(result.getId("v" + vertex)));
+        }
+    }
+
+    @Test
+    void deepChainDoesNotOverflowOnCompactGraph() {
+        CompactGraph graph = chain().freeze();
+        TraversalResult result = DFS.traverse(graph, "v0", new TraversalContext());
+        for (int vertex = 1; vertex < CHAIN_LENGTH; vertex++) {
+            assertEquals("v" + (vertex - 1), result.getLabel(result.getParent(result.getId("v" + vertex))));
+        }
+        assertEquals(2 * CHAIN_LENGTH, result.getFinishTime(result.getId("v0")));
+    }
+
+    @Test
+    void matchesRecursiveDFS() {
+        Random random = new Random(8);
+        for (int round = 0; round < 200; round++) {
+            Graph graph = new Graph();
+            int size = 1 + random.nextInt(30);
+            for (int vertex = 0; vertex < size; vertex++) {
+                graph.addVertex("v" + vertex);
+            }
+            for (int edge = random.nextInt(3 * size); edge > 0; edge--) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                if (from != to) {
+                    graph.addDirectedEdge("v" + from, "v" + to, 'W');
+                }
+            }
+            CompactGraph compact = graph.freeze();
+            String source = "v" + random.nextInt(size);
+            TraversalResult result = DFS.traverse(compact, source, new TraversalContext());
+
+            Recursive expected = new Recursive(compact);
+            expected.visit(compact.getId(source), -1);
+            for (int vertex = 0; vertex < compact.getSize(); vertex++) {
+                if (expected.startTimes[vertex] == 0) {
+                    expected.visit(vertex, -1);
+                }
+            }
+            for (int vertex = 0; vertex < compact.getSize(); vertex++) {
+                assertEquals(expected.parents[vertex], result.getParent(vertex));
+                assertEquals(expected.startTimes[vertex], result.getStartTime(vertex));
+                assertEquals(expected.finishTimes[vertex], result.getFinishTime(vertex));
+            }
+        }
+    }
+
+    @Test
+    void graphMatchesRecursiveDFS() {
+        Random random = new Random(9);
+        for (int round = 0; round < 200; round++) {
+            Graph graph = new Graph();
+            int size = 2 + random.nextInt(30);
+            for (int vertex = 0; vertex < size; vertex++) {
+                graph.addVertex("v" + vertex);
+            }
+            for (int edge = random.nextInt(3 * size); edge > 0; edge--) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                if (from != to) {
+                    graph.addDirectedEdge("v" + from, "v" + to, 'W');
+                }
+            }
+            // leave gaps in the vertex ids
+            graph.deleteVertex("v" + (1 + random.nextInt(size - 1)));
+            String source = "v0";
+            TraversalResult result = DFS.traverse(graph, source, new TraversalContext());
+
+            RecursiveGraph expected = new RecursiveGraph(graph.getIdBound());
+            expected.visit(graph.getVertex(source), -1);
+            for (String vertex : graph.getVertices()) {
+                if (expected.startTimes[graph.getVertex(vertex).getId()] == 0) {
+                    expected.visit(graph.getVertex(vertex), -1);
+                }
+            }
+            assertEquals(graph.getSize(), result.getSize());
+            for (String vertex : graph.getVertices()) {
+                int id = result.getId(vertex);
+                assertEquals(graph.getVertex(vertex).getId(), id);
+                assertEquals(expected.parents[id], result.getParent(id));
+                assertEquals(expected.startTimes[id], result.getStartTime(id));
+                assertEquals(expected.finishTimes[id], result.getFinishTime(id));
+            }
+        }
+    }
+
+    @Test
+    void forestGraphMatchesResult() {
+        Graph graph = new Graph();
+        graph.addDirectedEdge("a", "b", 'S');
+        graph.addDirectedEdge("a", "c", 'W');
+        graph.addDirectedEdge("c", "d", 'S');
+        graph.addDirectedEdge("e", "d", 'W');
+        TraversalResult result = DFS.traverse(graph, "a", new TraversalContext());
+        Graph forest = result.asForest();
+        assertEquals(graph.getSize(), forest.getSize());
+        for (String vertex : graph.getVertices()) {
+            int id = result.getId(vertex);
+            int parent = result.getParent(id);
+            assertEquals(parent < 0 ? 0 : 1, forest.getVertex(vertex).getInDegree());
+            if (parent >= 0) {
+                assertTrue(forest.hasDirectedEdge(result.getLabel(parent), vertex));
+            }
+            assertEquals(result.getStartTime(id), forest.getVertex(vertex).getStartTime());
+            assertEquals(result.getFinishTime(id), forest.getVertex(vertex).getFinishTime());
+        }
+    }
+
+    /**
+     * Builds a path v0 -> v1 -> ... through CHAIN_LENGTH vertices
+     *
+     * @return the graph
+     */
+    private static Graph chain() {
+        Graph graph = new Graph();
+        for (int vertex = 1; vertex < CHAIN_LENGTH; vertex++) {
+            graph.addDirectedEdge("v" + (vertex - 1), "v" + vertex, 'W');
+        }
+        return graph;
+    }
+
+    /**
+     * The textbook recursive DFS over a compact graph, visiting the edges in the same order
+     */
+    private static final class Recursive {
+        final CompactGraph graph;
+        final int[] parents;
+        final int[] startTimes;
+        final int[] finishTimes;
+        int time;
+
+        Recursive(CompactGraph graph) {
+            this.graph = graph;
+            this.parents = new int[graph.getSize()];
+            this.startTimes = new int[graph.getSize()];
+            this.finishTimes = new int[graph.getSize()];
+        }
+
+        void visit(int vertex, int parent) {
+            parents[vertex] = parent;
+            startTimes[vertex] = ++time;
+            for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                if (startTimes[graph.getTarget(edge)] == 0) {
+                    visit(graph.getTarget(edge), vertex);
+                }
+            }
+            finishTimes[vertex] = ++time;
+        }
+    }
+
+    /**
+     * The textbook recursive DFS over the vertex objects of a graph, visiting the edges in slot order
+     */
+    private static final class RecursiveGraph {
+        final int[] parents;
+        final int[] startTimes;
+        final int[] finishTimes;
+        int time;
+
+        RecursiveGraph(int idBound) {
+            this.parents = new int[idBound];
+            this.startTimes = new int[idBound];
+            this.finishTimes = new int[idBound];
+        }
+
+        void visit(Vertex vertex, int parent) {
+            parents[vertex.getId()] = parent;
+            startTimes[vertex.getId()] = ++time;
+            for (int slot = vertex.nextNeighborSlot(-1); slot >= 0; slot = vertex.nextNeighborSlot(slot)) {
+                if (startTimes[vertex.getNeighborAt(slot).getId()] == 0) {
+                    visit(vertex.getNeighborAt(slot), vertex.getId());
+                }
+            }
+            finishTimes[vertex.getId()] = ++time;
+        }
+    }
+}
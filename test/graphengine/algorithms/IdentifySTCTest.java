@@ -0,0 +1,85 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedList;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks the parallel STC check against the definition: a vertex satisfies STC if every two of its strong
+ * ties have an edge between them, in either direction
+ */
+class IdentifySTCTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void matchesDefinition() {
+        Random random = new Random(11);
+        for (int round = 0; round < 40; round++) {
+            // large rounds are split across the pool, small ones have many closed triangles
+            int size = round % 4 == 0 ? 3000 : 5 + random.nextInt(20);
+            Graph graph = new Graph();
+            for (int vertex = 0; vertex < size; vertex++) {
+                graph.addVertex("v" + vertex);
+            }
+            for (int edge = random.nextInt(4 * size); edge > 0; edge--) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                if (from != to) {
+                    if (random.nextBoolean()) {
+                        graph.addUndirectedEdge("v" + from, "v" + to, random.nextBoolean() ? 'S' : 'W');
+                    } else {
+                        graph.addDirectedEdge("v" + from, "v" + to, random.nextBoolean() ? 'S' : 'W');
+                    }
+                }
+            }
+            CompactGraph compact = graph.freeze();
+            LinkedList<String> satisfying = new LinkedList<>();
+            LinkedList<String> violating = new LinkedList<>();
+            for (int vertex = 0; vertex < compact.getSize(); vertex++) {
+                (satisfiesSTC(compact, vertex) ? satisfying : violating).add(compact.getLabel(vertex));
+            }
+            LinkedList<String>[] results = IdentifySTC.identifySTC(compact, pool);
+            assertEquals(satisfying, results[0]);
+            assertEquals(violating, results[1]);
+        }
+    }
+
+    /**
+     * Checks every pair of strong ties of a vertex
+     *
+     * @param graph     the compact graph
+     * @param vertex    the vertex id
+     * @return true, if the vertex satisfies STC, false otherwise
+     */
+    private static boolean satisfiesSTC(CompactGraph graph, int vertex) {
+        for (int edge1 = graph.getEdgeStart(vertex); edge1 < graph.getEdgeEnd(vertex); edge1++) {
+            for (int edge2 = edge1 + 1; edge2 < graph.getEdgeEnd(vertex); edge2++) {
+                int tie1 = graph.getTarget(edge1);
+                int tie2 = graph.getTarget(edge2);
+                if (graph.isStrongTie(edge1) && graph.isStrongTie(edge2)
+                        && !graph.hasDirectedEdge(tie1, tie2) && !graph.hasDirectedEdge(tie2, tie1)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
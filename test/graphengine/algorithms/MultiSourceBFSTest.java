@@ -0,0 +1,90 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks the bit-parallel multi-source BFS against one plain BFS per source
+ */
+class MultiSourceBFSTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void matchesOneBFSPerSource() {
+        Random random = new Random(20);
+        for (int round = 0; round < 20; round++) {
+            int size = 1 + random.nextInt(500);
+            CompactGraph graph = ParallelBFSTest.randomGraph(random, size, random.nextInt(3 * size));
+            // more than two batches, and some sources repeat
+            List<String> sources = new ArrayList<>();
+            for (int source = random.nextInt(200); source > 0; source--) {
+                sources.add(graph.getLabel(random.nextInt(size)));
+            }
+            int[][] distances = MultiSourceBFS.runDistances(graph, sources, pool);
+            int[] counts = MultiSourceBFS.runReachableCounts(graph, sources, pool);
+            assertEquals(sources.size(), distances.length);
+            for (int i = 0; i < sources.size(); i++) {
+                int[] expected = distances(graph, graph.getId(sources.get(i)));
+                assertArrayEquals(expected, distances[i]);
+                assertEquals(Arrays.stream(expected).filter(distance -> distance >= 0).count(), counts[i]);
+            }
+        }
+    }
+
+    @Test
+    void rejectsMissingSources() {
+        CompactGraph graph = ParallelBFSTest.randomGraph(new Random(1), 10, 10);
+        assertThrows(IllegalArgumentException.class,
+                () -> MultiSourceBFS.runReachableCounts(graph, Arrays.asList("v0", "missing"), pool));
+    }
+
+    /**
+     * Runs a plain BFS from one source
+     *
+     * @param graph     the compact graph
+     * @param source    the source vertex id
+     * @return the distance of each vertex id from the source, or UNREACHABLE
+     */
+    private static int[] distances(CompactGraph graph, int source) {
+        int[] distances = new int[graph.getSize()];
+        Arrays.fill(distances, MultiSourceBFS.UNREACHABLE);
+        int[] queue = new int[graph.getSize()];
+        int head = 0;
+        int tail = 0;
+        distances[source] = 0;
+        queue[tail++] = source;
+        while (head < tail) {
+            int vertex = queue[head++];
+            for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                int target = graph.getTarget(edge);
+                if (distances[target] == MultiSourceBFS.UNREACHABLE) {
+                    distances[target] = distances[vertex] + 1;
+                    queue[tail++] = target;
+                }
+            }
+        }
+        return distances;
+    }
+}
@@ -0,0 +1,75 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the parallel BFS against the serial one. The pool has several workers however many processors
+ * there are, so the frontiers really are split up.
+ */
+class ParallelBFSTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void parallelBFSMatchesBFS() {
+        Random random = new Random(10);
+        for (int round = 0; round < 3; round++) {
+            CompactGraph graph = randomGraph(random, 20000, 10 + round * 60000);
+            TraversalResult serial = BFS.traverse(graph, "v0", new TraversalContext());
+            TraversalResult parallel = ParallelBFS.traverse(graph, "v0", pool);
+            assertEquals(serial.getSize(), parallel.getSize());
+            for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+                assertEquals(serial.getDepth(vertex), parallel.getDepth(vertex));
+                // every tree edge is an edge of the graph
+                int parent = parallel.getParent(vertex);
+                if (parent < 0) {
+                    assertEquals(-1, serial.getParent(vertex));
+                } else {
+                    assertTrue(graph.hasDirectedEdge(parent, vertex));
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds a random directed graph
+     *
+     * @param random        the random source
+     * @param vertexCount   the number of vertices
+     * @param edgeCount     the number of edges to try to add
+     * @return compact graph
+     */
+    static CompactGraph randomGraph(Random random, int vertexCount, int edgeCount) {
+        Graph graph = new Graph();
+        for (int vertex = 0; vertex < vertexCount; vertex++) {
+            graph.addVertex("v" + vertex);
+        }
+        for (int edge = 0; edge < edgeCount; edge++) {
+            int from = random.nextInt(vertexCount);
+            int to = random.nextInt(vertexCount);
+            if (from != to) {
+                graph.addDirectedEdge("v" + from, "v" + to, 'W');
+            }
+        }
+        return graph.freeze();
+    }
+}
@@ -0,0 +1,140 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+import graphengine.generators.ErdosRenyiGenerator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the parallel strongly connected components against Tarjan's algorithm and both against the definition.
+ * The pool has several workers however many processors there are, so the tasks really are split up.
+ */
+class StronglyConnectedComponentsTest {
+    private static ForkJoinPool pool;
+
+    @BeforeAll
+    static void startPool() {
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void parallelComponentsMatchTarjan() {
+        for (int seed = 0; seed < 5; seed++) {
+            // about one edge per vertex leaves a large component and many small ones
+            CompactGraph graph = generate(5000, 5000 + seed * 1000, seed);
+            ComponentResult serial = StronglyConnectedComponents.findComponents(graph);
+            ComponentResult parallel = StronglyConnectedComponents.findComponents(graph, pool);
+            assertEquals(serial.getComponentCount(), parallel.getComponentCount());
+            assertArrayEquals(lowestMembers(serial), lowestMembers(parallel));
+            assertTopological(graph, parallel);
+            assertEquals(serial.getCondensation().getEdgeCount(), parallel.getCondensation().getEdgeCount());
+        }
+    }
+
+    @Test
+    void componentsMatchMutualReachability() {
+        Random random = new Random(25);
+        for (int round = 0; round < 100; round++) {
+            int size = 1 + random.nextInt(40);
+            CompactGraph graph = ParallelBFSTest.randomGraph(random, size, random.nextInt(2 * size));
+            boolean[][] reaches = reachability(graph);
+            for (ComponentResult result : new ComponentResult[] {StronglyConnectedComponents.findComponents(graph),
+                    StronglyConnectedComponents.findComponents(graph, pool)}) {
+                for (int vertex1 = 0; vertex1 < size; vertex1++) {
+                    for (int vertex2 = 0; vertex2 < size; vertex2++) {
+                        assertEquals(reaches[vertex1][vertex2] && reaches[vertex2][vertex1],
+                                result.getComponent(vertex1) == result.getComponent(vertex2));
+                    }
+                }
+                assertTopological(graph, result);
+            }
+        }
+    }
+
+    /**
+     * Generates a random directed graph
+     *
+     * @param vertexCount   the number of vertices
+     * @param edgeCount     the number of edges, before duplicates are dropped
+     * @param seed          the seed
+     * @return compact graph
+     */
+    private static CompactGraph generate(int vertexCount, long edgeCount, long seed) {
+        return new ErdosRenyiGenerator(vertexCount, edgeCount, true, 0.3, seed).addTo(new Graph()).freeze();
+    }
+
+    /**
+     * Returns the lowest vertex id in the component of every vertex, which names the components the same
+     * however they are numbered
+     *
+     * @param result    the components
+     * @return the lowest member of each vertex's component
+     */
+    private static int[] lowestMembers(ComponentResult result) {
+        int[] lowest = new int[result.getComponentCount()];
+        Arrays.fill(lowest, Integer.MAX_VALUE);
+        for (int vertex = 0; vertex < result.getSize(); vertex++) {
+            lowest[result.getComponent(vertex)] = Math.min(lowest[result.getComponent(vertex)], vertex);
+        }
+        int[] members = new int[result.getSize()];
+        for (int vertex = 0; vertex < result.getSize(); vertex++) {
+            members[vertex] = lowest[result.getComponent(vertex)];
+        }
+        return members;
+    }
+
+    /**
+     * Asserts that every edge between two components goes from a lower component id to a higher one
+     *
+     * @param graph     the compact graph
+     * @param result    its components
+     */
+    private static void assertTopological(CompactGraph graph, ComponentResult result) {
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+            for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                assertTrue(result.getComponent(vertex) <= result.getComponent(graph.getTarget(edge)));
+            }
+        }
+    }
+
+    /**
+     * Finds which vertices reach which by a DFS from every vertex
+     *
+     * @param graph     the compact graph
+     * @return reaches[u][v] is true if there is a path from u to v
+     */
+    private static boolean[][] reachability(CompactGraph graph) {
+        boolean[][] reaches = new boolean[graph.getSize()][graph.getSize()];
+        int[] stack = new int[graph.getSize()];
+        for (int source = 0; source < graph.getSize(); source++) {
+            int top = 0;
+            stack[top++] = source;
+            reaches[source][source] = true;
+            while (top > 0) {
+                int vertex = stack[--top];
+                for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                    if (!reaches[source][graph.getTarget(edge)]) {
+                        reaches[source][graph.getTarget(edge)] = true;
+                        stack[top++] = graph.getTarget(edge);
+                    }
+                }
+            }
+        }
+        return reaches;
+    }
+}
@@ -0,0 +1,120 @@
+package graphengine.algorithms;
+
+import graphengine.CompactGraph;
+import graphengine.CycleException;
+import graphengine.Graph;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks both topological sorts against a recursive cycle check, and checks every order and cycle they return
+ */
+class TopologicalSortTest {
+    @Test
+    void sortsAgreeWithCycleCheck() {
+        Random random = new Random(9);
+        for (int round = 0; round < 500; round++) {
+            Graph graph = new Graph();
+            int size = 1 + random.nextInt(20);
+            for (int vertex = 0; vertex < size; vertex++) {
+                graph.addVertex("v" + vertex);
+            }
+            for (int edge = random.nextInt(2 * size); edge > 0; edge--) {
+                int from = random.nextInt(size);
+                int to = random.nextInt(size);
+                // mostly forward edges, so about half of the graphs are DAGs
+                if (from < to || (from > to && random.nextInt(8) == 0)) {
+                    graph.addDirectedEdge("v" + from, "v" + to, 'W');
+                }
+            }
+            CompactGraph compact = graph.freeze();
+            boolean acyclic = isAcyclic(compact);
+            checkSort(compact, acyclic, () -> TopologicalSort.runTopologicalSort(graph));
+            checkSort(compact, acyclic, () -> TopologicalSort.runTopologicalSort(compact));
+        }
+    }
+
+    /**
+     * Runs a sort and checks its order, or the cycle it reports
+     *
+     * @param graph     the graph being sorted
+     * @param acyclic   whether the graph is a DAG
+     * @param sort      the sort
+     */
+    private static void checkSort(CompactGraph graph, boolean acyclic, Sort sort) {
+        try {
+            List<String> order = sort.run();
+            assertTrue(acyclic);
+            Map<String, Integer> positions = new HashMap<>();
+            for (String vertex : order) {
+                positions.put(vertex, positions.size());
+            }
+            assertEquals(graph.getSize(), positions.size());
+            for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+                for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+                    assertTrue(positions.get(graph.getLabel(vertex))
+                            < positions.get(graph.getLabel(graph.getTarget(edge))));
+                }
+            }
+        } catch (CycleException exception) {
+            assertFalse(acyclic);
+            List<String> cycle = exception.getCycle();
+            assertTrue(cycle.size() >= 3);
+            assertEquals(cycle.get(0), cycle.get(cycle.size() - 1));
+            for (int index = 1; index < cycle.size(); index++) {
+                assertTrue(graph.hasDirectedEdge(graph.getId(cycle.get(index - 1)), graph.getId(cycle.get(index))));
+            }
+        }
+    }
+
+    /**
+     * Checks a graph for cycles with a recursive three-color DFS
+     *
+     * @param graph     the compact graph
+     * @return true, if the graph is a DAG, false otherwise
+     */
+    private static boolean isAcyclic(CompactGraph graph) {
+        int[] colors = new int[graph.getSize()];
+        for (int vertex = 0; vertex < graph.getSize(); vertex++) {
+            if (colors[vertex] == 0 && hasCycleFrom(graph, vertex, colors)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks if a cycle is reachable from a vertex
+     *
+     * @param graph     the compact graph
+     * @param vertex    the vertex to search from
+     * @param colors    0 for unvisited, 1 for on the current path and 2 for finished vertices
+     * @return true, if a cycle was found, false otherwise
+     */
+    private static boolean hasCycleFrom(CompactGraph graph, int vertex, int[] colors) {
+        colors[vertex] = 1;
+        for (int edge = graph.getEdgeStart(vertex); edge < graph.getEdgeEnd(vertex); edge++) {
+            int target = graph.getTarget(edge);
+            if (colors[target] == 1 || (colors[target] == 0 && hasCycleFrom(graph, target, colors))) {
+                return true;
+            }
+        }
+        colors[vertex] = 2;
+        return false;
+    }
+
+    /**
+     * A topological sort to check
+     */
+    private interface Sort {
+        List<String> run();
+    }
+}
@@ -0,0 +1,115 @@
+package graphengine.cli;
+
+import graphengine.io.EdgeListLoader;
+import graphengine.io.GraphSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the rows and exit statuses of the headless runner
+ */
+class HeadlessRunnerTest {
+    @TempDir
+    Path directory;
+
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+    private final ByteArrayOutputStream err = new ByteArrayOutputStream();
+
+    @Test
+    void writesBFSAsTsv() throws IOException {
+        Path edges = write("a b\nb c\na d\n");
+        assertEquals(0, run("--edges", edges.toString(), "--algorithm", "bfs", "--source", "a"));
+        assertEquals("vertex\tparent\tdepth\na\t\t0\nb\ta\t1\nc\tb\t2\nd\ta\t1\n", out());
+        assertEquals("", err());
+    }
+
+    @Test
+    void writesDFSAsTsv() throws IOException {
+        Path edges = write("a b\nb c\na d\n");
+        assertEquals(0, run("--edges", edges.toString(), "--algorithm", "DFS", "--source", "a"));
+        assertEquals("vertex\tparent\tstart\tfinish\na\t\t1\t8\nb\ta\t2\t5\nc\tb\t3\t4\nd\ta\t6\t7\n", out());
+    }
+
+    @Test
+    void writesEscapedJson() throws IOException {
+        Path edges = write("q\"x b\n");
+        assertEquals(0, run("--edges", edges.toString(), "--algorithm", "topological-sort", "--format", "json"));
+        assertEquals("{\"algorithm\":\"TOPOLOGICAL_SORT\",\"results\":[\n{\"position\":0,\"vertex\":\"q\\\"x\"},\n"
+                + "{\"position\":1,\"vertex\":\"b\"}\n]}\n", out());
+    }
+
+    @Test
+    void readsSnapshotsAndWritesFiles() throws IOException {
+        Path edges = write("a b S\nb c S\n");
+        Path snapshot = directory.resolve("graph.snapshot");
+        GraphSnapshot.write(EdgeListLoader.loadCompactGraph(edges, false), snapshot);
+        Path output = directory.resolve("stc.tsv");
+        assertEquals(0, run("--snapshot", snapshot.toString(), "--algorithm", "IDENTIFY_STC",
+                "--output", output.toString()));
+        assertEquals("", out());
+        assertEquals("vertex\tstc\na\tsatisfies\nc\tsatisfies\nb\tviolates\n",
+                new String(Files.readAllBytes(output), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void badArgumentsExitWithTwo() throws IOException {
+        Path edges = write("a b\n");
+        assertEquals(2, run("--edges", edges.toString(), "--algorithm", "BFS"));
+        assertTrue(err().startsWith("--source is Required for BFS"));
+        assertTrue(err().contains("usage:"));
+        assertEquals(2, run("--edges", edges.toString(), "--algorithm", "SORT"));
+        assertEquals(2, run("--edges", edges.toString(), "--snapshot", edges.toString(), "--algorithm", "DFS"));
+        assertEquals(2, run("--edges"));
+        assertEquals("", out());
+    }
+
+    @Test
+    void failuresExitWithOne() throws IOException {
+        assertEquals(1, run("--edges", directory.resolve("missing.txt").toString(), "--algorithm", "DFS",
+                "--source", "a"));
+        Path edges = write("a b\nb a\n");
+        assertEquals(1, run("--edges", edges.toString(), "--algorithm", "BFS", "--source", "z"));
+        assertTrue(err().contains("Source Vertex Does Not Exist"));
+        assertEquals(1, run("--edges", edges.toString(), "--algorithm", "TOPOLOGICAL_SORT"));
+        assertEquals(1, run("--snapshot", edges.toString(), "--algorithm", "IDENTIFY_STC"));
+    }
+
+    /**
+     * Runs the command line, collecting what it prints
+     *
+     * @param args      the command line arguments
+     * @return the exit status
+     */
+    private int run(String... args) {
+        return HeadlessRunner.run(args, new PrintStream(out, true), new PrintStream(err, true));
+    }
+
+    private String out() {
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private String err() {
+        return new String(err.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Writes an edge list file into the temporary directory
+     *
+     * @param lines     the lines of the file
+     * @return the file
+     * @throws IOException if the file can not be written
+     */
+    private Path write(String lines) throws IOException {
+        return Files.writeString(Files.createTempFile(directory, "edges", ".txt"), lines);
+    }
+}
@@ -0,0 +1,83 @@
+package graphengine.generators;
+
+import graphengine.Graph;
+import graphengine.GraphAssert;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Checks that a seeded generator produces the same graph whatever the size of the pool that runs it
+ */
+class GraphGeneratorTest {
+    private static ForkJoinPool single;
+    private static ForkJoinPool pool;
+
+    @TempDir
+    Path directory;
+
+    @BeforeAll
+    static void startPools() {
+        single = new ForkJoinPool(1);
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterAll
+    static void stopPools() {
+        single.shutdown();
+        pool.shutdown();
+    }
+
+    @Test
+    void erdosRenyiIsDeterministic() throws IOException {
+        assertDeterministic(new ErdosRenyiGenerator(5000, 3 * GraphGenerator.BLOCK_SIZE + 17, true, 0.3, 1));
+        assertDeterministic(new ErdosRenyiGenerator(5000, 3 * GraphGenerator.BLOCK_SIZE + 17, false, 0.3, 1));
+    }
+
+    @Test
+    void rMatIsDeterministic() throws IOException {
+        assertDeterministic(new RMatGenerator(13, 24, 0.5, 2));
+    }
+
+    @Test
+    void barabasiAlbertIsDeterministic() throws IOException {
+        assertDeterministic(new BarabasiAlbertGenerator(50000, 4, 0.5, 3));
+    }
+
+    @Test
+    void layeredDagIsDeterministic() throws IOException {
+        assertDeterministic(new LayeredDagGenerator(50, 1000, 4, 3, 0.5, 4));
+    }
+
+    @Test
+    void socialGraphIsDeterministic() throws IOException {
+        assertDeterministic(new SocialGraphGenerator(50000, 50, 4, 0.1, 0.5, 5));
+    }
+
+    /**
+     * Asserts that a generator writes the same file and builds the same graph on one thread and on four
+     *
+     * @param generator     the generator
+     * @throws IOException if the edge lists can not be written
+     */
+    private void assertDeterministic(GraphGenerator generator) throws IOException {
+        Path first = directory.resolve("single.txt");
+        Path second = directory.resolve("pool.txt");
+        generator.writeEdgeList(first, single);
+        generator.writeEdgeList(second, pool);
+        assertArrayEquals(Files.readAllBytes(first), Files.readAllBytes(second));
+
+        Graph expected = generator.addTo(new Graph(), single);
+        assertFalse(expected.getVertices().isEmpty());
+        GraphAssert.assertSameGraph(expected, generator.addTo(new Graph(), pool));
+    }
+}
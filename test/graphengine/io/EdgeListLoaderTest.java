@@ -0,0 +1,105 @@
+package graphengine.io;
+
+import graphengine.CompactGraph;
+import graphengine.GraphAssert;
+import graphengine.generators.ErdosRenyiGenerator;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that loadGraph and loadCompactGraph build the same graph from the same edge list
+ */
+class EdgeListLoaderTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void duplicateEdgesKeepTheirFirstTie() throws IOException {
+        Path file = write("a b W\nb a S\nc d W\nc d S\n");
+        CompactGraph undirected = EdgeListLoader.loadCompactGraph(file, false);
+        GraphAssert.assertSameGraph(EdgeListLoader.loadGraph(file, false).freeze(), undirected);
+        assertEquals(Character.valueOf('W'), GraphAssert.edges(undirected).get("b -> a"));
+        assertEquals(Character.valueOf('W'), GraphAssert.edges(undirected).get("d -> c"));
+
+        CompactGraph directed = EdgeListLoader.loadCompactGraph(file, true);
+        GraphAssert.assertSameGraph(EdgeListLoader.loadGraph(file, true).freeze(), directed);
+        assertEquals(Character.valueOf('W'), GraphAssert.edges(directed).get("c -> d"));
+        assertEquals(Character.valueOf('S'), GraphAssert.edges(directed).get("b -> a"));
+    }
+
+    @Test
+    void randomEdgeListsLoadTheSame() throws IOException {
+        Random random = new Random(6);
+        for (int round = 0; round < 100; round++) {
+            StringBuilder lines = new StringBuilder("# a random edge list\n");
+            for (int line = 0; line < 60; line++) {
+                int vertex1 = random.nextInt(10);
+                int vertex2 = random.nextInt(10);
+                if (vertex1 == vertex2) {
+                    lines.append('\n');
+                    continue;
+                }
+                lines.append('v').append(vertex1).append(" v").append(vertex2);
+                int tieStrength = random.nextInt(3);
+                lines.append(tieStrength == 0 ? " S\n" : tieStrength == 1 ? " W\n" : "\n");
+            }
+            Path file = write(lines.toString());
+            for (boolean directed : new boolean[] {true, false}) {
+                GraphAssert.assertSameGraph(EdgeListLoader.loadGraph(file, directed).freeze(),
+                        EdgeListLoader.loadCompactGraph(file, directed));
+            }
+        }
+    }
+
+    @Test
+    void generatedEdgeListsLoadTheSame() throws IOException {
+        for (boolean directed : new boolean[] {true, false}) {
+            Path file = directory.resolve(directed ? "directed.txt" : "undirected.txt");
+            new ErdosRenyiGenerator(2000, 20000, directed, 0.3, 7).writeEdgeList(file);
+            GraphAssert.assertSameGraph(EdgeListLoader.loadGraph(file, directed).freeze(),
+                    EdgeListLoader.loadCompactGraph(file, directed));
+        }
+    }
+
+    @Test
+    void labelsKeepTheirFirstAppearance() throws IOException {
+        EdgeList edges = EdgeListLoader.parse(write("c a S\n\n# comment\na b\nb c W\n"));
+        assertEquals(3, edges.getVertexCount());
+        assertEquals(3, edges.getEdgeCount());
+        assertEquals("c", edges.getLabel(edges.getSource(0)));
+        assertEquals("b", edges.getLabel(edges.getTarget(1)));
+        assertTrue(edges.isStrongTie(0));
+        assertFalse(edges.isStrongTie(2));
+    }
+
+    @Test
+    void undirectedEdgeListTooLargeForBothDirections() {
+        // the check comes before any edge is read, so the arrays can stay empty
+        EdgeList edges = new EdgeList(new String[0], new int[0], new int[0], new long[0],
+                (Integer.MAX_VALUE - 63) / 2 + 1);
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> edges.toCompactGraph(false));
+        assertEquals("Edge List Has Too Many Edges for an Undirected Graph", exception.getMessage());
+    }
+
+    /**
+     * Writes an edge list file into the temporary directory
+     *
+     * @param lines     the lines of the file
+     * @return the file
+     * @throws IOException if the file can not be written
+     */
+    private Path write(String lines) throws IOException {
+        return Files.writeString(Files.createTempFile(directory, "edges", ".txt"), lines);
+    }
+}
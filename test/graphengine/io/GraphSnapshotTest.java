@@ -0,0 +1,97 @@
+package graphengine.io;
+
+import graphengine.CompactGraph;
+import graphengine.Graph;
+import graphengine.GraphAssert;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Checks that a snapshot opens as the graph it was written from
+ */
+class GraphSnapshotTest {
+    // the tie strengths the edges use, including ones that are neither strong nor weak
+    private static final Character[] TIE_STRENGTHS = {'S', 'W', null, 'X'};
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void randomGraphsRoundTrip() throws IOException {
+        Random random = new Random(3);
+        for (int round = 0; round < 50; round++) {
+            Graph graph = new Graph();
+            int size = random.nextInt(200);
+            for (int vertex = 0; vertex < size; vertex++) {
+                // labels outside ASCII check that the dictionary compares encoded bytes
+                graph.addVertex(random.nextBoolean() ? "v" + vertex : "é中" + vertex);
+            }
+            String[] labels = graph.getVertices().toArray(new String[0]);
+            for (int edge = size == 0 ? 0 : random.nextInt(4 * size); edge > 0; edge--) {
+                String vertex1 = labels[random.nextInt(size)];
+                String vertex2 = labels[random.nextInt(size)];
+                if (!vertex1.equals(vertex2)) {
+                    graph.addDirectedEdge(vertex1, vertex2, TIE_STRENGTHS[random.nextInt(TIE_STRENGTHS.length)]);
+                }
+            }
+            Path file = directory.resolve("graph" + round + ".snapshot");
+            GraphSnapshot.write(graph, file);
+
+            CompactGraph opened = GraphSnapshot.open(file);
+            GraphAssert.assertSameGraph(graph.freeze(), opened);
+            for (int vertex = 0; vertex < opened.getSize(); vertex++) {
+                assertEquals(vertex, opened.getId(opened.getLabel(vertex)));
+            }
+            assertEquals(-1, opened.getId("missing"));
+            GraphAssert.assertSameGraph(graph, GraphSnapshot.load(file));
+        }
+    }
+
+    @Test
+    void opensVersionOneFiles() throws IOException {
+        Path file = directory.resolve("graph.snapshot");
+        Graph graph = new Graph();
+        graph.addUndirectedEdge("a", "b", 'S');
+        graph.addDirectedEdge("b", "c", 'W');
+        GraphSnapshot.write(graph, file);
+
+        // without ties other than 'S' and 'W' the two versions only differ in the version number
+        ByteBuffer bytes = ByteBuffer.wrap(Files.readAllBytes(file)).order(ByteOrder.LITTLE_ENDIAN);
+        assertEquals(2, bytes.getInt(8));
+        bytes.putInt(8, 1);
+        Files.write(file, bytes.array());
+        GraphAssert.assertSameGraph(graph, GraphSnapshot.load(file));
+
+        bytes.putInt(8, 3);
+        Files.write(file, bytes.array());
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file));
+    }
+
+    @Test
+    void rejectsOtherFiles() throws IOException {
+        Path file = directory.resolve("graph.snapshot");
+        Graph graph = new Graph();
+        graph.addUndirectedEdge("a", "b", 'S');
+        GraphSnapshot.write(graph, file);
+        byte[] bytes = Files.readAllBytes(file);
+
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 8));
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file));
+        bytes[0] ^= 1;
+        Files.write(file, bytes);
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file));
+        Files.write(file, new byte[10]);
+        assertThrows(IllegalArgumentException.class, () -> GraphSnapshot.open(file));
+    }
+}